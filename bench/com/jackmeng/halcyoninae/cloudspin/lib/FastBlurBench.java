@@ -0,0 +1,265 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.cloudspin.lib;
+
+import com.jackmeng.halcyoninae.cloudspin.SpeedStyle;
+import com.twelvemonkeys.image.ConvolveWithEdgeOp;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.Kernel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A small benchmark of {@link FastBlur} and the BlurHash cosine tables
+ * against the blurs they replaced, and of the {@link Blur} implementations
+ * that are built on them.
+ * <p>
+ * It is not part of the build, compile it against the compiled sources and
+ * run it with {@code java com.jackmeng.halcyoninae.cloudspin.lib.FastBlurBench [width] [height] [radius]}.
+ * Every implementation is warmed up before it is measured and the results are
+ * checked against the old implementation.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class FastBlurBench {
+    private static volatile int sink;
+
+    private FastBlurBench() {}
+
+    /**
+     * The {@code GENERAL} box blur as it was done before {@link FastBlur}:
+     * every pixel of the window is sampled through a {@link Color}.
+     *
+     * @param image
+     * @param _x
+     * @param _y
+     * @return BufferedImage
+     */
+    private static BufferedImage legacy_box(BufferedImage image, int _x, int _y) {
+        BufferedImage mod = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        for (int row = 0; row < image.getHeight(); row++) {
+            for (int col = 0; col < image.getWidth(); col++) {
+                int x = col - _x;
+                int y = row - _y;
+                int count = 0;
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                for (int i = 0; i < _x * 2 + 1; i++) {
+                    for (int j = 0; j < _y * 2 + 1; j++) {
+                        if (x + i < 0 || x + i >= image.getWidth() || y + j < 0 || y + j >= image.getHeight()) {
+                            continue;
+                        }
+                        Color c = new Color(image.getRGB(x + i, y + j));
+                        r += c.getRed();
+                        g += c.getGreen();
+                        b += c.getBlue();
+                        count++;
+                    }
+                }
+                Color c = new Color(r / count, g / count, b / count);
+                mod.setRGB(col, row, c.getRGB());
+            }
+        }
+        return mod;
+    }
+
+    /**
+     * The BlurHash round trip with the cosines evaluated per pixel.
+     *
+     * @param pixels
+     * @param w
+     * @param h
+     * @param cx
+     * @param cy
+     * @return int[]
+     */
+    private static int[] legacy_blurhash(int[] pixels, int w, int h, int cx, int cy) {
+        double[][] factors = new double[cx * cy][3];
+        for (int j = 0; j < cy; j++) {
+            for (int i = 0; i < cx; i++) {
+                double normalisation = (i == 0 && j == 0) ? 1 : 2;
+                double r = 0, g = 0, b = 0;
+                for (int x = 0; x < w; x++) {
+                    for (int y = 0; y < h; y++) {
+                        double basis = normalisation * Math.cos((Math.PI * i * x) / w)
+                                * Math.cos((Math.PI * j * y) / h);
+                        int pixel = pixels[y * w + x];
+                        r += basis * BlurHashChild.to_linear((pixel >> 16) & 0xff);
+                        g += basis * BlurHashChild.to_linear((pixel >> 8) & 0xff);
+                        b += basis * BlurHashChild.to_linear(pixel & 0xff);
+                    }
+                }
+                factors[j * cx + i][0] = r / (w * h);
+                factors[j * cx + i][1] = g / (w * h);
+                factors[j * cx + i][2] = b / (w * h);
+            }
+        }
+        int[] out = new int[w * h];
+        for (int j = 0, pos = 0; j < h; j++) {
+            for (int i = 0; i < w; i++) {
+                double r = 0, g = 0, b = 0;
+                for (int y = 0; y < cy; y++) {
+                    for (int x = 0; x < cx; x++) {
+                        double basic = Math.cos(Math.PI * x * i / w) * Math.cos(Math.PI * y * j / h);
+                        double[] color = factors[x + y * cx];
+                        r += color[0] * basic;
+                        g += color[1] * basic;
+                        b += color[2] * basic;
+                    }
+                }
+                out[pos++] = BlurHashChild._as_linear(r) << 16 | BlurHashChild._as_linear(g) << 8
+                        | BlurHashChild._as_linear(b);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * @param a
+     * @param b
+     * @return int The biggest difference of a single channel
+     */
+    private static int maxDiff(BufferedImage a, BufferedImage b) {
+        int d = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y), q = b.getRGB(x, y);
+                for (int s = 0; s < 24; s += 8) {
+                    d = Math.max(d, Math.abs(((p >> s) & 0xFF) - ((q >> s) & 0xFF)));
+                }
+            }
+        }
+        return d;
+    }
+
+    /**
+     * @param name
+     * @param rounds
+     * @param r
+     * @return double The average time in milliseconds
+     */
+    private static double time(String name, int rounds, Runnable r) {
+        for (int i = 0; i < Math.max(1, rounds / 4); i++) {
+            r.run();
+        }
+        long t = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            r.run();
+        }
+        double ms = (System.nanoTime() - t) / 1e6D / rounds;
+        System.out.printf("%-36s %10.3f ms%n", name, ms);
+        return ms;
+    }
+
+    /**
+     * @param args [width] [height] [radius]
+     */
+    public static void main(String[] args) {
+        int w = args.length > 0 ? Integer.parseInt(args[0]) : 800;
+        int h = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int radius = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        Random rnd = new Random(7L);
+        BufferedImage src = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) {
+            for (int x = 0; x < w; x++) {
+                src.setRGB(x, y, rnd.nextInt(0xFFFFFF));
+            }
+        }
+        BufferedImage pre = FastBlur.copy(src);
+        int[] px = FastBlur.pixels(pre), work = new int[px.length];
+        int size = radius * 2 + 1;
+
+        BufferedImage fast = new BoxBlur().blur(src, radius, radius, SpeedStyle.GENERAL);
+        System.out.println("box (shrink) vs legacy GENERAL, max channel diff: "
+                + maxDiff(legacy_box(src, radius, radius), fast));
+        float[] m = new float[size * size];
+        Arrays.fill(m, 1F / (size * size));
+        ConvolveWithEdgeOp op = new ConvolveWithEdgeOp(new Kernel(size, size, m), ConvolveWithEdgeOp.EDGE_WRAP, null);
+        System.arraycopy(px, 0, work, 0, px.length);
+        FastBlur.box(work, w, h, size, size, ConvolveWithEdgeOp.EDGE_WRAP);
+        BufferedImage wrapped = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        System.arraycopy(work, 0, FastBlur.pixels(wrapped), 0, work.length);
+        System.out.println("box (wrap) vs ConvolveWithEdgeOp, max channel diff: "
+                + maxDiff(op.filter(pre, null), wrapped));
+        int bw = Math.min(w, 96), bh = Math.min(h, 96);
+        int[] small = src.getRGB(0, 0, bw, bh, null, 0, bw);
+        int[] a = legacy_blurhash(small, bw, bh, 4, 3);
+        int[] b = BlurHashChild.dec(BlurHashChild.enc(small, bw, bh, 4, 3), bw, bh, 1D);
+        int bd = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int s = 0; s < 24; s += 8) {
+                bd = Math.max(bd, Math.abs(((a[i] >> s) & 0xFF) - ((b[i] >> s) & 0xFF)));
+            }
+        }
+        System.out.println("blurhash vs legacy (without quantization), max channel diff: " + bd);
+        System.out.println();
+
+        System.out.println(w + "x" + h + ", radius " + radius + ", " + ForkJoinPool.getCommonPoolParallelism()
+                + " workers");
+        double legacy = time("legacy GENERAL box", 3, () -> sink += legacy_box(src, radius, radius).getRGB(0, 0));
+        double convolve = time("ConvolveWithEdgeOp box", 10, () -> sink += op.filter(pre, null).getRGB(0, 0));
+        double box = time("FastBlur.box", 200, () -> {
+            System.arraycopy(px, 0, work, 0, px.length);
+            FastBlur.box(work, w, h, size, size, ConvolveWithEdgeOp.EDGE_WRAP);
+            sink += work[0];
+        });
+        time("FastBlur.gaussian (sigma = radius)", 200, () -> {
+            System.arraycopy(px, 0, work, 0, px.length);
+            FastBlur.gaussian(work, w, h, radius, radius, FastBlur.EDGE_SHRINK);
+            sink += work[0];
+        });
+        Blur boxBlur = new BoxBlur();
+        time("BoxBlur GENERAL", 200,
+                () -> sink += boxBlur.blur(src, radius, radius, SpeedStyle.GENERAL).getRGB(0, 0));
+        time("BoxBlur SPEED", 200,
+                () -> sink += boxBlur.blur(src, radius, radius, SpeedStyle.SPEED, size).getRGB(0, 0));
+        double hashLegacy = time("legacy BlurHash " + bw + "x" + bh, 20,
+                () -> sink += legacy_blurhash(small, bw, bh, 4, 3)[0]);
+        double hash = time("BlurHash " + bw + "x" + bh, 20,
+                () -> sink += BlurHashChild.dec(BlurHashChild.enc(small, bw, bh, 4, 3), bw, bh, 1D)[0]);
+        System.out.printf("%nbox x%.1f vs legacy, x%.1f vs convolve; blurhash x%.1f%n", legacy / box, convolve / box,
+                hashLegacy / hash);
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.Random;
+
+/**
+ * A small benchmark of the PCM kernels and window tables in
+ * {@link TailwindMath} against the multi pass unpacking of {@code f_unpack}
+ * and the per sample sine of {@code window_func} they replaced.
+ * <p>
+ * It is not part of the build, compile it against the compiled sources and
+ * run it with {@code java com.jackmeng.halcyoninae.tailwind.TailwindMathBench [frames] [rounds]}.
+ * Every format is warmed up before it is measured and the results are
+ * checked against the old implementation.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class TailwindMathBench {
+    private static volatile float sink;
+
+    private TailwindMathBench() {}
+
+    /**
+     * The unpacking as it was done before the kernels: one pass per byte
+     * into a transfer buffer, then a pass for the sign and one for the scale.
+     *
+     * @param buffer
+     * @param transfer
+     * @param cum
+     * @param b_
+     * @param format
+     */
+    private static void legacy_unpack(byte[] buffer, long[] transfer, float[] cum, int b_, AudioFormat format) {
+        int bps = format.getSampleSizeInBits();
+        int nb = TailwindMath.normalize(bps);
+        int n = b_ / nb;
+        for (int i = 0, k = 0, j; i < b_; i += nb, k++) {
+            transfer[k] = 0L;
+            for (j = 0; j < nb; j++) {
+                transfer[k] |= (buffer[format.isBigEndian() ? i + nb - 1 - j : i + j] & 0xFFL) << (8 * j);
+            }
+        }
+        long scale = (long) Math.pow(2L, bps - 1d);
+        if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED) {
+            long shift = 64L - bps;
+            for (int i = 0; i < n; i++)
+                transfer[i] = ((transfer[i] << shift) >> shift);
+        } else {
+            for (int i = 0; i < n; i++) {
+                transfer[i] -= scale;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            cum[i] = ((float) transfer[i]) / scale;
+        }
+    }
+
+    /**
+     * The window as it was done before the tables: a sine for every sample.
+     *
+     * @param cum
+     * @param s_
+     * @param format
+     */
+    private static void legacy_window_func(float[] cum, int s_, AudioFormat format) {
+        int chnls = format.getChannels();
+        int len = s_ / chnls;
+
+        for (int i = 0, k, j; i < chnls; i++) {
+            for (j = i, k = 0; j < s_; j += chnls) {
+                cum[j] *= Math.sin(Math.PI * (k++) / (len - 1));
+            }
+        }
+    }
+
+    /**
+     * @param args [frames per buffer] [rounds]
+     */
+    public static void main(String[] args) {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 4096;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+        AudioFormat[] formats = {
+                new AudioFormat(44100F, 16, 2, true, false),
+                new AudioFormat(44100F, 16, 2, true, true),
+                new AudioFormat(44100F, 24, 2, true, false),
+                new AudioFormat(44100F, 32, 2, true, false),
+                new AudioFormat(44100F, 8, 2, false, false)
+        };
+        Random r = new Random(7L);
+        for (AudioFormat f : formats) {
+            int n = frames * f.getChannels();
+            byte[] pcm = new byte[n * TailwindMath.normalize(f.getSampleSizeInBits())];
+            r.nextBytes(pcm);
+            float[] a = new float[n], b = new float[n];
+            long[] transfer = new long[n];
+            legacy_unpack(pcm, transfer, a, pcm.length, f);
+            TailwindMath.unpack(pcm, 0, pcm.length, b, 0, f);
+            for (int i = 0; i < n; i++) {
+                if (a[i] != b[i]) {
+                    throw new IllegalStateException("Mismatch for " + f + " at " + i + ": " + a[i] + " != " + b[i]);
+                }
+            }
+            for (int i = 0; i < rounds / 4; i++) {
+                legacy_unpack(pcm, transfer, a, pcm.length, f);
+                TailwindMath.unpack(pcm, 0, pcm.length, b, 0, f);
+                TailwindMath.pack(b, 0, n, pcm, 0, f);
+            }
+            long t = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                legacy_unpack(pcm, transfer, a, pcm.length, f);
+            }
+            long legacy = System.nanoTime() - t;
+            t = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                TailwindMath.unpack(pcm, 0, pcm.length, b, 0, f);
+            }
+            long unpack = System.nanoTime() - t;
+            t = System.nanoTime();
+            for (int i = 0; i < rounds; i++) {
+                TailwindMath.pack(b, 0, n, pcm, 0, f);
+            }
+            long pack = System.nanoTime() - t;
+            sink += a[n - 1] + b[n - 1];
+            System.out.printf("%-40s legacy %8.2f us  unpack %8.2f us  pack %8.2f us  (x%.1f)%n", f,
+                    legacy / 1000D / rounds, unpack / 1000D / rounds, pack / 1000D / rounds,
+                    legacy / (double) Math.max(1L, unpack));
+        }
+        window(frames, rounds, r);
+    }
+
+    /**
+     * @param frames
+     * @param rounds
+     * @param r
+     */
+    private static void window(int frames, int rounds, Random r) {
+        AudioFormat f = new AudioFormat(44100F, 16, 2, true, false);
+        int n = frames * f.getChannels();
+        float[] src = new float[n], a = new float[n], b = new float[n];
+        for (int i = 0; i < n; i++) {
+            src[i] = r.nextFloat() * 2F - 1F;
+        }
+        System.arraycopy(src, 0, a, 0, n);
+        System.arraycopy(src, 0, b, 0, n);
+        legacy_window_func(a, n, f);
+        TailwindMath.window_func(b, n, f);
+        for (int i = 0; i < n; i++) {
+            if (Math.abs(a[i] - b[i]) > 1E-6F) {
+                throw new IllegalStateException("Window mismatch at " + i + ": " + a[i] + " != " + b[i]);
+            }
+        }
+        for (int i = 0; i < rounds / 4; i++) {
+            System.arraycopy(src, 0, a, 0, n);
+            legacy_window_func(a, n, f);
+            System.arraycopy(src, 0, b, 0, n);
+            TailwindMath.window_func(b, n, f);
+        }
+        long t = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            System.arraycopy(src, 0, a, 0, n);
+            legacy_window_func(a, n, f);
+        }
+        long legacy = System.nanoTime() - t;
+        t = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            System.arraycopy(src, 0, b, 0, n);
+            TailwindMath.window_func(b, n, f);
+        }
+        long table = System.nanoTime() - t;
+        sink += a[n / 2] + b[n / 2];
+        System.out.printf("%-40s legacy %8.2f us  table  %8.2f us  (x%.1f)%n", "window_func " + frames + " frames",
+                legacy / 1000D / rounds, table / 1000D / rounds, legacy / (double) Math.max(1L, table));
+    }
+}
@@ -41,23 +41,260 @@ package com.jackmeng.halcyoninae.cloudspin.lib;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A class that handles fast accent color gathering from an image
+ * <p>
+ * The image is drawn into a small thumbnail first and every pixel of it is
+ * counted into a histogram with 5 bits per channel. The palette is then
+ * found by median cut over the histogram (and not the pixels), so the cost
+ * does not depend on the size of the artwork.
  *
  * @author Jack Meng
  * @since 3.4.1
  */
 public final class AccentColor {
-  private AccentColor() {}
+    /**
+     * The width and height the image is sampled at
+     */
+    public static final int SAMPLE_SIZE = 64;
+    /**
+     * The amount of colors {@link #getColorPalette(BufferedImage)} returns at most
+     */
+    public static final int DEFAULT_COLORS = 6;
+    private static final int BITS = 5, SHIFT = 8 - BITS, SIDE = 1 << BITS;
 
-  public static Color getAccentColor(BufferedImage img) {
+    private AccentColor() {}
 
+    /**
+     * Picks the color that stands out the most: a color that is common, but
+     * also saturated and neither too dark nor too light. Falls back to the
+     * most common color for images without such a color.
+     *
+     * @param img The image
+     * @return Color The accent color, black if there is no image
+     */
+    public static Color getAccentColor(BufferedImage img) {
+        return accentOf(getColorPalette(img));
+    }
 
-    return Color.BLACK;
-  }
+    /**
+     * @param palette A palette from {@link #getColorPalette(BufferedImage, int)}
+     * @return Color The accent color of the palette, black if it is empty
+     */
+    public static Color accentOf(int[][] palette) {
+        if (palette == null || palette.length == 0) {
+            return Color.BLACK;
+        }
+        int[] best = palette[0];
+        double bestScore = -1D;
+        float[] hsb = new float[3];
+        for (int[] c : palette) {
+            Color.RGBtoHSB(c[0], c[1], c[2], hsb);
+            if (hsb[2] < 0.15F || hsb[2] > 0.95F && hsb[1] < 0.1F) {
+                continue;
+            }
+            // 1 - |2v - 1| favours mid brightness
+            double score = Math.sqrt(c[3]) * (0.2D + hsb[1]) * (1D - Math.abs(2D * hsb[2] - 1D) * 0.5D);
+            if (score > bestScore) {
+                bestScore = score;
+                best = c;
+            }
+        }
+        return new Color(best[0], best[1], best[2]);
+    }
 
-  public static int[][] getColorPalette(BufferedImage img) {
-  return (int[][]) null;
-  }
+    /**
+     * @param img The image
+     * @return int[][] See {@link #getColorPalette(BufferedImage, int)}
+     */
+    public static int[][] getColorPalette(BufferedImage img) {
+        return getColorPalette(img, DEFAULT_COLORS);
+    }
+
+    /**
+     * @param img    The image
+     * @param colors The amount of colors to find at most
+     * @return int[][] The colors as {r, g, b, population}, most common first;
+     *         empty if there is no image
+     */
+    public static int[][] getColorPalette(BufferedImage img, int colors) {
+        if (img == null || colors <= 0) {
+            return new int[0][];
+        }
+        int[] px = sample(img);
+        int[] histogram = new int[SIDE * SIDE * SIDE];
+        for (int p : px) {
+            if ((p >>> 24) < 128) {
+                continue;
+            }
+            histogram[index((p >> 16 & 0xFF) >> SHIFT, (p >> 8 & 0xFF) >> SHIFT, (p & 0xFF) >> SHIFT)]++;
+        }
+        Box first = new Box(histogram, 0, SIDE - 1, 0, SIDE - 1, 0, SIDE - 1);
+        if (first.count == 0) {
+            return new int[0][];
+        }
+        List<Box> boxes = new ArrayList<>();
+        boxes.add(first);
+        while (boxes.size() < colors) {
+            // split the box with the most pixels that can still be split, the
+            // volume makes big boxes of a few colors split before small busy ones
+            Box widest = null;
+            for (Box b : boxes) {
+                if (b.splittable() && (widest == null || b.priority() > widest.priority())) {
+                    widest = b;
+                }
+            }
+            if (widest == null) {
+                break;
+            }
+            boxes.remove(widest);
+            boxes.addAll(widest.split());
+        }
+        boxes.sort((a, b) -> Integer.compare(b.count, a.count));
+        int[][] r = new int[boxes.size()][];
+        for (int i = 0; i < r.length; i++) {
+            r[i] = boxes.get(i).average();
+        }
+        return r;
+    }
+
+    /**
+     * @param img The image
+     * @return int[] The pixels of the image scaled down to at most
+     *         {@link #SAMPLE_SIZE} by {@link #SAMPLE_SIZE}
+     */
+    private static int[] sample(BufferedImage img) {
+        int w = Math.min(SAMPLE_SIZE, img.getWidth()), h = Math.min(SAMPLE_SIZE, img.getHeight());
+        BufferedImage small = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = small.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(img, 0, 0, w, h, null);
+        g.dispose();
+        return FastBlur.pixels(small);
+    }
+
+    /**
+     * @param r
+     * @param g
+     * @param b
+     * @return int The index of the quantized color in the histogram
+     */
+    private static int index(int r, int g, int b) {
+        return (r << (2 * BITS)) | (g << BITS) | b;
+    }
+
+    /**
+     * A box of quantized colors in the histogram.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    private static final class Box {
+        private final int[] histogram;
+        private final int r0, r1, g0, g1, b0, b1;
+        private final int count;
+
+        Box(int[] histogram, int r0, int r1, int g0, int g1, int b0, int b1) {
+            this.histogram = histogram;
+            this.r0 = r0;
+            this.r1 = r1;
+            this.g0 = g0;
+            this.g1 = g1;
+            this.b0 = b0;
+            this.b1 = b1;
+            int c = 0;
+            for (int r = r0; r <= r1; r++) {
+                for (int g = g0; g <= g1; g++) {
+                    for (int b = b0; b <= b1; b++) {
+                        c += histogram[index(r, g, b)];
+                    }
+                }
+            }
+            this.count = c;
+        }
+
+        boolean splittable() {
+            return count > 1 && (r1 > r0 || g1 > g0 || b1 > b0);
+        }
+
+        double priority() {
+            return (double) count * (r1 - r0 + 1) * (g1 - g0 + 1) * (b1 - b0 + 1);
+        }
+
+        /**
+         * Cuts the box along its longest side where half of its pixels are
+         * on either side.
+         *
+         * @return List The two halves
+         */
+        List<Box> split() {
+            int rl = r1 - r0, gl = g1 - g0, bl = b1 - b0;
+            int axis = rl >= gl && rl >= bl ? 0 : gl >= bl ? 1 : 2;
+            int lo = axis == 0 ? r0 : axis == 1 ? g0 : b0, hi = axis == 0 ? r1 : axis == 1 ? g1 : b1;
+            int seen = 0, cut = lo;
+            for (int v = lo; v < hi; v++) {
+                seen += slice(axis, v);
+                cut = v;
+                if (seen * 2 >= count) {
+                    break;
+                }
+            }
+            List<Box> r = new ArrayList<>(2);
+            switch (axis) {
+                case 0 -> {
+                    r.add(new Box(histogram, r0, cut, g0, g1, b0, b1));
+                    r.add(new Box(histogram, cut + 1, r1, g0, g1, b0, b1));
+                }
+                case 1 -> {
+                    r.add(new Box(histogram, r0, r1, g0, cut, b0, b1));
+                    r.add(new Box(histogram, r0, r1, cut + 1, g1, b0, b1));
+                }
+                default -> {
+                    r.add(new Box(histogram, r0, r1, g0, g1, b0, cut));
+                    r.add(new Box(histogram, r0, r1, g0, g1, cut + 1, b1));
+                }
+            }
+            r.removeIf(x -> x.count == 0);
+            return r;
+        }
+
+        /**
+         * @param axis 0 (red), 1 (green) or 2 (blue)
+         * @param v    The value on that axis
+         * @return int The amount of pixels in the slice of the box at v
+         */
+        private int slice(int axis, int v) {
+            int c = 0;
+            for (int r = axis == 0 ? v : r0; r <= (axis == 0 ? v : r1); r++) {
+                for (int g = axis == 1 ? v : g0; g <= (axis == 1 ? v : g1); g++) {
+                    for (int b = axis == 2 ? v : b0; b <= (axis == 2 ? v : b1); b++) {
+                        c += histogram[index(r, g, b)];
+                    }
+                }
+            }
+            return c;
+        }
+
+        /**
+         * @return int[] {r, g, b, population} of the box
+         */
+        int[] average() {
+            long rs = 0, gs = 0, bs = 0;
+            int half = 1 << (SHIFT - 1);
+            for (int r = r0; r <= r1; r++) {
+                for (int g = g0; g <= g1; g++) {
+                    for (int b = b0; b <= b1; b++) {
+                        int c = histogram[index(r, g, b)];
+                        rs += (long) c * ((r << SHIFT) + half);
+                        gs += (long) c * ((g << SHIFT) + half);
+                        bs += (long) c * ((b << SHIFT) + half);
+                    }
+                }
+            }
+            return new int[] { (int) (rs / count), (int) (gs / count), (int) (bs / count), count };
+        }
+    }
 }
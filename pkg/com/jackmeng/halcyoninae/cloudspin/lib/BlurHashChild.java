@@ -109,6 +109,24 @@ public final class BlurHashChild {
         return _l < 0 ? 0 : (_l >= 256 ? 255 : _l);
     }
 
+    /**
+     * Precomputes the cosine basis so that it is not evaluated per pixel.
+     *
+     * @param components The amount of components
+     * @param size       The width or height of the image
+     * @return double[][] cos(PI * component * position / size) indexed by
+     *         component and then position
+     */
+    static double[][] cosines(int components, int size) {
+        double[][] r = new double[components][size];
+        for (int c = 0; c < components; c++) {
+            for (int p = 0; p < size; p++) {
+                r[c][p] = Math.cos((Math.PI * c * p) / size);
+            }
+        }
+        return r;
+    }
+
     /**
      * Encodes the given values into a BlurHash
      *
@@ -121,16 +139,17 @@ public final class BlurHashChild {
      */
     public static String enc(int[] pixels, int width, int height, int componentX, int componentY) {
         double[][] factors = new double[componentX * componentY][3];
+        double[][] cosX = cosines(componentX, width), cosY = cosines(componentY, height);
         for (int j = 0; j < componentY; j++) {
             for (int i = 0; i < componentX; i++) {
                 double normalisation = (i == 0 && j == 0) ? 1 : 2;
                 double r = 0, g = 0, b = 0;
-                for (int x = 0; x < width; x++) {
-                    for (int y = 0; y < height; y++) {
-                        double basis = normalisation
-                            * Math.cos((Math.PI * i * x) / width)
-                            * Math.cos((Math.PI * j * y) / height);
-                        int pixel = pixels[y * width + x];
+                double[] cx = cosX[i];
+                for (int y = 0; y < height; y++) {
+                    double cy = normalisation * cosY[j][y];
+                    for (int x = 0, p = y * width; x < width; x++, p++) {
+                        double basis = cy * cx[x];
+                        int pixel = pixels[p];
                         r += basis * to_linear((pixel >> 16) & 0xff);
                         g += basis * to_linear((pixel >> 8) & 0xff);
                         b += basis * to_linear(pixel & 0xff);
@@ -198,14 +217,15 @@ public final class BlurHashChild {
             base_83.decodeAC(blurHash.substring(4 + i * 2, 6 + i * 2), rmV, colors[i]);
         }
         int[] pixels = new int[width * height];
+        double[][] cosX = cosines(sizeX, width), cosY = cosines(sizeY, height);
         int pos = 0;
         for (int j = 0; j < height; j++) {
             for (int i = 0; i < width; i++) {
                 double r = 0, g = 0, b = 0;
                 for (int y = 0; y < sizeY; y++) {
+                    double cy = cosY[y][j];
                     for (int x = 0; x < sizeX; x++) {
-                        double basic = Math.cos(Math.PI * x * i / width) *
-                            Math.cos(Math.PI * y * j / height);
+                        double basic = cosX[x][i] * cy;
                         double[] color = colors[x + y * sizeX];
                         r += (color[0] * basic);
                         g += (color[1] * basic);
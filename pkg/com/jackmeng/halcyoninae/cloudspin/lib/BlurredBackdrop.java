@@ -0,0 +1,227 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.cloudspin.lib;
+
+import com.twelvemonkeys.image.ConvolveWithEdgeOp;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * A blurred backdrop that is only computed when its artwork, its size or its
+ * blur changes, so painting it costs a single blit.
+ * <p>
+ * The blur is a box blur of the same size as the one {@link StdBlurLayer}
+ * used to run on every paint, done by {@link FastBlur}.
+ * <p>
+ * A frame can be prepared on any thread with {@link #prepare(BufferedImage)}
+ * and then shown with {@link #show(Frame)}; if the size or the blur changed
+ * in the meantime {@link #get(GraphicsConfiguration, int, int)} recomputes it.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class BlurredBackdrop {
+
+    /**
+     * What a frame was rendered for.
+     *
+     * @param width  The width of the backdrop
+     * @param height The height of the backdrop
+     * @param blur   The size of the box
+     * @param edge   How the edges are handled, one of the
+     *               {@link ConvolveWithEdgeOp} edge constants
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public record Key(int width, int height, int blur, int edge) {
+    }
+
+    /**
+     * A rendered backdrop.
+     *
+     * @param source  The artwork it was rendered from
+     * @param scale   How much smaller the source is than the original artwork
+     * @param key     What it was rendered for
+     * @param blurred The blurred image (premultiplied ARGB)
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public record Frame(BufferedImage source, double scale, Key key, BufferedImage blurred) {
+    }
+
+    private volatile Key target;
+    private Frame current;
+    private Image ready;
+    private GraphicsConfiguration readyFor;
+
+    /**
+     * @param width  The initial width
+     * @param height The initial height
+     * @param blur   The size of the box
+     * @param edge   How the edges are handled
+     */
+    public BlurredBackdrop(int width, int height, int blur, int edge) {
+        target = new Key(width, height, Math.max(1, blur), edge);
+    }
+
+    /**
+     * @param blur The size of the box
+     * @param edge How the edges are handled
+     */
+    public void setBlur(int blur, int edge) {
+        Key k = target;
+        target = new Key(k.width(), k.height(), Math.max(1, blur), edge);
+    }
+
+    /**
+     * Renders a frame for the current size and blur. This does not change
+     * what is shown and can be called from any thread.
+     *
+     * @param source The artwork
+     * @return Frame The rendered frame or null if the size is empty
+     */
+    public Frame prepare(BufferedImage source) {
+        return prepare(source, 1D);
+    }
+
+    /**
+     * @param source A scaled down copy of the artwork
+     * @param scale  How much smaller the copy is than the original artwork,
+     *               so that the same part of the artwork is shown
+     * @return Frame The rendered frame or null if the size is empty
+     */
+    public Frame prepare(BufferedImage source, double scale) {
+        Key k = target;
+        return source == null || k.width() <= 0 || k.height() <= 0 ? null
+                : new Frame(source, scale, k, render(source, scale, k));
+    }
+
+    /**
+     * @param frame The frame to show or null to show nothing
+     */
+    public synchronized void show(Frame frame) {
+        current = frame;
+        ready = null;
+    }
+
+    /**
+     * Returns the backdrop for the given size, rendering it again only if the
+     * size or the blur changed since it was rendered.
+     *
+     * @param gc     The configuration of the device it is drawn on, may be null
+     * @param width  The width to draw at
+     * @param height The height to draw at
+     * @return Image The backdrop or null if there is nothing to show
+     */
+    public synchronized Image get(GraphicsConfiguration gc, int width, int height) {
+        if (current == null || width <= 0 || height <= 0) {
+            return null;
+        }
+        Key k = target;
+        if (k.width() != width || k.height() != height) {
+            k = new Key(width, height, k.blur(), k.edge());
+            target = k;
+        }
+        if (!current.key().equals(k)) {
+            current = new Frame(current.source(), current.scale(), k, render(current.source(), current.scale(), k));
+            ready = null;
+        }
+        if (ready == null || readyFor != gc) {
+            ready = gc == null ? current.blurred() : compatible(gc, current.blurred());
+            readyFor = gc;
+        }
+        return ready;
+    }
+
+    /**
+     * @param gc  The device configuration
+     * @param img The image to copy
+     * @return Image A copy of the image in the native format of the device
+     */
+    private static Image compatible(GraphicsConfiguration gc, BufferedImage img) {
+        BufferedImage r = gc.createCompatibleImage(img.getWidth(), img.getHeight(), Transparency.TRANSLUCENT);
+        Graphics2D g = r.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(img, 0, 0, null);
+        g.dispose();
+        return r;
+    }
+
+    /**
+     * Crops the part of the artwork under the backdrop (the same way
+     * {@link com.jackmeng.halcyoninae.cloudspin.CloudSpin#grabCrop} does),
+     * scales it to the backdrop and blurs it.
+     *
+     * @param source The artwork
+     * @param scale  How much smaller the source is than the original artwork
+     * @param k      What to render for
+     * @return BufferedImage
+     */
+    private static BufferedImage render(BufferedImage source, double scale, Key k) {
+        int w = k.width(), h = k.height();
+        // the crop is in pixels of the original artwork
+        int cw = (int) Math.round(w * scale), ch = (int) Math.round(h * scale);
+        BufferedImage r = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = r.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        if (cw > source.getWidth() && ch > source.getHeight()) {
+            g.drawImage(source, 0, 0, w, h, null);
+        } else {
+            g.drawImage(source, 0, 0, w, h, 0, 0, cw, ch, null);
+        }
+        g.dispose();
+        boxBlur(r, k.blur(), k.edge());
+        return r;
+    }
+
+    /**
+     * Box blurs a premultiplied ARGB image in place.
+     *
+     * @param img  An image of type {@link BufferedImage#TYPE_INT_ARGB_PRE}
+     * @param size The size of the box
+     * @param edge How the edges are handled, one of the
+     *             {@link ConvolveWithEdgeOp} edge constants
+     * @see FastBlur#box(int[], int, int, int, int, int)
+     */
+    public static void boxBlur(BufferedImage img, int size, int edge) {
+        FastBlur.box(FastBlur.pixels(img), img.getWidth(), img.getHeight(), size, size, edge);
+    }
+}
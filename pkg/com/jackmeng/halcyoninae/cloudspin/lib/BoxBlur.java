@@ -40,13 +40,14 @@
 package com.jackmeng.halcyoninae.cloudspin.lib;
 
 import com.jackmeng.halcyoninae.cloudspin.SpeedStyle;
+import com.twelvemonkeys.image.ConvolveWithEdgeOp;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
-import java.awt.image.ConvolveOp;
-import java.awt.image.Kernel;
 
 /**
+ * A box blur, done by {@link FastBlur}.
+ *
  * @author Jack Meng
  * @since 3.2
  */
@@ -55,55 +56,56 @@ public class BoxBlur implements Blur {
 
     /**
      * @param image
-     * @param _x
-     * @param _y
-     * @param otherParams
-     * @return BufferedImage
+     * @param _x          The horizontal radius ({@link SpeedStyle#GENERAL})
+     * @param _y          The vertical radius ({@link SpeedStyle#GENERAL})
+     * @param otherParams [{@link SpeedStyle}] [size of the box for
+     *                    {@link SpeedStyle#SPEED}]
+     * @return BufferedImage An image of the same type, opaque for
+     *         {@link SpeedStyle#GENERAL}
      */
     @Override
     public BufferedImage blur(BufferedImage image, int _x, int _y, Object... otherParams) {
-        BufferedImage mod = new BufferedImage(image.getWidth(), image.getHeight(), image.getType());
+        int w = image.getWidth(), h = image.getHeight();
+        BufferedImage mod;
         if (otherParams[0].equals(SpeedStyle.GENERAL)) {
-            for (int row = 0; row < image.getHeight(); row++) {
-                for (int col = 0; col < image.getWidth(); col++) {
-                    int x = col - _x;
-                    int y = row - _y;
-                    int count = 0;
-                    int r = 0;
-                    int g = 0;
-                    int b = 0;
-                    for (int i = 0; i < _x * 2 + 1; i++) {
-                        for (int j = 0; j < _y * 2 + 1; j++) {
-                            if (x + i < 0 || x + i >= image.getWidth() || y + j < 0 || y + j >= image.getHeight()) {
-                                continue;
-                            }
-                            Color c = new Color(image.getRGB(x + i, y + j));
-                            r += c.getRed();
-                            g += c.getGreen();
-                            b += c.getBlue();
-                            count++;
-                        }
-                    }
-                    Color c = new Color(r / count, g / count, b / count);
-                    mod.setRGB(col, row, c.getRGB());
-                }
-            }
+            // the colors are averaged without their alpha, only the pixels inside of the image count
+            mod = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            int[] px = FastBlur.pixels(mod);
+            image.getRGB(0, 0, w, h, px, 0, w);
+            FastBlur.box(px, w, h, _x * 2 + 1, _y * 2 + 1, FastBlur.EDGE_SHRINK);
         } else if (otherParams[0].equals(SpeedStyle.SPEED)) {
+            mod = FastBlur.copy(image);
             int radius = (int) otherParams[1];
-            float weight = radius * radius / ((float) radius);
-            float[] kernel = new float[radius * radius];
-            for (int i = 0; i < radius * radius; i++) {
-                kernel[i] = weight;
-            }
-            Kernel k = new Kernel(radius, radius, kernel);
-            // fill the edges with blurring as well
-            RenderingHints r = new RenderingHints(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
-            r.add(new RenderingHints(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR));
-            ConvolveOp op = new ConvolveOp(k, ConvolveOp.EDGE_NO_OP, r);
-            op.createCompatibleDestRaster(image.getRaster());
-            mod = op.filter(image, mod);
+            FastBlur.box(FastBlur.pixels(mod), w, h, radius, radius, ConvolveWithEdgeOp.EDGE_NO_OP);
+        } else {
+            return new BufferedImage(w, h, typeOf(image));
         }
-        return mod;
+        return convert(mod, typeOf(image));
+    }
 
+    /**
+     * @param image
+     * @return int The type of the image or {@link BufferedImage#TYPE_INT_ARGB} if
+     *         it has none
+     */
+    private static int typeOf(BufferedImage image) {
+        return image.getType() == BufferedImage.TYPE_CUSTOM ? BufferedImage.TYPE_INT_ARGB : image.getType();
+    }
+
+    /**
+     * @param image
+     * @param type
+     * @return BufferedImage The image itself if it is of the type or a copy
+     */
+    private static BufferedImage convert(BufferedImage image, int type) {
+        if (image.getType() == type) {
+            return image;
+        }
+        BufferedImage r = new BufferedImage(image.getWidth(), image.getHeight(), type);
+        Graphics2D g = r.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return r;
     }
 }
@@ -0,0 +1,418 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.cloudspin.lib;
+
+import com.jackmeng.halcyoninae.cloudspin.SpeedStyle;
+import com.twelvemonkeys.image.ConvolveWithEdgeOp;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A separable blur engine that works on the packed {@code int[]} raster of
+ * an image directly.
+ * <p>
+ * Every pass is a running sum over a row or a column, so the cost per pixel
+ * does not depend on the size of the blur. The rows (and then the columns)
+ * are split into strips that run on the common {@link ForkJoinPool}.
+ * A gaussian blur is approximated with three box passes.
+ * <p>
+ * With {@link ConvolveWithEdgeOp#EDGE_NO_OP} the pixels the whole box does
+ * not fit around are left as they were and with
+ * {@link ConvolveWithEdgeOp#EDGE_ZERO_FILL} they are cleared, like
+ * {@link ConvolveWithEdgeOp} does.
+ * <p>
+ * The pixels are expected to be premultiplied (or opaque), otherwise
+ * transparent pixels bleed their color into their neighbours.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class FastBlur implements Blur {
+    /**
+     * Edges that average only the pixels inside the image, instead of one of
+     * the {@link ConvolveWithEdgeOp} edge constants.
+     */
+    public static final int EDGE_SHRINK = -1;
+    /**
+     * Strips smaller than this many pixels are not split any further.
+     */
+    public static final int STRIP_PIXELS = 1 << 15;
+    /**
+     * Boxes up to this size divide through a lookup table.
+     */
+    public static final int MAX_TABLE_SIZE = 512;
+    private static final AtomicReferenceArray<int[]> DIVISIONS = new AtomicReferenceArray<>(MAX_TABLE_SIZE + 1);
+
+    /**
+     * @param image       The image to blur
+     * @param _x          The horizontal radius, or the sigma for
+     *                    {@link SpeedStyle#QUALITY}
+     * @param _y          The vertical radius, or the sigma for
+     *                    {@link SpeedStyle#QUALITY}
+     * @param otherParams [{@link SpeedStyle}] [edge]; a gaussian is used for
+     *                    {@link SpeedStyle#QUALITY} and a box otherwise
+     * @return BufferedImage A new premultiplied image
+     */
+    @Override
+    public BufferedImage blur(BufferedImage image, int _x, int _y, Object... otherParams) {
+        int edge = otherParams != null && otherParams.length > 1 && otherParams[1] instanceof Integer e ? e
+                : EDGE_SHRINK;
+        BufferedImage r = copy(image);
+        int[] px = pixels(r);
+        if (otherParams != null && otherParams.length > 0 && otherParams[0] == SpeedStyle.QUALITY) {
+            gaussian(px, r.getWidth(), r.getHeight(), _x, _y, edge);
+        } else {
+            box(px, r.getWidth(), r.getHeight(), _x * 2 + 1, _y * 2 + 1, edge);
+        }
+        return r;
+    }
+
+    /**
+     * @param image The image
+     * @return BufferedImage A premultiplied copy of the image
+     */
+    public static BufferedImage copy(BufferedImage image) {
+        BufferedImage r = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = r.createGraphics();
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return r;
+    }
+
+    /**
+     * @param img An image backed by a single int bank, like
+     *            {@link BufferedImage#TYPE_INT_ARGB_PRE}
+     * @return int[] The live pixels of the image
+     */
+    public static int[] pixels(BufferedImage img) {
+        return ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Box blurs the pixels in place. The box is centered on the pixel, an
+     * even size reaches one pixel further to the left (or the top), the
+     * same way {@link java.awt.image.ConvolveOp} applies a
+     * {@link java.awt.image.Kernel} of that size.
+     *
+     * @param px    The packed pixels
+     * @param w     The width
+     * @param h     The height
+     * @param sizeX The width of the box
+     * @param sizeY The height of the box
+     * @param edge  {@link #EDGE_SHRINK} or one of the {@link ConvolveWithEdgeOp}
+     *              edge constants
+     */
+    public static void box(int[] px, int w, int h, int sizeX, int sizeY, int edge) {
+        blur(px, w, h, sizeX > 1 ? new int[] { sizeX } : new int[0], sizeY > 1 ? new int[] { sizeY } : new int[0],
+                edge);
+    }
+
+    /**
+     * Approximates a gaussian blur in place with three box passes per axis.
+     *
+     * @param px     The packed pixels
+     * @param w      The width
+     * @param h      The height
+     * @param sigmaX The horizontal standard deviation
+     * @param sigmaY The vertical standard deviation
+     * @param edge   {@link #EDGE_SHRINK} or one of the
+     *               {@link ConvolveWithEdgeOp} edge constants
+     */
+    public static void gaussian(int[] px, int w, int h, double sigmaX, double sigmaY, int edge) {
+        blur(px, w, h, sigmaX > 0D ? boxesForGauss(sigmaX) : new int[0],
+                sigmaY > 0D ? boxesForGauss(sigmaY) : new int[0], edge);
+    }
+
+    /**
+     * @param px     The packed pixels
+     * @param w      The width
+     * @param h      The height
+     * @param sizesX The box sizes to run over the rows
+     * @param sizesY The box sizes to run over the columns
+     * @param edge   How the edges are handled
+     */
+    private static void blur(int[] px, int w, int h, int[] sizesX, int[] sizesY, int edge) {
+        int[] src = edge == ConvolveWithEdgeOp.EDGE_NO_OP ? px.clone() : null;
+        if (sizesX.length > 0) {
+            run(px, w, h, true, sizesX, edge);
+        }
+        if (sizesY.length > 0) {
+            run(px, w, h, false, sizesY, edge);
+        }
+        if (src != null || edge == ConvolveWithEdgeOp.EDGE_ZERO_FILL) {
+            int bx = Math.min(border(sizesX), w), by = border(sizesY);
+            for (int y = 0; y < h; y++) {
+                int row = y * w;
+                if (y < by || y >= h - by) {
+                    edge(px, src, row, row + w);
+                } else {
+                    edge(px, src, row, row + bx);
+                    edge(px, src, row + Math.max(bx, w - bx), row + w);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param px   The pixels
+     * @param src  The pixels before blurring or null to clear them
+     * @param from The first index
+     * @param to   The index after the last
+     */
+    private static void edge(int[] px, int[] src, int from, int to) {
+        if (src != null) {
+            System.arraycopy(src, from, px, from, to - from);
+        } else {
+            Arrays.fill(px, from, to, 0);
+        }
+    }
+
+    /**
+     * @param sizes The box sizes that are run one after the other
+     * @return int The pixels on either side that are not blurred with
+     *         {@link ConvolveWithEdgeOp#EDGE_NO_OP} or
+     *         {@link ConvolveWithEdgeOp#EDGE_ZERO_FILL}, which for an even size
+     *         is one more on the right (or the bottom) than the box reaches
+     */
+    private static int border(int[] sizes) {
+        int r = 0;
+        for (int size : sizes) {
+            r += size / 2;
+        }
+        return r;
+    }
+
+    /**
+     * Picks three odd box sizes whose combined variance is as close as
+     * possible to the one of the gaussian.
+     *
+     * @param sigma The standard deviation
+     * @return int[] The three box sizes
+     */
+    public static int[] boxesForGauss(double sigma) {
+        double ideal = Math.sqrt(12D * sigma * sigma / 3D + 1D);
+        int lower = (int) Math.floor(ideal);
+        if (lower % 2 == 0) {
+            lower--;
+        }
+        int upper = lower + 2;
+        double m = (12D * sigma * sigma - 3D * lower * lower - 12D * lower - 9D) / (-4D * lower - 4D);
+        int small = (int) Math.round(m);
+        int[] sizes = new int[3];
+        for (int i = 0; i < 3; i++) {
+            sizes[i] = Math.max(1, i < small ? lower : upper);
+        }
+        return sizes;
+    }
+
+    /**
+     * Runs the passes over every row or every column, split into strips.
+     *
+     * @param px         The pixels
+     * @param w          The width
+     * @param h          The height
+     * @param horizontal (true || false) for rows or columns
+     * @param sizes      The box sizes to run one after the other
+     * @param edge       How the edges are handled
+     */
+    private static void run(int[] px, int w, int h, boolean horizontal, int[] sizes, int edge) {
+        int lines = horizontal ? h : w, len = horizontal ? w : h;
+        Strip s = new Strip(px, w, horizontal, len, sizes, edge, 0, lines);
+        if ((long) lines * len <= STRIP_PIXELS || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            s.compute();
+        } else {
+            ForkJoinPool.commonPool().invoke(s);
+        }
+    }
+
+    /**
+     * A range of rows or columns.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    private static final class Strip extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] px, sizes;
+        private final int w, len, edge, from, to;
+        private final boolean horizontal;
+
+        Strip(int[] px, int w, boolean horizontal, int len, int[] sizes, int edge, int from, int to) {
+            this.px = px;
+            this.w = w;
+            this.horizontal = horizontal;
+            this.len = len;
+            this.sizes = sizes;
+            this.edge = edge;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if ((long) (to - from) * len > STRIP_PIXELS && to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Strip(px, w, horizontal, len, sizes, edge, from, mid),
+                        new Strip(px, w, horizontal, len, sizes, edge, mid, to));
+                return;
+            }
+            int[] a = new int[len], b = new int[len];
+            for (int l = from; l < to; l++) {
+                int start = horizontal ? l * w : l, stride = horizontal ? 1 : w;
+                for (int i = 0, p = start; i < len; i++, p += stride) {
+                    a[i] = px[p];
+                }
+                for (int size : sizes) {
+                    pass(a, b, len, size, edge);
+                    int[] t = a;
+                    a = b;
+                    b = t;
+                }
+                for (int i = 0, p = start; i < len; i++, p += stride) {
+                    px[p] = a[i];
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the box over a single line.
+     *
+     * @param in   The line
+     * @param out  Where the blurred line goes
+     * @param len  The length of the line
+     * @param size The size of the box
+     * @param edge How the edges are handled
+     */
+    private static void pass(int[] in, int[] out, int len, int size, int edge) {
+        int lo = size / 2, hi = (size - 1) / 2;
+        int a = 0, r = 0, g = 0, b = 0;
+        for (int i = -lo; i <= hi; i++) {
+            int c = sample(in, i, len, edge);
+            a += c >>> 24;
+            r += (c >> 16) & 0xFF;
+            g += (c >> 8) & 0xFF;
+            b += c & 0xFF;
+        }
+        if (edge != EDGE_SHRINK && size <= MAX_TABLE_SIZE) {
+            // every window has the same size, so the divisions become a lookup
+            int[] div = divisions(size);
+            // the window is inside of the line for lo <= i < len - hi - 1
+            int inner = Math.max(lo, len - hi - 1);
+            for (int i = 0; i < len; i++) {
+                out[i] = div[a] << 24 | div[r] << 16 | div[g] << 8 | div[b];
+                int x = i + hi + 1, y = i - lo;
+                int add, sub;
+                if (i >= lo && i < inner) {
+                    add = in[x];
+                    sub = in[y];
+                } else {
+                    add = sample(in, x, len, edge);
+                    sub = sample(in, y, len, edge);
+                }
+                a += (add >>> 24) - (sub >>> 24);
+                r += ((add >> 16) & 0xFF) - ((sub >> 16) & 0xFF);
+                g += ((add >> 8) & 0xFF) - ((sub >> 8) & 0xFF);
+                b += (add & 0xFF) - (sub & 0xFF);
+            }
+            return;
+        }
+        for (int i = 0; i < len; i++) {
+            int n = edge == EDGE_SHRINK ? Math.min(i + hi, len - 1) - Math.max(i - lo, 0) + 1 : size;
+            out[i] = (a / n) << 24 | (r / n) << 16 | (g / n) << 8 | (b / n);
+            int x = i + hi + 1, y = i - lo;
+            int add = x < len ? in[x] : sample(in, x, len, edge);
+            int sub = y >= 0 ? in[y] : sample(in, y, len, edge);
+            a += (add >>> 24) - (sub >>> 24);
+            r += ((add >> 16) & 0xFF) - ((sub >> 16) & 0xFF);
+            g += ((add >> 8) & 0xFF) - ((sub >> 8) & 0xFF);
+            b += (add & 0xFF) - (sub & 0xFF);
+        }
+    }
+
+    /**
+     * @param size The size of the box
+     * @return int[] sum / size for every possible sum of a channel
+     */
+    private static int[] divisions(int size) {
+        int[] div = DIVISIONS.get(size);
+        if (div == null) {
+            div = new int[256 * size];
+            for (int i = 0; i < div.length; i++) {
+                div[i] = i / size;
+            }
+            DIVISIONS.set(size, div);
+        }
+        return div;
+    }
+
+    /**
+     * @param line The line
+     * @param i    The index, which may be outside of the line
+     * @param len  The length of the line
+     * @param edge How the edges are handled
+     * @return int The pixel at the index
+     */
+    private static int sample(int[] line, int i, int len, int edge) {
+        if (i >= 0 && i < len) {
+            return line[i];
+        }
+        switch (edge) {
+            case ConvolveWithEdgeOp.EDGE_WRAP:
+                return line[Math.floorMod(i, len)];
+            case ConvolveWithEdgeOp.EDGE_REFLECT:
+                int period = len * 2;
+                int m = Math.floorMod(i, period);
+                return line[m < len ? m : period - 1 - m];
+            case ConvolveWithEdgeOp.EDGE_NO_OP:
+                // only reaches pixels that are put back afterwards
+                return line[i < 0 ? 0 : len - 1];
+            default:
+                return 0;
+        }
+    }
+}
@@ -46,12 +46,11 @@ import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.StringManager;
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
 import com.jackmeng.halcyoninae.halcyon.utils.ProgramResourceManager;
-import com.jackmeng.halcyoninae.tailwind.AudioInfo;
+import com.jackmeng.halcyoninae.tailwind.AudioInfoCache;
 import com.jackmeng.halcyoninae.tailwind.AudioInfoDialog;
 
 import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
 import javax.swing.tree.TreePath;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -129,13 +128,10 @@ public class FVRightClick extends MouseAdapter {
             refreshMenuItem = new JMenuItem(hideString);
             refreshMenuItem.addActionListener(ev -> {
                 try {
-                    DefaultMutableTreeNode parent = (DefaultMutableTreeNode) rcNode.getParent();
-                    parent.remove(rcNode);
-                    DefaultTreeModel model = (DefaultTreeModel) t.getModel();
-                    model.reload();
-                    tree.remove(rcNode.toString());
-                    Debugger.info("Removing Physical: " + tree.getSelectedNode(rcNode));
-                    hideTask.onRemove(tree.getSelectedNode(rcNode));
+                    String selected = tree.getSelectedNode(rcNode);
+                    tree.remove(selected.isEmpty() ? rcNode.toString() : selected);
+                    Debugger.info("Removing Physical: " + selected);
+                    hideTask.onRemove(selected);
                     if (hideTask == null)
                         Program.cacher.pingExcludedTracks(tree.getPath() + "/" + rcNode);
                 } catch (NullPointerException excec) {
@@ -148,6 +144,7 @@ public class FVRightClick extends MouseAdapter {
         JMenuItem sortAZ = null;
         JMenuItem sortZA = null;
         JMenuItem sortShuffle = null;
+        JMenu sortBy = null;
         if (rcNode.equals(t.getModel().getRoot())) {
             sortAZ = new JMenuItem("Sort A-Z");
             sortAZ.addActionListener(ev -> tree.sort(TabTreeSortMethod.ALPHABETICAL));
@@ -155,13 +152,22 @@ public class FVRightClick extends MouseAdapter {
             sortZA.addActionListener(ev -> tree.sort(TabTreeSortMethod.REV_ALPHABETICAL));
             sortShuffle = new JMenuItem("Sort Shuffle");
             sortShuffle.addActionListener(ev -> tree.sort(TabTreeSortMethod.SHUFFLE));
+            sortBy = new JMenu("Sort By");
+            sortBy.add(sortItem("Artist", TabTreeSortMethod.ARTIST));
+            sortBy.add(sortItem("Album", TabTreeSortMethod.ALBUM));
+            sortBy.add(sortItem("Track Number", TabTreeSortMethod.TRACK_NUMBER));
+            sortBy.add(sortItem("Duration", TabTreeSortMethod.DURATION));
+            sortBy.add(sortItem("Date Added", TabTreeSortMethod.DATE_ADDED));
+            sortBy.add(sortItem("Play Count", TabTreeSortMethod.PLAY_COUNT));
+            sortBy.add(sortItem("Size", TabTreeSortMethod.SIZE));
         }
 
         JMenuItem audioInfoItem = new JMenuItem("Information");
         audioInfoItem.addActionListener(ev -> {
             try {
                 if (!rcNode.equals(t.getModel().getRoot())) {
-                    new Thread(() -> new AudioInfoDialog(new AudioInfo(tree.getSelectedNode(rcNode))).run()).start();
+                    new Thread(() -> new AudioInfoDialog(AudioInfoCache.get(new File(tree.getSelectedNode(rcNode))))
+                            .run()).start();
                 } else {
                     new StraightTextDialog(
                             "<html><body><p><strong>Folder:</strong> " + tree.getPath() + "</p></body></html>").run();
@@ -177,11 +183,23 @@ public class FVRightClick extends MouseAdapter {
             popup.add(sortAZ);
             popup.add(sortZA);
             popup.add(sortShuffle);
+            popup.add(sortBy);
         }
         popup.add(audioInfoItem);
         popup.show(t, x, y);
     }
 
+    /**
+     * @param name   The name of the item
+     * @param method How the item sorts the tree
+     * @return JMenuItem
+     */
+    private JMenuItem sortItem(String name, TabTreeSortMethod method) {
+        JMenuItem item = new JMenuItem(name);
+        item.addActionListener(ev -> tree.sort(method));
+        return item;
+    }
+
     /**
      * @param e
      */
@@ -232,7 +250,7 @@ public class FVRightClick extends MouseAdapter {
                             File f2 = f;
                             Debugger.info(f2);
 
-                            SwingUtilities.invokeLater(() -> Global.ifp.setAssets(f2));
+                            Global.ifp.setAssets(f2);
                         }
                     }
                     lastJTree = pathTree;
@@ -257,7 +275,7 @@ public class FVRightClick extends MouseAdapter {
                             }
                             File f2 = f;
                             Debugger.info(f2);
-                            SwingUtilities.invokeLater(() -> Global.ifp.setAssets(f2));
+                            Global.ifp.setAssets(f2);
                         }
 
                     }
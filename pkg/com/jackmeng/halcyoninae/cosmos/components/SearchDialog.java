@@ -0,0 +1,182 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.cosmos.components;
+
+import com.jackmeng.halcyoninae.halcyon.Halcyon;
+import com.jackmeng.halcyoninae.halcyon.runtime.Program;
+import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
+import com.jackmeng.halcyoninae.halcyon.runtime.constant.Manager;
+import com.jackmeng.halcyoninae.halcyon.utils.SearchIndex;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+
+/**
+ * A small window to search every track in every playlist and the liked
+ * tracks while typing, see {@link com.jackmeng.halcyoninae.halcyon.utils.SearchIndex}.
+ * <p>
+ * Enter or a double click plays the selected track.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class SearchDialog extends JFrame implements Runnable {
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_RESULTS = 100;
+    private final JTextField field;
+    private final JList<SearchIndex.Hit> results;
+
+    public SearchDialog() {
+        setIconImage(Global.ico.getFromAsImageIcon(Manager.PROGRAM_ICON_LOGO).getImage());
+        setTitle("Search");
+        setPreferredSize(new Dimension(350, 300));
+        setDefaultCloseOperation(WindowConstants.HIDE_ON_CLOSE);
+
+        field = new JTextField();
+        results = new JList<>();
+        results.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        results.setFocusable(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                query();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                query();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                query();
+            }
+        });
+        field.addActionListener(e -> play());
+        field.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_DOWN, 0), "halcyon-next");
+        field.getActionMap().put("halcyon-next", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                move(1);
+            }
+        });
+        field.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_UP, 0), "halcyon-previous");
+        field.getActionMap().put("halcyon-previous", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                move(-1);
+            }
+        });
+        field.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "halcyon-close");
+        field.getActionMap().put("halcyon-close", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setVisible(false);
+            }
+        });
+        results.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    play();
+                }
+            }
+        });
+
+        JPanel panel = new JPanel(new BorderLayout());
+        panel.add(field, BorderLayout.NORTH);
+        panel.add(new JScrollPane(results), BorderLayout.CENTER);
+        setContentPane(panel);
+    }
+
+    /**
+     * Asks the index for the current text, the results arrive later.
+     */
+    private void query() {
+        Program.search.search(field.getText(), MAX_RESULTS, hits -> {
+            results.setListData(hits.toArray(new SearchIndex.Hit[0]));
+            if (!hits.isEmpty()) {
+                results.setSelectedIndex(0);
+            }
+        });
+    }
+
+    /**
+     * @param by The amount of rows to move the selection by
+     */
+    private void move(int by) {
+        int n = results.getModel().getSize();
+        if (n > 0) {
+            int i = Math.max(0, Math.min(n - 1, results.getSelectedIndex() + by));
+            results.setSelectedIndex(i);
+            results.ensureIndexIsVisible(i);
+        }
+    }
+
+    /**
+     * Plays the selected track.
+     */
+    private void play() {
+        SearchIndex.Hit hit = results.getSelectedValue();
+        if (hit != null) {
+            Global.ifp.setAssets(hit.file());
+        }
+    }
+
+    @Override
+    public void run() {
+        SwingUtilities.invokeLater(() -> {
+            if (!isDisplayable()) {
+                pack();
+                setLocationRelativeTo(Halcyon.bgt.getFrame());
+            }
+            setVisible(true);
+            field.selectAll();
+            field.requestFocusInWindow();
+        });
+    }
+}
@@ -41,6 +41,7 @@ package com.jackmeng.halcyoninae.cosmos.components.bottompane;
 
 import com.jackmeng.halcyoninae.cosmos.components.TabButton;
 import com.jackmeng.halcyoninae.cosmos.components.bottompane.filelist.FileList;
+import com.jackmeng.halcyoninae.cosmos.tasks.FolderWatcher;
 import com.jackmeng.halcyoninae.halcyon.runtime.Program;
 import com.jackmeng.halcyoninae.halcyon.utils.ColorTool;
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
@@ -54,6 +55,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Handles the Tabs in the BottomPane.
@@ -72,6 +74,8 @@ public class BottomPane extends JTabbedPane {
 
     private final TitledBorder t = BorderFactory.createTitledBorder("Playlists");
 
+    private final transient FolderWatcher watcher;
+
     /**
      * Creates a bottom viewport
      */
@@ -82,6 +86,8 @@ public class BottomPane extends JTabbedPane {
         setPreferredSize(new Dimension(FileList.FILEVIEW_MAX_WIDTH, FileList.FILEVIEW_MIN_HEIGHT));
         setMinimumSize(new Dimension(FileList.FILEVIEW_MIN_WIDTH, FileList.FILEVIEW_MIN_HEIGHT));
         this.tabs = new ArrayList<>(20);
+        this.watcher = new FolderWatcher(this);
+        watcher.run();
         setTabLayoutPolicy(JTabbedPane.SCROLL_TAB_LAYOUT);
         setBorder(t);
         addChangeListener(x -> {
@@ -164,10 +170,13 @@ public class BottomPane extends JTabbedPane {
         setTabComponentAt(getTabCount() - 1, button);
         setToolTipTextAt(getTabCount() - 1, folder);
         tabsMap.put(folder, getTabCount() - 1);
+        watcher.register(new File(folder).getAbsolutePath());
         button.setListener(() -> {
             Debugger.warn("Removing tab > " + folder);
             int i = tabsMap.get(folder);
             Program.cacher.getSavedPlaylists().remove(folder);
+            Program.library.forget(folder);
+            watcher.unregister(new File(folder).getAbsolutePath());
             tabsMap.remove(folder);
             tabs.remove(i);
             Program.cacher.pingSavedPlaylists();
@@ -177,6 +186,27 @@ public class BottomPane extends JTabbedPane {
         tabs.add(list);
     }
 
+    /**
+     * Applies the changes reported by the {@link FolderWatcher} to the
+     * FileList of the folder. Should be called on the EDT.
+     *
+     * @param folder   The absolute path of the folder
+     * @param files    The files that were created, deleted or modified
+     * @param overflow If events were lost and the folder has to be checked as a
+     *                 whole
+     */
+    public void folderChanged(String folder, Set<File> files, boolean overflow) {
+        for (FileList l : tabs) {
+            if (!l.isVirtual && l.getFolderInfo().getAbsolutePath().equals(folder)) {
+                if (overflow) {
+                    l.revalidateFiles();
+                } else {
+                    l.filesChanged(files);
+                }
+            }
+        }
+    }
+
     /**
      * Runs a master revalidation of all of the
      * FileLists and checks if every added folder exists
@@ -185,23 +215,25 @@ public class BottomPane extends JTabbedPane {
      * @see com.jackmeng.halcyoninae.cosmos.components.bottompane.filelist.FileList#revalidateFiles()
      */
     public synchronized void mastRevalidate() {
-        List<Integer> needToRemove = new ArrayList<>(tabs.size());
-        int i = 0;
+        List<FileList> needToRemove = new ArrayList<>(tabs.size());
         for (FileList l : tabs) {
             if (!l.isVirtual) {
                 if (!new File(l.getFolderInfo().getAbsolutePath()).exists()
                     || !new File(l.getFolderInfo().getAbsolutePath()).isDirectory()) {
-                    removeTabAt(i);
-                    needToRemove.add(i);
+                    int i = indexOfComponent(l);
+                    if (i >= 0) {
+                        removeTabAt(i);
+                    }
+                    needToRemove.add(l);
                     Program.cacher.getSavedPlaylists().remove(l.getFolderInfo().getAbsolutePath());
+                    Program.library.forget(l.getFolderInfo().getAbsolutePath());
+                    watcher.unregister(l.getFolderInfo().getAbsolutePath());
                     tabsMap.remove(l.getFolderInfo().getAbsolutePath());
                 } else {
                     l.revalidateFiles();
                 }
             }
         }
-        for (int ix : needToRemove) {
-            tabs.remove(ix);
-        }
+        tabs.removeAll(needToRemove);
     }
 }
\ No newline at end of file
@@ -53,6 +53,9 @@ import java.awt.event.ActionEvent;
  * This is a primarily experimental BBloc button and is used to
  * open a waveform panel that displays a visual representation of
  * the audio being played through the audio device
+ * <p>
+ * 3.4.1 : The panel shows the spectrum of the audio and is only made the
+ * first time it is opened.
  *
  * @author Jack Meng
  * @see com.jackmeng.halcyoninae.cosmos.components.waveform.WaveForm
@@ -66,7 +69,7 @@ public class WaveFormLinker extends JButton implements BBlocButton {
         setBorder(BorderFactory.createEmptyBorder());
         setPreferredSize(new Dimension(BBlocButton.DEFAULT_SIZE_BBLOC, BBlocButton.DEFAULT_SIZE_BBLOC));
         addActionListener(this);
-        setToolTipText("WaveForm display Currently Unavailable due to technical issues");
+        setToolTipText("Open the spectrum display");
     }
 
     /**
@@ -82,7 +85,12 @@ public class WaveFormLinker extends JButton implements BBlocButton {
      */
     @Override
     public void actionPerformed(ActionEvent e) {
-        SwingUtilities.invokeLater(pane);
+        SwingUtilities.invokeLater(() -> {
+            if (pane == null) {
+                pane = new WaveFormPane();
+            }
+            pane.run();
+        });
     }
 
 }
@@ -47,18 +47,25 @@ import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.Manager;
 import com.jackmeng.halcyoninae.halcyon.utils.DeImage;
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.ExternalResource;
 import com.jackmeng.locale.PhysicalFolder;
 import com.jackmeng.locale.VirtualFolder;
 
 import javax.swing.*;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
-import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
 import javax.swing.tree.TreeSelectionModel;
 import java.awt.*;
 import java.io.File;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Represents a Pane containing a list of files for only
@@ -84,29 +91,36 @@ public class FileList extends JScrollPane implements TabTree {
     public static final int FILEVIEW_MIN_HEIGHT             = Manager.MIN_HEIGHT - 50 / 2;
     public static final int FILEVIEW_MAX_WIDTH              = Manager.MAX_WIDTH - 50;
     public static final int FILEVIEW_MAX_HEIGHT             = Manager.MAX_HEIGHT + 50 / 2 - 40;
+    /**
+     * Does the file system work of every revalidation, one at a time.
+     */
+    private static final ExecutorService SCANNER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon FileList Scanner");
+        t.setDaemon(true);
+        return t;
+    });
     private final JTree tree;
     /**
      * Represents a list of collected files throughout the
      * current selected folder for this instance of a FileList.
      * <p>
-     * Parameter 1: {@link java.io.File} A file object representing a file in the
-     * folder.
-     * Parameter 2: {@link javax.swing.tree.DefaultMutableTreeNode} The node
-     * instance of the file as represented on the JTree.
+     * The nodes of the files are only made when the tree
+     * needs them, see {@link FileTreeModel}.
      */
-    private final transient Map<File, DefaultMutableTreeNode> fileMap;
+    private final transient FileTreeModel model;
     private final transient PhysicalFolder info;
     private final DefaultMutableTreeNode root;
     public boolean isVirtual;
+    private long sorts;
     /// FileView Config END
 
     public FileList(PhysicalFolder info, Icon closed, Icon open, Icon leaf, String rightClickHideString,
                     RightClickHideItemListener hideStringTask) {
         super();
         this.info = info;
-        fileMap = new HashMap<>();
         root = new DefaultMutableTreeNode(info.getName());
         isVirtual = info instanceof VirtualFolder;
+        model = new FileTreeModel(root, isVirtual ? File::getAbsolutePath : File::getName);
         setAutoscrolls(true);
         setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
         setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
@@ -116,16 +130,9 @@ public class FileList extends JScrollPane implements TabTree {
         setMinimumSize(new Dimension(FILEVIEW_MIN_WIDTH, FILEVIEW_MIN_HEIGHT));
         setBorder(null);
         Debugger.warn(info);
-        for (File f : info.getFiles(Manager.ALLOWED_FORMATS)) {
-            if (f != null) {
-                DefaultMutableTreeNode node = new DefaultMutableTreeNode(isVirtual ? f.getAbsolutePath() : f.getName());
-                fileMap.put(f, node);
-                root.add(node);
-                node.setParent(root);
-            }
-        }
+        model.addAll(Arrays.asList(listFiles()));
 
-        tree = new JTree(root);
+        tree = newTree(model);
         tree.setRootVisible(true);
         tree.setShowsRootHandles(true);
         tree.setExpandsSelectedPaths(true);
@@ -148,9 +155,9 @@ public class FileList extends JScrollPane implements TabTree {
 
     public FileList(PhysicalFolder info) {
         this.info = info;
-        fileMap = new HashMap<>();
         root = new DefaultMutableTreeNode(info.getName());
         isVirtual = info instanceof VirtualFolder;
+        model = new FileTreeModel(root, isVirtual ? File::getAbsolutePath : File::getName);
         setAutoscrolls(true);
         setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
         setVerticalScrollBarPolicy(ScrollPaneConstants.VERTICAL_SCROLLBAR_AS_NEEDED);
@@ -158,16 +165,10 @@ public class FileList extends JScrollPane implements TabTree {
         setMinimumSize(new Dimension(FILEVIEW_MIN_WIDTH, FILEVIEW_MIN_HEIGHT));
         getVerticalScrollBar().setForeground(ColorManager.MAIN_FG_THEME);
         getHorizontalScrollBar().setForeground(ColorManager.MAIN_FG_THEME);
-        for (File f : info.getFiles(Manager.ALLOWED_FORMATS)) {
-            if (f != null && !Program.cacher.isExcluded(f.getAbsolutePath())) {
-                DefaultMutableTreeNode node = new DefaultMutableTreeNode(f.getName());
-                fileMap.put(f, node);
-                root.add(node);
-                node.setParent(root);
-            }
-        }
+        model.addAll(Arrays.stream(listFiles())
+                .filter(f -> f != null && !Program.cacher.isExcluded(f.getAbsolutePath())).toList());
 
-        tree = new JTree(root);
+        tree = newTree(model);
         tree.setRootVisible(true);
         tree.setShowsRootHandles(true);
         tree.setExpandsSelectedPaths(true);
@@ -192,6 +193,22 @@ public class FileList extends JScrollPane implements TabTree {
         getViewport().add(tree);
     }
 
+    /**
+     * With a fixed row height and the large model mode, the tree
+     * only asks the model for the rows that are visible.
+     *
+     * @param model The model of the tree
+     * @return JTree
+     */
+    private static JTree newTree(FileTreeModel model) {
+        JTree tree = new JTree(model);
+        tree.setLargeModel(true);
+        if (tree.getRowHeight() <= 0) {
+            tree.setRowHeight(20);
+        }
+        return tree;
+    }
+
     /**
      * @return The JTree representing this viewport.
      */
@@ -214,10 +231,26 @@ public class FileList extends JScrollPane implements TabTree {
     }
 
     /**
-     * @return Returns the default file map with each File object having a node.
+     * @return The model holding the files of this list.
+     */
+    public FileTreeModel getModel() {
+        return model;
+    }
+
+    /**
+     * Runs the file system part of a revalidation on the scanner thread and
+     * hands its result to the EDT, where the model is changed in one batch.
+     *
+     * @param scan  The work that touches the file system
+     * @param apply What to do with the result on the EDT
+     * @param <T>   The result of the scan
      */
-    public Map<File, DefaultMutableTreeNode> getFileMap() {
-        return fileMap;
+    protected static <T> void scan(Supplier<T> scan, Consumer<T> apply) {
+        CompletableFuture.supplyAsync(scan, SCANNER).thenAcceptAsync(apply, SwingUtilities::invokeLater)
+                .exceptionally(ex -> {
+                    ExternalResource.dispatchLog(ex instanceof Exception x ? x : new RuntimeException(ex));
+                    return null;
+                });
     }
 
     /**
@@ -227,29 +260,72 @@ public class FileList extends JScrollPane implements TabTree {
      * 1. If a file doesn't exist anymore, it will be removed
      * 2. If a new file has been added, it will be added into the Tree
      * <p>
+     * The folder is listed off the EDT, only the resulting additions and
+     * removals are made on it.
+     * <p>
      * The detection on if a folder exists or not is up to the parent
      * BottomPane {@link com.jackmeng.halcyoninae.cosmos.components.bottompane.BottomPane}.
      */
     public void revalidateFiles() {
-        for (File f : info.getFiles(Manager.ALLOWED_FORMATS)) {
-            if (f != null && !fileMap.containsKey(f) && !Program.cacher.isExcluded(f.getAbsolutePath())) {
-                DefaultMutableTreeNode node = new DefaultMutableTreeNode(f.getName());
-                fileMap.put(f, node);
-                root.add(node);
-                ((DefaultTreeModel) tree.getModel()).reload();
+        scan(() -> {
+            if (!isVirtual && !Program.library.refresh(info.getAbsolutePath())) {
+                // the folder did not change, only exclusions can have
+                return null;
             }
-        }
-        List<File> toRemove = new ArrayList<>(20);
-        for (File f : fileMap.keySet()) {
-            if (!f.exists() || !f.isFile()
-                || Program.cacher.isExcluded(f.getAbsolutePath()) && fileMap.get(f).getParent() != null) {
-                ((DefaultTreeModel) tree.getModel()).removeNodeFromParent(fileMap.get(f));
-                toRemove.add(f);
+            Set<File> present = new LinkedHashSet<>();
+            for (File f : listFiles()) {
+                // virtual folders list whatever they were given, so check those on disk
+                if (f != null && !Program.cacher.isExcluded(f.getAbsolutePath())
+                        && (!isVirtual || f.exists() && f.isFile())) {
+                    present.add(f);
+                }
             }
-        }
-        for (File f : toRemove) {
-            fileMap.remove(f);
-        }
+            return present;
+        }, present -> {
+            if (present == null) {
+                revalidateExclusions();
+                return;
+            }
+            model.addAll(present.stream().filter(f -> !model.contains(f)).toList());
+            model.removeAll(model.getFiles().stream().filter(f -> !present.contains(f)).toList());
+        });
+    }
+
+    /**
+     * Inserts or removes the nodes of files that were created,
+     * deleted or modified, without reloading the tree.
+     *
+     * @param files Files of this folder
+     */
+    public void filesChanged(Collection<File> files) {
+        scan(() -> {
+            files.forEach(Program.library::update);
+            return files.stream().collect(Collectors.partitioningBy(f -> f.isFile()
+                    && !Program.cacher.isExcluded(f.getAbsolutePath())
+                    && Arrays.stream(Manager.ALLOWED_FORMATS).anyMatch(x -> f.getName().endsWith(x))));
+        }, wanted -> {
+            model.addAll(wanted.get(true));
+            model.removeAll(wanted.get(false));
+        });
+    }
+
+    /**
+     * Removes the nodes of files that were excluded since the last
+     * revalidation, without touching the file system.
+     */
+    private void revalidateExclusions() {
+        model.removeAll(model.getFiles().stream().filter(f -> Program.cacher.isExcluded(f.getAbsolutePath()))
+                .toList());
+    }
+
+    /**
+     * @return File[] The files of the folder, served by the
+     *         {@link com.jackmeng.halcyoninae.halcyon.utils.LibraryIndex} unless this
+     *         is a virtual folder
+     */
+    private File[] listFiles() {
+        return isVirtual ? info.getFiles(Manager.ALLOWED_FORMATS)
+                : Program.library.getFiles(info.getAbsolutePath(), Manager.ALLOWED_FORMATS);
     }
 
     /**
@@ -259,13 +335,8 @@ public class FileList extends JScrollPane implements TabTree {
     public void remove(String nodeName) {
         try {
             Debugger.warn(nodeName);
-            for (File f : fileMap.keySet()) {
-                if (f.getName().equals(nodeName)) {
-                    DefaultTreeModel model = (DefaultTreeModel) tree.getModel();
-                    model.removeNodeFromParent(fileMap.get(f));
-                    model.reload();
-                    fileMap.remove(f);
-                }
+            if (!model.remove(new File(nodeName))) {
+                model.removeAll(model.getFiles().stream().filter(f -> f.getName().equals(nodeName)).toList());
             }
         } catch (IllegalArgumentException e) {
             // IGNORE
@@ -278,12 +349,7 @@ public class FileList extends JScrollPane implements TabTree {
      */
     @Override
     public String getSelectedNode(DefaultMutableTreeNode node) {
-        for (File f : fileMap.keySet()) {
-            if (fileMap.get(f).equals(node)) {
-                return f.getAbsolutePath();
-            }
-        }
-        return "";
+        return node instanceof FileTreeModel.FileNode n ? n.getFile().getAbsolutePath() : "";
     }
 
     /**
@@ -308,42 +374,20 @@ public class FileList extends JScrollPane implements TabTree {
      */
     @Override
     public void sort(TabTreeSortMethod e) {
-        synchronized (fileMap) {
-            if (e.equals(TabTreeSortMethod.ALPHABETICAL)) {
-                List<DefaultMutableTreeNode> nodes = new ArrayList<>();
-                for (File f : fileMap.keySet()) {
-                    nodes.add(fileMap.get(f));
-                }
-                nodes.sort(Comparator.comparing(o -> ((String) o.getUserObject())));
-                for (DefaultMutableTreeNode node : nodes) {
-                    root.remove(node);
-                    root.add(node);
+        long id = ++sorts;
+        TrackSorter.sort(model.getFiles(), e, model::nameOf).thenAcceptAsync(order -> {
+            // a newer sort was asked for meanwhile
+            if (id == sorts) {
+                TreePath selected = tree.getSelectionPath();
+                model.reorder(order);
+                if (selected != null) {
+                    tree.setSelectionPath(selected);
                 }
-                ((DefaultTreeModel) tree.getModel()).reload();
-            } else if (e.equals(TabTreeSortMethod.REV_ALPHABETICAL)) {
-                List<DefaultMutableTreeNode> nodes = new ArrayList<>();
-                for (File f : fileMap.keySet()) {
-                    nodes.add(fileMap.get(f));
-                }
-                nodes.sort((o1, o2) -> ((String) o2.getUserObject()).compareTo(((String) o1.getUserObject())));
-                for (DefaultMutableTreeNode node : nodes) {
-                    root.remove(node);
-                    root.add(node);
-                }
-                ((DefaultTreeModel) tree.getModel()).reload();
-            } else if (e.equals(TabTreeSortMethod.SHUFFLE)) {
-                List<DefaultMutableTreeNode> nodes = new ArrayList<>();
-                for (File f : fileMap.keySet()) {
-                    nodes.add(fileMap.get(f));
-                }
-                Collections.shuffle(nodes);
-                for (DefaultMutableTreeNode node : nodes) {
-                    root.remove(node);
-                    root.add(node);
-                }
-                ((DefaultTreeModel) tree.getModel()).reload();
             }
-        }
+        }, SwingUtilities::invokeLater).exceptionally(ex -> {
+            ExternalResource.dispatchLog(ex instanceof Exception x ? x : new RuntimeException(ex));
+            return null;
+        });
     }
 
 
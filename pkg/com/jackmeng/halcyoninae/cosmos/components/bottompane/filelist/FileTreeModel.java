@@ -0,0 +1,385 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.cosmos.components.bottompane.filelist;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.TreeModel;
+import javax.swing.tree.TreePath;
+import java.io.File;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * The model behind a {@link FileList}: a root with one leaf per file.
+ * <p>
+ * Instead of a {@link DefaultMutableTreeNode} per file, the files are kept
+ * in a single ordered list with a reverse index from file to position, and
+ * the nodes are only made when the tree asks for them (which, with a fixed
+ * row height, is only for the visible rows). Adding and removing files
+ * fires a single batched event instead of reloading the whole tree.
+ * <p>
+ * Must only be changed on the EDT.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class FileTreeModel implements TreeModel {
+
+    /**
+     * The node of a single file. Nodes are made on demand, two nodes of
+     * the same file are equal.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public static final class FileNode extends DefaultMutableTreeNode {
+        private static final long serialVersionUID = 1L;
+        private final transient File file;
+
+        /**
+         * @param file The file
+         * @param name The name that is shown
+         * @param root The root it belongs to
+         */
+        FileNode(File file, String name, DefaultMutableTreeNode root) {
+            super(name, false);
+            this.file = file;
+            this.parent = root;
+        }
+
+        /**
+         * @return File
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @param o
+         * @return boolean
+         */
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof FileNode n && n.file.equals(file) && n.parent == parent;
+        }
+
+        /**
+         * @return int
+         */
+        @Override
+        public int hashCode() {
+            return file.hashCode();
+        }
+    }
+
+    private final DefaultMutableTreeNode root;
+    private final Function<File, String> namer;
+    private final EventListenerList listeners = new EventListenerList();
+    private final List<File> files = new ArrayList<>();
+    private final Map<File, Integer> positions = new HashMap<>();
+    private boolean positionsValid = true;
+
+    /**
+     * @param root  The root node
+     * @param namer The name that is shown for a file
+     */
+    public FileTreeModel(DefaultMutableTreeNode root, Function<File, String> namer) {
+        this.root = root;
+        this.namer = namer;
+    }
+
+    /**
+     * @return int The amount of files
+     */
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * @param f
+     * @return boolean (true || false) if the file is in the model
+     */
+    public boolean contains(File f) {
+        return indexOf(f) >= 0;
+    }
+
+    /**
+     * @param f
+     * @return int The position of the file or -1
+     */
+    public int indexOf(File f) {
+        if (!positionsValid) {
+            positions.clear();
+            for (int i = 0; i < files.size(); i++) {
+                positions.put(files.get(i), i);
+            }
+            positionsValid = true;
+        }
+        Integer i = positions.get(f);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * @param i
+     * @return File The file at the position
+     */
+    public File getFile(int i) {
+        return files.get(i);
+    }
+
+    /**
+     * @return List The files in the order they are shown (read only)
+     */
+    public List<File> getFiles() {
+        return Collections.unmodifiableList(files);
+    }
+
+    /**
+     * @param f
+     * @return String The name that is shown for the file
+     */
+    public String nameOf(File f) {
+        return namer.apply(f);
+    }
+
+    /**
+     * @param f
+     * @return FileNode A node of the file
+     */
+    public FileNode nodeOf(File f) {
+        return new FileNode(f, namer.apply(f), root);
+    }
+
+    /**
+     * Appends the files that are not in the model yet.
+     *
+     * @param toAdd
+     */
+    public void addAll(Collection<File> toAdd) {
+        int start = files.size();
+        for (File f : toAdd) {
+            if (f != null && !contains(f)) {
+                positions.put(f, files.size());
+                files.add(f);
+            }
+        }
+        int n = files.size() - start;
+        if (n == 0) {
+            return;
+        }
+        int[] indices = new int[n];
+        Object[] children = new Object[n];
+        for (int i = 0; i < n; i++) {
+            indices[i] = start + i;
+            children[i] = nodeOf(files.get(start + i));
+        }
+        fire(new TreeModelEvent(this, new TreePath(root), indices, children), 0);
+    }
+
+    /**
+     * @param f
+     */
+    public void add(File f) {
+        addAll(Collections.singletonList(f));
+    }
+
+    /**
+     * Removes the files that are in the model.
+     *
+     * @param toRemove
+     */
+    public void removeAll(Collection<File> toRemove) {
+        int[] indices = toRemove.stream().mapToInt(this::indexOf).filter(i -> i >= 0).distinct().sorted()
+                .toArray();
+        if (indices.length == 0) {
+            return;
+        }
+        Object[] children = new Object[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            children[i] = nodeOf(files.get(indices[i]));
+        }
+        // compact in a single pass
+        int w = indices[0];
+        for (int r = indices[0], k = 0; r < files.size(); r++) {
+            if (k < indices.length && indices[k] == r) {
+                k++;
+            } else {
+                files.set(w++, files.get(r));
+            }
+        }
+        files.subList(w, files.size()).clear();
+        positionsValid = false;
+        fire(new TreeModelEvent(this, new TreePath(root), indices, children), 1);
+    }
+
+    /**
+     * @param f
+     * @return boolean (true || false) if the file was in the model
+     */
+    public boolean remove(File f) {
+        if (!contains(f)) {
+            return false;
+        }
+        removeAll(Collections.singletonList(f));
+        return true;
+    }
+
+    /**
+     * Shows the same files in a different order with a single event.
+     * <p>
+     * Files of the order that were removed meanwhile are skipped, files
+     * that were added meanwhile keep their order at the end.
+     *
+     * @param order The files in their new order
+     */
+    public void reorder(List<File> order) {
+        Set<File> left = new HashSet<>(files);
+        List<File> next = new ArrayList<>(files.size());
+        for (File f : order) {
+            if (left.remove(f)) {
+                next.add(f);
+            }
+        }
+        for (File f : files) {
+            if (left.contains(f)) {
+                next.add(f);
+            }
+        }
+        files.clear();
+        files.addAll(next);
+        positionsValid = false;
+        reload();
+    }
+
+    /**
+     * Tells the tree that everything changed.
+     */
+    public void reload() {
+        fire(new TreeModelEvent(this, new TreePath(root)), 2);
+    }
+
+    /**
+     * @param e
+     * @param type 0 inserted, 1 removed, 2 structure changed
+     */
+    private void fire(TreeModelEvent e, int type) {
+        for (TreeModelListener l : listeners.getListeners(TreeModelListener.class)) {
+            switch (type) {
+                case 0 -> l.treeNodesInserted(e);
+                case 1 -> l.treeNodesRemoved(e);
+                default -> l.treeStructureChanged(e);
+            }
+        }
+    }
+
+    /**
+     * @return Object
+     */
+    @Override
+    public Object getRoot() {
+        return root;
+    }
+
+    /**
+     * @param parent
+     * @param index
+     * @return Object
+     */
+    @Override
+    public Object getChild(Object parent, int index) {
+        return parent == root && index >= 0 && index < files.size() ? nodeOf(files.get(index)) : null;
+    }
+
+    /**
+     * @param parent
+     * @return int
+     */
+    @Override
+    public int getChildCount(Object parent) {
+        return parent == root ? files.size() : 0;
+    }
+
+    /**
+     * @param node
+     * @return boolean
+     */
+    @Override
+    public boolean isLeaf(Object node) {
+        return node != root;
+    }
+
+    /**
+     * @param path
+     * @param newValue
+     */
+    @Override
+    public void valueForPathChanged(TreePath path, Object newValue) {
+        // IGNORED, the tree is not editable
+    }
+
+    /**
+     * @param parent
+     * @param child
+     * @return int
+     */
+    @Override
+    public int getIndexOfChild(Object parent, Object child) {
+        return parent == root && child instanceof FileNode n ? indexOf(n.getFile()) : -1;
+    }
+
+    /**
+     * @param l
+     */
+    @Override
+    public void addTreeModelListener(TreeModelListener l) {
+        listeners.add(TreeModelListener.class, l);
+    }
+
+    /**
+     * @param l
+     */
+    @Override
+    public void removeTreeModelListener(TreeModelListener l) {
+        listeners.remove(TreeModelListener.class, l);
+    }
+}
@@ -45,8 +45,6 @@ import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
 import com.jackmeng.locale.VirtualFolder;
 
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -87,6 +85,7 @@ public class LikeList extends FileList {
             Global.ico.getFromAsImageIcon(FILEVIEW_ICON_FOLDER_OPEN),
             Global.ico.getFromAsImageIcon(FILEVIEW_ICON_LIKED_FILE), "Unlike", itemListener);
         folder = (VirtualFolder) getFolderInfo();
+        Program.search.pin(folder.getAsListFiles());
     }
 
     /**
@@ -97,19 +96,12 @@ public class LikeList extends FileList {
     public void unset(String file) {
         try {
             Debugger.warn("Requesting Unset: " + file);
-            for (File f : getFileMap().keySet()) {
-                if (f.getAbsolutePath().equals(file)) {
-                    getFileMap().remove(f);
-                    folder.removeFile(f);
-                    Debugger.info(folder);
-                    DefaultTreeModel model = (DefaultTreeModel) getTree().getModel();
-                    model.removeNodeFromParent(getFileMap().get(f));
-                    model.reload();
-                    Debugger.good("Checking FileMap: " + getFileMap().get(f));
-                    Debugger.warn(folder.removeFile(f));
-                    Debugger.warn("UNSET: " + f.getAbsolutePath());
-                    break;
-                }
+            File f = new File(file);
+            getModel().remove(f);
+            Program.search.unpin(List.of(f));
+            if (folder.removeFile(f)) {
+                Debugger.info(folder);
+                Debugger.warn("UNSET: " + f.getAbsolutePath());
             }
         } catch (IllegalArgumentException e) {
             e.printStackTrace();
@@ -124,12 +116,9 @@ public class LikeList extends FileList {
     public void set(String file) {
         Debugger.warn("LIKED_LIST_SET: " + folder.getAsListFiles().contains(new File(file)));
         if (!folder.getAsListFiles().contains(new File(file))) {
-            DefaultMutableTreeNode node = new DefaultMutableTreeNode(new File(file).getName());
-            getFileMap().put(new File(file), node);
-            super.getRoot().add(node);
-            getTree().revalidate();
+            getModel().add(new File(file));
             folder.addFile(new File(file));
-            ((DefaultTreeModel) getTree().getModel()).reload();
+            Program.search.pin(List.of(new File(file)));
             Debugger.info(folder);
         }
 
@@ -137,17 +126,17 @@ public class LikeList extends FileList {
 
     @Override
     public void revalidateFiles() {
-        List<File> toRemove = new ArrayList<>();
-        for (File f : getFileMap().keySet()) {
-            if (!f.exists() || !f.isFile()) {
-                ((DefaultTreeModel) getTree().getModel()).removeNodeFromParent(getFileMap().get(f));
-                toRemove.add(f);
-                Debugger.warn("File not found: " + f.getName());
+        List<File> files = new ArrayList<>(getModel().getFiles());
+        scan(() -> {
+            List<File> toRemove = new ArrayList<>();
+            for (File f : files) {
+                if (!f.exists() || !f.isFile()) {
+                    toRemove.add(f);
+                    Debugger.warn("File not found: " + f.getName());
+                }
             }
-        }
-        for (File f : toRemove) {
-            getFileMap().remove(f);
-        }
+            return toRemove;
+        }, getModel()::removeAll);
     }
 
     /**
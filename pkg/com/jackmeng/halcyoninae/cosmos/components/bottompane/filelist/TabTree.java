@@ -98,6 +98,6 @@ public interface TabTree {
     void sort(TabTreeSortMethod e);
 
     enum TabTreeSortMethod {
-        ALPHABETICAL, SIZE, SHUFFLE, REV_ALPHABETICAL
+        ALPHABETICAL, SIZE, SHUFFLE, REV_ALPHABETICAL, ARTIST, ALBUM, TRACK_NUMBER, DURATION, DATE_ADDED, PLAY_COUNT
     }
 }
@@ -0,0 +1,229 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.cosmos.components.bottompane.filelist;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jackmeng.halcyoninae.cosmos.components.bottompane.filelist.TabTree.TabTreeSortMethod;
+import com.jackmeng.halcyoninae.halcyon.runtime.Program;
+import com.jackmeng.halcyoninae.halcyon.utils.LibraryIndex;
+
+import java.io.File;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Sorts the files of a {@link FileList} away from the EDT.
+ * <p>
+ * A sort key is made once for every file from the names and the tags kept
+ * by the {@link LibraryIndex}, names are compared as collation keys of the
+ * current locale with the length of every number put in front of it, so
+ * "Track 2" comes before "Track 10". Collation keys are slow to make, so
+ * they are kept between sorts. The keys are then sorted in parallel with a
+ * stable sort, so equal files keep their order.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class TrackSorter {
+    private static final int MAX_KEYS = 1 << 17;
+    private static final ExecutorService SORTER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon TrackSorter");
+        t.setDaemon(true);
+        return t;
+    });
+    /**
+     * Collators are not thread safe, every thread making keys gets its own.
+     */
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(() -> {
+        Collator c = Collator.getInstance();
+        c.setStrength(Collator.SECONDARY);
+        // decomposing every name is slow, names are composed by natural() instead
+        c.setDecomposition(Collator.NO_DECOMPOSITION);
+        return c;
+    });
+    private static final Cache<String, CollationKey> KEYS = Caffeine.newBuilder().maximumSize(MAX_KEYS).build();
+
+    /**
+     * The precomputed sort key of a single file, missing values are null or
+     * the largest value so they end up last.
+     *
+     * @param file     The file
+     * @param name     The name that is shown
+     * @param artist   The artist
+     * @param album    The album
+     * @param number   The track number
+     * @param duration The duration in seconds
+     * @param added    When the file was first indexed
+     * @param plays    How many times the file was played
+     * @param size     The size of the file
+     */
+    private record Key(File file, CollationKey name, CollationKey artist, CollationKey album, int number,
+            int duration, long added, int plays, long size) {
+    }
+
+    private TrackSorter() {
+    }
+
+    /**
+     * @param files  The files in their current order
+     * @param method How to sort them
+     * @param namer  The name that is shown for a file
+     * @return CompletableFuture The files in their new order, completed on a
+     *         background thread
+     */
+    public static CompletableFuture<List<File>> sort(List<File> files, TabTreeSortMethod method,
+            Function<File, String> namer) {
+        List<File> copy = new ArrayList<>(files);
+        return CompletableFuture.supplyAsync(() -> order(copy, method, namer), SORTER);
+    }
+
+    /**
+     * @param files  The files, sorted in place when shuffling
+     * @param method
+     * @param namer
+     * @return List The files in their new order
+     */
+    static List<File> order(List<File> files, TabTreeSortMethod method, Function<File, String> namer) {
+        if (method == TabTreeSortMethod.SHUFFLE) {
+            Collections.shuffle(files);
+            return files;
+        }
+        Key[] keys = files.parallelStream().map(f -> key(f, method, namer)).toArray(Key[]::new);
+        Arrays.parallelSort(keys, comparator(method));
+        List<File> order = new ArrayList<>(keys.length);
+        for (Key k : keys) {
+            order.add(k.file());
+        }
+        return order;
+    }
+
+    /**
+     * @param f
+     * @param method
+     * @param namer
+     * @return Key Only the collation keys the method needs are made
+     */
+    private static Key key(File f, TabTreeSortMethod method, Function<File, String> namer) {
+        LibraryIndex.Track t = Program.library.getTrack(f);
+        boolean artist = method == TabTreeSortMethod.ARTIST, album = artist || method == TabTreeSortMethod.ALBUM;
+        return new Key(f, collate(namer.apply(f)), artist ? tag(t == null ? null : t.getArtist()) : null,
+                album ? tag(t == null ? null : t.getAlbum()) : null,
+                t == null || t.getNumber() < 0 ? Integer.MAX_VALUE : t.getNumber(),
+                t == null || t.getDuration() < 0 ? Integer.MAX_VALUE : t.getDuration(),
+                t != null ? t.getAdded() : method == TabTreeSortMethod.DATE_ADDED ? f.lastModified() : 0L,
+                t == null ? 0 : t.getPlays(),
+                t != null ? t.getSize() : method == TabTreeSortMethod.SIZE ? f.length() : 0L);
+    }
+
+    /**
+     * @param tag A tag
+     * @return CollationKey The key or null if the tag is missing
+     */
+    private static CollationKey tag(String tag) {
+        return tag == null || tag.isBlank() || tag.equals("Unknown") ? null : collate(tag);
+    }
+
+    /**
+     * @param s
+     * @return CollationKey
+     */
+    private static CollationKey collate(String s) {
+        return KEYS.get(s, x -> COLLATOR.get().getCollationKey(natural(x)));
+    }
+
+    /**
+     * @param s
+     * @return String The composed string with every number prefixed by its
+     *         length in two digits, ignoring leading zeros
+     */
+    static String natural(String s) {
+        if (!s.chars().allMatch(c -> c < 0x80)) {
+            s = Normalizer.normalize(s, Normalizer.Form.NFC);
+        }
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        int i = 0;
+        while (i < s.length()) {
+            char ch = s.charAt(i);
+            if (ch >= '0' && ch <= '9') {
+                while (i + 1 < s.length() && s.charAt(i) == '0' && Character.isDigit(s.charAt(i + 1))) {
+                    i++;
+                }
+                int start = i;
+                while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+                    i++;
+                }
+                int length = Math.min(i - start, 99);
+                sb.append((char) ('0' + length / 10)).append((char) ('0' + length % 10)).append(s, start, i);
+            } else {
+                sb.append(ch);
+                i++;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param method
+     * @return Comparator Ties are broken by the name
+     */
+    private static Comparator<Key> comparator(TabTreeSortMethod method) {
+        Comparator<Key> byName = Comparator.comparing(Key::name);
+        Comparator<CollationKey> tag = Comparator.nullsLast(Comparator.naturalOrder());
+        return switch (method) {
+            case REV_ALPHABETICAL -> byName.reversed();
+            case ARTIST -> Comparator.comparing(Key::artist, tag).thenComparing(Key::album, tag)
+                    .thenComparingInt(Key::number).thenComparing(byName);
+            case ALBUM -> Comparator.comparing(Key::album, tag).thenComparingInt(Key::number).thenComparing(byName);
+            case TRACK_NUMBER -> Comparator.comparingInt(Key::number).thenComparing(byName);
+            case DURATION -> Comparator.comparingInt(Key::duration).thenComparing(byName);
+            case DATE_ADDED -> Comparator.comparingLong(Key::added).reversed().thenComparing(byName);
+            case PLAY_COUNT -> Comparator.comparingInt(Key::plays).reversed().thenComparing(byName);
+            case SIZE -> Comparator.comparingLong(Key::size).thenComparing(byName);
+            default -> byName;
+        };
+    }
+}
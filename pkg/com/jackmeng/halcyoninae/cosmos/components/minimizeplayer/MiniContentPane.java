@@ -43,6 +43,7 @@ import com.jackmeng.halcyoninae.cosmos.components.toppane.layout.InfoViewTP.Info
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.ColorManager;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.halcyon.utils.*;
+import com.jackmeng.halcyoninae.tailwind.ArtworkThumbnails;
 import com.jackmeng.halcyoninae.tailwind.AudioInfo;
 
 import javax.swing.*;
@@ -66,7 +67,7 @@ public class MiniContentPane extends JPanel implements InfoViewUpdateListener {
     private final JLabel artLabel;
     private final JProgressBar progressBar;
     private transient AudioInfo info;
-    private boolean fDrawn = true;
+    private boolean fDrawn = true, timeSubscribed;
     private transient BufferedImage bg;
 
     public MiniContentPane() {
@@ -80,16 +81,9 @@ public class MiniContentPane extends JPanel implements InfoViewUpdateListener {
             public void paintComponent(Graphics g) {
                 if (info.hasArtwork() || !fDrawn && bg != null) {
                     Graphics2D g2 = (Graphics2D) g;
-                    g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_ATOP, Float
-                            .parseFloat(ExternalResource.pm
-                                    .get(ProgramResourceManager.KEY_MINI_PLAYER_DEFAULT_BG_ALPHA)) > 0.5F ? 1.0F - Float
-                                            .parseFloat(
-                                                    ExternalResource.pm.get(
-                                                            ProgramResourceManager.KEY_MINI_PLAYER_DEFAULT_BG_ALPHA))
-                                            : Float
-                                                    .parseFloat(
-                                                            ExternalResource.pm.get(
-                                                                    ProgramResourceManager.KEY_MINI_PLAYER_DEFAULT_BG_ALPHA))));
+                    float alpha = ExternalResource.pm.getFloat(ProgramResourceManager.KEY_MINI_PLAYER_DEFAULT_BG_ALPHA);
+                    g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_ATOP,
+                            alpha > 0.5F ? 1.0F - alpha : alpha));
                     g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
                     g2.drawImage(
                             bg,
@@ -124,7 +118,7 @@ public class MiniContentPane extends JPanel implements InfoViewUpdateListener {
 
         artLabel = new JLabel(
                 new ImageIcon(
-                        DeImage.createRoundedBorder(DeImage.resizeNoDistort(info.getArtwork(), 128, 128), 10, null)));
+                        DeImage.createRoundedBorder(DeImage.resizeNoDistort(info.getArtwork(ArtworkThumbnails.SMALL), 128, 128), 10, null)));
 
         topPanel.add(artLabel);
         topPanel.add(mainLabel);
@@ -154,30 +148,39 @@ public class MiniContentPane extends JPanel implements InfoViewUpdateListener {
 
         add(bgPanel);
         add(fgPanel);
-        _init_time();
     }
 
     private void _init_time() {
-        Timer timeKeeper = new Timer(100, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e1) {
-                if (isShowing() || isVisible()) {
-                    progressBar.setValue((int) (Numerical.__safe_divide(
-                            Global.player.getStream().getPosition() * (double) progressBar
-                                    .getMaximum(),
-                            Global.player.getStream().getLength())));
-                }
+        Global.player.getStream().addTimeListener(time -> {
+            if (isShowing() || isVisible()) {
+                int value = (int) (Numerical.__safe_divide(time * (double) progressBar.getMaximum(),
+                        Global.player.getStream().getLength()));
+                SwingUtilities.invokeLater(() -> progressBar.setValue(value));
             }
         });
-        timeKeeper.setRepeats(true);
-        timeKeeper.start();
+    }
+
+    /**
+     * The player might not exist yet while this pane is built,
+     * so the time listener is only added once the pane is first displayed.
+     */
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (!timeSubscribed) {
+            timeSubscribed = true;
+            _init_time();
+            ExternalResource.pm.addListener(ProgramResourceManager.KEY_MINI_PLAYER_DEFAULT_BG_ALPHA,
+                    (k, v) -> SwingUtilities.invokeLater(bgPanel::repaint));
+        }
     }
 
     private void __refresh_draw_bg_img_() {
         BufferedImage img = null;
         if (info.hasArtwork()) {
-            img = MiniDeImage.blurHash(DeImage.resize(info.getArtwork(), (int) bgPanel.getPreferredSize().getWidth(),
-                    (int) bgPanel.getPreferredSize().getHeight()), 4, 4);
+            // the blur hash is smooth, so it can be made from the thumbnail and then stretched
+            img = DeImage.resize(MiniDeImage.blurHash(info.getArtwork(ArtworkThumbnails.SMALL), 4, 4),
+                    (int) bgPanel.getPreferredSize().getWidth(), (int) bgPanel.getPreferredSize().getHeight());
         }
         bg = img;
         if (bg != null) {
@@ -202,7 +205,7 @@ public class MiniContentPane extends JPanel implements InfoViewUpdateListener {
         mainLabel.setText(getLabelString());
         artLabel.setIcon(
                 new ImageIcon(
-                        DeImage.createRoundedBorder(DeImage.resizeNoDistort(info.getArtwork(), 128, 128), 10, null)));
+                        DeImage.createRoundedBorder(DeImage.resizeNoDistort(info.getArtwork(ArtworkThumbnails.SMALL), 128, 128), 10, null)));
     }
 
     /**
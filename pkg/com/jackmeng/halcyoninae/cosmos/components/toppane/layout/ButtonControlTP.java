@@ -54,6 +54,7 @@ import com.jackmeng.halcyoninae.halcyon.utils.TimeParser;
 import com.jackmeng.halcyoninae.tailwind.AudioInfo;
 import com.jackmeng.halcyoninae.tailwind.TailwindEvent.TailwindStatus;
 import com.jackmeng.halcyoninae.tailwind.TailwindListener;
+import com.jackmeng.halcyoninae.tailwind.TailwindOverview;
 import com.jackmeng.locale.Localized;
 
 import javax.swing.*;
@@ -64,6 +65,9 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.io.File;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -82,7 +86,8 @@ import java.util.concurrent.Executors;
  * @since 3.0
  */
 public class ButtonControlTP extends JPanel
-        implements InfoViewUpdateListener, ActionListener, ChangeListener, TailwindListener.StatusUpdateListener {
+        implements InfoViewUpdateListener, ActionListener, ChangeListener, TailwindListener.StatusUpdateListener,
+        TailwindListener.TimeUpdateListener {
     public static final int BUTTONCONTROL_MIN_WIDTH = Manager.MIN_WIDTH;
     public static final int BUTTONCONTROL_MIN_HEIGHT = Manager.MIN_HEIGHT / 4;
     public static final int BUTTONCONTROL_BOTTOM_TOP_BUDGET = 12;
@@ -119,9 +124,15 @@ public class ButtonControlTP extends JPanel
     private final JSlider volumeSlider;
     private final TimeControlSubTP tsp;
     private final JPanel buttons;
-    private final transient Timer timeKeeper;
     private transient AudioInfo aif = new AudioInfo();
+    private transient File overviewFile;
+    private transient TailwindOverview.Overview overview;
     private boolean hasPlayed = false;
+    private final transient ExecutorService seeker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon Seek");
+        t.setDaemon(true);
+        return t;
+    });
     /// ButtonControl Config END
 
     public ButtonControlTP() {
@@ -253,8 +264,22 @@ public class ButtonControlTP extends JPanel
         progressSlider.setAlignmentX(Component.CENTER_ALIGNMENT);
         progressSlider.addChangeListener(this);
 
-        bf = new BarForm(Toolkit.getDefaultToolkit().getScreenSize().width, 10, 1, 3, new BoxWaveConf(10, 5, 2, 3),
+        progressSlider.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                seek(e.getX() / (float) Math.max(1, progressSlider.getWidth()));
+            }
+        });
+
+        bf = new BarForm(Toolkit.getDefaultToolkit().getScreenSize().width, 10, 3, 2, new BoxWaveConf(10, 2, 2, 2),
                 new ColorConf(ColorManager.BORDER_THEME, null));
+        bf.setPlayedColor(ColorManager.MAIN_FG_THEME);
+        bf.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                drawOverview();
+            }
+        });
 
         JPanel bfWrapper = new JPanel();
         bfWrapper.setLayout(new BorderLayout());
@@ -266,26 +291,6 @@ public class ButtonControlTP extends JPanel
 
         tsp = new TimeControlSubTP();
 
-        timeKeeper = new Timer(100, new ActionListener() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-                if (Global.player.getStream().isPlaying()) {
-                    if (Global.player.getStream().getLength() > 0) {
-                        progressSlider
-                                .setValue(
-                                        (int) (Global.player.getStream().getPosition() * progressSlider.getMaximum()
-                                                / Global.player.getStream().getLength()));
-
-                        tsp.setTimeText(TimeParser.fromMillis(Global.player.getStream().getPosition()));
-                    } else {
-                        progressSlider.setValue(0);
-                        tsp.setTimeText("00:00:00");
-                    }
-                }
-            }
-        });
-        timeKeeper.setRepeats(true);
-        timeKeeper.start();
 
         sliders.add(Box.createVerticalStrut(BUTTONCONTROL_BOTTOM_TOP_BUDGET / 5));
         sliders.add(overlayWaveForm);
@@ -305,7 +310,74 @@ public class ButtonControlTP extends JPanel
         });
         add(buttons);
         add(sliders);
-        bf.makeRNG();
+        bf.make(new int[0], 0L);
+    }
+
+    /**
+     * Colors the played part of the overview with the accent of the artwork.
+     * Must be called on the EDT.
+     *
+     * @param accent The accent color or null for the theme color
+     */
+    public void setAccent(Color accent) {
+        bf.setPlayedColor(accent != null ? accent : ColorManager.MAIN_FG_THEME);
+    }
+
+    /**
+     * Shows the overview of a track in the bars, made in the background if
+     * it was never made before.
+     *
+     * @param f The track
+     */
+    private void showOverview(File f) {
+        overviewFile = f;
+        overview = null;
+        bf.setProgress(0F);
+        bf.make(new int[0], 0L);
+        TailwindOverview.get(f).thenAccept(o -> SwingUtilities.invokeLater(() -> {
+            if (f.equals(overviewFile)) {
+                overview = o;
+                drawOverview();
+            }
+        }));
+    }
+
+    /**
+     * Fits the overview to the bars that fit the current width.
+     */
+    private void drawOverview() {
+        TailwindOverview.Overview o = overview;
+        if (o == null) {
+            return;
+        }
+        int n = bf.fitting(), h = bf.getHeight();
+        float max = Math.max(1F / 255F, o.maxRms());
+        int[] bars = new int[n];
+        for (int i = 0; i < n; i++) {
+            bars[i] = Math.round(o.rms(i / (float) n, (i + 1) / (float) n) / max * h);
+        }
+        bf.make(bars, 0L);
+    }
+
+    /**
+     * Moves the played part right away and seeks the stream in the
+     * background, as seeking waits on the decode stage and reads the file.
+     *
+     * @param fraction Where to go as a fraction of the track
+     */
+    private void seek(float fraction) {
+        if (!Global.player.getStream().isOpen()) {
+            return;
+        }
+        float to = Math.max(0F, Math.min(1F, fraction));
+        progressSlider.setValue((int) (to * progressSlider.getMaximum()));
+        bf.setProgress(to);
+        seeker.execute(() -> {
+            long length = Global.player.getStream().getLength();
+            if (Global.player.getStream().isOpen() && length > 0) {
+                Global.player.getStream().setPosition((long) (to * length));
+            }
+        });
     }
 
     /**
@@ -322,7 +394,10 @@ public class ButtonControlTP extends JPanel
     @Localized
     @Override
     public void infoView(AudioInfo info) {
-        if (aif != null
+        // the stream moved on to this track by itself, it keeps playing
+        boolean current = Global.player.getStream().isOpen()
+                && info.getTag(AudioInfo.KEY_ABSOLUTE_FILE_PATH).equals(Global.player.getCurrentFile());
+        if (!current && aif != null
                 && !aif.getTag(AudioInfo.KEY_ABSOLUTE_FILE_PATH)
                         .equals(info.getTag(AudioInfo.KEY_ABSOLUTE_FILE_PATH))) {
             Global.player.setFile(aif.getTag(AudioInfo.KEY_ABSOLUTE_FILE_PATH));
@@ -335,16 +410,14 @@ public class ButtonControlTP extends JPanel
         } else {
             likeButton.noLike();
         }
-        if (Global.player.getStream().isPlaying()) {
+        if (!current && Global.player.getStream().isPlaying()) {
             Global.player.getStream().stop();
             Global.player.getStream().close();
         }
-        if (hasPlayed) {
-            hasPlayed = false;
-        }
+        hasPlayed = current;
         progressSlider.setValue(0);
         tsp.setTimeText("00:00:00");
-        bf.makeRNG();
+        showOverview(new File(info.getTag(AudioInfo.KEY_ABSOLUTE_FILE_PATH)));
     }
 
     /**
@@ -478,14 +551,31 @@ public class ButtonControlTP extends JPanel
         if (status.equals(TailwindStatus.PLAYING) || status.equals(TailwindStatus.RESUMED)) {
             playButton.setIcon(DeImage.resizeImage(Global.ico.getFromAsImageIcon(BUTTONCTRL_PAUSE_PLAY_ICON),
                     PLAY_PAUSE_ICON_SIZE, PLAY_PAUSE_ICON_SIZE));
-            if (!timeKeeper.isRunning())
-                timeKeeper.start();
         } else if (status.equals(TailwindStatus.PAUSED) || status.equals(TailwindStatus.CLOSED)
                 || status.equals(TailwindStatus.END)) {
             playButton.setIcon(DeImage.resizeImage(Global.ico.getFromAsImageIcon(BUTTONCTRL_PLAY_PAUSE_ICON),
                     PLAY_PAUSE_ICON_SIZE, PLAY_PAUSE_ICON_SIZE));
-            if (timeKeeper.isRunning())
-                timeKeeper.stop();
         }
     }
+
+    /**
+     * Pushed by the player's clock while the stream is playing.
+     *
+     * @param time The current time in milliseconds
+     */
+    @Override
+    public void trackCurrentTime(long time) {
+        long length = Global.player.getStream().getLength();
+        SwingUtilities.invokeLater(() -> {
+            if (length > 0) {
+                progressSlider.setValue((int) (time * progressSlider.getMaximum() / length));
+                bf.setProgress(time / (float) length);
+                tsp.setTimeText(TimeParser.fromMillis(time));
+            } else {
+                progressSlider.setValue(0);
+                bf.setProgress(0F);
+                tsp.setTimeText("00:00:00");
+            }
+        });
+    }
 }
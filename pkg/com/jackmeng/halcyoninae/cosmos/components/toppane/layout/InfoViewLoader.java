@@ -0,0 +1,246 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.cosmos.components.toppane.layout;
+
+import com.jackmeng.halcyoninae.cloudspin.lib.BlurredBackdrop;
+import com.jackmeng.halcyoninae.halcyon.utils.DeImage;
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.ExternalResource;
+import com.jackmeng.halcyoninae.tailwind.ArtworkThumbnails;
+import com.jackmeng.halcyoninae.tailwind.AudioInfo;
+import com.jackmeng.halcyoninae.tailwind.AudioInfoCache;
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
+import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
+import org.jaudiotagger.tag.TagException;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Loads everything the {@link InfoViewTP} shows for a track away from the
+ * Event Dispatch Thread.
+ * <p>
+ * The work is split into stages (parse the tags, decode the artwork, find
+ * its palette, scale the artwork, prepare the backdrop) that run on a
+ * single background thread.
+ * Every new request supersedes the one before it: a superseded request is
+ * dropped between stages and its result is never handed to the EDT, so
+ * skipping quickly through tracks only pays for the last one.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class InfoViewLoader {
+
+    /**
+     * Everything the view needs to show a track, ready to be put into
+     * Swing components.
+     *
+     * @param file     The track
+     * @param info     The parsed information (never null)
+     * @param guessed  (true || false) if the tags could not be read and the
+     *                 information was guessed from the file name
+     * @param artwork  The scaled artwork or null if the track has none
+     * @param backdrop The prepared backdrop or null if the track has none
+     * @param accent   The accent color of the artwork or null if the track has
+     *                 none
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public record Result(File file, AudioInfo info, boolean guessed, BufferedImage artwork,
+            BlurredBackdrop.Frame backdrop, Color accent) {
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon InfoView Loader");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong generation = new AtomicLong();
+    private final int artworkSize;
+    private final Function<ArtworkThumbnails.Thumbnail, BlurredBackdrop.Frame> backdrop;
+    private Future<?> pending;
+
+    /**
+     * @param artworkSize The width and height the artwork is scaled to
+     * @param backdrop    The stage that turns the large thumbnail of the
+     *                    artwork into the backdrop
+     */
+    public InfoViewLoader(int artworkSize, Function<ArtworkThumbnails.Thumbnail, BlurredBackdrop.Frame> backdrop) {
+        this.artworkSize = artworkSize;
+        this.backdrop = backdrop;
+    }
+
+    /**
+     * Starts loading a track and cancels whatever was still being loaded.
+     * The callback is run on the EDT and only if no newer request was made
+     * in the meantime.
+     *
+     * @param f    The track to load
+     * @param done What to do with the result on the EDT
+     */
+    public synchronized void load(File f, Consumer<Result> done) {
+        long id = generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        pending = worker.submit(() -> {
+            try {
+                Result r = run(f, id);
+                if (r != null) {
+                    SwingUtilities.invokeLater(() -> {
+                        if (!isStale(id)) {
+                            done.accept(r);
+                        }
+                    });
+                }
+            } catch (CancellationException e) {
+                Debugger.info("InfoViewLoader> Dropped superseded request: " + f.getName());
+            } catch (RuntimeException e) {
+                ExternalResource.dispatchLog(e);
+            }
+        });
+    }
+
+    /**
+     * Cancels whatever is being loaded without starting anything new.
+     */
+    public synchronized void cancel() {
+        generation.incrementAndGet();
+        if (pending != null) {
+            pending.cancel(false);
+            pending = null;
+        }
+    }
+
+    /**
+     * @param id The generation of a request
+     * @return boolean (true || false) if a newer request was made
+     */
+    private boolean isStale(long id) {
+        return generation.get() != id;
+    }
+
+    /**
+     * @param id The generation of the request
+     * @throws CancellationException If a newer request was made
+     */
+    private void checkpoint(long id) {
+        if (isStale(id)) {
+            throw new CancellationException();
+        }
+    }
+
+    /**
+     * Runs every stage for a single request.
+     *
+     * @param f  The track
+     * @param id The generation of the request
+     * @return Result The result or null if the file is not there anymore
+     */
+    private Result run(File f, long id) {
+        if (!f.isFile()) {
+            return null;
+        }
+        // parse
+        AudioInfo info;
+        boolean guessed = false;
+        try {
+            info = AudioInfoCache.read(f);
+        } catch (InvalidAudioFrameException | CannotReadException | IOException | TagException
+                | ReadOnlyFileException e) {
+            guessed = true;
+            info = guess(f);
+            Debugger.warn("Using beSmart toolkit...");
+        }
+        checkpoint(id);
+        // decode artwork
+        // (only decoded the first time, after that the thumbnails are read back)
+        ArtworkThumbnails.Thumbnail small = !guessed ? info.getArtworkThumbnail(artworkSize) : null;
+        checkpoint(id);
+        // accent color of the artwork (the palette is cached with the track)
+        Color accent = small != null && info.getPalette().length > 0 ? info.getAccentColor() : null;
+        checkpoint(id);
+        // scale
+        BufferedImage scaled = small == null ? null
+                : DeImage.resizeNoDistort(small.image(), artworkSize, artworkSize);
+        checkpoint(id);
+        // backdrop
+        ArtworkThumbnails.Thumbnail large = small == null ? null
+                : info.getArtworkThumbnail(ArtworkThumbnails.LARGE);
+        BlurredBackdrop.Frame back = large == null ? null : backdrop.apply(large);
+        checkpoint(id);
+        return new Result(f, info, guessed, scaled, back, accent);
+    }
+
+    /**
+     * @param f The track whose tags could not be read
+     * @return AudioInfo Placeholder information for the track
+     */
+    private static AudioInfo guess(File f) {
+        Map<String, String> defaultMap = new WeakHashMap<>();
+        defaultMap.put(AudioInfo.KEY_ABSOLUTE_FILE_PATH, f.getAbsolutePath());
+        defaultMap.put(AudioInfo.KEY_FILE_NAME, f.getName());
+        defaultMap.put(AudioInfo.KEY_ALBUM, "Unknown");
+        defaultMap.put(AudioInfo.KEY_MEDIA_DURATION, "Unknown");
+        defaultMap.put(AudioInfo.KEY_MEDIA_TITLE, "Unknown");
+        defaultMap.put(AudioInfo.KEY_BITRATE, "Unknown");
+        defaultMap.put(AudioInfo.KEY_SAMPLE_RATE, "Unknown");
+        defaultMap.put(AudioInfo.KEY_GENRE, "Unknown");
+        defaultMap.put(AudioInfo.KEY_MEDIA_ARTIST, "Unknown");
+        defaultMap.put(AudioInfo.KEY_ARTWORK, "Unknown");
+        AudioInfo info = new AudioInfo();
+        info.forceSet(defaultMap);
+        return info;
+    }
+}
@@ -39,8 +39,7 @@
 
 package com.jackmeng.halcyoninae.cosmos.components.toppane.layout;
 
-import com.jackmeng.halcyoninae.cloudspin.CloudSpin;
-import com.jackmeng.halcyoninae.cloudspin.lib.StdBlurLayer;
+import com.jackmeng.halcyoninae.cloudspin.lib.BlurredBackdrop;
 import com.jackmeng.halcyoninae.halcyon.Halcyon;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.ColorManager;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
@@ -48,22 +47,14 @@ import com.jackmeng.halcyoninae.halcyon.runtime.constant.Manager;
 import com.jackmeng.halcyoninae.halcyon.utils.*;
 import com.jackmeng.halcyoninae.tailwind.AudioInfo;
 import com.twelvemonkeys.image.ConvolveWithEdgeOp;
-import org.jaudiotagger.audio.exceptions.CannotReadException;
-import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
-import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
-import org.jaudiotagger.tag.TagException;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ComponentListener;
 import java.awt.image.BufferedImage;
-import java.awt.image.ConvolveOp;
 import java.io.File;
-import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.WeakHashMap;
 
 /**
  * This class sits on the most upper part of the GUI frame.
@@ -99,8 +90,12 @@ public class InfoViewTP extends JPanel implements ComponentListener {
      */
     private final JLabel[] infoDisplayers;
     private final JLabel artWork;
+    private final ImageIcon defaultArtwork;
+    private final transient BlurredBackdrop backdrop = new BlurredBackdrop(INFOVIEW_MIN_WIDTH, INFOVIEW_MIN_HEIGHT,
+            ExternalResource.pm.getInt(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_FACTOR), blurEdge());
+    private final transient InfoViewLoader loader = new InfoViewLoader(INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT,
+            t -> backdrop.prepare(t.image(), t.scale()));
     private final transient ArrayList<InfoViewUpdateListener> listeners;
-    private transient BufferedImage backPanelArt;
     private transient AudioInfo info;
     private String infoTitle;
     private boolean artWorkIsDefault = true;
@@ -129,42 +124,31 @@ public class InfoViewTP extends JPanel implements ComponentListener {
                 @Override
                 public void paintComponent(Graphics g) {
                     super.paintComponent(g);
-                    if (Halcyon.bgt.getFrame().isVisible() && Halcyon.bgt.getFrame().isShowing()
-                            && backPanelArt != null) {
-                        Graphics2D g2d = (Graphics2D) g;
-                        g2d.setComposite(
-                                AlphaComposite.getInstance(
-                                        AlphaComposite.SRC_OVER, // SRC_OVER could be optimized as XOR will not work
-                                        0.5F));
-                        g2d.drawImage(CloudSpin.grabCrop(backPanelArt, backPanel.getVisibleRect()), 0, 0,
-                                topPanel.getWidth(), backPanel.getHeight(), null);
-                        g2d.dispose();
+                    if (Halcyon.bgt.getFrame().isVisible() && Halcyon.bgt.getFrame().isShowing()) {
+                        // already cropped, scaled and blurred, so this is a single blit
+                        Image img = backdrop.get(getGraphicsConfiguration(), getWidth(), getHeight());
+                        if (img != null) {
+                            Graphics2D g2d = (Graphics2D) g.create();
+                            g2d.setComposite(
+                                    AlphaComposite.getInstance(
+                                            AlphaComposite.SRC_OVER, // SRC_OVER could be optimized as XOR will not work
+                                            0.5F));
+                            g2d.drawImage(img, 0, 0, null);
+                            g2d.dispose();
+                        }
                     }
                 }
             };
-            __refresh_draw_bg_img(true);
+            __refresh_draw_bg_img(null);
         }
         backPanel.setPreferredSize(
                 getPreferredSize());
         backPanel.setOpaque(false);
 
-        JLayer<Component> blurBp = new JLayer<>(backPanel,
-                new StdBlurLayer(
-                        Integer.parseInt(
-                                ExternalResource.pm.get(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_FACTOR)),
-                        null,
-                        (ExternalResource.pm.get(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_STYLE)
-                                .equals("default")
-                                        ? ConvolveOp.EDGE_ZERO_FILL
-                                        : ExternalResource.pm
-                                                .get(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_STYLE)
-                                                .equals("wrap")
-                                                        ? ConvolveWithEdgeOp.EDGE_WRAP
-                                                        : ExternalResource.pm
-                                                                .get(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_STYLE)
-                                                                .equals("reflect") ? ConvolveWithEdgeOp.EDGE_REFLECT
-                                                                        : ConvolveWithEdgeOp.EDGE_ZERO_FILL)));
-        blurBp.setPreferredSize(backPanel.getPreferredSize());
+        ExternalResource.pm.addListener(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_FACTOR,
+                (k, v) -> __refresh_blur());
+        ExternalResource.pm.addListener(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_STYLE,
+                (k, v) -> __refresh_blur());
 
         BufferedImage bi = DeImage.imageIconToBI(
                 Global.ico.getFromAsImageIcon(INFOVIEW_DISK_NO_FILE_LOADED_ICON));
@@ -172,7 +156,8 @@ public class InfoViewTP extends JPanel implements ComponentListener {
                 bi,
                 INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT,
                 INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT);
-        artWork = new JLabel(new ImageIcon(bi));
+        defaultArtwork = new ImageIcon(bi);
+        artWork = new JLabel(defaultArtwork);
         artWork.setBorder(BorderFactory.createEmptyBorder());
         artWork.setHorizontalAlignment(SwingConstants.CENTER);
         artWork.setVerticalAlignment(SwingConstants.CENTER);
@@ -219,7 +204,7 @@ public class InfoViewTP extends JPanel implements ComponentListener {
         addComponentListener(this);
         setLayout(new OverlayLayout(this));
         add(topPanel);
-        add(blurBp);
+        add(backPanel);
         topPanel.setOpaque(false);
     }
 
@@ -227,112 +212,95 @@ public class InfoViewTP extends JPanel implements ComponentListener {
      * Schedules a drawing event on the SWT to update the background image
      * of the backdrop.
      *
-     * @param draw_as_first Determines if the drawing should perform as if it is the
-     *                      first time being drawn
+     * @param frame The prepared backdrop or null to clear it
      */
-    private void __refresh_draw_bg_img(boolean draw_as_first) {
+    private void __refresh_draw_bg_img(BlurredBackdrop.Frame frame) {
         SwingUtilities.invokeLater(() -> {
             if (!disable_backpanel) {
                 Debugger.alert(new TConstr(new CLIStyles[] { CLIStyles.GREEN_BG, CLIStyles.WHITE_TXT },
                         "Defaulting a new background image."));
-                BufferedImage img;
-                if (!draw_as_first && info.hasArtwork()) {
-                    img = info.getArtwork();
-                    /*
-                     * img = CloudSpin.grabCrop(img,
-                     * new Rectangle(this.getVisibleRect().x, this.getVisibleRect().y,
-                     * img.getWidth(),
-                     * this.getPreferredSize().height));
-                     * if (ExternalResource.pm.get(ProgramResourceManager.
-                     * KEY_INFOVIEW_BACKDROP_USE_GRADIENT)
-                     * .equals("true")) {
-                     * img = GradientImg.createGradientFade(img, 255, 0, GradientImg.TOP);
-                     *
-                     * img = switch (ExternalResource.pm
-                     * .get(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_GRADIENT_STYLE)) {
-                     * case "focused" -> GradientImg.createGradientFade(img, 255, 0,
-                     * GradientImg.BOTTOM);
-                     * case "left" -> GradientImg.createGradientFade(img, 255, 0, GradientImg.LEFT);
-                     * case "right" -> GradientImg.createGradientFade(img, 255, 0,
-                     * GradientImg.RIGHT);
-                     * default -> img;
-                     * };
-                     *
-                     * }
-                     */
-                } else {
-                    img = null;
-                }
-                backPanelArt = img;
+                backdrop.show(frame);
                 backPanel.repaint(30L);
             }
         });
         backPanel.repaint(100L);
     }
 
+    /**
+     * Picks up a changed blur factor or blur style, the backdrop is blurred
+     * again on the next paint.
+     */
+    private void __refresh_blur() {
+        backdrop.setBlur(ExternalResource.pm.getInt(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_FACTOR),
+                blurEdge());
+        SwingUtilities.invokeLater(backPanel::repaint);
+    }
+
+    /**
+     * @return int The edge handling of the configured blur style
+     */
+    private static int blurEdge() {
+        return switch (ExternalResource.pm.get(ProgramResourceManager.KEY_INFOVIEW_BACKDROP_BLUR_STYLE)) {
+            case "wrap" -> ConvolveWithEdgeOp.EDGE_WRAP;
+            case "reflect" -> ConvolveWithEdgeOp.EDGE_REFLECT;
+            default -> ConvolveWithEdgeOp.EDGE_ZERO_FILL;
+        };
+    }
+
     /**
      * This method is pinged whenever the information regarding
      * the current audio file needs updating.
      * <p>
-     * Mostly when the user selects a new track to play.
+     * Mostly when the user selects a new track to play. The track is loaded
+     * by the {@link InfoViewLoader} in the background, only the final
+     * component updates happen on the EDT. Selecting another track before
+     * this one is done drops the work for this one.
      *
      * @param f The audio track to play {@link java.io.File}
      */
     public void setAssets(File f) {
-        SwingUtilities.invokeLater(() -> {
-            if (f.exists() && f.isFile()) {
-                boolean beSmart = false;
-                try {
-                    info = new AudioInfo(f, false);
-                } catch (InvalidAudioFrameException | CannotReadException | IOException | TagException
-                        | ReadOnlyFileException e) {
-                    beSmart = true;
-                    Map<String, String> defaultMap = new WeakHashMap<>();
-                    defaultMap.put(AudioInfo.KEY_ABSOLUTE_FILE_PATH, f.getAbsolutePath());
-                    defaultMap.put(AudioInfo.KEY_FILE_NAME, f.getName());
-                    defaultMap.put(AudioInfo.KEY_ALBUM, "Unknown");
-                    defaultMap.put(AudioInfo.KEY_MEDIA_DURATION, "Unknown");
-                    defaultMap.put(AudioInfo.KEY_MEDIA_TITLE, "Unknown");
-                    defaultMap.put(AudioInfo.KEY_BITRATE, "Unknown");
-                    defaultMap.put(AudioInfo.KEY_SAMPLE_RATE, "Unknown");
-                    defaultMap.put(AudioInfo.KEY_GENRE, "Unknown");
-                    defaultMap.put(AudioInfo.KEY_MEDIA_ARTIST, "Unknown");
-                    defaultMap.put(AudioInfo.KEY_ARTWORK, "Unknown");
-                    info.forceSet(defaultMap);
-                    Debugger.warn("Using beSmart toolkit...");
-                }
-                if (!beSmart) {
-                    infoTitle = ExternalResource.pm.get(
-                            ProgramResourceManager.KEY_USE_MEDIA_TITLE_AS_INFOVIEW_HEADER)
-                            .equals("true")
-                                    ? info.getTag(AudioInfo.KEY_MEDIA_TITLE)
-                                    : new File(info.getTag(AudioInfo.KEY_ABSOLUTE_FILE_PATH)).getName();
-                    infoToString(info, infoTitle, false);
-                    Debugger.info("Using nonSmart (no guessing) toolkit. Phew!");
-                } else {
-                    infoTitle = f.getName();
-                    infoToString(info, infoTitle, true);
-                    Debugger.warn("Using beSmart (guessing) toolkit. Got: " + infoTitle);
-                }
-                if (infoDisplay.getPreferredSize().width >= (getPreferredSize().width -
-                        artWork.getPreferredSize().width -
-                        INFOVIEW_FLOWLAYOUT_HGAP *
-                                2)
-                        && Halcyon.bgt != null) {
-                    Halcyon.bgt.getFrame()
-                            .setSize(
-                                    new Dimension(
-                                            Manager.MAX_WIDTH,
+        loader.load(f, this::apply);
+    }
 
-                                            Halcyon.bgt.getFrame().getMinimumSize().height));
-                }
-                __reset_artwork_lowicon(beSmart);
-                if (!disable_backpanel) {
-                    __refresh_draw_bg_img(false);
-                }
-                __dispatch_();
-            }
-        });
+    /**
+     * Puts a loaded track into the components. Must be called on the EDT.
+     *
+     * @param r The loaded track
+     */
+    private void apply(InfoViewLoader.Result r) {
+        info = r.info();
+        boolean beSmart = r.guessed();
+        if (!beSmart) {
+            infoTitle = ExternalResource.pm.get(
+                    ProgramResourceManager.KEY_USE_MEDIA_TITLE_AS_INFOVIEW_HEADER)
+                    .equals("true")
+                            ? info.getTag(AudioInfo.KEY_MEDIA_TITLE)
+                            : new File(info.getTag(AudioInfo.KEY_ABSOLUTE_FILE_PATH)).getName();
+            infoToString(info, infoTitle, false);
+            Debugger.info("Using nonSmart (no guessing) toolkit. Phew!");
+        } else {
+            infoTitle = r.file().getName();
+            infoToString(info, infoTitle, true);
+            Debugger.warn("Using beSmart (guessing) toolkit. Got: " + infoTitle);
+        }
+        if (infoDisplay.getPreferredSize().width >= (getPreferredSize().width -
+                artWork.getPreferredSize().width -
+                INFOVIEW_FLOWLAYOUT_HGAP *
+                        2)
+                && Halcyon.bgt != null) {
+            Halcyon.bgt.getFrame()
+                    .setSize(
+                            new Dimension(
+                                    Manager.MAX_WIDTH,
+
+                                    Halcyon.bgt.getFrame().getMinimumSize().height));
+        }
+        __reset_artwork_lowicon(r.artwork());
+        Global.bctp.setAccent(r.accent());
+        if (!disable_backpanel) {
+            __refresh_draw_bg_img(r.backdrop());
+        }
+        __dispatch_();
     }
 
     /**
@@ -352,29 +320,16 @@ public class InfoViewTP extends JPanel implements ComponentListener {
     }
 
     /**
-     * @param beSmart
+     * @param scaled The scaled artwork or null to show the default icon
      */
-    private void __reset_artwork_lowicon(final boolean beSmart) {
-        if (info.hasArtwork()) {
+    private void __reset_artwork_lowicon(BufferedImage scaled) {
+        if (scaled != null) {
             Debugger.warn("Artwork found for drawing!");
-            BufferedImage bi = null;
-            if (!beSmart)
-                bi = DeImage.resizeNoDistort(info.getArtwork(), INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT,
-                        INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT);
-            else {
-                bi = DeImage.resizeNoDistort(
-                        bi,
-                        INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT,
-                        INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT);
-            }
-            artWork.setIcon(new ImageIcon(bi));
+            artWork.setIcon(new ImageIcon(scaled));
             artWorkIsDefault = false;
         } else {
             Debugger.warn("Artwork reset!");
-            BufferedImage bi = DeImage
-                    .resizeNoDistort(DeImage.imageIconToBI(INFOVIEW_DISK_NO_FILE_LOADED_ICON_ICON),
-                            INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT, INFOVIEW_ARTWORK_RESIZE_TO_HEIGHT);
-            artWork.setIcon(new ImageIcon(bi));
+            artWork.setIcon(defaultArtwork);
             artWorkIsDefault = true;
         }
     }
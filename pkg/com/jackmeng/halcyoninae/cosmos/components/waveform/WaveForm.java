@@ -42,12 +42,18 @@ package com.jackmeng.halcyoninae.cosmos.components.waveform;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.ColorManager;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.tailwind.TailwindListener;
+import com.jackmeng.halcyoninae.tailwind.TailwindMath;
 
+import javax.sound.sampled.AudioFormat;
 import javax.swing.*;
 import java.awt.*;
-import java.awt.geom.Path2D;
-import java.util.HashMap;
-import java.util.Map;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * A WaveForm main panel.
@@ -55,27 +61,85 @@ import java.util.Map;
  * 3.3 : Optimized the heck out of the algorithms
  * used to draw thus reducing overhead and memory
  * usage.
+ * <p>
+ * 3.4.1 : The audio is decimated off the EDT to the minimum and maximum of
+ * each pixel column and handed over through two buffers, painting only turns
+ * those into a polygon with arrays that are kept around. Repaints follow the
+ * refresh rate of the display and back off if painting takes longer than the
+ * frame budget allows.
  *
  * @author Jack Meng
  * @since 3.2
  */
 public class WaveForm extends JPanel implements TailwindListener.FrameBufferListener {
-    private static final Map<RenderingHints.Key, Object> renderinghints = new HashMap<>();
+    /**
+     * The amount of frames shown across the panel
+     */
+    public static final int WINDOW_FRAMES = 4096;
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon WaveForm");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final RenderingHints renderinghints = new RenderingHints(RenderingHints.KEY_STROKE_CONTROL,
+        RenderingHints.VALUE_STROKE_PURE);
 
     static {
-        renderinghints.put(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        // the outline already sits on whole pixels, antialiasing it costs several
+        // times the rest of the paint
+        renderinghints.put(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+    }
+
+    /**
+     * The minimum and maximum of each column, interleaved.
+     */
+    private static final class Frame {
+        float[] minmax = new float[0];
+        int columns;
     }
 
     private final transient Object lock = new Object();
-    private byte[] samples;
-    private Path2D.Float path = new Path2D.Float();
-    private int s_valid;
-    private boolean fakeVis = false;
+    private final BasicStroke stroke = new BasicStroke(1F);
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final long budget;
+    private volatile Frame front = new Frame();
+    private Frame back = new Frame();
+    private volatile long paintNanos;
+    private volatile boolean fakeVis = false;
+    // the width as last seen on the EDT, for decimating on other threads
+    private volatile int width;
+    private long posted, nextPost;
+    private ScheduledFuture<?> task;
+    // only touched while holding the lock
+    private byte[] pcm = new byte[0];
+    private float[] samples = new float[0];
+    // only touched by the EDT
+    private int[] xs = new int[0], ys = new int[0];
 
     public WaveForm() {
         setPreferredSize(new Dimension(WaveFormManager.MIN_WIDTH, WaveFormManager.MIN_HEIGHT));
         setOpaque(false);
         setDoubleBuffered(true);
+        budget = 1000000000L / refreshRate();
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                width = getWidth();
+            }
+        });
+    }
+
+    /**
+     * @return int The refresh rate of the screen or 60 if it is unknown
+     */
+    private static int refreshRate() {
+        try {
+            int hz = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode()
+                .getRefreshRate();
+            return hz == DisplayMode.REFRESH_RATE_UNKNOWN ? 60 : Math.max(1, hz);
+        } catch (HeadlessException e) {
+            return 60;
+        }
     }
 
     /**
@@ -93,14 +157,125 @@ public class WaveForm extends JPanel implements TailwindListener.FrameBufferList
     }
 
     /**
-     * DOES NOT REPAINT THE FRAME
-     * <p>
-     * REPAINT MUST BE CALLED SEPARATELY
+     * @return long The nanoseconds a paint takes, averaged
+     */
+    public long getFrameNanos() {
+        return paintNanos;
+    }
+
+    /**
+     * @return long The nanoseconds between two refreshes of the screen
+     */
+    public long getFrameBudgetNanos() {
+        return budget;
+    }
+
+    /**
+     * Decimates PCM in the format of the stream into the back buffer and
+     * swaps it in, only called while holding the lock.
      *
-     * @param samples
+     * @param data PCM data
+     * @param len  The amount of bytes
+     * @param fmt  The format of the data
+     * @return boolean If the data could be used
      */
-    public void make(byte[] samples) {
-        this.samples = samples;
+    private boolean decimate(byte[] data, int len, AudioFormat fmt) {
+        int ch = fmt.getChannels(), frames = len / fmt.getFrameSize(), columns = Math.min(width, frames);
+        if (columns <= 0 || ch <= 0) {
+            return false;
+        }
+        if (samples.length < frames * ch) {
+            samples = new float[frames * ch];
+        }
+        if (TailwindMath.unpack(data, 0, frames * fmt.getFrameSize(), samples, 0, fmt) < 0) {
+            return false;
+        }
+        Frame f = back;
+        if (f.minmax.length < columns * 2) {
+            f.minmax = new float[columns * 2];
+        }
+        for (int c = 0, k = 0; c < columns; c++) {
+            int end = (int) ((long) (c + 1) * frames / columns);
+            float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+            for (int i = (int) ((long) c * frames / columns); i < end; i++) {
+                float s = 0F;
+                for (int j = 0; j < ch; j++) {
+                    s += samples[k++];
+                }
+                s /= ch;
+                min = Math.min(min, s);
+                max = Math.max(max, s);
+            }
+            f.minmax[2 * c] = min;
+            f.minmax[2 * c + 1] = max;
+        }
+        f.columns = columns;
+        back = front;
+        front = f;
+        return true;
+    }
+
+    /**
+     * A new frame is only made when the last one was painted (or got lost)
+     * and the last paints were fast enough for the refresh rate, this also
+     * keeps the producer off the buffer that is being painted.
+     *
+     * @return boolean If a new frame should be made
+     */
+    private boolean due() {
+        long now = System.nanoTime();
+        return (!pending.get() || now - posted > 4 * budget + 250000000L) && now >= nextPost;
+    }
+
+    /**
+     * Asks for a repaint of the frame that was just swapped in.
+     */
+    private void post() {
+        long now = System.nanoTime();
+        posted = now;
+        nextPost = now + Math.max(budget, 2 * paintNanos) - budget / 8;
+        pending.set(true);
+        repaint();
+    }
+
+    private void tick() {
+        if (!fakeVis || !isShowing()) {
+            return;
+        }
+        AudioFormat fmt = Global.player.getStream().getTap().getFormat();
+        if (fmt == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (!due()) {
+                return;
+            }
+            int len = WINDOW_FRAMES * fmt.getFrameSize();
+            if (pcm.length < len) {
+                pcm = new byte[len];
+            }
+            fmt = Global.player.getStream().getTap().read(pcm, WINDOW_FRAMES);
+            // the format may have changed since the buffer was sized, only what
+            // was copied in the returned format is looked at
+            if (fmt != null && decimate(pcm, WINDOW_FRAMES * fmt.getFrameSize(), fmt)) {
+                post();
+            }
+        }
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        task = timer.scheduleAtFixedRate(this::tick, 0L, budget, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void removeNotify() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        super.removeNotify();
     }
 
     /**
@@ -108,55 +283,54 @@ public class WaveForm extends JPanel implements TailwindListener.FrameBufferList
      */
     @Override
     public void paintComponent(Graphics g) {
-        if (this.fakeVis) {
-            if (Global.player.getStream().getAudioFormatAbsolute() != null) {
-
-                s_valid /= 4;
-                Path2D.Float main = path;
-                float avg = 0f;
-                float hd2 = getHeight() / 2f;
-                final int chnls = Global.player.getStream().getAudioFormatAbsolute().getChannels();
-                int i = 0;
-                while (i < chnls && i < s_valid)
-                    avg += samples[i++];
-                avg /= chnls;
-                main.reset();
-                main.moveTo(0, hd2 - avg * hd2);
-                int fvalid = s_valid / chnls;
-                for (int ch, frame = 0; i < s_valid; frame++) {
-                    avg = 0f;
-                    for (ch = 0; ch < chnls; ch++) {
-                        avg += samples[i++];
-                    }
-                    avg /= chnls;
-                    main.lineTo(
-                        (float) frame / fvalid * this.getWidth(), hd2 - avg * hd2);
-                }
-                path = main;
-
-                Graphics2D g2 = (Graphics2D) g;
-
-                synchronized (lock) {
-                    g2.setBackground(ColorManager.MAIN_BG_THEME);
-                    g2.clearRect(0, 0, this.getWidth(), this.getHeight());
-                    g2.setRenderingHint(
-                        RenderingHints.KEY_ANTIALIASING,
-                        RenderingHints.VALUE_ANTIALIAS_ON);
-                    g2.setStroke(new BasicStroke(3));
-                    g2.addRenderingHints(renderinghints);
-                    g2.setPaint(ColorManager.MAIN_FG_THEME);
-                    g2.draw(path);
-                }
-                g2.dispose();
-            }
+        long start = System.nanoTime();
+        pending.set(false);
+        if (!this.fakeVis) {
+            return;
+        }
+        Frame f = front;
+        int columns = Math.min(f.columns, getWidth());
+        if (columns <= 0) {
+            return;
+        }
+        if (xs.length < columns * 2) {
+            xs = new int[columns * 2];
+            ys = new int[columns * 2];
+        }
+        float hd2 = getHeight() / 2F, step = (float) getWidth() / columns;
+        // the maxima from left to right and the minima back from right to left
+        for (int c = 0, r = columns * 2 - 1; c < columns; c++, r--) {
+            int x = Math.round(c * step);
+            xs[c] = x;
+            ys[c] = Math.round(hd2 - f.minmax[2 * c + 1] * hd2);
+            xs[r] = x;
+            ys[r] = Math.round(hd2 - f.minmax[2 * c] * hd2);
         }
+        Graphics2D g2 = (Graphics2D) g;
+        g2.setBackground(ColorManager.MAIN_BG_THEME);
+        g2.clearRect(0, 0, this.getWidth(), this.getHeight());
+        g2.addRenderingHints(renderinghints);
+        g2.setStroke(stroke);
+        g2.setPaint(ColorManager.MAIN_FG_THEME);
+        g2.fillPolygon(xs, ys, columns * 2);
+        g2.drawPolyline(xs, ys, columns * 2);
+        long took = System.nanoTime() - start;
+        paintNanos = paintNanos == 0L ? took : (paintNanos * 7 + took) / 8;
     }
 
     /**
-     * @param samples
+     * @param samples A buffer of the stream, decimated on the calling thread
      */
     @Override
     public void frameUpdate(byte[] samples) {
-        SwingUtilities.invokeLater(() -> make(samples));
+        AudioFormat fmt = Global.player.getStream().getTap().getFormat();
+        if (!fakeVis || fmt == null) {
+            return;
+        }
+        synchronized (lock) {
+            if (due() && decimate(samples, samples.length, fmt)) {
+                post();
+            }
+        }
     }
 }
@@ -39,22 +39,61 @@
 
 package com.jackmeng.halcyoninae.cosmos.components.waveform;
 
+import com.jackmeng.halcyoninae.cosmos.components.waveform.utils.BarForm;
+import com.jackmeng.halcyoninae.halcyon.runtime.constant.ColorManager;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.Manager;
+import com.jackmeng.halcyoninae.tailwind.TailwindListener;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * 3.4.1 : Shows the waveform and the spectrum of what is being played, the
+ * analysis only runs while this window is showing.
+ *
  * @author Jack Meng
  * @since 3.2
  */
-public class WaveFormPane extends JFrame implements Runnable {
+public class WaveFormPane extends JFrame implements Runnable, TailwindListener.SpectrumListener {
+    private static final int BAR_GAP = 8, BAR_WIDTH = 6, X_OFFSET = 10, Y_PAD = 4;
     private int pX, pY;
+    private final BarForm spectrum;
+    // the bars being painted and the ones being filled in, only touched on the EDT
+    private int[] front = new int[0], back = new int[0];
+    // the latest levels that the EDT has not drawn yet
+    private final AtomicReference<float[]> pending = new AtomicReference<>();
 
     public WaveFormPane() {
         setIconImage(Global.ico.getFromAsImageIcon(Manager.PROGRAM_ICON_LOGO).getImage());
+        spectrum = new BarForm(WaveFormManager.MIN_WIDTH, WaveFormManager.MIN_HEIGHT, BAR_GAP, BAR_WIDTH,
+            new BarForm.BoxWaveConf(X_OFFSET, Y_PAD, 4, 4),
+            new BarForm.ColorConf(ColorManager.MAIN_FG_THEME, ColorManager.MAIN_BG_THEME));
+        WaveForm wave = new WaveForm();
+        wave.setVisibility(true);
+        getContentPane().setLayout(new GridLayout(2, 1));
+        getContentPane().add(wave);
+        getContentPane().add(spectrum);
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentShown(ComponentEvent e) {
+                Global.player.getStream().getSpectrum().addListener(WaveFormPane.this);
+            }
+
+            @Override
+            public void componentHidden(ComponentEvent e) {
+                Global.player.getStream().getSpectrum().removeListener(WaveFormPane.this);
+            }
+        });
+        spectrum.addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                Global.player.getStream().getSpectrum()
+                    .setBands(Math.max(1, (spectrum.getWidth() - 2 * X_OFFSET) / BAR_GAP));
+            }
+        });
 
         addMouseListener(new MouseAdapter() {
             @Override
@@ -127,4 +166,32 @@ public class WaveFormPane extends JFrame implements Runnable {
         pack();
         setVisible(true);
     }
+
+    /**
+     * Copies the levels and hands them to the EDT, levels that arrive
+     * before it got to the last ones replace them.
+     *
+     * @param bands The levels of the bands
+     */
+    @Override
+    public void spectrumUpdate(float[] bands) {
+        if (pending.getAndSet(bands.clone()) == null) {
+            SwingUtilities.invokeLater(this::drawSpectrum);
+        }
+    }
+
+    private void drawSpectrum() {
+        float[] bands = pending.getAndSet(null);
+        if (bands == null) {
+            return;
+        }
+        int[] bars = back.length == bands.length ? back : new int[bands.length];
+        int h = Math.max(0, spectrum.getHeight() - 2 * Y_PAD);
+        for (int i = 0; i < bands.length; i++) {
+            bars[i] = Math.round(bands[i] * h);
+        }
+        back = front;
+        front = bars;
+        spectrum.make(bars, 0L);
+    }
 }
@@ -51,7 +51,8 @@ import java.awt.event.ComponentEvent;
 public class BarForm extends JPanel {
   private int[] bars;
   private int barsWidth, barsGap, arcH, arcW, xOffset, yPadding;
-  private Color fg, bg;
+  private Color fg, bg, played;
+  private float progress;
 
   public static record BoxWaveConf(int barsXOffset, int barsYPad, int barsArcH, int barsArcW) {
     public boolean assertNonNegative() {
@@ -101,11 +102,12 @@ public class BarForm extends JPanel {
     g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
     g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_SPEED);
 
-    g2.setColor(fg);
+    int playedTo = played == null ? xOffset : xOffset + Math.round(progress * (getWidth() - 2 * xOffset));
     for (int i = xOffset, j = 0; i < getWidth() - xOffset && j < bars.length; j++, i += barsGap) {
       if (bars[j] <= 0) {
         bars[j] = yPadding;
       }
+      g2.setColor(i < playedTo ? played : fg);
       g2.fillRoundRect(i, getHeight() / 2 - bars[j] / 2, barsWidth, bars[j],
           arcW, arcH);
     }
@@ -121,6 +123,35 @@ public class BarForm extends JPanel {
     SwingUtilities.invokeLater(() -> repaint(schedule));
   }
 
+  /**
+   * Colors the bars left of the progress differently, like a seek bar.
+   *
+   * @param played The color of the bars that were played or null to not
+   *               show any progress
+   */
+  public void setPlayedColor(Color played) {
+    this.played = played;
+    repaint();
+  }
+
+  /**
+   * @param progress How much was played from 0 to 1
+   */
+  public void setProgress(float progress) {
+    progress = Math.max(0F, Math.min(1F, progress));
+    if (progress != this.progress) {
+      this.progress = progress;
+      repaint();
+    }
+  }
+
+  /**
+   * @return int How many bars fit in the current width
+   */
+  public int fitting() {
+    return Math.max(0, (getWidth() - 2 * xOffset + barsGap - 1) / barsGap);
+  }
+
   public void makeRNG() {
     this.bars = Utils.fillArr(bars, () -> Utils.rng(0, getHeight()));
     SwingUtilities.invokeLater(() -> repaint(30L));
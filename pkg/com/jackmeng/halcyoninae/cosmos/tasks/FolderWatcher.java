@@ -0,0 +1,188 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.cosmos.tasks;
+
+import com.jackmeng.halcyoninae.cosmos.components.bottompane.BottomPane;
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.ExternalResource;
+
+import javax.swing.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the folders of the saved playlists with the file system's
+ * own change notifications, so the file views only do work when a file
+ * actually changes.
+ * <p>
+ * Events are collected until the folder has been quiet for
+ * {@link #DEBOUNCE_MS} so that a burst (copying an album in) turns into
+ * a single update per folder. The update itself is run on the EDT by
+ * {@link BottomPane#folderChanged(String, Set, boolean)}.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class FolderWatcher implements Runnable {
+    /**
+     * How long a folder has to be quiet before its changes are applied
+     */
+    public static final long DEBOUNCE_MS = 300L;
+    private final BottomPane bp;
+    private final Map<WatchKey, String> keys = new ConcurrentHashMap<>();
+    private final Map<String, WatchKey> folders = new ConcurrentHashMap<>();
+    private WatchService service;
+
+    /**
+     * @param bp The BottomPane to report changes to
+     */
+    public FolderWatcher(BottomPane bp) {
+        this.bp = bp;
+        try {
+            service = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            Debugger.warn("FolderWatcher> No watch service, relying on the reconciliation scan");
+            service = null;
+        }
+    }
+
+    /**
+     * Starts watching the folder.
+     *
+     * @param folder An absolute path to a folder
+     */
+    public void register(String folder) {
+        if (service == null || folders.containsKey(folder)) {
+            return;
+        }
+        try {
+            WatchKey key = Paths.get(folder).register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            keys.put(key, folder);
+            folders.put(folder, key);
+        } catch (IOException | InvalidPathException e) {
+            Debugger.warn("FolderWatcher> Could not watch: " + folder);
+        }
+    }
+
+    /**
+     * Stops watching the folder.
+     *
+     * @param folder An absolute path to a folder
+     */
+    public void unregister(String folder) {
+        WatchKey key = folders.remove(folder);
+        if (key != null) {
+            key.cancel();
+            keys.remove(key);
+        }
+    }
+
+    /**
+     * Starts the watching thread.
+     */
+    @Override
+    public void run() {
+        if (service == null) {
+            return;
+        }
+        Thread t = new Thread(this::watch, "Halcyon FolderWatcher");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                // sleeps until something happens, no polling while idle
+                WatchKey key = service.take();
+                Map<String, Set<File>> changed = new HashMap<>();
+                Set<String> overflowed = new LinkedHashSet<>();
+                while (key != null) {
+                    collect(key, changed, overflowed);
+                    key = service.poll(DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+                }
+                SwingUtilities.invokeLater(() -> {
+                    changed.forEach((folder, files) -> bp.folderChanged(folder, files, overflowed.contains(folder)));
+                    overflowed.stream().filter(x -> !changed.containsKey(x))
+                        .forEach(folder -> bp.folderChanged(folder, Set.of(), true));
+                });
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed on exit
+        } catch (Exception e) {
+            ExternalResource.dispatchLog(e);
+        }
+    }
+
+    /**
+     * @param key
+     * @param changed
+     * @param overflowed
+     */
+    private void collect(WatchKey key, Map<String, Set<File>> changed, Set<String> overflowed) {
+        String folder = keys.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (folder == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                overflowed.add(folder);
+            } else {
+                changed.computeIfAbsent(folder, x -> new LinkedHashSet<>())
+                    .add(new File(folder, event.context().toString()));
+            }
+        }
+        if (!key.reset() && folder != null) {
+            // the folder is gone, the reconciliation scan removes its tab
+            unregister(folder);
+            overflowed.add(folder);
+        }
+    }
+}
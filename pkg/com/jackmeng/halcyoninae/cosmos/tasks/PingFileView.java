@@ -44,6 +44,7 @@ import com.jackmeng.halcyoninae.halcyon.runtime.Program;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
 
+import javax.swing.*;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ExecutorService;
@@ -61,6 +62,10 @@ import java.util.concurrent.TimeUnit;
  * system without the user having to update it manually.
  */
 public final class PingFileView implements Runnable {
+    /**
+     * The period of the reconciliation scan of every folder
+     */
+    public static final long RECONCILE_MS = 60000L;
     private final BottomPane bp;
 
     /**
@@ -78,19 +83,21 @@ public final class PingFileView implements Runnable {
         Global.scheduler.schedule(new TimerTask() {
             @Override
             public void run() {
+                Program.cacher.pingLikedTracks();
+                Program.cacher.pingSavedPlaylists();
                 Program.cacher.forceSaveQuiet();
+                Program.library.save();
                 Debugger.info("Autosaving user configs...");
             }
         }, 1000L, 10000L);
+        // changes are picked up by the FolderWatcher as they happen, this
+        // is only a safety net for anything it could not report
         Global.scheduler.schedule(new TimerTask() {
             @Override
             public void run() {
-                Program.cacher.pingLikedTracks();
-                Program.cacher.pingSavedPlaylists();
-                Program.cacher.forceSaveQuiet();
-                bp.mastRevalidate();
+                SwingUtilities.invokeLater(bp::mastRevalidate);
             }
-        }, 1000L, 1000L);
+        }, RECONCILE_MS, RECONCILE_MS);
     }
 
 }
@@ -42,6 +42,7 @@ package com.jackmeng.halcyoninae.halcyon;
 import com.jackmeng.halcyoninae.cosmos.Cosmos;
 import com.jackmeng.halcyoninae.cosmos.components.ConfirmWindow;
 import com.jackmeng.halcyoninae.cosmos.components.ErrorWindow;
+import com.jackmeng.halcyoninae.cosmos.components.SearchDialog;
 import com.jackmeng.halcyoninae.cosmos.components.bottompane.bbloc.BBlocButton;
 import com.jackmeng.halcyoninae.cosmos.components.bottompane.bbloc.BBlocView;
 import com.jackmeng.halcyoninae.cosmos.components.bottompane.bbloc.buttons.*;
@@ -58,6 +59,7 @@ import com.jackmeng.locale.PhysicalFolder;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.ActionEvent;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -128,6 +130,7 @@ public final class Halcyon {
         bb.add(new RefreshFileView());
         bb.add(new SlidersControl());
         bb.add(new MinimizePlayer());
+        bb.add(new WaveFormLinker());
         bb.add(new CommandWindow());
         bb.add(new Settings());
         bb.add(new LegalNoticeButton());
@@ -139,6 +142,14 @@ public final class Halcyon {
 
         JSplitPane m = new JSplitPane(JSplitPane.VERTICAL_SPLIT, tp, bottom);
         bgt = new com.jackmeng.halcyoninae.cosmos.Cosmos(m);
+        SearchDialog search = new SearchDialog();
+        m.getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("ctrl F"), "halcyon-search");
+        m.getActionMap().put("halcyon-search", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                search.run();
+            }
+        });
         Global.bp.pokeNewFileListTab(Global.ll);
 
         PhysicalFolder[] fi = Program.fetchSavedPlayLists();
@@ -44,7 +44,11 @@ import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
 import com.jackmeng.halcyoninae.halcyon.utils.TimeParser;
 import com.jackmeng.halcyoninae.tailwind.AudioInfo;
+import com.jackmeng.halcyoninae.tailwind.AudioInfoCache;
 import com.jackmeng.halcyoninae.tailwind.Tailwind;
+import com.jackmeng.halcyoninae.tailwind.TailwindDurationProbe;
+import com.jackmeng.halcyoninae.tailwind.TailwindEvent;
+import com.jackmeng.halcyoninae.tailwind.TailwindEventManager;
 import com.jackmeng.halcyoninae.tailwind.TailwindPlaylist;
 
 import javax.sound.sampled.Control;
@@ -99,6 +103,7 @@ public class Player {
         try {
             audio = new TailwindPlaylist();
             currentAbsolutePath = f.getAbsolutePath();
+            audio.addGenericUpdateListener(this::streamChanged, TailwindEventManager.Delivery.EDT);
         } catch (Exception e) {
             Debugger.log(e);
         }
@@ -110,7 +115,8 @@ public class Player {
     public void play() {
         File f = new File(currentAbsolutePath);
         try {
-            if (new AudioInfo(f, false).getTag(AudioInfo.KEY_MEDIA_DURATION) == null) {
+            if (AudioInfoCache.read(f).getTag(AudioInfo.KEY_MEDIA_DURATION) == null
+                && TailwindDurationProbe.probeMicroseconds(f) < 0) {
                 LoadingDialog ld = new LoadingDialog("<html><p>No duration metadata found<br>Seeking...</p></html>",
                     true);
                 SwingUtilities.invokeLater(ld::run);
@@ -121,6 +127,25 @@ public class Player {
             // IGNORE
         }
         audio.playlistStart(f);
+        Program.library.played(f);
+    }
+
+    /**
+     * Follows the stream when it moved on to another track by itself (a gapless
+     * advance or the playlist going through its history), so everything that
+     * shows or acts on the current track is switched over the same way as when
+     * a track is picked. Runs on the EDT.
+     *
+     * @param e The event of the track that was opened
+     */
+    private void streamChanged(TailwindEvent e) {
+        String path = e.getCurrentAudioInfo().getTag(AudioInfo.KEY_ABSOLUTE_FILE_PATH);
+        if (path != null && !path.equals(currentAbsolutePath)) {
+            File f = new File(path);
+            currentAbsolutePath = path;
+            Program.library.played(f);
+            Global.ifp.setAssets(f);
+        }
     }
 
     /**
@@ -40,8 +40,10 @@
 package com.jackmeng.halcyoninae.halcyon.runtime;
 
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.LibraryIndex;
 import com.jackmeng.halcyoninae.halcyon.utils.MoosicCache;
 import com.jackmeng.halcyoninae.halcyon.utils.ProgramResourceManager;
+import com.jackmeng.halcyoninae.halcyon.utils.SearchIndex;
 import com.jackmeng.locale.PhysicalFolder;
 
 import java.io.File;
@@ -62,6 +64,8 @@ import java.util.Set;
  */
 public class Program {
     public static MoosicCache cacher = new MoosicCache();
+    public static LibraryIndex library = new LibraryIndex();
+    public static SearchIndex search = new SearchIndex(library, f -> cacher.isExcluded(f.getAbsolutePath()));
 
     /**
      * Writes a dump file to the bin folder.
@@ -92,6 +96,7 @@ public class Program {
 
     public static void forceSaveUserConf() {
         cacher.forceSave();
+        library.save();
     }
 
     /**
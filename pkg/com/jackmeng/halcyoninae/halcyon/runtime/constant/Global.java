@@ -49,6 +49,7 @@ import com.jackmeng.halcyoninae.cosmos.components.toppane.layout.InfoViewTP;
 import com.jackmeng.halcyoninae.cosmos.util.IconHandler;
 import com.jackmeng.halcyoninae.halcyon.runtime.Player;
 import com.jackmeng.halcyoninae.halcyon.utils.ResourceDistributor;
+import com.jackmeng.halcyoninae.tailwind.TailwindEventManager;
 
 /**
  * This class holds any public scoped Objects that may be used throughout
@@ -77,7 +78,9 @@ public final class Global {
     public static Timer scheduler        = new Timer("Global Scheduler");
 
     static {
-        player.getStream().addStatusUpdateListener(bctp);
+        // it swaps icons, which has to happen on the EDT
+        player.getStream().addStatusUpdateListener(bctp, TailwindEventManager.Delivery.EDT);
+        player.getStream().addTimeListener(bctp);
     }
 
     public static void ping() {
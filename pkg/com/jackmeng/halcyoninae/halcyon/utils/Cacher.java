@@ -56,6 +56,9 @@ import javax.xml.transform.stream.StreamResult;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -100,6 +103,23 @@ public class Cacher {
     }
 
 
+    /**
+     * Moves a file over another one, atomically if the file system
+     * supports it.
+     *
+     * @param from The new file
+     * @param to   The file to replace
+     * @throws IOException
+     */
+    public static void replace(File from, File to) throws IOException {
+        try {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
     /**
      * @param rootName
      * @param content
@@ -123,12 +143,20 @@ public class Cacher {
             root.appendChild(child);
         }
 
-        try (FileOutputStream fos = new FileOutputStream(file)) {
+        // written next to the file first so a crash never leaves half a file behind
+        File temp = new File(file.getAbsolutePath() + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(temp)) {
             TransformerFactory transformerFactory = TransformerFactory.newInstance();
             Transformer transformer = transformerFactory.newTransformer();
             DOMSource source = new DOMSource(newDoc);
             StreamResult result = new StreamResult(fos);
             transformer.transform(source, result);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        try {
+            replace(temp, file);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -0,0 +1,211 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.halcyon.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A folder of small files that can be made again at any time, each named
+ * by a key. Files are written whole through a temporary file, and once the
+ * folder grows past its limit the files that were used least recently
+ * (by their modification time) are deleted.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class DiskCache {
+    private static final ThreadLocal<MessageDigest> sha1 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        }
+    });
+    private final File folder;
+    private final String extension;
+    private final long maxBytes;
+    // the bytes in the folder, -1 until the folder is first looked at
+    private long size = -1L;
+
+    /**
+     * @param folder    The folder the files are kept in
+     * @param extension The extension of the files, with the dot
+     * @param maxBytes  How many bytes the folder may hold before it is pruned
+     */
+    public DiskCache(String folder, String extension, long maxBytes) {
+        this.folder = new File(folder);
+        this.extension = extension;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @param key
+     * @return File The file of the key, which might not exist
+     */
+    public File file(String key) {
+        return new File(folder, key + extension);
+    }
+
+    /**
+     * Marks a file as used, so it is pruned last.
+     *
+     * @param f A file of this cache that was just read
+     */
+    public void touch(File f) {
+        if (!f.setLastModified(System.currentTimeMillis())) {
+            Debugger.warn("DiskCache> Could not touch: " + f.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Writes the file of a key through a temporary file, then prunes the
+     * folder if it grew past its limit.
+     *
+     * @param key     The key
+     * @param content The content from its position to its limit
+     * @return boolean (true || false) if the file was written
+     */
+    public boolean write(String key, ByteBuffer content) {
+        if (!folder.isDirectory() && !folder.mkdirs()) {
+            return false;
+        }
+        File f = file(key), temp = new File(f.getPath() + ".tmp");
+        long bytes = content.remaining(), old = f.length();
+        try (FileChannel ch = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (content.hasRemaining()) {
+                ch.write(content);
+            }
+        } catch (IOException e) {
+            ExternalResource.dispatchLog(e);
+            return false;
+        }
+        try {
+            Cacher.replace(temp, f);
+        } catch (IOException e) {
+            ExternalResource.dispatchLog(e);
+            return false;
+        }
+        synchronized (this) {
+            if (size < 0L) {
+                size = measure();
+            } else {
+                size += bytes - old;
+            }
+            if (size > maxBytes) {
+                prune();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return long The bytes of the files in the folder
+     */
+    private long measure() {
+        long total = 0L;
+        for (File f : list()) {
+            total += f.length();
+        }
+        return total;
+    }
+
+    /**
+     * @return File[] The files of this cache
+     */
+    private File[] list() {
+        File[] files = folder.listFiles((dir, name) -> name.endsWith(extension));
+        return files == null ? new File[0] : files;
+    }
+
+    /**
+     * Deletes the least recently used files until the folder is down to
+     * three quarters of its limit, so it is not pruned on every write.
+     */
+    private synchronized void prune() {
+        File[] files = list();
+        long[] modified = new long[files.length];
+        Integer[] order = new Integer[files.length];
+        long total = 0L;
+        for (int i = 0; i < files.length; i++) {
+            modified[i] = files[i].lastModified();
+            order[i] = i;
+            total += files[i].length();
+        }
+        Arrays.sort(order, Comparator.comparingLong(i -> modified[i]));
+        long target = maxBytes / 4L * 3L;
+        int removed = 0;
+        for (int i = 0; i < order.length && total > target; i++) {
+            File f = files[order[i]];
+            long bytes = f.length();
+            if (f.delete()) {
+                total -= bytes;
+                removed++;
+            }
+        }
+        size = total;
+        Debugger.info("DiskCache> Pruned " + removed + " files from: " + folder.getAbsolutePath());
+    }
+
+    /**
+     * @param data
+     * @return String The SHA-1 of the data in hex or null if there is no SHA-1
+     */
+    public static String sha1(byte[] data) {
+        MessageDigest md = sha1.get();
+        if (md == null) {
+            return null;
+        }
+        byte[] digest = md.digest(data);
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,659 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.halcyon.utils;
+
+import com.jackmeng.halcyoninae.tailwind.AudioInfo;
+import com.jackmeng.halcyoninae.tailwind.FileFormat;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A persistent index of the tracks in every folder the user has added.
+ * <p>
+ * The index records the path, size, modification time and the parsed tags of
+ * every track, and is read in one go at startup. A folder is only listed
+ * again when its own modification time changes (files were added, removed or
+ * renamed), so checking an unchanged folder costs a single stat. Tags are
+ * parsed in the background and only for new or changed files.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class LibraryIndex {
+    // LibraryIndex Config START
+    public static String LIBRARY_DEFAULT_LOCALE = ProgramResourceManager.PROGRAM_RESOURCE_FOLDER
+        + ProgramResourceManager.FILE_SLASH
+        + ProgramResourceManager.RESOURCE_SUBFOLDERS[2] + ProgramResourceManager.FILE_SLASH + "library.halcyon";
+    private static final int MAGIC = 0x48414C49, VERSION = 2;
+    // LibraryIndex Config END
+
+    /**
+     * A single indexed track.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public static final class Track {
+        private final File file;
+        private final long size, modified;
+        private volatile String title, artist, album, genre;
+        private volatile int duration = -1, number = -1, plays;
+        private volatile long added;
+        private volatile boolean tagged;
+
+        /**
+         * @param file     The track
+         * @param size     The size of the file
+         * @param modified The modification time of the file
+         */
+        Track(File file, long size, long modified) {
+            this.file = file;
+            this.size = size;
+            this.modified = modified;
+            this.added = System.currentTimeMillis();
+        }
+
+        /**
+         * @param file     The track
+         * @param size     The size of the file
+         * @param modified The modification time of the file
+         * @param prev     The track before the file changed, its play count and
+         *                 the time it was added are kept
+         */
+        Track(File file, long size, long modified, Track prev) {
+            this(file, size, modified);
+            if (prev != null) {
+                this.added = prev.added;
+                this.plays = prev.plays;
+            }
+        }
+
+        /**
+         * @return File
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * @return long
+         */
+        public long getSize() {
+            return size;
+        }
+
+        /**
+         * @return long
+         */
+        public long getModified() {
+            return modified;
+        }
+
+        /**
+         * @return boolean If the tags have been parsed yet
+         */
+        public boolean isTagged() {
+            return tagged;
+        }
+
+        /**
+         * @return String The title or the file name if there is none (yet)
+         */
+        public String getTitle() {
+            return title != null ? title : file.getName();
+        }
+
+        /**
+         * @return String
+         */
+        public String getArtist() {
+            return artist;
+        }
+
+        /**
+         * @return String
+         */
+        public String getAlbum() {
+            return album;
+        }
+
+        /**
+         * @return String
+         */
+        public String getGenre() {
+            return genre;
+        }
+
+        /**
+         * @return int The duration in seconds or -1 if unknown
+         */
+        public int getDuration() {
+            return duration;
+        }
+
+        /**
+         * @return int The track number or -1 if unknown
+         */
+        public int getNumber() {
+            return number;
+        }
+
+        /**
+         * @return int How many times the track was played
+         */
+        public int getPlays() {
+            return plays;
+        }
+
+        /**
+         * @return long When the track was first indexed
+         */
+        public long getAdded() {
+            return added;
+        }
+
+        /**
+         * @param info The parsed tags
+         */
+        void setTags(AudioInfo info) {
+            this.title = info.getTag(AudioInfo.KEY_MEDIA_TITLE);
+            this.artist = info.getTag(AudioInfo.KEY_MEDIA_ARTIST);
+            this.album = info.getTag(AudioInfo.KEY_ALBUM);
+            this.genre = info.getTag(AudioInfo.KEY_GENRE);
+            try {
+                this.duration = Integer.parseInt(info.getTag(AudioInfo.KEY_MEDIA_DURATION));
+            } catch (NumberFormatException e) {
+                this.duration = -1;
+            }
+            this.number = parseNumber(info.getTag(AudioInfo.KEY_TRACK));
+            this.tagged = true;
+        }
+    }
+
+    /**
+     * Listens for tracks entering, changing in or leaving the index.
+     * <p>
+     * Called on whichever thread changed the index (the EDT, the folder
+     * watcher or the tagger), never while a folder is locked.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public interface Listener {
+        /**
+         * @param tracks Tracks that were added or whose tags were parsed
+         */
+        void tracksChanged(Collection<Track> tracks);
+
+        /**
+         * @param files Files that are no longer indexed
+         */
+        void tracksRemoved(Collection<File> files);
+    }
+
+    /**
+     * @param s A track number like "3" or "3/12"
+     * @return int The number or -1
+     */
+    private static int parseNumber(String s) {
+        int n = 0, i = 0;
+        while (s != null && i < s.length() && i < 9 && Character.isDigit(s.charAt(i))) {
+            n = n * 10 + (s.charAt(i++) - '0');
+        }
+        return i == 0 ? -1 : n;
+    }
+
+    /**
+     * The indexed tracks of one folder.
+     */
+    private static final class Folder {
+        private final String path;
+        private volatile long modified = Long.MIN_VALUE;
+        // file name to track, in listing order
+        private final Map<String, Track> tracks = new LinkedHashMap<>();
+
+        /**
+         * @param path
+         */
+        Folder(String path) {
+            this.path = path;
+        }
+    }
+
+    private final File store;
+    private final Map<String, Folder> folders = new ConcurrentHashMap<>();
+    private final ExecutorService tagger = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon LibraryIndex");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile boolean dirty;
+
+    public LibraryIndex() {
+        this(new File(LIBRARY_DEFAULT_LOCALE));
+    }
+
+    /**
+     * @param store The file the index is kept in
+     */
+    public LibraryIndex(File store) {
+        this.store = store;
+        load();
+    }
+
+    /**
+     * Reads the whole index with one sequential read.
+     */
+    private void load() {
+        if (!store.isFile()) {
+            return;
+        }
+        long t = System.currentTimeMillis();
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(store), 1 << 16))) {
+            int version = in.readInt() == MAGIC ? in.readInt() : -1;
+            if (version != 1 && version != VERSION) {
+                Debugger.warn("LibraryIndex> Unknown index format, rebuilding");
+                return;
+            }
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                Folder folder = new Folder(in.readUTF());
+                folder.modified = in.readLong();
+                int m = in.readInt();
+                for (int j = 0; j < m; j++) {
+                    String name = in.readUTF();
+                    Track track = new Track(new File(folder.path, name), in.readLong(), in.readLong());
+                    if (in.readBoolean()) {
+                        track.title = in.readUTF();
+                        track.artist = in.readUTF();
+                        track.album = in.readUTF();
+                        track.genre = in.readUTF();
+                        track.duration = in.readInt();
+                        if (version > 1) {
+                            track.number = in.readInt();
+                        }
+                        // the first version did not keep track numbers, parse the tags again
+                        track.tagged = version > 1;
+                    }
+                    if (version > 1) {
+                        track.added = in.readLong();
+                        track.plays = in.readInt();
+                    } else {
+                        track.added = track.modified;
+                    }
+                    folder.tracks.put(name, track);
+                }
+                count += m;
+                folders.put(folder.path, folder);
+            }
+        } catch (IOException e) {
+            Debugger.warn("LibraryIndex> Could not read the index, rebuilding: " + e.getLocalizedMessage());
+            folders.clear();
+            return;
+        }
+        Debugger.info("LibraryIndex> Loaded " + count + " tracks in " + folders.size() + " folders ("
+            + (System.currentTimeMillis() - t) + "ms)");
+        // pick up any tracks whose tags were not parsed before the last exit
+        folders.values().forEach(this::tagMissing);
+    }
+
+    /**
+     * Writes the index if anything changed since the last save.
+     * The index is written to a temporary file first so a crash
+     * never leaves a broken index behind.
+     */
+    public synchronized void save() {
+        if (!dirty || store.getParentFile() == null || !store.getParentFile().isDirectory()) {
+            return;
+        }
+        dirty = false;
+        File temp = new File(store.getAbsolutePath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            Collection<Folder> all = new ArrayList<>(folders.values());
+            out.writeInt(all.size());
+            for (Folder folder : all) {
+                synchronized (folder) {
+                    out.writeUTF(folder.path);
+                    out.writeLong(folder.modified);
+                    out.writeInt(folder.tracks.size());
+                    for (Map.Entry<String, Track> e : folder.tracks.entrySet()) {
+                        Track track = e.getValue();
+                        out.writeUTF(e.getKey());
+                        out.writeLong(track.size);
+                        out.writeLong(track.modified);
+                        boolean tagged = track.tagged;
+                        out.writeBoolean(tagged);
+                        if (tagged) {
+                            out.writeUTF(nonNull(track.title));
+                            out.writeUTF(nonNull(track.artist));
+                            out.writeUTF(nonNull(track.album));
+                            out.writeUTF(nonNull(track.genre));
+                            out.writeInt(track.duration);
+                            out.writeInt(track.number);
+                        }
+                        out.writeLong(track.added);
+                        out.writeInt(track.plays);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            dirty = true;
+            ExternalResource.dispatchLog(e);
+            return;
+        }
+        try {
+            Files.move(temp.toPath(), store.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            try {
+                Files.move(temp.toPath(), store.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e1) {
+                dirty = true;
+                ExternalResource.dispatchLog(e1);
+            }
+        }
+    }
+
+    /**
+     * @param s
+     * @return String
+     */
+    private static String nonNull(String s) {
+        return s == null ? "" : s;
+    }
+
+    /**
+     * @param name  A file name
+     * @param rules The extensions to accept
+     * @return boolean
+     */
+    private static boolean accepts(String name, String... rules) {
+        for (String r : rules) {
+            if (name.endsWith(r)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the folder again if it changed since it was last indexed.
+     *
+     * @param folderPath The absolute path of the folder
+     * @return boolean (true || false) if the folder changed
+     */
+    public boolean refresh(String folderPath) {
+        File dir = new File(folderPath);
+        long modified = dir.lastModified();
+        Folder folder = folders.computeIfAbsent(folderPath, Folder::new);
+        if (folder.modified == modified && modified != 0L) {
+            return false;
+        }
+        File[] listed = dir.listFiles();
+        List<Track> changed = new ArrayList<>();
+        List<File> removed = new ArrayList<>();
+        synchronized (folder) {
+            Map<String, Track> old = new LinkedHashMap<>(folder.tracks);
+            folder.tracks.clear();
+            if (listed != null) {
+                for (File f : listed) {
+                    if (!f.isFile()) {
+                        continue;
+                    }
+                    Track prev = old.remove(f.getName());
+                    long size = f.length(), mod = f.lastModified();
+                    Track track = prev != null && prev.size == size && prev.modified == mod ? prev
+                        : new Track(f, size, mod, prev);
+                    if (track != prev) {
+                        changed.add(track);
+                    }
+                    folder.tracks.put(f.getName(), track);
+                }
+            }
+            folder.modified = modified;
+            for (Track t : old.values()) {
+                removed.add(t.file);
+            }
+        }
+        dirty = true;
+        fireChanged(changed, removed);
+        tagMissing(folder);
+        return true;
+    }
+
+    /**
+     * Updates a single file of an indexed folder after it was created,
+     * deleted or modified.
+     * <p>
+     * The folder keeps its recorded modification time, so the next
+     * {@link #refresh(String)} still lists it once to catch anything that was
+     * not reported.
+     *
+     * @param f A file
+     */
+    public void update(File f) {
+        Folder folder = f.getParentFile() != null ? folders.get(f.getParentFile().getAbsolutePath()) : null;
+        if (folder == null) {
+            return;
+        }
+        Track track = null, gone = null;
+        synchronized (folder) {
+            if (!f.isFile()) {
+                gone = folder.tracks.remove(f.getName());
+            } else {
+                Track prev = folder.tracks.get(f.getName());
+                long size = f.length(), mod = f.lastModified();
+                if (prev != null && prev.size == size && prev.modified == mod) {
+                    return;
+                }
+                track = new Track(f, size, mod, prev);
+                folder.tracks.put(f.getName(), track);
+            }
+        }
+        if (track != null) {
+            dirty = true;
+            fireChanged(List.of(track), List.of());
+            tagMissing(folder);
+        } else if (gone != null) {
+            dirty = true;
+            fireChanged(List.of(), List.of(f));
+        }
+    }
+
+    /**
+     * @param folderPath The absolute path of the folder
+     * @param rules      The extensions to accept (matched with endsWith)
+     * @return File[] The indexed files of the folder, listing it only if it
+     *         changed
+     */
+    public File[] getFiles(String folderPath, String... rules) {
+        refresh(folderPath);
+        Folder folder = folders.get(folderPath);
+        List<File> files = new ArrayList<>();
+        synchronized (folder) {
+            for (Track t : folder.tracks.values()) {
+                if (accepts(t.file.getName(), rules)) {
+                    files.add(t.file);
+                }
+            }
+        }
+        return files.toArray(new File[0]);
+    }
+
+    /**
+     * @param f A file
+     * @return Track The indexed track or null if the file is not indexed
+     */
+    public Track getTrack(File f) {
+        Folder folder = f.getParentFile() != null ? folders.get(f.getParentFile().getAbsolutePath()) : null;
+        if (folder == null) {
+            return null;
+        }
+        synchronized (folder) {
+            return folder.tracks.get(f.getName());
+        }
+    }
+
+    /**
+     * @return List Every indexed track
+     */
+    public List<Track> getTracks() {
+        List<Track> all = new ArrayList<>();
+        for (Folder folder : folders.values()) {
+            synchronized (folder) {
+                all.addAll(folder.tracks.values());
+            }
+        }
+        return all;
+    }
+
+    /**
+     * Stops indexing the folder.
+     *
+     * @param folderPath The absolute path of the folder
+     */
+    public void forget(String folderPath) {
+        Folder folder = folders.remove(folderPath);
+        if (folder != null) {
+            dirty = true;
+            List<File> removed = new ArrayList<>();
+            synchronized (folder) {
+                for (Track t : folder.tracks.values()) {
+                    removed.add(t.file);
+                }
+            }
+            fireChanged(List.of(), removed);
+        }
+    }
+
+    /**
+     * Counts a play of the track if it is indexed.
+     *
+     * @param f A file
+     */
+    public void played(File f) {
+        Track track = getTrack(f);
+        if (track != null) {
+            synchronized (track) {
+                track.plays++;
+            }
+            dirty = true;
+        }
+    }
+
+    /**
+     * @param l A listener for changes of the index
+     */
+    public void addListener(Listener l) {
+        listeners.add(l);
+    }
+
+    /**
+     * @param changed
+     * @param removed
+     */
+    private void fireChanged(List<Track> changed, List<File> removed) {
+        for (Listener l : listeners) {
+            if (!changed.isEmpty()) {
+                l.tracksChanged(changed);
+            }
+            if (!removed.isEmpty()) {
+                l.tracksRemoved(removed);
+            }
+        }
+    }
+
+    /**
+     * Parses the tags of every track of the folder that does not have them yet
+     * in the background.
+     *
+     * @param folder
+     */
+    private void tagMissing(Folder folder) {
+        List<Track> missing = new ArrayList<>();
+        synchronized (folder) {
+            for (Track t : folder.tracks.values()) {
+                if (!t.tagged && FileFormat.getFormatByName(t.file.getName()) != null) {
+                    missing.add(t);
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        tagger.execute(() -> {
+            List<Track> tagged = new ArrayList<>();
+            for (Track t : missing) {
+                if (!t.tagged) {
+                    try {
+                        t.setTags(new AudioInfo(t.file, false));
+                        tagged.add(t);
+                    } catch (Exception e) {
+                        // not a tagged format, keep the file name as the title
+                        t.tagged = true;
+                    }
+                    dirty = true;
+                }
+                if (tagged.size() == 256) {
+                    fireChanged(tagged, List.of());
+                    tagged = new ArrayList<>();
+                }
+            }
+            fireChanged(tagged, List.of());
+        });
+    }
+}
@@ -44,8 +44,13 @@ import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
-import java.io.File;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Jack Meng
@@ -60,6 +65,18 @@ public class MoosicCache {
     public static String MOOSIC_DEFAULT_LOCALE = ProgramResourceManager.PROGRAM_RESOURCE_FOLDER
         + ProgramResourceManager.FILE_SLASH
         + ProgramResourceManager.RESOURCE_SUBFOLDERS[2] + ProgramResourceManager.FILE_SLASH + "moosic.halcyon";
+    public static String MOOSIC_LIKED_LOCALE = ProgramResourceManager.PROGRAM_RESOURCE_FOLDER
+        + ProgramResourceManager.FILE_SLASH
+        + ProgramResourceManager.RESOURCE_SUBFOLDERS[2] + ProgramResourceManager.FILE_SLASH + "liked.halcyon";
+    /**
+     * How long changes are collected before they are written
+     */
+    public static final long WRITE_BEHIND_MS = 2000L;
+    private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon MoosicCache");
+        t.setDaemon(true);
+        return t;
+    });
     // MoosicCache Config END
     private final Object lock;
     private final Object lock2;
@@ -67,6 +84,11 @@ public class MoosicCache {
     public Cacher cacher;
     private List<String> excludedFiles, savedPlayLists;
     private Set<String> likedTracks;
+    // what is on disk: copies of the XML part (null when it has to be rewritten) and the liked tracks of the journal
+    private List<String> persistedExcluded, persistedSaved;
+    private Set<String> persistedLiked = new HashSet<>();
+    private int journalLines;
+    private ScheduledFuture<?> pending;
 
     public MoosicCache() {
         lock = lock2 = lock3 = new Object();
@@ -99,6 +121,7 @@ public class MoosicCache {
             excludedFiles = new ArrayList<>();
             savedPlayLists = new ArrayList<>();
             likedTracks = new HashSet<>();
+            markPersisted(excludedFiles, savedPlayLists);
         } else {
             /*
              * We try to look up the data from the configuration file if the previous
@@ -118,6 +141,13 @@ public class MoosicCache {
                     : new ArrayList<>();
                 likedTracks = cacher.getContent(NODE_USER_LIKED_TRACKS)[0] != null ? new HashSet<>(Arrays.asList(
                     cacher.getContent(NODE_USER_LIKED_TRACKS)[0].split("\n"))) : new HashSet<>();
+                likedTracks.remove("");
+                if (likedTracks.isEmpty()) {
+                    markPersisted(excludedFiles, savedPlayLists);
+                } else {
+                    // liked tracks from an older cache, the XML is rewritten without them once they are in the journal
+                    requestSave();
+                }
                 Debugger.info("EF: " + excludedFiles, "SPL: " + savedPlayLists, "LT: " + likedTracks);
             } catch (Exception e) {
                 ExternalResource.dispatchLog(e);
@@ -125,6 +155,161 @@ public class MoosicCache {
                 new ErrorWindow(e.getMessage()).run();
             }
         }
+        loadLiked();
+    }
+
+    /**
+     * Replays the journal of liked tracks. Older caches keep the liked tracks in
+     * the XML instead, those are moved into the journal on the next save.
+     */
+    private void loadLiked() {
+        File f = new File(MOOSIC_LIKED_LOCALE);
+        if (!f.isFile()) {
+            return;
+        }
+        Set<String> liked = new HashSet<>();
+        int lines = 0;
+        try (BufferedReader br = new BufferedReader(new FileReader(f, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.length() > 1) {
+                    if (line.charAt(0) == '+') {
+                        liked.add(line.substring(1));
+                    } else if (line.charAt(0) == '-') {
+                        liked.remove(line.substring(1));
+                    }
+                    lines++;
+                }
+            }
+        } catch (IOException e) {
+            ExternalResource.dispatchLog(e);
+            return;
+        }
+        likedTracks = liked;
+        persistedLiked = new HashSet<>(liked);
+        journalLines = lines;
+    }
+
+    /**
+     * @param excluded The excluded tracks that are on disk
+     * @param saved    The saved playlists that are on disk
+     */
+    private void markPersisted(List<String> excluded, List<String> saved) {
+        persistedExcluded = new ArrayList<>(excluded);
+        persistedSaved = new ArrayList<>(saved);
+    }
+
+    /**
+     * @return boolean (true || false) if the XML part differs from what is on disk
+     */
+    private boolean isXmlDirty() {
+        return !excludedFiles.equals(persistedExcluded) || !savedPlayLists.equals(persistedSaved);
+    }
+
+    /**
+     * @return boolean (true || false) if anything changed since the last write
+     */
+    public boolean isDirty() {
+        synchronized (lock) {
+            return isXmlDirty() || !likedTracks.equals(persistedLiked);
+        }
+    }
+
+    /**
+     * Schedules a write in the background. Requests that come in
+     * before the write happens are coalesced into it.
+     */
+    public void requestSave() {
+        synchronized (flusher) {
+            if (pending == null || pending.isDone()) {
+                pending = flusher.schedule(this::flush, WRITE_BEHIND_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Writes whatever changed: liked tracks are appended to their journal as
+     * additions and removals, then the XML (saved playlists and excluded tracks)
+     * is rewritten through a temporary file.
+     *
+     * @return boolean (true || false) if anything was written
+     */
+    public synchronized boolean flush() {
+        List<String> excluded, saved;
+        Set<String> liked;
+        boolean xml;
+        synchronized (lock) {
+            excluded = new ArrayList<>(excludedFiles);
+            saved = new ArrayList<>(savedPlayLists);
+            liked = new HashSet<>(likedTracks);
+            xml = isXmlDirty();
+        }
+        boolean wrote = false;
+        // the journal goes first, an older XML may still hold the only copy of the liked tracks
+        if (!liked.equals(persistedLiked)) {
+            try {
+                writeLiked(liked);
+                persistedLiked = liked;
+                wrote = true;
+            } catch (IOException e) {
+                ExternalResource.dispatchLog(e);
+                return false;
+            }
+        }
+        if (xml) {
+            Map<String, String> content = new HashMap<>();
+            content.put(NODE_USER_EXCLUDED_TRACKS, String.join("\n", excluded));
+            content.put(NODE_USER_SAVED_PLAYLISTS, String.join("\n", saved));
+            content.put(NODE_USER_LIKED_TRACKS, "");
+            try {
+                cacher.build(NODE_ROOT, content);
+                markPersisted(excluded, saved);
+                wrote = true;
+            } catch (TransformerException | ParserConfigurationException e) {
+                ExternalResource.dispatchLog(e);
+            }
+        }
+        return wrote;
+    }
+
+    /**
+     * @param liked The liked tracks to persist
+     * @throws IOException
+     */
+    private void writeLiked(Set<String> liked) throws IOException {
+        File f = new File(MOOSIC_LIKED_LOCALE);
+        List<String> changes = new ArrayList<>();
+        for (String s : liked) {
+            if (!persistedLiked.contains(s)) {
+                changes.add("+" + s);
+            }
+        }
+        for (String s : persistedLiked) {
+            if (!liked.contains(s)) {
+                changes.add("-" + s);
+            }
+        }
+        if (f.isFile() && journalLines + changes.size() <= 2 * liked.size() + 64) {
+            try (Writer w = new BufferedWriter(new FileWriter(f, StandardCharsets.UTF_8, true))) {
+                for (String c : changes) {
+                    w.write(c);
+                    w.write('\n');
+                }
+            }
+            journalLines += changes.size();
+        } else {
+            // compact the journal down to the current set
+            File temp = new File(f.getAbsolutePath() + ".tmp");
+            try (Writer w = new BufferedWriter(new FileWriter(temp, StandardCharsets.UTF_8))) {
+                for (String s : liked) {
+                    w.write('+');
+                    w.write(s);
+                    w.write('\n');
+                }
+            }
+            Cacher.replace(temp, f);
+            journalLines = liked.size();
+        }
     }
 
     /**
@@ -180,47 +365,28 @@ public class MoosicCache {
         return likedTracks;
     }
 
+    /**
+     * Writes any changes right away, for example on exit.
+     */
     public void forceSave() {
-        Map<String, String> content = new WeakHashMap<>();
-        StringBuilder sb1 = new StringBuilder();
-        excludedFiles.forEach(x -> sb1.append(x).append("\n"));
-        content.put(NODE_USER_EXCLUDED_TRACKS, sb1.toString());
-        StringBuilder sb2 = new StringBuilder();
-        savedPlayLists.forEach(x -> sb2.append(x).append("\n"));
-        content.put(NODE_USER_SAVED_PLAYLISTS, sb2.toString());
-        StringBuilder sb3 = new StringBuilder();
-        likedTracks.forEach(x -> sb3.append(x).append("\n"));
-        content.put(NODE_USER_LIKED_TRACKS, sb3.toString());
-        Debugger.info("Force Saving " + this.getClass().getSimpleName() + " > ", "ET: \n" + sb1,
-            "SPL: \n" + sb2, "LT: \n" + sb3);
-        try {
-            cacher.build(NODE_ROOT, content);
-        } catch (TransformerException | ParserConfigurationException e) {
-            e.printStackTrace();
+        synchronized (flusher) {
+            if (pending != null) {
+                pending.cancel(false);
+            }
         }
+        Debugger.info("Force Saving " + this.getClass().getSimpleName() + " > ",
+            "ET: " + excludedFiles.size(), "SPL: " + savedPlayLists.size(), "LT: " + likedTracks.size());
+        flush();
     }
 
+    /**
+     * Writes any changes in the background.
+     *
+     * @see #requestSave()
+     */
     public void forceSaveQuiet() {
-        Map<String, String> content = new WeakHashMap<>();
-        StringBuilder sb1 = new StringBuilder();
-        for (String s : excludedFiles) {
-            sb1.append(s).append("\n");
-        }
-        content.put(NODE_USER_EXCLUDED_TRACKS, sb1.toString());
-        StringBuilder sb2 = new StringBuilder();
-        for (String s : savedPlayLists) {
-            sb2.append(s).append("\n");
-        }
-        content.put(NODE_USER_SAVED_PLAYLISTS, sb2.toString());
-        StringBuilder sb3 = new StringBuilder();
-        for (String s : likedTracks) {
-            sb3.append(s).append("\n");
-        }
-        content.put(NODE_USER_LIKED_TRACKS, sb3.toString());
-        try {
-            cacher.build(NODE_ROOT, content);
-        } catch (TransformerException | ParserConfigurationException e) {
-            e.printStackTrace();
+        if (isDirty()) {
+            requestSave();
         }
     }
 }
@@ -43,8 +43,18 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.*;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 /**
  * This class is localized meaning
@@ -58,24 +68,55 @@ import java.util.Properties;
  * A Replace On Demand means that it will not let the
  * the receiver decide what to do with the properties, but will
  * go by rules. If a value is deemed unacceptable, it will be
- * be replaced by the default value, and the original value in
- * the file will be overwritten. Another thing to note is that,
- * on demand means only checking the current value it is being called upon
- * {@link #get(String)}.
- * This class does not do a pre-check of all of the properties, unless the
- * properties file does not
- * exist or is empty, then everything will be replaced
- * {@link #createWithDefaultVals()}.
+ * be replaced by the default value.
+ * <p>
+ * The file is read once into a validated snapshot that every
+ * {@link #get(String)} is served from. Edits made to the file while the
+ * program runs are picked up by a file watcher, which replaces the snapshot
+ * and notifies the {@link PropertyListener}s of every key that changed.
+ * The typed getters ({@link #getInt(String)}, {@link #getFloat(String)},
+ * {@link #getBoolean(String)}) parse a value once per change.
  *
  * @author Jack Meng
  * @since 2.1
  */
 public final class PropertiesManager {
+    /**
+     * Listens for changes of a single property.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    @FunctionalInterface
+    public interface PropertyListener {
+        /**
+         * @param key   The key that changed
+         * @param value The new (validated) value
+         */
+        void propertyChanged(String key, String value);
+    }
+
+    /**
+     * The validated values and the values parsed from them, which are
+     * replaced together so a parse never outlives its value.
+     *
+     * @param values The validated values
+     * @param typed  The parsed values
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    private record Snapshot(Map<String, String> values, Map<String, Object> typed) {
+    }
+
     private final Map<String, PropertyValidator> allowedProperties;
     private final Properties util;
     private final String location;
+    private final Map<String, List<PropertyListener>> listeners = new ConcurrentHashMap<>();
+    // changes are queued while holding the monitor and fired once it is released
+    private final Queue<Map.Entry<String, String>> changes = new ConcurrentLinkedQueue<>();
     private Map<String, String> map;
-    private FileReader fr;
+    private volatile Snapshot snapshot;
+    private volatile boolean watching;
 
     /**
      * Creates a new PropertiesManager instance with the defined rules and
@@ -90,7 +131,7 @@ public final class PropertiesManager {
      * @param allowedProperties Contains a key and an array of allowed properties as
      *                          rules, if the value from file's key does not match
      *                          any of the given rules, the PropertiesManager will
-     *                          return the default property and alter the file. This
+     *                          return the default property. This
      *                          is an optional parameter, which can be that the
      *                          array can be empty (NOT NULL).
      * @param location          The location of the properties file
@@ -115,57 +156,202 @@ public final class PropertiesManager {
      * If a key does not exist, it will be created with the default value.
      */
     public void checkAllPropertiesExistence() {
-        try {
-            if (!new File(location).exists() || !new File(location).isFile()) {
-                new File(location).createNewFile();
-                createWithDefaultVals();
+        synchronized (this) {
+            ensureFile();
+            load();
+            boolean missing = false;
+            for (String key : allowedProperties.keySet()) {
+                if (!util.containsKey(key) && map.get(key) != null) {
+                    util.setProperty(key, map.get(key));
+                    missing = true;
+                }
             }
-            util.load(new FileReader(location));
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        for (String key : allowedProperties.keySet()) {
-            if (!util.containsKey(key)) {
-                util.setProperty(key, map.get(key));
+            if (missing) {
+                save();
             }
         }
-        save();
+        fireChanges();
     }
 
     /**
-     * Creates an empty file with the location given in the constructor.
+     * Makes sure the file exists, filling it with the defaults if it does not.
      */
-    private void wipeContents() {
+    private void ensureFile() {
         File f = new File(location);
-        if (f.isFile() && f.exists()) {
+        if (!f.exists() || !f.isFile()) {
             try {
-                FileWriter writer = new FileWriter(location);
-                writer.write("");
-                writer.close();
-            } catch (Exception e) {
+                f.createNewFile();
+            } catch (IOException e) {
                 e.printStackTrace();
             }
+            createWithDefaultVals();
         }
     }
 
     /**
      * Writes to the file with the default values of all the properties.
-     * <p>
-     * It will also first wipe the contents of the file in order to prevent
-     * overwrite.
      */
-    private void createWithDefaultVals() {
-        wipeContents();
-        try {
-            fr = new FileReader(location);
-            util.load(fr);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
+    private synchronized void createWithDefaultVals() {
+        util.clear();
         for (Map.Entry<String, String> entry : map.entrySet()) {
             util.setProperty(entry.getKey(), entry.getValue());
         }
         save();
+        rebuildSnapshot();
+    }
+
+    /**
+     * Reads the file into the properties and rebuilds the snapshot.
+     */
+    private synchronized void load() {
+        Properties fresh = new Properties();
+        try (FileReader fr = new FileReader(location)) {
+            fresh.load(fr);
+        } catch (IOException e) {
+            e.printStackTrace();
+            if (snapshot != null) {
+                return;
+            }
+        }
+        util.clear();
+        util.putAll(fresh);
+        rebuildSnapshot();
+        watch();
+    }
+
+    /**
+     * Validates every value once and queues the keys whose value changed
+     * for {@link #fireChanges()}.
+     */
+    private void rebuildSnapshot() {
+        Map<String, String> next = new ConcurrentHashMap<>();
+        for (String key : util.stringPropertyNames()) {
+            String value = util.getProperty(key);
+            String valid = allowed(key, value) ? value : map.get(key);
+            if (valid != null) {
+                next.put(key, valid);
+            }
+        }
+        for (Map.Entry<String, String> e : map.entrySet()) {
+            if (!next.containsKey(e.getKey()) && e.getValue() != null) {
+                next.put(e.getKey(), e.getValue());
+            }
+        }
+        Snapshot old = snapshot;
+        snapshot = new Snapshot(next, new ConcurrentHashMap<>());
+        if (old != null) {
+            for (Map.Entry<String, String> e : next.entrySet()) {
+                if (!e.getValue().equals(old.values().get(e.getKey()))) {
+                    changes.add(Map.entry(e.getKey(), e.getValue()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Notifies the listeners of the queued changes. This must be called
+     * without holding the monitor, so a listener can not block anyone that
+     * waits for it.
+     */
+    private void fireChanges() {
+        Map.Entry<String, String> c;
+        while ((c = changes.poll()) != null) {
+            List<PropertyListener> l = listeners.get(c.getKey());
+            if (l != null) {
+                for (PropertyListener x : l) {
+                    try {
+                        x.propertyChanged(c.getKey(), c.getValue());
+                    } catch (Exception e) {
+                        ExternalResource.dispatchLog(e);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts watching the folder of the file for external edits, once.
+     */
+    private void watch() {
+        if (watching) {
+            return;
+        }
+        Path file = Paths.get(location).toAbsolutePath();
+        Path dir = file.getParent();
+        if (dir == null || !Files.isDirectory(dir)) {
+            return;
+        }
+        watching = true;
+        Thread t = new Thread(() -> {
+            try (WatchService service = FileSystems.getDefault().newWatchService()) {
+                dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                while (true) {
+                    WatchKey key = service.take();
+                    boolean ours = false;
+                    // editors often write in several steps, wait for them to settle
+                    while (key != null) {
+                        for (WatchEvent<?> e : key.pollEvents()) {
+                            if (e.kind() == StandardWatchEventKinds.OVERFLOW
+                                || file.getFileName().equals(e.context())) {
+                                ours = true;
+                            }
+                        }
+                        key.reset();
+                        key = service.poll(100L, TimeUnit.MILLISECONDS);
+                    }
+                    if (ours && Files.isRegularFile(file)) {
+                        load();
+                        fireChanges();
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException | ClosedWatchServiceException e) {
+                watching = false;
+            }
+        }, "Halcyon PropertiesManager");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * @return Snapshot The current snapshot, loading it if it was never loaded
+     */
+    private Snapshot snapshot() {
+        Snapshot s = snapshot;
+        if (s == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    ensureFile();
+                    load();
+                }
+                s = snapshot;
+            }
+        }
+        return s;
+    }
+
+    /**
+     * @param key
+     * @param parser
+     * @param <T>
+     * @return T The parsed value, falling back to the parsed default
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T typed(String key, Function<String, T> parser) {
+        Snapshot s = snapshot();
+        Object v = s.typed().get(key);
+        if (v == null) {
+            String value = s.values().get(key);
+            try {
+                v = parser.apply(value != null ? value : map.get(key));
+            } catch (RuntimeException e) {
+                v = parser.apply(map.get(key));
+            }
+            // a parse of an older snapshot only ever lands in that snapshot
+            s.typed().put(key, v);
+        }
+        return (T) v;
     }
 
     /// END PRIVATE METHODS
@@ -243,37 +429,57 @@ public final class PropertiesManager {
      * @return The value of the key in the properties file.
      */
     public String get(String key) {
-        if (!new File(location).exists() || !new File(location).isFile()) {
-            try {
-                new File(location).createNewFile();
-            } catch (IOException ignored) {
-                // IGNORED
-            }
-            createWithDefaultVals();
-        }
-        if (fr == null) {
-            try {
-                if (!new File(location).exists() || !new File(location).isFile()) {
-                    new File(location).createNewFile();
-                    createWithDefaultVals();
-                }
-                fr = new FileReader(location);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        }
-        try {
-            fr = new FileReader(location);
-            util.load(fr);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        if (util.getProperty(key) == null) {
-            util.setProperty(key, map.get(key));
-            save();
-        }
-        return util.getProperty(key) == null || !allowed(key, util.getProperty(key)) ? map.get(key)
-            : util.getProperty(key);
+        String v = snapshot().values().get(key);
+        return v != null ? v : map.get(key);
+    }
+
+    /**
+     * @param key The key to get the value of
+     * @return int The value parsed as an int
+     * @since 3.4.1
+     */
+    public int getInt(String key) {
+        return typed(key, Integer::parseInt);
+    }
+
+    /**
+     * @param key The key to get the value of
+     * @return float The value parsed as a float
+     * @since 3.4.1
+     */
+    public float getFloat(String key) {
+        return typed(key, Float::parseFloat);
+    }
+
+    /**
+     * @param key The key to get the value of
+     * @return boolean (true || false) if the value is "true"
+     * @since 3.4.1
+     */
+    public boolean getBoolean(String key) {
+        return typed(key, "true"::equals);
+    }
+
+    /**
+     * Registers a listener that is called whenever the value of the key
+     * changes, be it through {@link #set(String, String, String)} or an edit of
+     * the file.
+     *
+     * @param key      The key to listen to
+     * @param listener The listener
+     * @since 3.4.1
+     */
+    public void addListener(String key, PropertyListener listener) {
+        listeners.computeIfAbsent(key, x -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    /**
+     * @param key      The key that was listened to
+     * @param listener The listener
+     * @since 3.4.1
+     */
+    public void removeListener(String key, PropertyListener listener) {
+        listeners.getOrDefault(key, Collections.emptyList()).remove(listener);
     }
 
     /**
@@ -284,19 +490,13 @@ public final class PropertiesManager {
      * @param comments The comments to add to the file
      */
     public void set(String key, String value, String comments) {
-        try {
-            util.load(fr);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        util.setProperty(key, value);
-        try {
-            FileWriter writer = new FileWriter(location);
-            util.store(writer, comments);
-            writer.close();
-        } catch (Exception e) {
-            e.printStackTrace();
+        synchronized (this) {
+            snapshot();
+            util.setProperty(key, value);
+            save(comments);
+            rebuildSnapshot();
         }
+        fireChanges();
     }
 
     /**
@@ -304,9 +504,9 @@ public final class PropertiesManager {
      *
      * @param comments The comments to add to the top of the file.
      */
-    public void save(String comments) {
-        try {
-            util.store(new FileWriter(location), comments);
+    public synchronized void save(String comments) {
+        try (Writer w = new FileWriter(location)) {
+            util.store(w, comments);
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -335,14 +535,9 @@ public final class PropertiesManager {
             }
             createWithDefaultVals();
         } else {
-            try {
-                fr = new FileReader(location);
-                util.load(fr);
-            } catch (IOException e) {
-                e.printStackTrace();
-                return false;
-            }
+            load();
         }
+        fireChanges();
         return true;
     }
 
@@ -0,0 +1,525 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.halcyon.utils;
+
+import com.jackmeng.halcyoninae.halcyon.runtime.constant.Manager;
+
+import javax.swing.*;
+import java.io.File;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * An in memory search index over every track of the {@link LibraryIndex}
+ * and any other file that was added to it (the liked tracks).
+ * <p>
+ * The file name and the title, artist, album and genre tags are split
+ * into lowercase words without accents. Every word points to the tracks
+ * and the field it was found in, and the words are kept sorted so all
+ * the words starting with what was typed are a single range. A query
+ * matches the tracks that have a word starting with each of its words,
+ * ranked by the field the words were found in.
+ * <p>
+ * The index follows the library as folders change. Every update and
+ * every query runs on one background thread, so the index itself needs
+ * no locking and a query that was typed over is skipped.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class SearchIndex implements LibraryIndex.Listener {
+    /**
+     * A single result of a query.
+     *
+     * @param file   The track
+     * @param title  The title or the file name
+     * @param artist The artist or an empty string
+     * @param album  The album or an empty string
+     */
+    public record Hit(File file, String title, String artist, String album) {
+        /**
+         * @return String
+         */
+        @Override
+        public String toString() {
+            return artist.isEmpty() ? title : title + " - " + artist;
+        }
+    }
+
+    /**
+     * The indexed fields and their weight, the field of a word is kept in the
+     * lowest bits of its postings.
+     */
+    private static final int FIELD_NAME = 0, FIELD_TITLE = 1, FIELD_ARTIST = 2, FIELD_ALBUM = 3, FIELD_GENRE = 4,
+            FIELD_BITS = 3;
+    private static final int[] WEIGHTS = { 1, 8, 4, 2, 1 };
+
+    /**
+     * An indexed track.
+     */
+    private static final class Doc {
+        private final File file;
+        private final String title, artist, album;
+
+        /**
+         * @param file
+         * @param title
+         * @param artist
+         * @param album
+         */
+        Doc(File file, String title, String artist, String album) {
+            this.file = file;
+            this.title = title;
+            this.artist = artist;
+            this.album = album;
+        }
+    }
+
+    /**
+     * The tracks a single word was found in.
+     */
+    private static final class Postings {
+        private int[] values = new int[2];
+        private int size;
+
+        /**
+         * @param v A document id and a field
+         */
+        void add(int v) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = v;
+        }
+    }
+
+    private final LibraryIndex library;
+    private final Predicate<File> hidden;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon SearchIndex");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicLong generation = new AtomicLong();
+
+    // only touched by the worker
+    private final List<Doc> docs = new ArrayList<>();
+    private final Map<File, Integer> ids = new HashMap<>();
+    private final TreeMap<String, Postings> words = new TreeMap<>();
+    private final Set<File> pinned = new HashSet<>();
+    private int dead;
+    private int[] matched = new int[0], scores = new int[0];
+
+    /**
+     * @param library The library to follow
+     * @param hidden  Files that are never shown in the results (excluded
+     *                tracks)
+     */
+    public SearchIndex(LibraryIndex library, Predicate<File> hidden) {
+        this.library = library;
+        this.hidden = hidden;
+        library.addListener(this);
+        worker.execute(() -> {
+            long t = System.currentTimeMillis();
+            library.getTracks().forEach(this::put);
+            Debugger.info("SearchIndex> Indexed " + ids.size() + " tracks ("
+                    + (System.currentTimeMillis() - t) + "ms)");
+        });
+    }
+
+    /**
+     * @param tracks
+     */
+    @Override
+    public void tracksChanged(Collection<LibraryIndex.Track> tracks) {
+        List<LibraryIndex.Track> copy = new ArrayList<>(tracks);
+        worker.execute(() -> copy.forEach(this::put));
+    }
+
+    /**
+     * @param files
+     */
+    @Override
+    public void tracksRemoved(Collection<File> files) {
+        List<File> copy = new ArrayList<>(files);
+        worker.execute(() -> {
+            for (File f : copy) {
+                if (!pinned.contains(f)) {
+                    delete(f);
+                }
+            }
+        });
+    }
+
+    /**
+     * Keeps files in the index that might not be in the library, like the
+     * liked tracks.
+     *
+     * @param files The files to keep
+     */
+    public void pin(Collection<File> files) {
+        List<File> copy = new ArrayList<>(files);
+        worker.execute(() -> {
+            for (File f : copy) {
+                if (pinned.add(f) && !ids.containsKey(f)) {
+                    LibraryIndex.Track t = library.getTrack(f);
+                    if (t != null) {
+                        put(t);
+                    } else {
+                        put(f, null, null, null, null);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops keeping files, they stay in the index if they are in the library.
+     *
+     * @param files The files to stop keeping
+     */
+    public void unpin(Collection<File> files) {
+        List<File> copy = new ArrayList<>(files);
+        worker.execute(() -> {
+            for (File f : copy) {
+                if (pinned.remove(f) && library.getTrack(f) == null) {
+                    delete(f);
+                }
+            }
+        });
+    }
+
+    /**
+     * Runs a query in the background, any query that has not finished yet
+     * is dropped.
+     *
+     * @param query    What the user typed
+     * @param limit    The maximum amount of results
+     * @param callback Gets the results on the EDT, best first
+     */
+    public void search(String query, int limit, Consumer<List<Hit>> callback) {
+        long id = generation.incrementAndGet();
+        worker.execute(() -> {
+            try {
+                List<Hit> hits = find(query, limit, id);
+                if (id == generation.get()) {
+                    SwingUtilities.invokeLater(() -> {
+                        if (id == generation.get()) {
+                            callback.accept(hits);
+                        }
+                    });
+                }
+            } catch (CancellationException e) {
+                // typed over
+            } catch (RuntimeException e) {
+                ExternalResource.dispatchLog(e);
+            }
+        });
+    }
+
+    /**
+     * @param t A track of the library
+     */
+    private void put(LibraryIndex.Track t) {
+        put(t.getFile(), t.getTitle(), t.getArtist(), t.getAlbum(), t.getGenre());
+    }
+
+    /**
+     * (Re)indexes a file, the old document is left as a tombstone.
+     *
+     * @param f
+     * @param title
+     * @param artist
+     * @param album
+     * @param genre
+     */
+    private void put(File f, String title, String artist, String album, String genre) {
+        String name = f.getName();
+        if (Arrays.stream(Manager.ALLOWED_FORMATS).noneMatch(name::endsWith)) {
+            return;
+        }
+        delete(f);
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        Doc doc = new Doc(f, title == null || title.isEmpty() ? name : title, artist == null ? "" : artist,
+                album == null ? "" : album);
+        int id = docs.size();
+        docs.add(doc);
+        ids.put(f, id);
+        Set<String> seen = new HashSet<>();
+        index(id, FIELD_NAME, base, seen);
+        index(id, FIELD_TITLE, title, seen);
+        index(id, FIELD_ARTIST, artist, seen);
+        index(id, FIELD_ALBUM, album, seen);
+        index(id, FIELD_GENRE, genre, seen);
+    }
+
+    /**
+     * @param id    The document
+     * @param field The field the text is from
+     * @param text  The text of the field
+     * @param seen  The words already indexed for the document, a word is
+     *              kept once per field
+     */
+    private void index(int id, int field, String text, Set<String> seen) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        for (String w : words(text)) {
+            if (seen.add(field + w)) {
+                words.computeIfAbsent(w, x -> new Postings()).add(id << FIELD_BITS | field);
+            }
+        }
+    }
+
+    /**
+     * Drops a file, its postings are cleaned up by the next compaction.
+     *
+     * @param f
+     */
+    private void delete(File f) {
+        Integer id = ids.remove(f);
+        if (id != null) {
+            docs.set(id, null);
+            if (++dead > 4096 && dead > ids.size()) {
+                compact();
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index without the tombstones.
+     */
+    private void compact() {
+        Map<Integer, Integer> moved = new HashMap<>(ids.size() * 2);
+        List<Doc> alive = new ArrayList<>(ids.size());
+        for (int i = 0; i < docs.size(); i++) {
+            if (docs.get(i) != null) {
+                moved.put(i, alive.size());
+                alive.add(docs.get(i));
+            }
+        }
+        Iterator<Postings> it = words.values().iterator();
+        while (it.hasNext()) {
+            Postings p = it.next();
+            int n = 0;
+            for (int i = 0; i < p.size; i++) {
+                Integer to = moved.get(p.values[i] >>> FIELD_BITS);
+                if (to != null) {
+                    p.values[n++] = to << FIELD_BITS | p.values[i] & ((1 << FIELD_BITS) - 1);
+                }
+            }
+            p.size = n;
+            if (n == 0) {
+                it.remove();
+            }
+        }
+        docs.clear();
+        docs.addAll(alive);
+        ids.clear();
+        for (int i = 0; i < docs.size(); i++) {
+            ids.put(docs.get(i).file, i);
+        }
+        dead = 0;
+    }
+
+    /**
+     * @param query
+     * @param limit
+     * @param id    The generation of the query
+     * @return List The best matches, best first
+     */
+    private List<Hit> find(String query, int limit, long id) {
+        List<String> terms = words(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // the first word decides the candidates, so start with the rarest
+        Map<String, Integer> sizes = new HashMap<>();
+        for (String term : terms) {
+            int n = 0;
+            for (Postings p : range(term).values()) {
+                n += p.size;
+            }
+            if (n == 0) {
+                return List.of();
+            }
+            sizes.put(term, n);
+        }
+        terms.sort(Comparator.comparingInt(sizes::get));
+        if (matched.length < docs.size()) {
+            matched = new int[docs.size()];
+            scores = new int[docs.size()];
+        }
+        int[] touched = new int[16];
+        int touchedSize = 0;
+        try {
+            for (int k = 0; k < terms.size(); k++) {
+                if (id != generation.get()) {
+                    throw new CancellationException();
+                }
+                String term = terms.get(k);
+                for (Map.Entry<String, Postings> e : range(term).entrySet()) {
+                    // a whole word counts more than the start of one
+                    int bonus = e.getKey().length() == term.length() ? 2 : 1;
+                    Postings p = e.getValue();
+                    for (int i = 0; i < p.size; i++) {
+                        int doc = p.values[i] >>> FIELD_BITS, w = WEIGHTS[p.values[i] & ((1 << FIELD_BITS) - 1)];
+                        if (matched[doc] == k) {
+                            if (k == 0) {
+                                if (touchedSize == touched.length) {
+                                    touched = Arrays.copyOf(touched, touchedSize * 2);
+                                }
+                                touched[touchedSize++] = doc;
+                            }
+                            matched[doc] = k + 1;
+                            scores[doc] += w * bonus;
+                        } else if (matched[doc] == k + 1) {
+                            scores[doc] += w * bonus;
+                        }
+                    }
+                }
+            }
+            // keep the best results only, as score << 32 | doc in a min heap
+            long[] heap = new long[limit];
+            int heapSize = 0;
+            for (int i = 0; i < touchedSize; i++) {
+                int doc = touched[i];
+                if (matched[doc] != terms.size() || docs.get(doc) == null) {
+                    continue;
+                }
+                long key = (long) scores[doc] << 32 | doc;
+                // hidden files are only looked up for candidates that would make it in
+                if (heapSize < limit) {
+                    if (!hidden.test(docs.get(doc).file)) {
+                        heap[heapSize] = key;
+                        siftUp(heap, heapSize++);
+                    }
+                } else if (key > heap[0] && !hidden.test(docs.get(doc).file)) {
+                    heap[0] = key;
+                    siftDown(heap, heapSize);
+                }
+            }
+            Arrays.sort(heap, 0, heapSize);
+            List<Hit> hits = new ArrayList<>(heapSize);
+            for (int i = heapSize - 1; i >= 0; i--) {
+                Doc d = docs.get((int) heap[i]);
+                hits.add(new Hit(d.file, d.title, d.artist, d.album));
+            }
+            return hits;
+        } finally {
+            for (int i = 0; i < touchedSize; i++) {
+                matched[touched[i]] = 0;
+                scores[touched[i]] = 0;
+            }
+        }
+    }
+
+    /**
+     * @param prefix
+     * @return Map The words starting with the prefix
+     */
+    private SortedMap<String, Postings> range(String prefix) {
+        return words.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * @param heap
+     * @param i    The index of the new key
+     */
+    private static void siftUp(long[] heap, int i) {
+        long key = heap[i];
+        while (i > 0 && heap[(i - 1) >>> 1] > key) {
+            heap[i] = heap[(i - 1) >>> 1];
+            i = (i - 1) >>> 1;
+        }
+        heap[i] = key;
+    }
+
+    /**
+     * @param heap
+     * @param size The size of the heap
+     */
+    private static void siftDown(long[] heap, int size) {
+        long key = heap[0];
+        int i = 0;
+        for (int c = 1; c < size; c = 2 * i + 1) {
+            if (c + 1 < size && heap[c + 1] < heap[c]) {
+                c++;
+            }
+            if (heap[c] >= key) {
+                break;
+            }
+            heap[i] = heap[c];
+            i = c;
+        }
+        heap[i] = key;
+    }
+
+    /**
+     * @param text
+     * @return List The lowercase words of the text without accents
+     */
+    static List<String> words(String text) {
+        String s = text.chars().allMatch(c -> c < 0x80) ? text.toLowerCase(Locale.ROOT)
+                : Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ROOT);
+        List<String> out = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+            } else if (Character.getType(c) != Character.NON_SPACING_MARK && sb.length() > 0) {
+                out.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        if (sb.length() > 0) {
+            out.add(sb.toString());
+        }
+        return out;
+    }
+}
@@ -113,8 +113,9 @@ public final class TextParser {
      * @return String
      */
     public static String getPropertyTextEncodingName() {
-        return ExternalResource.pm.get(ProgramResourceManager.KEY_USER_CHAR_SET_WRITE_TABLE).equals("utf8") ? "UTF-8"
-            : (ExternalResource.pm.get(ProgramResourceManager.KEY_USER_CHAR_SET_WRITE_TABLE).equals("utf16le")
+        String table = ExternalResource.pm.get(ProgramResourceManager.KEY_USER_CHAR_SET_WRITE_TABLE);
+        return table.equals("utf8") ? "UTF-8"
+            : (table.equals("utf16le")
             ? "UTF-16LE"
             : "UTF-16BE");
     }
@@ -124,13 +125,12 @@ public final class TextParser {
      * @return String
      */
     public static String parseAsPure(String str) {
-        return new String(ExternalResource.pm.get(ProgramResourceManager.KEY_USER_CHAR_SET_WRITE_TABLE).equals("utf16")
+        String table = ExternalResource.pm.get(ProgramResourceManager.KEY_USER_CHAR_SET_WRITE_TABLE);
+        return new String(table.equals("utf16")
             ? str.getBytes(StandardCharsets.UTF_16)
-            : (ExternalResource.pm
-            .get(ProgramResourceManager.KEY_USER_CHAR_SET_WRITE_TABLE).equals("utf8")
+            : (table.equals("utf8")
             ? str.getBytes(StandardCharsets.UTF_8)
-            : (ExternalResource.pm.get(ProgramResourceManager.KEY_USER_CHAR_SET_WRITE_TABLE)
-            .equals("utf16le")
+            : (table.equals("utf16le")
             ? str.getBytes(StandardCharsets.UTF_16LE)
             : str.getBytes(StandardCharsets.UTF_16BE))));
     }
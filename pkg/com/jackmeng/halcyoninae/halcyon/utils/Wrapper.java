@@ -56,6 +56,12 @@ import java.util.concurrent.Executors;
  * @author 3.1
  */
 public final class Wrapper {
+    private static final ExecutorService threaded = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "Halcyon Wrapper");
+        t.setDaemon(true);
+        return t;
+    });
+
     /**
      * Launches a runnable in an async pool.
      * <p>
@@ -102,7 +108,7 @@ public final class Wrapper {
      * @since 3.2
      */
     public static void threadedRun(Runnable run) {
-        ExecutorService es = Executors.newSingleThreadExecutor();
-        es.submit(run);
+        // one pool for every call, a new executor per call was never shut down
+        threaded.execute(run);
     }
 }
@@ -0,0 +1,265 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.DiskCache;
+import com.jackmeng.halcyoninae.halcyon.utils.ProgramResourceManager;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Scaled down copies of artwork in a few standard sizes, kept in memory and
+ * on disk so that the full artwork is decoded and scaled only once.
+ * <p>
+ * Thumbnails are keyed by a hash of the encoded artwork, so every track of
+ * an album shares the same files and an edited cover gets new ones. Every
+ * size is made from a single decode of the original, and the files are
+ * written in the background as raw pixels that are read back through a
+ * memory map. Once the files pass {@link #MAX_DISK_BYTES} the ones that were
+ * used least recently are deleted.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class ArtworkThumbnails {
+    /**
+     * For icons, up to 128 pixels
+     */
+    public static final int SMALL = 128;
+    /**
+     * For backdrops and viewers, up to 512 pixels
+     */
+    public static final int LARGE = 512;
+    /**
+     * The folder the thumbnails are kept in
+     */
+    public static final String THUMBNAIL_FOLDER = ProgramResourceManager.PROGRAM_RESOURCE_FOLDER
+            + ProgramResourceManager.FILE_SLASH + ProgramResourceManager.RESOURCE_SUBFOLDERS[2]
+            + ProgramResourceManager.FILE_SLASH + "artwork";
+    /**
+     * The amount of bytes of thumbnails to keep in memory
+     */
+    public static final long MAX_MEMORY_BYTES = 32L * 1024L * 1024L;
+    /**
+     * The amount of bytes of thumbnails to keep on disk
+     */
+    public static final long MAX_DISK_BYTES = 64L * 1024L * 1024L;
+    private static final int[] SIZES = { SMALL, LARGE };
+    private static final int MAGIC = 0x48415254, HEADER = 5 * Integer.BYTES;
+
+    /**
+     * A thumbnail and the size of the artwork it was made from.
+     *
+     * @param image        The scaled artwork
+     * @param sourceWidth  The width of the original artwork
+     * @param sourceHeight The height of the original artwork
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public record Thumbnail(BufferedImage image, int sourceWidth, int sourceHeight) {
+        /**
+         * @return double How much smaller the thumbnail is than the original
+         */
+        public double scale() {
+            return image.getWidth() / (double) sourceWidth;
+        }
+    }
+
+    private static final Cache<String, Thumbnail> memory = Caffeine.newBuilder()
+            .softValues()
+            .maximumWeight(MAX_MEMORY_BYTES)
+            .weigher((String k, Thumbnail v) -> v.image().getWidth() * v.image().getHeight() * 4)
+            .build();
+    private static final DiskCache disk = new DiskCache(THUMBNAIL_FOLDER, ".thumb", MAX_DISK_BYTES);
+    private static final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon ArtworkThumbnails");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+
+    private ArtworkThumbnails() {
+    }
+
+    /**
+     * @param size The size that is needed
+     * @return int The smallest standard size that is at least as big
+     */
+    public static int standard(int size) {
+        for (int s : SIZES) {
+            if (s >= size) {
+                return s;
+            }
+        }
+        return SIZES[SIZES.length - 1];
+    }
+
+    /**
+     * Returns the thumbnail from memory or from disk, or makes every size
+     * from the original if there is none yet.
+     *
+     * @param hash     The hash of the encoded artwork
+     * @param size     The size that is needed, rounded up to a standard size
+     * @param original Decodes the original artwork, only called on a miss
+     * @return Thumbnail The thumbnail or null if the original could not be
+     *         decoded
+     */
+    public static Thumbnail get(String hash, int size, Supplier<BufferedImage> original) {
+        int std = standard(size);
+        String key = hash + "_" + std;
+        Thumbnail t = memory.getIfPresent(key);
+        if (t != null) {
+            return t;
+        }
+        t = read(disk.file(key));
+        if (t != null) {
+            memory.put(key, t);
+            return t;
+        }
+        BufferedImage src = original.get();
+        if (src == null) {
+            return null;
+        }
+        for (int s : SIZES) {
+            Thumbnail made = new Thumbnail(scale(src, s), src.getWidth(), src.getHeight());
+            String k = hash + "_" + s;
+            memory.put(k, made);
+            writer.execute(() -> write(k, made));
+            if (s == std) {
+                t = made;
+            }
+        }
+        Debugger.info("ArtworkThumbnails> Made thumbnails for: " + hash);
+        return t;
+    }
+
+    /**
+     * Scales an image down (never up) so that its longest side fits, halving
+     * it with bilinear filtering first so that no pixels are skipped.
+     *
+     * @param src  The image
+     * @param size The longest side
+     * @return BufferedImage The scaled image
+     */
+    static BufferedImage scale(BufferedImage src, int size) {
+        int longest = Math.max(src.getWidth(), src.getHeight());
+        double f = Math.min(1D, size / (double) longest);
+        int tw = Math.max(1, (int) Math.round(src.getWidth() * f)),
+                th = Math.max(1, (int) Math.round(src.getHeight() * f));
+        BufferedImage cur = src;
+        do {
+            int w = Math.max(tw, cur.getWidth() / 2), h = Math.max(th, cur.getHeight() / 2);
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.drawImage(cur, 0, 0, w, h, null);
+            g.dispose();
+            cur = next;
+        } while (cur.getWidth() != tw || cur.getHeight() != th);
+        return cur;
+    }
+
+    /**
+     * @param f The thumbnail file
+     * @return Thumbnail The thumbnail or null if there is no (valid) file
+     */
+    private static Thumbnail read(File f) {
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            if (ch.size() < HEADER) {
+                return null;
+            }
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0L, ch.size());
+            if (map.getInt() != MAGIC) {
+                return null;
+            }
+            int sw = map.getInt(), sh = map.getInt(), w = map.getInt(), h = map.getInt();
+            if (w <= 0 || h <= 0 || ch.size() != HEADER + 4L * w * h) {
+                return null;
+            }
+            BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            map.asIntBuffer().get(((DataBufferInt) img.getRaster().getDataBuffer()).getData());
+            disk.touch(f);
+            return new Thumbnail(img, sw, sh);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            Debugger.warn("ArtworkThumbnails> Could not read: " + f.getAbsolutePath());
+            return null;
+        }
+    }
+
+    /**
+     * @param key The key of the thumbnail
+     * @param t   The thumbnail
+     */
+    private static void write(String key, Thumbnail t) {
+        BufferedImage img = t.image();
+        int w = img.getWidth(), h = img.getHeight();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + 4 * w * h);
+        buffer.putInt(MAGIC).putInt(t.sourceWidth()).putInt(t.sourceHeight()).putInt(w).putInt(h);
+        IntBuffer pixels = buffer.asIntBuffer();
+        pixels.put(((DataBufferInt) img.getRaster().getDataBuffer()).getData());
+        buffer.rewind();
+        disk.write(key, buffer);
+    }
+
+    /**
+     * Drops the thumbnails in memory, the files are kept.
+     */
+    public static void clear() {
+        memory.invalidateAll();
+    }
+}
@@ -39,12 +39,14 @@
 
 package com.jackmeng.halcyoninae.tailwind;
 
+import com.jackmeng.halcyoninae.cloudspin.lib.AccentColor;
 import com.jackmeng.halcyoninae.cosmos.components.toppane.layout.InfoViewTP;
 import com.jackmeng.halcyoninae.halcyon.Halcyon;
 import com.jackmeng.halcyoninae.halcyon.runtime.constant.Global;
 import com.jackmeng.halcyoninae.halcyon.utils.CLIStyles;
 import com.jackmeng.halcyoninae.halcyon.utils.DeImage;
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.DiskCache;
 import com.jackmeng.halcyoninae.halcyon.utils.TConstr;
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
@@ -52,13 +54,13 @@ import org.jaudiotagger.audio.AudioHeader;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
 import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
-import org.jaudiotagger.audio.mp3.MP3File;
 import org.jaudiotagger.tag.FieldKey;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.TagException;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.*;
 import java.util.Map;
@@ -83,10 +85,12 @@ public class AudioInfo {
             KEY_MEDIA_ARTIST                          = "mAr", KEY_ARTWORK    = "mArt", KEY_TRACK = "mTr";
     static final BufferedImage DEFAULT                = DeImage
             .imageIconToBI(Global.rd.getFromAsImageIcon(InfoViewTP.INFOVIEW_DISK_NO_FILE_LOADED_ICON));
+    private static final String NO_ARTWORK = "";
     private File f;
     private Map<String, String> tags;
     private Tag t;
     private AudioHeader header;
+    private volatile String artworkHash;
 
     /**
      * Constructs the AudioInfo object with the specified file.
@@ -150,6 +154,21 @@ public class AudioInfo {
         defInitTags();
     }
 
+    /**
+     * @param f The file that could not be parsed
+     * @return AudioInfo The default tags with the path and name of the file and
+     *         no duration
+     */
+    static AudioInfo unknown(File f) {
+        AudioInfo info = new AudioInfo();
+        info.f = f;
+        info.tags.put(KEY_ABSOLUTE_FILE_PATH, f.getAbsolutePath());
+        info.tags.put(KEY_FILE_NAME, f.getName());
+        info.tags.put(KEY_MEDIA_TITLE, f.getName());
+        info.tags.remove(KEY_MEDIA_DURATION);
+        return info;
+    }
+
     /**
      * @return BufferedImage
      */
@@ -233,67 +252,109 @@ public class AudioInfo {
         tags.put(KEY_GENRE, checkEmptiness(t.getFirst(FieldKey.GENRE)) ? "Unknown" : t.getFirst(FieldKey.GENRE));
         tags.put(KEY_MEDIA_ARTIST,
                 checkEmptiness(t.getFirst(FieldKey.ARTIST)) ? "Unknown" : t.getFirst(FieldKey.ARTIST));
+        try {
+            tags.put(KEY_TRACK, checkEmptiness(t.getFirst(FieldKey.TRACK)) ? "" : t.getFirst(FieldKey.TRACK));
+        } catch (UnsupportedOperationException e) {
+            tags.put(KEY_TRACK, "");
+        }
     }
 
     /**
      * Returns the artwork of the Audio File, if there isn't any, then it
      * returns the specified default artwork.
+     * <p>
+     * The artwork is decoded from the tag that was already parsed and
+     * shared through {@link AudioInfoCache}, so asking again is free.
      *
      * @return A BufferedImage representing the artwork without any modifications.
      */
     public BufferedImage getArtwork() {
-        BufferedImage img = null;
-        try {
-            if (f.getAbsolutePath().endsWith(".mp3")) {
-                MP3File mp = null;
-                try {
-                    mp = new MP3File(f);
-                } catch (IOException | TagException | ReadOnlyFileException | CannotReadException
-                        | InvalidAudioFrameException e1) {
-                    e1.printStackTrace();
-                }
-                assert mp != null;
-                if (mp.getTag().getFirstArtwork() != null) {
-                    try {
-                        img = (BufferedImage) mp.getTag().getFirstArtwork().getImage();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
+        return f == null ? getDefaultIcon()
+                : AudioInfoCache.artwork(f, x -> decodeArtwork()).orElseGet(AudioInfo::getDefaultIcon);
+    }
+
+    /**
+     * Returns a scaled down copy of the artwork from {@link ArtworkThumbnails},
+     * so that the full artwork is not decoded again.
+     *
+     * @param size The size that is needed, see {@link ArtworkThumbnails#SMALL}
+     *             and {@link ArtworkThumbnails#LARGE}
+     * @return BufferedImage The thumbnail or the default artwork if there is
+     *         no artwork
+     */
+    public BufferedImage getArtwork(int size) {
+        ArtworkThumbnails.Thumbnail thumb = getArtworkThumbnail(size);
+        return thumb == null ? getDefaultIcon() : thumb.image();
+    }
+
+    /**
+     * @param size The size that is needed
+     * @return Thumbnail The thumbnail and the size of the original artwork or
+     *         null if there is no (decodable) artwork
+     */
+    public ArtworkThumbnails.Thumbnail getArtworkThumbnail(int size) {
+        String hash = getArtworkHash();
+        return hash == null ? null
+                : ArtworkThumbnails.get(hash, size, () -> AudioInfoCache.artwork(f, x -> decodeArtwork()).orElse(null));
+    }
+
+    /**
+     * @return boolean (true || false) if the tag has artwork; this does not
+     *         decode it
+     */
+    public boolean hasArtwork() {
+        return getArtworkHash() != null;
+    }
+
+    /**
+     * @return String A hash of the encoded artwork or null if there is none
+     */
+    public String getArtworkHash() {
+        String h = artworkHash;
+        if (h == null) {
+            h = NO_ARTWORK;
+            try {
+                if (f != null && t != null && t.getFirstArtwork() != null
+                        && t.getFirstArtwork().getBinaryData() != null) {
+                    h = Objects.requireNonNullElse(DiskCache.sha1(t.getFirstArtwork().getBinaryData()), NO_ARTWORK);
                 }
+            } catch (UnsupportedOperationException e) {
+                Debugger.warn("AudioInfo> Could not hash the artwork of: " + f.getAbsolutePath());
             }
-            return Objects.requireNonNullElseGet(img, AudioInfo::getDefaultIcon);
-        } catch (NullPointerException e) {
-            return AudioInfo.getDefaultIcon();
+            artworkHash = h;
         }
+        return h.isEmpty() ? null : h;
     }
 
     /**
-     * @return boolean
+     * @return int[][] The palette of the artwork as {r, g, b, population},
+     *         empty if there is no artwork
+     * @see com.jackmeng.halcyoninae.cloudspin.lib.AccentColor#getColorPalette(BufferedImage)
      */
-    public boolean hasArtwork() {
-        BufferedImage img = null;
+    public int[][] getPalette() {
+        return f == null || !hasArtwork() ? new int[0][]
+                : AudioInfoCache.palette(f, x -> AccentColor.getColorPalette(getArtwork(ArtworkThumbnails.SMALL)));
+    }
+
+    /**
+     * @return Color The accent color of the artwork, black if there is no artwork
+     */
+    public Color getAccentColor() {
+        return AccentColor.accentOf(getPalette());
+    }
+
+    /**
+     * @return BufferedImage The first artwork of the tag or null if there is none
+     */
+    private BufferedImage decodeArtwork() {
         try {
-            if (f.getAbsolutePath().endsWith(".mp3")) {
-                MP3File mp = null;
-                try {
-                    mp = new MP3File(f);
-                } catch (IOException | TagException | ReadOnlyFileException | CannotReadException
-                        | InvalidAudioFrameException e1) {
-                    e1.printStackTrace();
-                }
-                assert mp != null;
-                if (mp.getTag().getFirstArtwork() != null) {
-                    try {
-                        img = (BufferedImage) mp.getTag().getFirstArtwork().getImage();
-                    } catch (IOException e) {
-                        e.printStackTrace();
-                    }
-                }
+            if (t != null && t.getFirstArtwork() != null) {
+                return (BufferedImage) t.getFirstArtwork().getImage();
             }
-            return img != null;
-        } catch (NullPointerException e) {
-            return false;
+        } catch (IOException | UnsupportedOperationException | NullPointerException e) {
+            Debugger.warn("AudioInfo> Could not decode the artwork of: " + f.getAbsolutePath());
         }
+        return null;
     }
 
     /**
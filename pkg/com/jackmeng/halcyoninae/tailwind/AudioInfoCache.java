@@ -0,0 +1,181 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
+import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
+import org.jaudiotagger.tag.TagException;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Shares parsed {@link AudioInfo}s and decoded artwork between everything
+ * that looks at the same track, so that opening a track parses its tags
+ * once instead of once per caller.
+ * <p>
+ * Entries are keyed by the path, modification time and size of the file,
+ * so an edited file is parsed again. Tags are kept for the most recently
+ * used files; decoded artwork is softly referenced and bounded by its
+ * size in memory. The color palette of the artwork is kept next to it.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class AudioInfoCache {
+    /**
+     * The amount of parsed files to keep
+     */
+    public static final int MAX_INFOS = 128;
+    /**
+     * The amount of bytes of decoded artwork to keep
+     */
+    public static final long MAX_ARTWORK_BYTES = 64L * 1024L * 1024L;
+
+    private static final Cache<String, AudioInfo> infos = Caffeine.newBuilder()
+            .maximumSize(MAX_INFOS)
+            .build();
+    private static final Cache<String, Optional<BufferedImage>> artwork = Caffeine.newBuilder()
+            .softValues()
+            .maximumWeight(MAX_ARTWORK_BYTES)
+            .weigher((String k, Optional<BufferedImage> v) -> v
+                    .map(x -> (int) Math.min(Integer.MAX_VALUE, (long) x.getWidth() * x.getHeight() * 4L)).orElse(1))
+            .build();
+    private static final Cache<String, int[][]> palettes = Caffeine.newBuilder()
+            .maximumSize(MAX_INFOS)
+            .build();
+
+    private AudioInfoCache() {
+    }
+
+    /**
+     * @param f
+     * @return String The key of the file in its current state
+     */
+    static String key(File f) {
+        return f.getAbsolutePath() + ":" + f.lastModified() + ":" + f.length();
+    }
+
+    /**
+     * The cached counterpart to {@link AudioInfo#AudioInfo(File, boolean)}.
+     *
+     * @param f The audio file
+     * @return AudioInfo The shared info of the file
+     * @throws InvalidAudioFrameException
+     * @throws CannotReadException
+     * @throws IOException
+     * @throws TagException
+     * @throws ReadOnlyFileException
+     */
+    public static AudioInfo read(File f)
+            throws InvalidAudioFrameException, CannotReadException, IOException, TagException, ReadOnlyFileException {
+        String key = key(f);
+        AudioInfo info = infos.getIfPresent(key);
+        if (info == null) {
+            info = new AudioInfo(f, false);
+            infos.put(key, info);
+        }
+        return info;
+    }
+
+    /**
+     * The cached counterpart to {@link AudioInfo#AudioInfo(File)}. A file that
+     * can not be parsed gets the default tags with its path and name and no
+     * duration (it is not cached).
+     *
+     * @param f The audio file
+     * @return AudioInfo The shared info of the file
+     */
+    public static AudioInfo get(File f) {
+        try {
+            return read(f);
+        } catch (Exception e) {
+            Debugger.warn("AudioInfoCache> Could not read tags of: " + f.getAbsolutePath() + "\n"
+                    + e.getLocalizedMessage());
+            return AudioInfo.unknown(f);
+        }
+    }
+
+    /**
+     * @param f      The audio file
+     * @param decode Decodes the artwork of the file, only called on a miss
+     * @return Optional The decoded artwork, empty if the file has none
+     */
+    static Optional<BufferedImage> artwork(File f, Function<File, BufferedImage> decode) {
+        return artwork.get(key(f), k -> Optional.ofNullable(decode.apply(f)));
+    }
+
+    /**
+     * @param f       The audio file
+     * @param extract Finds the palette of the file, only called on a miss
+     * @return int[][] The palette of the artwork of the file
+     */
+    static int[][] palette(File f, Function<File, int[][]> extract) {
+        return palettes.get(key(f), k -> extract.apply(f));
+    }
+
+    /**
+     * Drops everything that is cached for the file.
+     *
+     * @param f The audio file
+     */
+    public static void invalidate(File f) {
+        String key = key(f);
+        infos.invalidate(key);
+        artwork.invalidate(key);
+        palettes.invalidate(key);
+    }
+
+    /**
+     * Drops everything.
+     */
+    public static void clear() {
+        infos.invalidateAll();
+        artwork.invalidateAll();
+        palettes.invalidateAll();
+    }
+}
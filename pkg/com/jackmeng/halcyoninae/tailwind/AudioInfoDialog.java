@@ -119,7 +119,7 @@ public class AudioInfoDialog extends JFrame implements Runnable {
         saveArtwork.addActionListener(x -> AudioInfo.extractArtwork(info));
 
         img = CloudSpin.resizeToFitViewport(new Dimension(AUDIOINFO_ARTWORK_PANE_WIDTH, AUDIOINFO_MIN_HEIGHT),
-                info.getArtwork());
+                info.getArtwork(ArtworkThumbnails.LARGE));
 
         img.setAccelerationPriority(0.9F);
 
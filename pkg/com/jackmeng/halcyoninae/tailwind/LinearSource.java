@@ -0,0 +1,136 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * The fallback source for anything that none of the container
+ * aware sources accept.
+ * <p>
+ * Seeking reopens the file and decodes everything before the target,
+ * which is what Tailwind always did before.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class LinearSource implements TailwindSource {
+    private final File file;
+    private final AudioFormat format;
+    private AudioInputStream ais;
+
+    /**
+     * @param f The file to open
+     * @throws IOException If no stream could be made for the file
+     */
+    public LinearSource(File f) throws IOException {
+        this.file = f;
+        this.ais = reopen();
+        this.format = ais.getFormat();
+    }
+
+    /**
+     * @return AudioInputStream
+     * @throws IOException
+     */
+    private AudioInputStream reopen() throws IOException {
+        AudioInputStream s = TailwindHelper.getAudioIS(file.toURI().toURL());
+        if (s == null) {
+            throw new IOException("Could not open a stream for: " + file.getAbsolutePath());
+        }
+        return s;
+    }
+
+    /**
+     * @return AudioInputStream
+     */
+    @Override
+    public AudioInputStream getStream() {
+        return ais;
+    }
+
+    /**
+     * @return AudioFormat
+     */
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return long
+     */
+    @Override
+    public long getFrameLength() {
+        return ais.getFrameLength();
+    }
+
+    /**
+     * @return boolean
+     */
+    @Override
+    public boolean isSeekable() {
+        return false;
+    }
+
+    /**
+     * @param frame
+     * @return AudioInputStream
+     * @throws IOException
+     */
+    @Override
+    public AudioInputStream seek(long frame) throws IOException {
+        ais.close();
+        ais = reopen();
+        TailwindSource.discard(ais, Math.max(0L, frame) * Math.max(1, format.getFrameSize()));
+        return ais;
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        ais.close();
+    }
+}
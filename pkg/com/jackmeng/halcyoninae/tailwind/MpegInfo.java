@@ -0,0 +1,521 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads the structure of an MPEG audio file without decoding it:
+ * where the first audio frame is, the Xing/Info or VBRI header
+ * (with the LAME encoder delay and padding if present) and an
+ * index of where every audio frame starts.
+ * <p>
+ * The frame index is only built when it is first needed by
+ * scanning a memory mapped view of the file, which only looks at
+ * the 4 byte header of every frame. If the file is too large to be mapped
+ * the Xing TOC is used as an approximation instead.
+ * <p>
+ * For gapless playback the amount of PCM frames that the encoder
+ * added before and after the actual audio is read from the LAME tag or,
+ * for files made by iTunes, from the {@code iTunSMPB} comment.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class MpegInfo {
+    /**
+     * The delay of the MP3 decoder itself, which the LAME tag does not include
+     */
+    public static final int DECODER_DELAY = 529;
+    private static final int[][] BITRATES = {
+            // V1 L1, V1 L2, V1 L3
+            { 0, 32, 64, 96, 128, 160, 192, 224, 256, 288, 320, 352, 384, 416, 448 },
+            { 0, 32, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320, 384 },
+            { 0, 32, 40, 48, 56, 64, 80, 96, 112, 128, 160, 192, 224, 256, 320 },
+            // V2 L1, V2 L2 & L3
+            { 0, 32, 48, 56, 64, 80, 96, 112, 128, 144, 160, 176, 192, 224, 256 },
+            { 0, 8, 16, 24, 32, 40, 48, 56, 64, 80, 96, 112, 128, 144, 160 } };
+    private static final int[][] SAMPLE_RATES = {
+            { 11025, 12000, 8000 }, // V2.5
+            null,
+            { 22050, 24000, 16000 }, // V2
+            { 44100, 48000, 32000 } }; // V1
+
+    private final File file;
+    private final long fileLength;
+    private long firstFrame = -1L, audioBytes;
+    private int sampleRate, channels, samplesPerFrame, bitrate, xingFrames = -1, encoderDelay, encoderPadding,
+            leadingTrim, trailingTrim;
+    private byte[] toc;
+    private int[] index;
+
+    /**
+     * @param f The MPEG file to read
+     * @throws IOException If the file could not be read or no audio frame was found
+     */
+    public MpegInfo(File f) throws IOException {
+        this.file = f;
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            this.fileLength = raf.length();
+            byte[] head = new byte[(int) Math.min(fileLength, 1 << 16)];
+            long start = skipID3(raf);
+            raf.seek(start);
+            while (firstFrame < 0 && raf.getFilePointer() < fileLength) {
+                long base = raf.getFilePointer();
+                int n = raf.read(head, 0, (int) Math.min(head.length, fileLength - base));
+                if (n < 4) {
+                    break;
+                }
+                for (int i = 0; i + 4 <= n; i++) {
+                    int h = header(head, i);
+                    int len = frameLength(h);
+                    if (len > 0 && verify(raf, base + i + len, h)) {
+                        firstFrame = base + i;
+                        readHeader(raf, h);
+                        break;
+                    }
+                }
+                if (firstFrame < 0) {
+                    raf.seek(base + n - 3);
+                }
+            }
+        }
+        if (firstFrame < 0) {
+            throw new IOException("No MPEG audio frame found in: " + f.getAbsolutePath());
+        }
+        if (encoderDelay > 0 || encoderPadding > 0) {
+            leadingTrim = encoderDelay + DECODER_DELAY;
+            trailingTrim = Math.max(0, encoderPadding - DECODER_DELAY);
+        } else {
+            readITunSMPB(f);
+        }
+    }
+
+    /**
+     * Looks for an {@code iTunSMPB} comment in the ID3v2 tag at the start of
+     * the file. The value is a list of hex numbers where the second and third
+     * are the leading and trailing frames to drop (decoder delay included).
+     * <p>
+     * Zero bytes are dropped before matching so that both ISO-8859-1 and
+     * UTF-16 encoded frames are found.
+     *
+     * @param f The file
+     */
+    private void readITunSMPB(File f) {
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            long tagEnd = skipID3(raf);
+            byte[] chunk = new byte[8192];
+            StringBuilder sb = new StringBuilder();
+            raf.seek(0L);
+            long read = 0L;
+            while (read < tagEnd) {
+                int n = raf.read(chunk, 0, (int) Math.min(chunk.length, tagEnd - read));
+                if (n <= 0) {
+                    break;
+                }
+                read += n;
+                for (int i = 0; i < n; i++) {
+                    if (chunk[i] != 0) {
+                        sb.append((char) (chunk[i] & 0xFF));
+                    }
+                }
+                int at = sb.indexOf("iTunSMPB");
+                if (at >= 0 && sb.length() - at > 128) {
+                    break;
+                }
+                if (at < 0 && sb.length() > 16) {
+                    sb.delete(0, sb.length() - 16);
+                }
+            }
+            int at = sb.indexOf("iTunSMPB");
+            if (at < 0) {
+                return;
+            }
+            long[] values = new long[3];
+            int count = 0, i = at + 8;
+            while (count < values.length && i < sb.length()) {
+                while (i < sb.length() && Character.digit(sb.charAt(i), 16) < 0) {
+                    i++;
+                }
+                int begin = i;
+                while (i < sb.length() && Character.digit(sb.charAt(i), 16) >= 0) {
+                    i++;
+                }
+                if (i - begin == 0 || i - begin > 16) {
+                    return;
+                }
+                values[count++] = Long.parseUnsignedLong(sb.substring(begin, i), 16);
+            }
+            if (count == values.length) {
+                leadingTrim = (int) values[1];
+                trailingTrim = (int) values[2];
+            }
+        } catch (IOException | NumberFormatException e) {
+            // IGNORED, no gapless information
+        }
+    }
+
+    /**
+     * @param raf
+     * @return long The offset right after any ID3v2 tag
+     * @throws IOException
+     */
+    private static long skipID3(RandomAccessFile raf) throws IOException {
+        long offset = 0L;
+        byte[] b = new byte[10];
+        while (true) {
+            raf.seek(offset);
+            if (raf.read(b) < 10 || b[0] != 'I' || b[1] != 'D' || b[2] != '3') {
+                return offset;
+            }
+            int size = (b[6] & 0x7F) << 21 | (b[7] & 0x7F) << 14 | (b[8] & 0x7F) << 7 | (b[9] & 0x7F);
+            offset += 10 + size + ((b[5] & 0x10) != 0 ? 10 : 0);
+        }
+    }
+
+    /**
+     * @param b
+     * @param i
+     * @return int
+     */
+    private static int header(byte[] b, int i) {
+        return (b[i] & 0xFF) << 24 | (b[i + 1] & 0xFF) << 16 | (b[i + 2] & 0xFF) << 8 | (b[i + 3] & 0xFF);
+    }
+
+    /**
+     * @param h The 4 byte frame header
+     * @return int The length of the frame in bytes or -1 if the header is not valid
+     */
+    public static int frameLength(int h) {
+        if ((h & 0xFFE00000) != 0xFFE00000) {
+            return -1;
+        }
+        int version = (h >>> 19) & 3, layer = (h >>> 17) & 3, bitrate = (h >>> 12) & 0xF,
+                rate = (h >>> 10) & 3, padding = (h >>> 9) & 1;
+        if (version == 1 || layer == 0 || bitrate == 0 || bitrate == 15 || rate == 3) {
+            return -1;
+        }
+        int kbps = BITRATES[version == 3 ? 3 - layer : (layer == 3 ? 3 : 4)][bitrate];
+        int sr = SAMPLE_RATES[version][rate];
+        if (layer == 3) {
+            return (12 * kbps * 1000 / sr + padding) * 4;
+        }
+        return (layer == 1 && version != 3 ? 72 : 144) * kbps * 1000 / sr + padding;
+    }
+
+    /**
+     * @param h The 4 byte frame header
+     * @return int The bitrate of the frame in kbps or -1 if the header is not valid
+     */
+    public static int bitrate(int h) {
+        if (frameLength(h) < 0) {
+            return -1;
+        }
+        int version = (h >>> 19) & 3, layer = (h >>> 17) & 3;
+        return BITRATES[version == 3 ? 3 - layer : (layer == 3 ? 3 : 4)][(h >>> 12) & 0xF];
+    }
+
+    /**
+     * @param h The 4 byte frame header
+     * @return int The amount of PCM frames one MPEG frame decodes to
+     */
+    public static int samplesPerFrame(int h) {
+        int version = (h >>> 19) & 3, layer = (h >>> 17) & 3;
+        return layer == 3 ? 384 : (layer == 2 || version == 3 ? 1152 : 576);
+    }
+
+    /**
+     * Checks that another frame with the same version, layer and
+     * sample rate follows, to not be fooled by sync words in the data.
+     *
+     * @param raf
+     * @param next
+     * @param h
+     * @return boolean
+     * @throws IOException
+     */
+    private boolean verify(RandomAccessFile raf, long next, int h) throws IOException {
+        if (next + 4 > fileLength) {
+            return next == fileLength;
+        }
+        long pointer = raf.getFilePointer();
+        raf.seek(next);
+        int n = raf.readInt();
+        raf.seek(pointer);
+        return frameLength(n) > 0 && (n & 0xFFFE0C00) == (h & 0xFFFE0C00);
+    }
+
+    /**
+     * Reads the format of the first frame and any Xing/Info/VBRI header in it.
+     *
+     * @param raf
+     * @param h
+     * @throws IOException
+     */
+    private void readHeader(RandomAccessFile raf, int h) throws IOException {
+        int version = (h >>> 19) & 3;
+        boolean mono = ((h >>> 6) & 3) == 3;
+        this.sampleRate = SAMPLE_RATES[version][(h >>> 10) & 3];
+        this.channels = mono ? 1 : 2;
+        this.samplesPerFrame = samplesPerFrame(h);
+        this.bitrate = bitrate(h);
+        this.audioBytes = fileLength - firstFrame;
+
+        int len = frameLength(h);
+        byte[] frame = new byte[(int) Math.min(len, fileLength - firstFrame)];
+        raf.seek(firstFrame);
+        raf.readFully(frame);
+        int xing = 4 + (version == 3 ? (mono ? 17 : 32) : (mono ? 9 : 17));
+        if (frame.length >= xing + 8 && (tag(frame, xing, "Xing") || tag(frame, xing, "Info"))) {
+            int flags = header(frame, xing + 4), i = xing + 8;
+            if ((flags & 1) != 0 && i + 4 <= frame.length) {
+                xingFrames = header(frame, i);
+                i += 4;
+            }
+            if ((flags & 2) != 0 && i + 4 <= frame.length) {
+                audioBytes = header(frame, i) & 0xFFFFFFFFL;
+                i += 4;
+            }
+            if ((flags & 4) != 0 && i + 100 <= frame.length) {
+                toc = new byte[100];
+                System.arraycopy(frame, i, toc, 0, 100);
+                i += 100;
+            }
+            if ((flags & 8) != 0) {
+                i += 4;
+            }
+            // LAME extension
+            if (i + 24 <= frame.length) {
+                encoderDelay = (frame[i + 21] & 0xFF) << 4 | (frame[i + 22] & 0xFF) >>> 4;
+                encoderPadding = (frame[i + 22] & 0x0F) << 8 | (frame[i + 23] & 0xFF);
+            }
+            // the Xing frame itself carries no audio
+            firstFrame += len;
+            audioBytes = Math.min(audioBytes, fileLength - firstFrame);
+        } else if (frame.length >= 36 + 18 && tag(frame, 36, "VBRI")) {
+            audioBytes = header(frame, 36 + 10) & 0xFFFFFFFFL;
+            xingFrames = header(frame, 36 + 14);
+            encoderDelay = (frame[36 + 6] & 0xFF) << 8 | (frame[36 + 7] & 0xFF);
+            firstFrame += len;
+        }
+    }
+
+    /**
+     * @param b
+     * @param i
+     * @param tag
+     * @return boolean
+     */
+    private static boolean tag(byte[] b, int i, String tag) {
+        for (int j = 0; j < 4; j++) {
+            if (b[i + j] != tag.charAt(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the frame index if it has not been built yet.
+     *
+     * @return int[] The offset of every audio frame or null if the file could not
+     *         be mapped
+     */
+    public synchronized int[] getIndex() {
+        if (index == null && fileLength < Integer.MAX_VALUE) {
+            try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+                    FileChannel ch = raf.getChannel()) {
+                MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0L, fileLength);
+                int[] offsets = new int[xingFrames > 0 ? xingFrames + 1 : (int) (audioBytes / 100L) + 16];
+                int count = 0, pos = (int) firstFrame;
+                int ref = map.getInt(pos) & 0xFFFE0C00;
+                while (pos + 4 <= fileLength) {
+                    int h = map.getInt(pos);
+                    int len = frameLength(h);
+                    if (len <= 0 || (h & 0xFFFE0C00) != ref) {
+                        break; // trailing tags or garbage
+                    }
+                    if (count == offsets.length) {
+                        int[] grown = new int[offsets.length + (offsets.length >> 1) + 16];
+                        System.arraycopy(offsets, 0, grown, 0, count);
+                        offsets = grown;
+                    }
+                    offsets[count++] = pos;
+                    pos += len;
+                }
+                index = new int[count];
+                System.arraycopy(offsets, 0, index, 0, count);
+            } catch (IOException e) {
+                index = null;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * @param frame The MPEG frame number
+     * @return long The byte offset of the frame
+     */
+    public long offsetOf(int frame) {
+        int[] idx = getIndex();
+        if (idx != null && idx.length > 0) {
+            return idx[Math.max(0, Math.min(frame, idx.length - 1))];
+        }
+        int total = getFrameCount();
+        if (total <= 0) {
+            return firstFrame;
+        }
+        double percent = Math.max(0D, Math.min(99.999D, 100D * frame / total));
+        if (toc == null) {
+            return firstFrame + (long) (audioBytes * percent / 100D);
+        }
+        int a = (int) percent;
+        double fa = toc[a] & 0xFF, fb = a < 99 ? toc[a + 1] & 0xFF : 256D;
+        double fx = fa + (fb - fa) * (percent - a);
+        return firstFrame + (long) (audioBytes * fx / 256D);
+    }
+
+    /**
+     * @return int The amount of audio frames, from the index if there is one
+     */
+    public int getFrameCount() {
+        int[] idx = getIndex();
+        return idx != null ? idx.length : xingFrames;
+    }
+
+    /**
+     * @return long The amount of PCM frames without any gapless trimming or -1
+     */
+    public long getPCMLength() {
+        int frames = getFrameCount();
+        return frames > 0 ? (long) frames * samplesPerFrame : -1L;
+    }
+
+    /**
+     * The length without building the frame index: exact from the
+     * Xing/VBRI header if there is one, otherwise estimated from the size of
+     * the audio data and the bitrate of the first frame (exact for CBR files).
+     *
+     * @return long The amount of PCM frames without any gapless trimming or -1
+     */
+    public long estimatePCMLength() {
+        if (xingFrames > 0) {
+            return (long) xingFrames * samplesPerFrame;
+        }
+        if (bitrate <= 0 || audioBytes <= 0) {
+            return -1L;
+        }
+        return (long) (audioBytes * 8D / (bitrate * 1000D) * sampleRate);
+    }
+
+    /**
+     * @return long The offset of the first frame holding audio
+     */
+    public long getFirstFrame() {
+        return firstFrame;
+    }
+
+    /**
+     * @return int
+     */
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * @return int
+     */
+    public int getChannels() {
+        return channels;
+    }
+
+    /**
+     * @return int
+     */
+    public int getSamplesPerFrame() {
+        return samplesPerFrame;
+    }
+
+    /**
+     * @return int The amount of frames from the Xing/VBRI header or -1
+     */
+    public int getHeaderFrames() {
+        return xingFrames;
+    }
+
+    /**
+     * @return int The encoder delay in PCM frames as written by LAME
+     */
+    public int getEncoderDelay() {
+        return encoderDelay;
+    }
+
+    /**
+     * @return int The encoder padding in PCM frames as written by LAME
+     */
+    public int getEncoderPadding() {
+        return encoderPadding;
+    }
+
+    /**
+     * @return int The PCM frames to drop at the start for gapless playback
+     */
+    public int getLeadingTrim() {
+        return leadingTrim;
+    }
+
+    /**
+     * @return int The PCM frames to drop at the end for gapless playback
+     */
+    public int getTrailingTrim() {
+        return trailingTrim;
+    }
+
+    /**
+     * @return boolean If the first frame was a Xing/Info/VBRI frame
+     */
+    public boolean hasVBRHeader() {
+        return xingFrames >= 0;
+    }
+}
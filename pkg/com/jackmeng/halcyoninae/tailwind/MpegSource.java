@@ -0,0 +1,189 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * A seekable source for MPEG audio (MP3).
+ * <p>
+ * A seek jumps straight to the byte offset of the MPEG frame that holds the
+ * target using {@link MpegInfo}, starts a new decoder there and only decodes
+ * the couple of frames that are needed to fill the bit reservoir plus the
+ * remainder within the frame.
+ * <p>
+ * The encoder delay and padding reported by {@link MpegInfo} are
+ * cut off, so frame 0 of this source is the first real sample and the stream
+ * ends on the last one.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class MpegSource implements TailwindSource {
+    /**
+     * How many frames are decoded before the target frame
+     * so that the bit reservoir of Layer III is filled.
+     */
+    public static final int PRIMING_FRAMES = 2;
+    private final File file;
+    private final MpegInfo info;
+    private AudioFormat format;
+    private SeekableFileStream in;
+    private AudioInputStream ais;
+
+    /**
+     * @param f The MPEG file to open
+     * @throws IOException                   If the file could not be read
+     * @throws UnsupportedAudioFileException If the MPEG provider does not accept the file
+     */
+    public MpegSource(File f) throws IOException, UnsupportedAudioFileException {
+        this.file = f;
+        this.info = new MpegInfo(f);
+        this.ais = seek(0L);
+    }
+
+    /**
+     * Opens a decoder starting at the given byte offset.
+     *
+     * @param offset The offset of an MPEG frame
+     * @return AudioInputStream The decoded PCM stream
+     * @throws IOException
+     * @throws UnsupportedAudioFileException
+     */
+    private AudioInputStream open(long offset) throws IOException, UnsupportedAudioFileException {
+        if (in != null) {
+            in.close();
+        }
+        in = new SeekableFileStream(file);
+        in.position(offset);
+        AudioInputStream base = AudioSystem.getAudioInputStream(in);
+        AudioFormat bf = base.getFormat();
+        if (format == null) {
+            format = new AudioFormat(
+                    AudioFormat.Encoding.PCM_SIGNED,
+                    bf.getSampleRate(),
+                    16,
+                    bf.getChannels(),
+                    bf.getChannels() * 2,
+                    bf.getSampleRate(),
+                    false);
+        }
+        return AudioSystem.getAudioInputStream(format, base);
+    }
+
+    /**
+     * @return MpegInfo The structure of the file
+     */
+    public MpegInfo getInfo() {
+        return info;
+    }
+
+    /**
+     * @return AudioInputStream
+     */
+    @Override
+    public AudioInputStream getStream() {
+        return ais;
+    }
+
+    /**
+     * @return AudioFormat
+     */
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return long
+     */
+    @Override
+    public long getFrameLength() {
+        long raw = info.getPCMLength();
+        return raw < 0 ? -1L : Math.max(0L, raw - info.getLeadingTrim() - info.getTrailingTrim());
+    }
+
+    /**
+     * @return boolean
+     */
+    @Override
+    public boolean isSeekable() {
+        return info.getFrameCount() > 0;
+    }
+
+    /**
+     * @param frame
+     * @return AudioInputStream
+     * @throws IOException
+     */
+    @Override
+    public AudioInputStream seek(long frame) throws IOException {
+        long length = getFrameLength();
+        frame = Math.max(0L, length >= 0 ? Math.min(frame, length) : frame);
+        long raw = frame + info.getLeadingTrim();
+        int spf = info.getSamplesPerFrame();
+        int start = (int) Math.max(0L, raw / spf - PRIMING_FRAMES);
+        AudioInputStream decoded;
+        try {
+            decoded = open(info.offsetOf(start));
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException(e);
+        }
+        TailwindSource.discard(decoded, (raw - (long) start * spf) * format.getFrameSize());
+        // stops reading right before the padding
+        ais = new AudioInputStream(decoded, format, length >= 0 ? length - frame : AudioSystem.NOT_SPECIFIED);
+        return ais;
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import de.jarnbjo.ogg.EndOfOggStreamException;
+import de.jarnbjo.ogg.LogicalOggStream;
+import de.jarnbjo.ogg.OggFormatException;
+import de.jarnbjo.ogg.OggPage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+/**
+ * A {@link LogicalOggStream} that reads pages straight from a
+ * {@link RandomAccessFile} instead of indexing every page of the
+ * file up front like {@link de.jarnbjo.ogg.FileStream} does.
+ * <p>
+ * Seeking ({@link #setTime(long)}) bisects the file on the
+ * granule positions of the pages, so only a handful of pages are
+ * ever touched no matter how long the file is.
+ * <p>
+ * Only the first logical stream of the file is read.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class OggLogicalStream implements LogicalOggStream {
+    /**
+     * The maximum size of an Ogg page (header + 255 lacing values + data)
+     */
+    public static final int MAX_PAGE_SIZE = 27 + 255 + 255 * 255;
+    /**
+     * How much is read at once while looking for a capture pattern
+     */
+    public static final int PROBE_CHUNK = 8192;
+    private final RandomAccessFile raf;
+    private final int serial;
+    private final String format;
+    private final byte[] probe;
+    private OggPage current;
+    private int segment;
+    private boolean open, dropContinued;
+    private long lastGranule, maxGranule = Long.MIN_VALUE;
+
+    /**
+     * @param f The Ogg file to read
+     * @throws IOException If the file is not a valid Ogg stream
+     */
+    public OggLogicalStream(File f) throws IOException {
+        this.raf = new RandomAccessFile(f, "r");
+        this.probe = new byte[MAX_PAGE_SIZE + 4];
+        try {
+            OggPage first = OggPage.create(raf);
+            if (first == null) {
+                throw new OggFormatException("Empty Ogg stream: " + f.getAbsolutePath());
+            }
+            this.serial = first.getStreamSerialNumber();
+            this.format = checkFormat(first.getData());
+            raf.seek(0L);
+        } catch (IOException e) {
+            raf.close();
+            throw e;
+        }
+        this.open = true;
+    }
+
+    /**
+     * Mirrors the detection of {@link de.jarnbjo.ogg.LogicalOggStreamImpl}
+     *
+     * @param data The data of the first page
+     * @return String The format constant
+     */
+    private static String checkFormat(byte[] data) {
+        if (data.length >= 7 && data[1] == 'v' && data[2] == 'o' && data[3] == 'r' && data[4] == 'b'
+                && data[5] == 'i' && data[6] == 's') {
+            return FORMAT_VORBIS;
+        } else if (data.length >= 7 && data[1] == 't' && data[2] == 'h' && data[3] == 'e' && data[4] == 'o'
+                && data[5] == 'r' && data[6] == 'a') {
+            return FORMAT_THEORA;
+        } else if (data.length == 4 && data[0] == 'f' && data[1] == 'L' && data[2] == 'a' && data[3] == 'C') {
+            return FORMAT_FLAC;
+        }
+        return FORMAT_UNKNOWN;
+    }
+
+    /**
+     * @return OggPage
+     * @throws IOException
+     */
+    @Override
+    public synchronized OggPage getNextOggPage() throws IOException {
+        OggPage p;
+        do {
+            p = OggPage.create(raf);
+            if (p == null) {
+                throw new EndOfOggStreamException();
+            }
+        } while (p.getStreamSerialNumber() != serial);
+        if (p.getAbsoluteGranulePosition() != -1L) {
+            lastGranule = p.getAbsoluteGranulePosition();
+        }
+        return p;
+    }
+
+    /**
+     * @return byte[]
+     * @throws IOException
+     */
+    @Override
+    public synchronized byte[] getNextOggPacket() throws IOException {
+        ByteArrayOutputStream packet = new ByteArrayOutputStream();
+        while (true) {
+            if (current == null || segment >= current.getSegmentLengths().length) {
+                if (current != null && current.isEos()) {
+                    throw new EndOfOggStreamException();
+                }
+                current = getNextOggPage();
+                segment = 0;
+                if (dropContinued) {
+                    // the tail end of a packet that started before the seek point
+                    int[] lengths = current.getSegmentLengths();
+                    int last = 255;
+                    if (current.isContinued()) {
+                        while (segment < lengths.length) {
+                            last = lengths[segment++];
+                            if (last != 255) {
+                                break;
+                            }
+                        }
+                    }
+                    dropContinued = current.isContinued() && last == 255;
+                    continue;
+                }
+            }
+            int len = current.getSegmentLengths()[segment];
+            packet.write(current.getData(), current.getSegmentOffsets()[segment], len);
+            segment++;
+            if (len != 255) {
+                return packet.toByteArray();
+            }
+        }
+    }
+
+    /**
+     * @return boolean
+     */
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        open = false;
+        raf.close();
+    }
+
+    /**
+     * Moves back to the beginning of the file, which is where
+     * the codec headers are.
+     *
+     * @throws IOException
+     */
+    @Override
+    public synchronized void reset() throws IOException {
+        raf.seek(0L);
+        current = null;
+        segment = 0;
+        lastGranule = 0L;
+        dropContinued = false;
+    }
+
+    /**
+     * Reads the granule position of the last page of the stream by
+     * looking at the tail end of the file only.
+     *
+     * @return long The last granule position or -1 if none was found
+     */
+    @Override
+    public synchronized long getMaximumGranulePosition() {
+        if (maxGranule == Long.MIN_VALUE) {
+            maxGranule = -1L;
+            try {
+                long pointer = raf.getFilePointer();
+                long end = raf.length();
+                while (end > 0 && maxGranule == -1L) {
+                    long start = Math.max(0L, end - probe.length);
+                    int n = (int) (end - start);
+                    raf.seek(start);
+                    raf.readFully(probe, 0, n);
+                    for (int i = n - 27; i >= 0; i--) {
+                        if (isCapture(probe, i) && readSerial(probe, i) == serial && readGranule(probe, i) != -1L) {
+                            maxGranule = readGranule(probe, i);
+                            break;
+                        }
+                    }
+                    // keep an overlap so a header across the border is not missed
+                    end = start == 0 ? 0 : start + 27;
+                }
+                raf.seek(pointer);
+            } catch (IOException e) {
+                maxGranule = -1L;
+            }
+        }
+        return maxGranule;
+    }
+
+    /**
+     * @return long The granule position of the last page read
+     */
+    @Override
+    public synchronized long getTime() {
+        return lastGranule;
+    }
+
+    /**
+     * Positions the stream so that the next packet returned is the first
+     * one starting after the last page that ends before the given
+     * granule position.
+     * <p>
+     * The exact landing granule is available through {@link #getTime()}
+     * afterwards so the caller can discard the difference.
+     *
+     * @param granule The target granule position (sample number)
+     * @throws IOException If the file could not be read
+     */
+    @Override
+    public synchronized void setTime(long granule) throws IOException {
+        long lo = 0L, hi = raf.length(), landedOffset = -1L, landedGranule = 0L;
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            long[] page = findPage(mid, hi);
+            if (page == null) {
+                hi = mid;
+            } else if (page[1] <= granule) {
+                landedOffset = page[0];
+                landedGranule = page[1];
+                lo = page[0] + 27;
+            } else {
+                hi = mid;
+            }
+        }
+        current = null;
+        segment = 0;
+        if (landedOffset < 0) {
+            // target is before the first audio page, replay from the start of the audio
+            raf.seek(0L);
+            lastGranule = 0L;
+            dropContinued = false;
+            skipHeaders();
+        } else {
+            raf.seek(landedOffset);
+            OggPage p = OggPage.create(raf);
+            lastGranule = landedGranule;
+            dropContinued = p != null && p.getSegmentLengths().length > 0
+                    && p.getSegmentLengths()[p.getSegmentLengths().length - 1] == 255;
+        }
+    }
+
+    /**
+     * Skips every page with a granule position of 0, which are the
+     * pages that hold the codec headers.
+     *
+     * @throws IOException
+     */
+    private void skipHeaders() throws IOException {
+        long offset;
+        OggPage p;
+        do {
+            offset = raf.getFilePointer();
+            p = OggPage.create(raf);
+        } while (p != null && p.getAbsoluteGranulePosition() == 0L);
+        raf.seek(offset);
+    }
+
+    /**
+     * Finds the first page of this logical stream that starts between the given
+     * offsets and carries a granule position.
+     *
+     * @param from The offset to start looking at
+     * @param to   The offset at which to stop looking
+     * @return long[] {offset, granule} or null if there is none
+     * @throws IOException
+     */
+    private long[] findPage(long from, long to) throws IOException {
+        while (from < to) {
+            int n = (int) Math.min(Math.min(PROBE_CHUNK, raf.length() - from), to - from + 27);
+            if (n < 27) {
+                return null;
+            }
+            raf.seek(from);
+            raf.readFully(probe, 0, n);
+            for (int i = 0; i + 27 <= n && from + i < to; i++) {
+                if (isCapture(probe, i) && readSerial(probe, i) == serial && readGranule(probe, i) > 0L) {
+                    return new long[] { from + i, readGranule(probe, i) };
+                }
+            }
+            from += n - 26;
+        }
+        return null;
+    }
+
+    /**
+     * @param b
+     * @param i
+     * @return boolean
+     */
+    private static boolean isCapture(byte[] b, int i) {
+        return b[i] == 'O' && b[i + 1] == 'g' && b[i + 2] == 'g' && b[i + 3] == 'S' && b[i + 4] == 0;
+    }
+
+    /**
+     * @param b
+     * @param i
+     * @return long
+     */
+    private static long readGranule(byte[] b, int i) {
+        long g = 0L;
+        for (int j = 13; j >= 6; j--) {
+            g = (g << 8) | (b[i + j] & 0xFFL);
+        }
+        return g;
+    }
+
+    /**
+     * @param b
+     * @param i
+     * @return int
+     */
+    private static int readSerial(byte[] b, int i) {
+        return (b[i + 14] & 0xFF) | (b[i + 15] & 0xFF) << 8 | (b[i + 16] & 0xFF) << 16 | (b[i + 17] & 0xFF) << 24;
+    }
+
+    /**
+     * @return String
+     */
+    @Override
+    public String getFormat() {
+        return format;
+    }
+}
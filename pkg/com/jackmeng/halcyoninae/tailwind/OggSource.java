@@ -0,0 +1,166 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import de.jarnbjo.flac.FlacStream;
+import de.jarnbjo.ogg.LogicalOggStream;
+import de.jarnbjo.vorbis.VorbisStream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A seekable source for Vorbis and FLAC streams inside of
+ * an Ogg container.
+ * <p>
+ * Seeking rebuilds the codec from the headers at the start of the
+ * file and then bisects the file on the granule positions of the pages
+ * (see {@link OggLogicalStream#setTime(long)}). Whatever is left between
+ * the landed page and the target is decoded and thrown away, which is at
+ * most a single page.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class OggSource implements TailwindSource {
+    private final OggLogicalStream stream;
+    private final AudioFormat format;
+    private final long frameLength;
+    private AudioInputStream ais;
+
+    /**
+     * @param f The Ogg file to open
+     * @throws IOException If the file is not a Vorbis or FLAC Ogg stream
+     */
+    public OggSource(File f) throws IOException {
+        this.stream = new OggLogicalStream(f);
+        if (!stream.getFormat().equals(LogicalOggStream.FORMAT_VORBIS)
+                && !stream.getFormat().equals(LogicalOggStream.FORMAT_FLAC)) {
+            stream.close();
+            throw new IOException("Unsupported Ogg stream format: " + stream.getFormat());
+        }
+        this.ais = decode();
+        this.format = ais.getFormat();
+        this.frameLength = stream.getMaximumGranulePosition();
+    }
+
+    /**
+     * Builds a new codec over the logical stream. This
+     * expects the logical stream to be at the very start of the file.
+     *
+     * @return AudioInputStream
+     * @throws IOException
+     */
+    private AudioInputStream decode() throws IOException {
+        InputStream in;
+        AudioFormat fmt;
+        if (stream.getFormat().equals(LogicalOggStream.FORMAT_VORBIS)) {
+            VorbisIn v = new VorbisIn(new VorbisStream(stream));
+            in = v;
+            fmt = v.getFormat();
+        } else {
+            FlacIn v = new FlacIn(new FlacStream(stream));
+            in = v;
+            fmt = v.getFormat();
+        }
+        return new AudioInputStream(in, fmt, AudioSystem.NOT_SPECIFIED);
+    }
+
+    /**
+     * @return AudioInputStream
+     */
+    @Override
+    public AudioInputStream getStream() {
+        return ais;
+    }
+
+    /**
+     * @return AudioFormat
+     */
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return long
+     */
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * @return boolean
+     */
+    @Override
+    public boolean isSeekable() {
+        return true;
+    }
+
+    /**
+     * @param frame
+     * @return AudioInputStream
+     * @throws IOException
+     */
+    @Override
+    public AudioInputStream seek(long frame) throws IOException {
+        frame = Math.max(0L, frameLength >= 0 ? Math.min(frame, frameLength) : frame);
+        stream.reset();
+        ais = decode();
+        if (frame > 0) {
+            stream.setTime(frame);
+            TailwindSource.discard(ais, Math.max(0L, frame - stream.getTime()) * format.getFrameSize());
+        }
+        return ais;
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A single producer, single consumer ring of preallocated PCM chunks
+ * that sits between the decoder and the render stage of the pipeline.
+ * <p>
+ * The producer {@link #claim()}s a free slot, fills it and {@link #publish(int, int)}es
+ * it; the consumer {@link #poll(long)}s the oldest published slot, writes it
+ * out and {@link #release()}s it. Neither side ever takes a lock, they only
+ * wait (park) when the ring is full or empty.
+ * <p>
+ * Every published chunk carries a generation number, which lets the
+ * consumer drop chunks that were decoded before a seek without the producer
+ * and consumer having to agree on clearing the ring.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class PCMRingBuffer {
+    /**
+     * The length published to mark the end of a stream
+     */
+    public static final int END_OF_STREAM = -1;
+    /**
+     * The length published to mark that the following chunks
+     * belong to the next track
+     */
+    public static final int TRACK_BOUNDARY = -2;
+    private final byte[][] slots;
+    private final int[] lengths, generations;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(), tail = new AtomicLong();
+    private volatile boolean closed;
+
+    /**
+     * @param depth  The amount of chunks, rounded up to a power of two
+     * @param period The size of a single chunk in bytes
+     */
+    public PCMRingBuffer(int depth, int period) {
+        int size = Integer.highestOneBit(Math.max(2, depth) - 1) << 1;
+        this.slots = new byte[size][period];
+        this.lengths = new int[size];
+        this.generations = new int[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Waits for a free slot.
+     *
+     * @return byte[] The slot to fill or null if the ring was closed
+     */
+    public byte[] claim() {
+        long t = tail.get();
+        while (t - head.get() > mask) {
+            if (closed) {
+                return null;
+            }
+            LockSupport.parkNanos(1_000_000L);
+        }
+        return closed ? null : slots[(int) (t & mask)];
+    }
+
+    /**
+     * Hands the last claimed slot to the consumer.
+     *
+     * @param length     The amount of valid bytes, {@link #END_OF_STREAM} or
+     *                   {@link #TRACK_BOUNDARY}
+     * @param generation The generation of the stream the data came from
+     */
+    public void publish(int length, int generation) {
+        long t = tail.get();
+        lengths[(int) (t & mask)] = length;
+        generations[(int) (t & mask)] = generation;
+        tail.lazySet(t + 1);
+    }
+
+    /**
+     * Waits at most the given time for a published slot.
+     *
+     * @param nanos The longest time to wait
+     * @return int The index of the slot or -1 if nothing was published in time
+     */
+    public int poll(long nanos) {
+        long h = head.get(), deadline = System.nanoTime() + nanos;
+        while (h >= tail.get()) {
+            if (closed || System.nanoTime() >= deadline) {
+                return -1;
+            }
+            LockSupport.parkNanos(Math.min(nanos, 1_000_000L));
+        }
+        return (int) (h & mask);
+    }
+
+    /**
+     * @param slot An index returned by {@link #poll(long)}
+     * @return byte[] The data of the slot
+     */
+    public byte[] data(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * @param slot An index returned by {@link #poll(long)}
+     * @return int The amount of valid bytes, {@link #END_OF_STREAM} or
+     *         {@link #TRACK_BOUNDARY}
+     */
+    public int length(int slot) {
+        return lengths[slot];
+    }
+
+    /**
+     * @param slot An index returned by {@link #poll(long)}
+     * @return int The generation the slot was published with
+     */
+    public int generation(int slot) {
+        return generations[slot];
+    }
+
+    /**
+     * Gives the last polled slot back to the producer.
+     */
+    public void release() {
+        head.lazySet(head.get() + 1);
+    }
+
+    /**
+     * @return int The amount of published slots that have not been released
+     */
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    /**
+     * @return int The amount of slots
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return int The size of a single slot in bytes
+     */
+    public int period() {
+        return slots[0].length;
+    }
+
+    /**
+     * Wakes up and stops both sides.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    /**
+     * @return boolean
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+}
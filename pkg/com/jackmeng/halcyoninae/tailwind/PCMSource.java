@@ -0,0 +1,197 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A seekable source for uncompressed containers (WAV, AIFF, AU).
+ * <p>
+ * As every frame has the same size, a seek is just
+ * {@code dataOffset + frame * frameSize} and no data has
+ * to be read at all.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class PCMSource implements TailwindSource {
+    private final SeekableFileStream in;
+    private final AudioFormat format;
+    private final long dataOffset, frameLength;
+    private AudioInputStream ais;
+
+    /**
+     * @param f The PCM container to open
+     * @throws IOException                   If the file could not be read
+     * @throws UnsupportedAudioFileException If no reader accepts the file
+     */
+    public PCMSource(File f) throws IOException, UnsupportedAudioFileException {
+        this.in = new SeekableFileStream(f);
+        try {
+            this.ais = AudioSystem.getAudioInputStream(in);
+        } catch (IOException | UnsupportedAudioFileException e) {
+            in.close();
+            throw e;
+        }
+        long offset = locateData(f, FileFormat.getFormatByName(f.getName()));
+        // otherwise trust that the file reader stopped right at the start of the sample data
+        this.dataOffset = offset >= 0 ? offset : in.position();
+        this.format = ais.getFormat();
+        this.frameLength = ais.getFrameLength() != AudioSystem.NOT_SPECIFIED ? ais.getFrameLength()
+                : (format.getFrameSize() > 0 ? (in.length() - dataOffset) / format.getFrameSize() : -1L);
+    }
+
+    /**
+     * Walks the chunks of the container to find where the
+     * sample data starts.
+     *
+     * @param f   The container file
+     * @param fmt The container format
+     * @return long The byte offset of the first sample or -1 if it could not be
+     *         found
+     */
+    public static long locateData(File f, FileFormat fmt) {
+        if (fmt == null) {
+            return -1L;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            byte[] id = new byte[4];
+            switch (fmt) {
+                case WAV:
+                    raf.seek(12);
+                    while (raf.getFilePointer() + 8 <= raf.length()) {
+                        raf.readFully(id);
+                        long size = Integer.reverseBytes(raf.readInt()) & 0xFFFFFFFFL;
+                        if (new String(id, StandardCharsets.US_ASCII).equals("data")) {
+                            return raf.getFilePointer();
+                        }
+                        raf.seek(raf.getFilePointer() + size + (size & 1));
+                    }
+                    break;
+                case AIFF:
+                case AIFC:
+                    raf.seek(12);
+                    while (raf.getFilePointer() + 8 <= raf.length()) {
+                        raf.readFully(id);
+                        long size = raf.readInt() & 0xFFFFFFFFL;
+                        if (new String(id, StandardCharsets.US_ASCII).equals("SSND")) {
+                            long offset = raf.readInt() & 0xFFFFFFFFL;
+                            raf.readInt(); // block size
+                            return raf.getFilePointer() + offset;
+                        }
+                        raf.seek(raf.getFilePointer() + size + (size & 1));
+                    }
+                    break;
+                case AU:
+                case SND:
+                    raf.seek(4);
+                    return raf.readInt() & 0xFFFFFFFFL;
+                default:
+                    break;
+            }
+        } catch (IOException e) {
+            // IGNORED
+        }
+        return -1L;
+    }
+
+    /**
+     * @return AudioInputStream
+     */
+    @Override
+    public AudioInputStream getStream() {
+        return ais;
+    }
+
+    /**
+     * @return AudioFormat
+     */
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * @return long
+     */
+    @Override
+    public long getFrameLength() {
+        return frameLength;
+    }
+
+    /**
+     * @return boolean
+     */
+    @Override
+    public boolean isSeekable() {
+        return format.getFrameSize() > 0;
+    }
+
+    /**
+     * @param frame
+     * @return AudioInputStream
+     * @throws IOException
+     */
+    @Override
+    public AudioInputStream seek(long frame) throws IOException {
+        if (!isSeekable()) {
+            throw new IOException("Frame size is not specified for: " + format);
+        }
+        frame = Math.max(0L, frameLength >= 0 ? Math.min(frame, frameLength) : frame);
+        in.position(dataOffset + frame * format.getFrameSize());
+        ais = new AudioInputStream(in, format, frameLength >= 0 ? frameLength - frame : AudioSystem.NOT_SPECIFIED);
+        return ais;
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * A buffered {@link InputStream} over a {@link RandomAccessFile}
+ * that can be repositioned at any time.
+ * <p>
+ * Marking is unlimited as the mark is just a file offset, which lets
+ * the {@link javax.sound.sampled.AudioSystem} providers probe the header
+ * as much as they want.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class SeekableFileStream extends InputStream {
+    private final RandomAccessFile raf;
+    private final byte[] buffer;
+    private long bufferStart, mark;
+    private int bufferLength, bufferPos;
+
+    /**
+     * @param f The file to read from
+     * @throws IOException If the file could not be opened
+     */
+    public SeekableFileStream(File f) throws IOException {
+        this.raf = new RandomAccessFile(f, "r");
+        this.buffer = new byte[8192];
+    }
+
+    /**
+     * @return long The logical position of this stream in the file
+     */
+    public long position() {
+        return bufferStart + bufferPos;
+    }
+
+    /**
+     * Moves the stream to the given file offset.
+     * If the offset is still within the buffer, no I/O is done.
+     *
+     * @param pos The absolute byte offset
+     */
+    public void position(long pos) {
+        if (pos >= bufferStart && pos <= bufferStart + bufferLength) {
+            bufferPos = (int) (pos - bufferStart);
+        } else {
+            bufferStart = pos;
+            bufferLength = 0;
+            bufferPos = 0;
+        }
+    }
+
+    /**
+     * @return long The length of the underlying file
+     * @throws IOException If the length could not be read
+     */
+    public long length() throws IOException {
+        return raf.length();
+    }
+
+    /**
+     * @return boolean
+     * @throws IOException
+     */
+    private boolean fill() throws IOException {
+        long pos = position();
+        raf.seek(pos);
+        int i = raf.read(buffer, 0, buffer.length);
+        bufferStart = pos;
+        bufferPos = 0;
+        bufferLength = Math.max(i, 0);
+        return i > 0;
+    }
+
+    /**
+     * @return int
+     * @throws IOException
+     */
+    @Override
+    public int read() throws IOException {
+        if (bufferPos >= bufferLength && !fill()) {
+            return -1;
+        }
+        return buffer[bufferPos++] & 0xFF;
+    }
+
+    /**
+     * @param b
+     * @param off
+     * @param len
+     * @return int
+     * @throws IOException
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (bufferPos >= bufferLength) {
+            if (len >= buffer.length) {
+                long pos = position();
+                raf.seek(pos);
+                int i = raf.read(b, off, len);
+                bufferStart = pos + Math.max(i, 0);
+                bufferLength = 0;
+                bufferPos = 0;
+                return i;
+            }
+            if (!fill()) {
+                return -1;
+            }
+        }
+        int i = Math.min(len, bufferLength - bufferPos);
+        System.arraycopy(buffer, bufferPos, b, off, i);
+        bufferPos += i;
+        return i;
+    }
+
+    /**
+     * @param n
+     * @return long
+     * @throws IOException
+     */
+    @Override
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long pos = position();
+        long target = Math.min(pos + n, raf.length());
+        position(target);
+        return target - pos;
+    }
+
+    /**
+     * @return int
+     * @throws IOException
+     */
+    @Override
+    public int available() throws IOException {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0L, raf.length() - position()));
+    }
+
+    /**
+     * @return boolean
+     */
+    @Override
+    public boolean markSupported() {
+        return true;
+    }
+
+    /**
+     * @param readlimit Ignored, the mark never expires
+     */
+    @Override
+    public synchronized void mark(int readlimit) {
+        mark = position();
+    }
+
+    @Override
+    public synchronized void reset() {
+        position(mark);
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        raf.close();
+    }
+}
@@ -46,15 +46,25 @@ import com.jackmeng.halcyoninae.halcyon.utils.ProgramResourceManager;
 import com.jackmeng.halcyoninae.halcyon.utils.TimeParser;
 import com.jackmeng.halcyoninae.tailwind.TailwindEvent.TailwindStatus;
 
+import org.tritonus.dsp.processor.AmplitudeProcessor;
+import org.tritonus.share.sampled.FloatSampleBuffer;
+
 import javax.sound.sampled.*;
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.WeakHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * The official adapted audio framework for the Halcyon Program.
@@ -89,10 +99,14 @@ import java.util.concurrent.TimeUnit;
 public class Tailwind implements Audio {
     // PUBLIC STATIC UTIL START
     public static final int MAGIC_NUMBER = 2048;
+    /**
+     * How long to wait in milliseconds for a stopped pipeline to let go
+     */
+    public static final long STOP_TIMEOUT = 2000L;
     public static final String MASTER_GAIN_STR = "Master Gain", BALANCE_STR = "Balance", PAN_STR = "Pan";
     // PUBLIC STATIC UTIL END
     private final Object referencable = new Object();
-    private final Object timeRef = new Object();
+    private final Object streamLock = new Object();
     private final TailwindEventManager events;
     private File resource;
     private int my_magic_number = MAGIC_NUMBER;
@@ -100,14 +114,53 @@ public class Tailwind implements Audio {
     private TailwindPipelineMethod pipeline;
     private FileFormat format;
     private Map<String, Control> controlTable;
-    private boolean open, paused, playing, forceClose;
+    private volatile boolean open, paused, playing;
+    private boolean forceClose;
     private AudioInputStream ais;
-    private long microsecondLength, frameLength, milliPos;
-    private ExecutorService worker;
+    private TailwindSource source, pendingSource;
+    private Track pendingTrack;
+    private volatile Track advancedTrack;
+    private volatile int generation;
+    private long microsecondLength, frameLength;
+    private final AtomicLong framesWritten = new AtomicLong();
+    private volatile long clockBase, lastClock, timeRate = TailwindClock.DEFAULT_RATE;
+    private ScheduledFuture<?> ticker;
+    private final ExecutorService worker;
+    private final TailwindSourcePool sources;
+    private volatile PipelineSession session;
     private AudioFormat formatAudio;
+    private final TailwindDSPChain dsp;
+    private final AmplitudeProcessor dspGain;
+    private final TailwindBalanceProcessor dspBalance;
+    private final TailwindEqualizer dspEqualizer;
+    private final TailwindResampler dspResampler;
+    private final TailwindTap tap;
+    private final TailwindSpectrum spectrum;
+    private volatile float gainDb, balanceValue, panValue, outputRate;
 
     public Tailwind() {
         events = new TailwindEventManager();
+        sources = new TailwindSourcePool();
+        // two threads (render + decode) stay alive for the lifetime of the player,
+        // extra ones only exist while an old pipeline is winding down
+        worker = new ThreadPoolExecutor(2, Integer.MAX_VALUE, 30L, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                r -> {
+                    Thread t = new Thread(r, "Tailwind Pipeline");
+                    t.setDaemon(true);
+                    return t;
+                });
+        ((ThreadPoolExecutor) worker).prestartAllCoreThreads();
+        dsp = new TailwindDSPChain();
+        dspEqualizer = new TailwindEqualizer();
+        dspBalance = new TailwindBalanceProcessor();
+        dspGain = new AmplitudeProcessor();
+        dspResampler = new TailwindResampler();
+        dsp.add("equalizer", dspEqualizer);
+        dsp.add("balance", dspBalance);
+        dsp.add("gain", dspGain);
+        dsp.add("resample", dspResampler);
+        tap = new TailwindTap();
+        spectrum = new TailwindSpectrum(tap);
         pipeline = TailwindPipelineMethod.DEFAULT_;
         events.addStatusUpdateListener(new TailwindDefaultListener(this));
     }
@@ -142,15 +195,163 @@ public class Tailwind implements Audio {
     }
 
     /**
-     * @param pipeline
+     * Switches between the standard pipeline and the all float
+     * {@link TritonusPipeline}.
+     * <p>
+     * This can be done while audio is playing: the running pipeline is
+     * stopped, the line is reopened if the new pipeline needs a different
+     * line format, and the new pipeline picks up at the current frame.
+     * Gain, balance and pan carry over.
+     *
+     * @param pipeline The pipeline to use
+     * @throws TailwindThrowable If the line could not be reopened for the new
+     *                           pipeline
      */
     public synchronized void setPipelineMethod(TailwindPipelineMethod pipeline) throws TailwindThrowable {
-        if (worker.isShutdown()) {
+        if (pipeline == this.pipeline) {
+            return;
+        }
+        if (!isOpen()) {
             this.pipeline = pipeline;
-        } else {
+            return;
+        }
+        boolean wasPlaying = playing && isPipelineRunning();
+        long frame = getFramePosition();
+        stopSession();
+        this.pipeline = pipeline;
+        try {
+            openLine();
+        } catch (LineUnavailableException e) {
             throw new TailwindThrowable(
-                    "Failed to set the pipeline strategy to: " + pipeline.getClass().getCanonicalName());
+                    "Failed to set the pipeline strategy to: " + pipeline.name() + "\n" + e.getMessage());
+        }
+        applyLevels();
+        setFramePosition(frame);
+        if (wasPlaying) {
+            startPipeline();
+        }
+    }
+
+    /**
+     * @return TailwindDSPChain The stages the {@link TritonusPipeline} runs
+     * @since 3.4.1
+     */
+    public TailwindDSPChain getDSPChain() {
+        return dsp;
+    }
+
+    /**
+     * @return TailwindEqualizer The equalizer stage of the {@link TritonusPipeline}
+     * @since 3.4.1
+     */
+    public TailwindEqualizer getEqualizer() {
+        return dspEqualizer;
+    }
+
+    /**
+     * @return TailwindTap The PCM that is being played
+     * @since 3.4.1
+     */
+    public TailwindTap getTap() {
+        return tap;
+    }
+
+    /**
+     * @return TailwindSpectrum The spectrum of what is being played
+     * @since 3.4.1
+     */
+    public TailwindSpectrum getSpectrum() {
+        return spectrum;
+    }
+
+    /**
+     * Makes the {@link TritonusPipeline} resample to the given rate and
+     * open the line with it. This takes effect on the next open.
+     *
+     * @param rate The sample rate of the line or 0 to keep the rate of the stream
+     * @since 3.4.1
+     */
+    public void setOutputSampleRate(float rate) {
+        this.outputRate = Math.max(0F, rate);
+    }
+
+    /**
+     * @param f The format of the decoded stream
+     * @return AudioFormat The format the line should be opened with
+     */
+    private AudioFormat lineFormatFor(AudioFormat f) {
+        if (isDefaultPipeline() || outputRate <= 0F || outputRate == f.getSampleRate()) {
+            return f;
         }
+        return new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, outputRate, 16, f.getChannels(),
+                f.getChannels() * 2, outputRate, false);
+    }
+
+    /**
+     * Makes sure the line is open with the format the current pipeline needs,
+     * reusing the open line if it already fits.
+     *
+     * @throws LineUnavailableException
+     */
+    private void openLine() throws LineUnavailableException {
+        AudioFormat lineFormat = lineFormatFor(formatAudio);
+        dspResampler.setTargetRate(lineFormat.getSampleRate());
+        if (line != null && line.isOpen() && line.getFormat().matches(lineFormat)) {
+            // same format as the last track, keep the line (and its controls)
+            line.flush();
+        } else {
+            if (line != null) {
+                line.close();
+            }
+            DataLine.Info info = new DataLine.Info(
+                    SourceDataLine.class,
+                    lineFormat);
+            this.line = (SourceDataLine) AudioSystem.getLine(info);
+            this.line.open(lineFormat);
+            controlTable = setControls(this.line, controlTable);
+        }
+        // whatever sits in the line's buffer has been tapped but is not heard yet
+        tap.setLatency((int) (line.getBufferSize() / lineFormat.getFrameSize()
+                * (formatAudio.getFrameRate() / lineFormat.getFrameRate())));
+    }
+
+    /**
+     * Puts gain, balance and pan where the current pipeline applies them:
+     * the line's controls for the standard pipeline, the DSP chain for the
+     * Tritonus pipeline (with the controls left neutral).
+     */
+    private void applyLevels() {
+        boolean std = isDefaultPipeline();
+        setControl(MASTER_GAIN_STR, std ? gainDb : 0F);
+        setControl(BALANCE_STR, std ? balanceValue : 0F);
+        setControl(PAN_STR, std ? panValue : 0F);
+        dspGain.setAmplitudeLog(gainDb);
+        dspBalance.setBalance(balanceValue);
+        dspBalance.setPan(panValue);
+    }
+
+    /**
+     * @param name  The name of a FloatControl
+     * @param value The value, clamped to the bounds of the control
+     * @return boolean (true || false) if the line has the control
+     */
+    private boolean setControl(String name, float value) {
+        Control c = controlTable != null ? controlTable.get(name) : null;
+        if (c instanceof FloatControl) {
+            FloatControl f = (FloatControl) c;
+            f.setValue(value < f.getMinimum() ? f.getMinimum() : Math.min(value, f.getMaximum()));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return boolean (true || false) if a pipeline is still feeding the line
+     * @since 3.4.1
+     */
+    public boolean isPipelineRunning() {
+        PipelineSession s = session;
+        return s != null && !s.isStopped();
     }
 
     /**
@@ -187,28 +388,25 @@ public class Tailwind implements Audio {
      * @return e
      */
     private Map<String, Control> setControls(Line line, Map<String, Control> table) {
-        if (isDefaultPipeline()) {
-            Map<String, Control> temp = new WeakHashMap<>();
-            for (Control ctrl : line.getControls()) {
-                String t = ctrl.getType().toString();
-                if (table != null && table.containsKey(t)) {
-                    Control old = table.get(t);
-                    if (ctrl instanceof FloatControl && old instanceof FloatControl) {
-                        ((FloatControl) ctrl).setValue(
-                                ((FloatControl) ctrl).getValue());
-                    } else if (ctrl instanceof BooleanControl) {
-                        ((BooleanControl) ctrl).setValue(
-                                ((BooleanControl) ctrl).getValue());
-                    } else if (ctrl instanceof EnumControl) {
-                        ((EnumControl) ctrl).setValue(
-                                ((EnumControl) ctrl).getValue());
-                    }
+        Map<String, Control> temp = new WeakHashMap<>();
+        for (Control ctrl : line.getControls()) {
+            String t = ctrl.getType().toString();
+            if (table != null && table.containsKey(t)) {
+                Control old = table.get(t);
+                if (ctrl instanceof FloatControl && old instanceof FloatControl) {
+                    ((FloatControl) ctrl).setValue(
+                            ((FloatControl) ctrl).getValue());
+                } else if (ctrl instanceof BooleanControl) {
+                    ((BooleanControl) ctrl).setValue(
+                            ((BooleanControl) ctrl).getValue());
+                } else if (ctrl instanceof EnumControl) {
+                    ((EnumControl) ctrl).setValue(
+                            ((EnumControl) ctrl).getValue());
                 }
-                temp.put(ctrl.getType().toString(), ctrl);
             }
-            return temp;
+            temp.put(ctrl.getType().toString(), ctrl);
         }
-        return Collections.emptyMap();
+        return temp;
     }
 
     /**
@@ -224,83 +422,81 @@ public class Tailwind implements Audio {
     @Override
     public void open(File url) {
         if (isForceCloseOnOpen()
-                && (isOpen() || isPlaying() || (worker != null && (!worker.isShutdown() || !worker.isTerminated()))))
+                && (isOpen() || isPlaying() || isPipelineRunning()))
             close();
-        if (!isForceCloseOnOpen() && (isOpen() || isPlaying()
-                || (worker != null && (!worker.isShutdown() || !worker.isTerminated())))) {
+        if (!isForceCloseOnOpen() && (isOpen() || isPlaying() || isPipelineRunning())) {
             return;
         }
-        if (isDefaultPipeline()) {
-            try {
-                milliPos = 0L;
-                this.resource = url;
-                this.format = FileFormat.getFormatByName(this.resource.getName());
-                Debugger.unsafeLog("TailwindPlayer> Opening: " + resource.getAbsolutePath());
-                ais = TailwindHelper.getAudioIS(resource.toURI().toURL());
-                assert ais != null;
-                microsecondLength = (long) (1000000 *
-                        (ais.getFrameLength() /
-                                ais.getFormat().getFrameRate()));
-                frameLength = ais.getFrameLength();
-
-                if (new AudioInfo(url).getTag(AudioInfo.KEY_MEDIA_DURATION) == null) {
-                    if (this.microsecondLength < 0) {
-                        byte[] buffer = new byte[4096];
-                        int readBytes;
-
-                        while ((readBytes = this.ais.read(buffer)) != -1) {
-                            this.frameLength += readBytes;
-                        }
-
-                        this.frameLength /= this.ais.getFormat().getFrameSize();
-                        this.ais.close();
-                        this.ais = TailwindHelper.getAudioIS(this.resource.toURI().toURL());
-                        assert this.ais != null;
-                        this.microsecondLength = (long) (1000000 *
-                                (frameLength / this.ais.getFormat().getFrameRate()));
-                    }
-                } else {
-                    if (microsecondLength < 0) {
-                        frameLength = ais.getFrameLength();
-                        microsecondLength = 1000000L
-                                * Integer.parseInt(new AudioInfo(url).getTag(AudioInfo.KEY_MEDIA_DURATION));
+        try {
+            resetClock(0L);
+            this.resource = url;
+            this.advancedTrack = null;
+            this.format = FileFormat.getFormatByName(this.resource.getName());
+            Debugger.unsafeLog("TailwindPlayer> Opening: " + resource.getAbsolutePath());
+            source = sources.acquire(resource);
+            ais = source.getStream();
+            frameLength = lengthOf(source, resource);
+            microsecondLength = (long) (1000000 *
+                    (frameLength /
+                            ais.getFormat().getFrameRate()));
+
+            AudioInfo info = AudioInfoCache.get(url);
+            if (info.getTag(AudioInfo.KEY_MEDIA_DURATION) == null) {
+                if (this.microsecondLength < 0) {
+                    // last resort, the headers did not tell the length
+                    byte[] buffer = new byte[4096];
+                    int readBytes;
+
+                    while ((readBytes = this.ais.read(buffer)) != -1) {
+                        this.frameLength += readBytes;
                     }
-                }
 
-                DataLine.Info info = new DataLine.Info(
-                        SourceDataLine.class,
-                        ais.getFormat());
-                formatAudio = ais.getFormat();
-                this.line = (SourceDataLine) AudioSystem.getLine(info);
-                this.line.open(ais.getFormat());
-                controlTable = setControls(this.line, controlTable);
-                this.open = true;
-                events.dispatchStatusEvent(TailwindStatus.OPEN);
-                events.dispatchGenericEvent(new TailwindEvent(new AudioInfo(resource)));
-            } catch (Exception e) {
-                handleException(e);
+                    this.frameLength /= this.ais.getFormat().getFrameSize();
+                    this.ais = source.seek(0L);
+                    this.microsecondLength = (long) (1000000 *
+                            (frameLength / this.ais.getFormat().getFrameRate()));
+                }
+            } else {
+                if (microsecondLength < 0) {
+                    microsecondLength = 1000000L
+                            * Integer.parseInt(info.getTag(AudioInfo.KEY_MEDIA_DURATION));
+                }
             }
+
+            formatAudio = ais.getFormat();
+            tap.setFormat(formatAudio);
+            dsp.reset();
+            openLine();
+            this.open = true;
+            events.dispatchStatusEvent(TailwindStatus.OPEN);
+            events.dispatchGenericEvent(new TailwindEvent(info));
+        } catch (Exception e) {
+            handleException(e);
         }
     }
 
     /**
      * @return long Returns the length of the media file in MicroSeconds
      */
-    public synchronized long getMicrosecondLength() {
-        return microsecondLength;
+    public long getMicrosecondLength() {
+        synchronized (streamLock) {
+            return microsecondLength;
+        }
     }
 
     /**
      * @return long Returns the length of the media file in MilliSeconds
      */
-    public synchronized long getLength() {
-        return microsecondLength / 1000;
+    public long getLength() {
+        synchronized (streamLock) {
+            return microsecondLength / 1000;
+        }
     }
 
     /**
      * @return boolean (true || false) if the stream is detected to be playing
      */
-    public synchronized boolean isPlaying() {
+    public boolean isPlaying() {
         return playing;
     }
 
@@ -315,29 +511,33 @@ public class Tailwind implements Audio {
     /**
      * @return boolean
      */
-    public synchronized boolean isPaused() {
+    public boolean isPaused() {
         return paused;
     }
 
     /**
      * @return boolean
      */
-    public synchronized boolean isOpen() {
+    public boolean isOpen() {
         return open;
     }
 
     /**
      * @return long
      */
-    public synchronized long getFrameLength() {
-        return frameLength;
+    public long getFrameLength() {
+        synchronized (streamLock) {
+            return frameLength;
+        }
     }
 
     /**
      * @return FileFormat
      */
-    public synchronized FileFormat getFileFormat() {
-        return format;
+    public FileFormat getFileFormat() {
+        synchronized (streamLock) {
+            return format;
+        }
     }
 
     /**
@@ -351,23 +551,86 @@ public class Tailwind implements Audio {
      * @return The microsecond position.
      */
     public synchronized long getMicrosecondPosition() {
-        return isDefaultPipeline()
-                ? (line != null ? line.getMicrosecondPosition() : 0L)
-                : 0L;
+        return line != null ? line.getMicrosecondPosition() : 0L;
     }
 
     /**
-     * Does not use the internal SourceDataLine's microsecond
-     * positioning.
+     * The position of the frame that is currently being heard.
      * <p>
-     * NOTE: This method does not gurantee absolute precision;
-     * however, it does take into account any time modifications
-     * including seeking.
+     * This is derived from the frames that were written to the line minus the
+     * frames that are still queued in it, offset by the last seek. Between two
+     * seeks (or track changes) this never goes backwards.
+     *
+     * @return long The frame position of the playback
+     * @since 3.4.1
+     */
+    public long getFramePosition() {
+        SourceDataLine l = line;
+        AudioFormat f = formatAudio;
+        long pos = clockBase + framesWritten.get();
+        if (l != null && f != null) {
+            // what is queued in the line is in the line's format, which differs
+            // from the stream's when the Tritonus pipeline resamples
+            AudioFormat lf = l.getFormat();
+            if (lf.getFrameSize() > 0) {
+                long queued = (l.getBufferSize() - l.available()) / lf.getFrameSize();
+                pos -= lf.getFrameRate() > 0 && lf.getFrameRate() != f.getFrameRate()
+                        ? (long) (queued * (double) f.getFrameRate() / lf.getFrameRate())
+                        : queued;
+            }
+        }
+        pos = Math.max(0L, frameLength >= 0 ? Math.min(pos, frameLength) : pos);
+        if (pos < lastClock) {
+            return lastClock;
+        }
+        lastClock = pos;
+        return pos;
+    }
+
+    /**
+     * Uses {@link #getFramePosition()} so it is exact to the frame
+     * that is heard and takes into account any seeking.
      *
      * @return long The millisecond position
      */
     public synchronized long getPosition() {
-        return milliPos;
+        AudioFormat f = formatAudio;
+        return f != null && f.getFrameRate() > 0 ? (long) (getFramePosition() * 1000D / f.getFrameRate()) : 0L;
+    }
+
+    /**
+     * @return long The time between two time updates in milliseconds
+     * @since 3.4.1
+     */
+    public long getTimeUpdateRate() {
+        return timeRate;
+    }
+
+    /**
+     * Sets how often the {@link TailwindListener.TimeUpdateListener}s
+     * are told about the position. This takes effect on the next play.
+     *
+     * @param millis The time between two time updates in milliseconds
+     * @since 3.4.1
+     */
+    public void setTimeUpdateRate(long millis) {
+        this.timeRate = Math.max(1L, millis);
+    }
+
+    /**
+     * @param frame The frame the clock starts counting from
+     */
+    private void resetClock(long frame) {
+        clockBase = frame;
+        framesWritten.set(0L);
+        lastClock = frame;
+    }
+
+    private void stopTicker() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
     }
 
     /**
@@ -375,8 +638,8 @@ public class Tailwind implements Audio {
      */
     @Override
     public synchronized void setPosition(long millis) {
-        if (isDefaultPipeline() && isOpen()) {
-            setFramePosition((long) (ais.getFormat().getFrameRate() / 1000F) * millis);
+        if (isOpen()) {
+            setFramePosition((long) (ais.getFormat().getFrameRate() * millis / 1000D));
         }
     }
 
@@ -387,7 +650,7 @@ public class Tailwind implements Audio {
      * @return long Frame Position from the DataLine
      */
     public synchronized long getLongFramePosition() {
-        return isDefaultPipeline() ? line.getLongFramePosition() : 0L;
+        return line != null ? line.getLongFramePosition() : 0L;
     }
 
     /**
@@ -414,6 +677,47 @@ public class Tailwind implements Audio {
         return events.addTimeListener(e);
     }
 
+    /**
+     * @param e        The listener
+     * @param delivery Where it is called
+     * @return boolean
+     * @since 3.4.1
+     */
+    public boolean addTimeListener(TailwindListener.TimeUpdateListener e, TailwindEventManager.Delivery delivery) {
+        return events.addTimeListener(e, delivery);
+    }
+
+    /**
+     * @param e        The listener
+     * @param delivery Where it is called
+     * @return boolean
+     * @since 3.4.1
+     */
+    public boolean addStatusUpdateListener(TailwindListener.StatusUpdateListener e,
+            TailwindEventManager.Delivery delivery) {
+        return events.addStatusUpdateListener(e, delivery);
+    }
+
+    /**
+     * @param e        The listener
+     * @param delivery Where it is called
+     * @return boolean
+     * @since 3.4.1
+     */
+    public boolean addGenericUpdateListener(TailwindListener.GenericUpdateListener e,
+            TailwindEventManager.Delivery delivery) {
+        return events.addGenericUpdateListener(e, delivery);
+    }
+
+    /**
+     * @param e Any listener that was added before
+     * @return boolean If it was found
+     * @since 3.4.1
+     */
+    public boolean removeListener(Object e) {
+        return events.removeListener(e);
+    }
+
     /**
      * @param e
      */
@@ -431,29 +735,47 @@ public class Tailwind implements Audio {
 
     @Override
     public void close() {
-        if (isDefaultPipeline()) {
-            if (open) {
-                try {
-                    resetProperties();
-                    if (!worker.isShutdown()) {
-                        worker.shutdown();
-                    }
-                    if (line != null) {
-                        line.stop();
-                        line.drain();
-                        line.close();
-                    }
-                    if (ais != null) {
+        if (open) {
+            try {
+                resetProperties();
+                stopTicker();
+                stopSession();
+                if (line != null) {
+                    // the line stays open so the next track can reuse it
+                    line.stop();
+                    line.flush();
+                }
+                synchronized (streamLock) {
+                    if (source != null) {
+                        sources.release(resource, source);
+                        source = null;
+                    } else if (ais != null) {
                         ais.close();
                     }
-                    events.dispatchStatusEvent(TailwindStatus.CLOSED);
-                } catch (Exception e) {
-                    handleException(e);
                 }
+                clearNext();
+                events.dispatchStatusEvent(TailwindStatus.CLOSED);
+            } catch (Exception e) {
+                handleException(e);
             }
         }
     }
 
+    /**
+     * Closes the player and everything it keeps around for
+     * reuse: the line and the pooled sources.
+     *
+     * @since 3.4.1
+     */
+    public void dispose() {
+        close();
+        if (line != null) {
+            line.close();
+            line = null;
+        }
+        sources.clear();
+    }
+
     /**
      * Fades out the audio until the audio dies.
      * <p>
@@ -485,52 +807,63 @@ public class Tailwind implements Audio {
         if (playing || paused) {
             pause();
         }
-        if (isDefaultPipeline()) {
-            worker = Executors.newSingleThreadExecutor();
-            worker.execute(this.new StandardPipeLine());
-
-            ExecutorService timeWorker = Executors.newSingleThreadExecutor();
-            timeWorker.execute(() -> {
-                while (!timeWorker.isShutdown()) {
-                    if (!paused) {
-                        if (open) {
-                            while (isPlaying() && !isPaused() && isOpen()) {
-                                milliPos += 5;
-                                try {
-                                    Thread.sleep(5L);
-                                } catch (InterruptedException e) {
-                                    // DO NOTHING
-                                }
-                            }
-                        } else {
-                            timeWorker.shutdown();
-                            milliPos = 0L;
-                        }
-                    } else {
-                        while (paused) {
-                            try {
-                                synchronized (timeRef) {
-                                    timeRef.wait();
-                                }
-                            } catch (InterruptedException e) {
-                                // IGNORE
-                            }
-                        }
-                    }
-                }
-
-            });
-        }
+        // the render stage starts right away on the prestarted pool and ends
+        // the track at once if it does not see it playing yet
         playing = true;
+        paused = false;
+        startPipeline();
+
+        stopTicker();
+        ticker = TailwindClock.schedule(() -> {
+            if (playing && !paused && open) {
+                events.dispatchTimeEvent(getPosition());
+            }
+        }, timeRate);
         events.dispatchStatusEvent(TailwindStatus.PLAYING);
 
     }
 
+    /**
+     * Stops any running pipeline and starts the one that is
+     * currently selected.
+     */
+    private void startPipeline() {
+        stopSession();
+        session = new PipelineSession();
+        session.enter();
+        worker.execute(isDefaultPipeline() ? this.new StandardPipeLine(session)
+                : this.new TritonusPipeline(session));
+    }
+
+    /**
+     * Stops the running pipeline and waits until both of its stages let go of
+     * the stream and the line, so nothing of the old session reads a source or
+     * writes to the line, the tap or the clock after this returns. A stage
+     * that calls this only waits for the other one.
+     */
+    private void stopSession() {
+        PipelineSession s = session;
+        if (s == null) {
+            return;
+        }
+        s.stop();
+        synchronized (referencable) {
+            referencable.notifyAll();
+        }
+        if (line != null) {
+            // unblocks a write that waits for room in the line
+            line.flush();
+        }
+        if (!s.await(STOP_TIMEOUT)) {
+            Debugger.warn("TailwindPlayer> The last pipeline did not stop in time");
+        }
+    }
+
     private void resetProperties() {
         playing = false;
         paused = false;
         open = false;
-        milliPos = 0L;
+        resetClock(0L);
     }
 
     /**
@@ -539,6 +872,8 @@ public class Tailwind implements Audio {
     @Override
     public void setGain(float percent) {
         try {
+            gainDb = percent;
+            dspGain.setAmplitudeLog(percent);
             if (isDefaultPipeline()) {
                 FloatControl control = (FloatControl) this.controlTable.get(MASTER_GAIN_STR);
                 control.setValue(percent < control.getMinimum() ? control.getMinimum()
@@ -558,6 +893,8 @@ public class Tailwind implements Audio {
     @Override
     public void setBalance(float balance) {
         try {
+            balanceValue = balance;
+            dspBalance.setBalance(balance);
             if (isDefaultPipeline()) {
                 FloatControl bal = (FloatControl) this.controlTable.get(BALANCE_STR);
                 bal.setValue(
@@ -573,6 +910,8 @@ public class Tailwind implements Audio {
      */
     public void setPan(float pan) {
         try {
+            panValue = pan;
+            dspBalance.setPan(pan);
             if (isDefaultPipeline()) {
                 FloatControl ctrl = (FloatControl) this.controlTable.get(PAN_STR);
                 ctrl.setValue(
@@ -595,16 +934,14 @@ public class Tailwind implements Audio {
     @Override
     public void resume() {
         try {
-            if (isDefaultPipeline()) {
-                if (paused) {
-                    playing = true;
-                    paused = false;
-                    synchronized (referencable) {
-                        referencable.notifyAll();
-                    }
-                } else {
-                    play();
+            if (paused) {
+                playing = true;
+                paused = false;
+                synchronized (referencable) {
+                    referencable.notifyAll();
                 }
+            } else {
+                play();
             }
             events.dispatchStatusEvent(TailwindStatus.RESUMED);
         } catch (Exception e) {
@@ -631,27 +968,22 @@ public class Tailwind implements Audio {
     @Override
     public void seekTo(long millis) {
         try {
-            if (isDefaultPipeline()) {
-                if (open || playing) {
-                    long time = getPosition() + millis;
-                    Debugger.info("Vanilla Time Submission:" + millis + "\nTime Submission: " + time + "\nFor Pos: "
-                            + getPosition() + "\nFor Length: " + getMicrosecondLength() / 1000L + "\n"
-                            + TimeParser.fromMillis(millis) + "\nTime sub: " + TimeParser.fromMillis(time)
-                            + "\nCurrent Time"
-                            + TimeParser.fromMillis(milliPos));
-                    if (time < 0 || millis == -2) {
-                        milliPos = 0L;
-                        setPosition(0);
-                        Debugger.warn("FAULT: Lower bound exceeded for parameter: " + millis + "(ms)");
-                    } else if (time > getMicrosecondLength() / 1000L || millis == -1) {
-                        milliPos = getMicrosecondLength() / 1000L;
-                        setPosition(getMicrosecondLength() / 1000L);
-                        Debugger.warn("FAULT: Upper bound exceeded for parameter: " + millis + "(ms)");
-                    } else {
-                        milliPos = time;
-                        setPosition(time);
-                        Debugger.good("OK: Bound checked. Skipping: " + millis);
-                    }
+            if (open || playing) {
+                long time = getPosition() + millis;
+                Debugger.info("Vanilla Time Submission:" + millis + "\nTime Submission: " + time + "\nFor Pos: "
+                        + getPosition() + "\nFor Length: " + getMicrosecondLength() / 1000L + "\n"
+                        + TimeParser.fromMillis(millis) + "\nTime sub: " + TimeParser.fromMillis(time)
+                        + "\nCurrent Time"
+                        + TimeParser.fromMillis(getPosition()));
+                if (time < 0 || millis == -2) {
+                    setPosition(0);
+                    Debugger.warn("FAULT: Lower bound exceeded for parameter: " + millis + "(ms)");
+                } else if (time > getMicrosecondLength() / 1000L || millis == -1) {
+                    setPosition(getMicrosecondLength() / 1000L);
+                    Debugger.warn("FAULT: Upper bound exceeded for parameter: " + millis + "(ms)");
+                } else {
+                    setPosition(time);
+                    Debugger.good("OK: Bound checked. Skipping: " + millis);
                 }
             }
         } catch (Exception e) {
@@ -662,12 +994,10 @@ public class Tailwind implements Audio {
     @Override
     public void pause() {
         try {
-            if (isDefaultPipeline()) {
-                if (playing && !paused) {
-                    paused = true;
-                    playing = false;
-                    events.dispatchStatusEvent(TailwindStatus.PAUSED);
-                }
+            if (playing && !paused) {
+                paused = true;
+                playing = false;
+                events.dispatchStatusEvent(TailwindStatus.PAUSED);
             }
         } catch (Exception e) {
             events.dispatchStatusEvent(TailwindStatus.PAUSED);
@@ -677,16 +1007,14 @@ public class Tailwind implements Audio {
     @Override
     public void stop() {
         try {
-            if (isDefaultPipeline()) {
-                playing = false;
-                if (paused) {
-                    synchronized (referencable) {
-                        referencable.notifyAll();
-                    }
-                    paused = false;
+            playing = false;
+            if (paused) {
+                synchronized (referencable) {
+                    referencable.notifyAll();
                 }
-                setPosition(0);
+                paused = false;
             }
+            setPosition(0);
             events.dispatchStatusEvent(TailwindStatus.CLOSED);
         } catch (Exception e) {
             events.dispatchStatusEvent(TailwindStatus.PAUSED);
@@ -694,35 +1022,207 @@ public class Tailwind implements Audio {
     }
 
     /**
-     * @param frame
+     * Moves the stream to the given PCM frame.
+     * <p>
+     * The source of the stream repositions itself using the container
+     * (frame index, page granules or plain offsets) so only the frames between
+     * the closest seek point and the target are decoded. Whatever was
+     * already queued in the line is flushed so the jump is heard right away.
+     *
+     * @param frame The frame to jump to
      */
     public void setFramePosition(long frame) {
-        if (isDefaultPipeline()) {
+        if (source != null) {
             try {
-                if (playing)
-                    pause();
-
-                if (frame <= frameLength)
-                    reset();
-
-                byte[] buffer = new byte[ais.getFormat().getFrameSize()];
-                long curr = 0L;
-
-                while (curr < frame) {
-                    ais.read(buffer);
-                    curr++;
-                }
-                Debugger.warn("Skipped frames: " + curr);
-
-                if (paused) {
-                    resume();
+                frame = Math.max(0L, frameLength >= 0 ? Math.min(frame, frameLength) : frame);
+                synchronized (streamLock) {
+                    ais = source.seek(frame);
+                    generation++;
+                    dsp.reset();
+                    if (line != null) {
+                        line.flush();
+                    }
                 }
+                resetClock(frame);
+                Debugger.warn("Seeked to frame: " + frame);
             } catch (Exception e) {
                 handleException(e);
             }
         }
     }
 
+    /**
+     * Opens the given file ahead of time so that the pipeline can
+     * continue with it on the same line once the current stream ends,
+     * without any silence in between.
+     * <p>
+     * If the format of the file differs from the format the line was opened
+     * with, it is converted through a {@link TailwindFormatAdapter}.
+     * If no such conversion exists this method returns false and the caller
+     * should fall back to closing and opening.
+     *
+     * @param f The file to play next
+     * @return boolean (true || false) if the file was queued
+     * @since 3.4.1
+     */
+    public boolean queueNext(File f) {
+        if (!isOpen() || formatAudio == null) {
+            return false;
+        }
+        try {
+            TailwindSource next = sources.acquire(f);
+            if (!next.getFormat().matches(formatAudio)) {
+                if (!TailwindFormatAdapter.canAdapt(next.getFormat(), formatAudio)) {
+                    Debugger.warn("TailwindPlayer> No conversion for gapless: " + next.getFormat() + " -> "
+                            + formatAudio);
+                    sources.release(f, next);
+                    return false;
+                }
+                next = new TailwindFormatAdapter(next, formatAudio);
+            }
+            Track track = Track.of(f, next, formatAudio);
+            TailwindSource old;
+            Track oldTrack;
+            synchronized (streamLock) {
+                old = pendingSource;
+                oldTrack = pendingTrack;
+                pendingSource = next;
+                pendingTrack = track;
+            }
+            sources.release(oldTrack != null ? oldTrack.file() : null, old);
+            return true;
+        } catch (IOException e) {
+            ExternalResource.dispatchLog(e);
+            return false;
+        }
+    }
+
+    /**
+     * Drops the file queued by {@link #queueNext(File)} if there is one.
+     *
+     * @since 3.4.1
+     */
+    public void clearNext() {
+        TailwindSource old;
+        Track oldTrack;
+        synchronized (streamLock) {
+            old = pendingSource;
+            oldTrack = pendingTrack;
+            pendingSource = null;
+            pendingTrack = null;
+        }
+        sources.release(oldTrack != null ? oldTrack.file() : null, old);
+    }
+
+    /**
+     * @return boolean (true || false) if a file is queued to play next
+     * @since 3.4.1
+     */
+    public boolean hasNext() {
+        return pendingSource != null;
+    }
+
+    /**
+     * Swaps the finished stream for the queued one. This must be called
+     * while holding the stream lock.
+     *
+     * @return boolean (true || false) if there was a queued stream
+     */
+    private boolean advanceStream() {
+        if (pendingSource == null) {
+            return false;
+        }
+        Track last = advancedTrack;
+        sources.release(last != null ? last.file() : resource, source);
+        source = pendingSource;
+        ais = source.getStream();
+        advancedTrack = pendingTrack;
+        pendingSource = null;
+        pendingTrack = null;
+        return true;
+    }
+
+    /**
+     * @param s The source of the file
+     * @param f The file
+     * @return long The length in frames of the stream of the source, probed from
+     *         the headers of the file if the source does not know it, or -1
+     */
+    private static long lengthOf(TailwindSource s, File f) {
+        if (s.getFrameLength() >= 0) {
+            return s.getFrameLength();
+        }
+        AudioFormat fmt = s.getFormat();
+        if (s.getStream().getFrameLength() != AudioSystem.NOT_SPECIFIED) {
+            return s.getStream().getFrameLength();
+        }
+        long micros = TailwindDurationProbe.probeMicroseconds(f);
+        return micros >= 0 && fmt.getFrameRate() > 0 ? (long) (micros / 1000000D * fmt.getFrameRate()) : -1L;
+    }
+
+    /**
+     * Called by the render stage once the first frame of the queued stream
+     * is about to be heard.
+     */
+    private void advanceTrack() {
+        Track next = advancedTrack;
+        synchronized (streamLock) {
+            resource = next.file();
+            format = next.format();
+            frameLength = next.frameLength();
+            microsecondLength = next.microsecondLength();
+        }
+        // everything written so far belongs to the previous track
+        clockBase = -framesWritten.get();
+        lastClock = 0L;
+        Debugger.unsafeLog("TailwindPlayer> Gapless into: " + next.file().getAbsolutePath());
+        onAdvance(next.file());
+        // dispatching only queues the events, the render stage does not wait on listeners
+        events.dispatchStatusEvent(TailwindStatus.OPEN);
+        events.dispatchGenericEvent(new TailwindEvent(next.info()));
+        events.dispatchStatusEvent(TailwindStatus.PLAYING);
+    }
+
+    /**
+     * A queued file with everything the player shows about it, worked out
+     * when it is queued so the render stage only has to swap it in.
+     *
+     * @param file              The file
+     * @param format            Its file format
+     * @param frameLength       Its length in frames or -1
+     * @param microsecondLength Its length in microseconds
+     * @param info              Its tags
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    private record Track(File file, FileFormat format, long frameLength, long microsecondLength, AudioInfo info) {
+        /**
+         * @param f   The file
+         * @param s   Its source, already in the format of the line
+         * @param fmt The format of the stream that is playing
+         * @return Track
+         */
+        static Track of(File f, TailwindSource s, AudioFormat fmt) {
+            long frames = lengthOf(s, f);
+            AudioInfo info = AudioInfoCache.get(f);
+            long micros = frames >= 0 ? (long) (1000000 * (frames / fmt.getFrameRate()))
+                    : 1000000L * Integer.parseInt(
+                            Objects.requireNonNullElse(info.getTag(AudioInfo.KEY_MEDIA_DURATION), "0"));
+            return new Track(f, FileFormat.getFormatByName(f.getName()), frames, micros, info);
+        }
+    }
+
+    /**
+     * Called after the player moved on to a file that was queued with
+     * {@link #queueNext(File)}.
+     *
+     * @param f The file that is now playing
+     * @since 3.4.1
+     */
+    protected void onAdvance(File f) {
+        // for subclasses
+    }
+
     public void reset() {
         close();
         open(resource);
@@ -743,51 +1243,106 @@ public class Tailwind implements Audio {
      * in which Tailwind will default to, if some
      * native components for other streaming strategies
      * are unavaliable.
+     * <p>
+     * Decoding and rendering are split into two stages that
+     * share a {@link PCMRingBuffer}: the {@link DecodeStage} fills
+     * periods ahead of time while this stage writes whole periods to the line,
+     * so a slow read never directly starves the line.
      *
      * @author Jack Meng
      * @since 3.3
      */
     public class StandardPipeLine implements Runnable {
+        private final PipelineSession s;
+
+        /**
+         * @param s The session this pipeline belongs to, once it is stopped
+         *          the pipeline gives its thread back
+         */
+        public StandardPipeLine(PipelineSession s) {
+            this.s = s;
+        }
+
+        /**
+         * Hands a period of decoded PCM to the line.
+         *
+         * @param data The PCM data in the format of the stream
+         * @param len  The amount of valid bytes
+         */
+        protected void write(byte[] data, int len) {
+            line.write(data, 0, len);
+        }
 
         @Override
         public void run() {
+            s.begin();
+            try {
+                render();
+            } finally {
+                s.end();
+            }
+        }
+
+        private void render() {
             if (line != null) {
-                byte[] buffer = null;
-                int i;
-                if (!ExternalResource.pm.get(ProgramResourceManager.KEY_AUDIO_DEFAULT_BUFFER_SIZE).equals("auto")) {
-                    try {
-                        buffer = new byte[Integer
-                                .parseInt(
-                                        ExternalResource.pm.get(ProgramResourceManager.KEY_AUDIO_DEFAULT_BUFFER_SIZE))];
-                    } catch (Exception e) {
-                        new ErrorWindow(
-                                "<html><p>Failed to allocate the necessary amount to the buffer!<br>Do not modify the property (set to \"auto\") for buffer allocation<br>unless you know what you are doing!</p></html>")
-                                .run();
-                    }
-                } else {
-                    /*
-                     * int nb = TailwindTranscoder.normalize(formatAudio.getSampleSizeInBits());
-                     * float[] samples = new float[MAGIC_NUMBER * formatAudio.getChannels()];
-                     * long[] transfer = new long[samples.length];
-                     */
-                    buffer = new byte[ais.getFormat().getFrameSize()];
-                    Debugger.warn("Tailwind_buffer_size: " + buffer.length);
+                TailwindBufferConfig config;
+                try {
+                    config = TailwindBufferConfig.parse(
+                            ExternalResource.pm.get(ProgramResourceManager.KEY_AUDIO_DEFAULT_BUFFER_SIZE),
+                            formatAudio);
+                } catch (Exception e) {
+                    config = TailwindBufferConfig.auto(formatAudio);
+                    new ErrorWindow(
+                            "<html><p>Failed to allocate the necessary amount to the buffer!<br>Do not modify the property (set to \"auto\") for buffer allocation<br>unless you know what you are doing!</p></html>")
+                            .run();
                 }
+                Debugger.warn("Tailwind_buffer_size: " + config.period() + " x " + config.depth());
+                PCMRingBuffer ring = new PCMRingBuffer(config.depth(), config.period());
+                s.attach(ring);
+                s.enter();
+                worker.execute(new DecodeStage(ring, s));
                 line.start();
 
-                while (!worker.isShutdown()) {
+                while (!s.isStopped()) {
                     if (!paused) {
                         try {
                             if (isOpen()) {
-                                while (playing && !paused && isOpen() && (i = ais.read(buffer)) > -1) {
-                                    line.write(buffer, 0, i);
+                                while (playing && !paused && isOpen() && !s.isStopped()) {
+                                    int slot = ring.poll(5_000_000L);
+                                    if (slot < 0) {
+                                        continue;
+                                    }
+                                    int len = ring.length(slot);
+                                    if (len == PCMRingBuffer.TRACK_BOUNDARY) {
+                                        // the stream was swapped, even if a seek happened since
+                                        ring.release();
+                                        advanceTrack();
+                                        continue;
+                                    }
+                                    if (ring.generation(slot) != generation) {
+                                        // decoded before the last seek
+                                        ring.release();
+                                        continue;
+                                    }
+                                    if (len == PCMRingBuffer.END_OF_STREAM) {
+                                        ring.release();
+                                        break;
+                                    }
+                                    write(ring.data(slot), len);
+                                    tap.write(ring.data(slot), len);
+                                    if (ring.generation(slot) == generation) {
+                                        framesWritten.addAndGet(len / formatAudio.getFrameSize());
+                                    }
+                                    ring.release();
                                 }
                             }
-                            if (!paused) {
+                            if (!paused && !s.isStopped()) {
+                                ring.close();
+                                // let the tail end of the track play out before the line is stopped
+                                line.drain();
+                                s.stop();
                                 reset();
                                 playing = false;
-                                worker.shutdown();
-                                worker.awaitTermination(25L, TimeUnit.MILLISECONDS);
                                 events.dispatchStatusEvent(TailwindStatus.END);
                                 Debugger.warn("=========TailwindPlayer STOP=========\n");
                             }
@@ -795,10 +1350,10 @@ public class Tailwind implements Audio {
                             handleException(e);
                         }
                     } else {
-                        while (paused) {
+                        while (paused && !s.isStopped()) {
                             try {
                                 synchronized (referencable) {
-                                    referencable.wait();
+                                    referencable.wait(250L);
                                 }
                             } catch (InterruptedException e) {
                                 // IGNORE
@@ -806,23 +1361,215 @@ public class Tailwind implements Audio {
                         }
                     }
                 }
-
+                ring.close();
             }
         }
     }
 
     /**
-     * This is the secondary pipeline that is supplied when dealing with
+     * The first stage of the {@link StandardPipeLine} which decodes the
+     * stream into the periods of the ring buffer.
+     * <p>
+     * Every period is filled completely (except for the last one) so that
+     * the render stage only ever does period sized writes.
      *
      * @author Jack Meng
      * @since 3.4.1
      */
-    public class TritonusPipeline implements Runnable {
+    public class DecodeStage implements Runnable {
+        private final PCMRingBuffer ring;
+        private final PipelineSession owner;
+
+        /**
+         * @param ring  The ring to fill
+         * @param owner The session of the pipeline, once it is stopped this stage
+         *              stops
+         */
+        public DecodeStage(PCMRingBuffer ring, PipelineSession owner) {
+            this.ring = ring;
+            this.owner = owner;
+        }
 
         @Override
         public void run() {
+            owner.begin();
+            try {
+                decode();
+            } finally {
+                owner.end();
+            }
+        }
 
+        private void decode() {
+            while (!owner.isStopped() && !ring.isClosed()) {
+                byte[] slot = ring.claim();
+                if (slot == null) {
+                    break;
+                }
+                int n = 0, i = 0, gen;
+                synchronized (streamLock) {
+                    if (owner.isStopped()) {
+                        // the stream may already belong to someone else
+                        break;
+                    }
+                    gen = generation;
+                    try {
+                        while (n < slot.length && (i = ais.read(slot, n, slot.length - n)) > -1) {
+                            n += i;
+                        }
+                    } catch (Exception e) {
+                        // the stream was closed under us, treat it as the end
+                        i = -1;
+                    }
+                }
+                if (n > 0) {
+                    ring.publish(n, gen);
+                } else if (i < 0) {
+                    boolean advanced;
+                    synchronized (streamLock) {
+                        advanced = gen == generation && advanceStream();
+                    }
+                    if (advanced) {
+                        // keep going on the same line with the queued stream
+                        ring.publish(PCMRingBuffer.TRACK_BOUNDARY, gen);
+                        continue;
+                    }
+                    ring.publish(PCMRingBuffer.END_OF_STREAM, gen);
+                    // nothing left to do until someone seeks back
+                    while (gen == generation && !owner.isStopped() && !ring.isClosed()) {
+                        LockSupport.parkNanos(5_000_000L);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * One run of a pipeline from {@link #play()} until the stream ends
+     * or is closed. The pipeline threads outlive a session, so stopping a
+     * session is how they are told to let go of the current stream.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public static final class PipelineSession {
+        private volatile boolean stopped;
+        private volatile PCMRingBuffer ring;
+        private final Set<Thread> threads = new HashSet<>();
+        private int running;
+
+        /**
+         * Counts a stage in, called before the stage is handed to a thread.
+         */
+        synchronized void enter() {
+            running++;
+        }
+
+        /**
+         * Called by a stage on its own thread when it starts.
+         */
+        synchronized void begin() {
+            threads.add(Thread.currentThread());
+        }
+
+        /**
+         * Called by a stage on its own thread when it is done.
+         */
+        synchronized void end() {
+            threads.remove(Thread.currentThread());
+            running--;
+            notifyAll();
+        }
+
+        /**
+         * @param ring The ring the stages share, closed once the session stops
+         */
+        void attach(PCMRingBuffer ring) {
+            this.ring = ring;
+            if (stopped) {
+                ring.close();
+            }
+        }
+
+        public void stop() {
+            stopped = true;
+            PCMRingBuffer r = ring;
+            if (r != null) {
+                r.close();
+            }
         }
 
+        /**
+         * Waits for the stages of this session to finish, not counting the
+         * stage of the calling thread.
+         *
+         * @param millis The longest time to wait
+         * @return boolean If every other stage finished in time
+         */
+        public synchronized boolean await(long millis) {
+            long deadline = System.currentTimeMillis() + millis;
+            int self = threads.contains(Thread.currentThread()) ? 1 : 0;
+            while (running > self) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0L) {
+                    return false;
+                }
+                try {
+                    wait(left);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return boolean
+         */
+        public boolean isStopped() {
+            return stopped;
+        }
+    }
+
+    /**
+     * This is the secondary pipeline that is supplied when dealing with
+     * any processing of the audio itself.
+     * <p>
+     * Every period is unpacked once into a {@link FloatSampleBuffer}, run
+     * through the {@link TailwindDSPChain} (equalizer, balance/pan, gain,
+     * resampling) entirely in float and then packed once into the format of
+     * the line. As nothing here depends on line controls, gain, balance and pan
+     * work on any line.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public class TritonusPipeline extends StandardPipeLine {
+        private final FloatSampleBuffer samples = new FloatSampleBuffer();
+        private byte[] out = new byte[0];
+
+        /**
+         * @param s The session this pipeline belongs to
+         */
+        public TritonusPipeline(PipelineSession s) {
+            super(s);
+        }
+
+        /**
+         * @param data
+         * @param len
+         */
+        @Override
+        protected void write(byte[] data, int len) {
+            AudioFormat lineFormat = line.getFormat();
+            samples.initFromByteArray(data, 0, len, formatAudio, true);
+            dsp.process(samples);
+            int need = samples.getByteArrayBufferSize(lineFormat);
+            if (out.length < need) {
+                out = new byte[need];
+            }
+            line.write(out, 0, samples.convertToByteArray(out, 0, lineFormat));
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import org.tritonus.dsp.interfaces.FloatSampleProcessor;
+import org.tritonus.share.sampled.FloatSampleBuffer;
+
+/**
+ * Balance and pan done on the samples instead of through
+ * line controls, so it works on any line.
+ * <p>
+ * Balance attenuates the opposite channel, pan moves the signal between
+ * the two channels with a constant power law. Buffers with less than
+ * two channels are left alone.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class TailwindBalanceProcessor implements FloatSampleProcessor {
+    private volatile float balance, pan;
+
+    /**
+     * @param balance -1 (left) to 1 (right)
+     */
+    public void setBalance(float balance) {
+        this.balance = Math.max(-1F, Math.min(1F, balance));
+    }
+
+    /**
+     * @return float
+     */
+    public float getBalance() {
+        return balance;
+    }
+
+    /**
+     * @param pan -1 (left) to 1 (right)
+     */
+    public void setPan(float pan) {
+        this.pan = Math.max(-1F, Math.min(1F, pan));
+    }
+
+    /**
+     * @return float
+     */
+    public float getPan() {
+        return pan;
+    }
+
+    /**
+     * @param buffer
+     */
+    @Override
+    public void process(FloatSampleBuffer buffer) {
+        float b = balance, p = pan;
+        if (b == 0F && p == 0F || buffer.getChannelCount() < 2) {
+            return;
+        }
+        double angle = (p + 1D) * Math.PI / 4D;
+        // constant power pan, normalized so the center is unity
+        float left = (float) (Math.cos(angle) * Math.sqrt(2D)) * (b > 0F ? 1F - b : 1F);
+        float right = (float) (Math.sin(angle) * Math.sqrt(2D)) * (b < 0F ? 1F + b : 1F);
+        int n = buffer.getSampleCount();
+        float[] l = buffer.getChannel(0), r = buffer.getChannel(1);
+        for (int i = 0; i < n; i++) {
+            l[i] *= left;
+            r[i] *= right;
+        }
+    }
+}
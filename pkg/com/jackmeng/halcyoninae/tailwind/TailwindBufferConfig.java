@@ -0,0 +1,96 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * The shape of the ring buffer used by the standard pipeline,
+ * parsed from {@link com.jackmeng.halcyoninae.halcyon.utils.ProgramResourceManager#KEY_AUDIO_DEFAULT_BUFFER_SIZE}.
+ * <p>
+ * The property accepts:
+ * <ul>
+ * <li>{@code auto} - periods of about {@link #AUTO_PERIOD_MS} ms and a depth of
+ * {@link #AUTO_DEPTH}</li>
+ * <li>{@code <period>} - the size of a period in bytes with the default depth</li>
+ * <li>{@code <period>:<depth>} - the size of a period in bytes and the amount of
+ * periods</li>
+ * </ul>
+ * The period is always aligned to the frame size of the stream.
+ *
+ * @param period The size of a single write to the line in bytes
+ * @param depth  The amount of periods that are decoded ahead
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public record TailwindBufferConfig(int period, int depth) {
+    public static final int AUTO_PERIOD_MS = 20, AUTO_DEPTH = 8;
+
+    /**
+     * @param property The value of the property
+     * @param format   The format of the stream that is played
+     * @return TailwindBufferConfig
+     * @throws NumberFormatException If the property is not in one of the accepted
+     *                               forms
+     */
+    public static TailwindBufferConfig parse(String property, AudioFormat format) {
+        int frameSize = Math.max(1, format.getFrameSize());
+        if (property == null || property.isBlank() || property.trim().equalsIgnoreCase("auto")) {
+            return auto(format);
+        }
+        String[] parts = property.trim().split(":");
+        int period = Integer.parseInt(parts[0].trim());
+        int depth = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : AUTO_DEPTH;
+        if (period <= 0 || depth <= 0) {
+            throw new NumberFormatException("Buffer period and depth must be positive: " + property);
+        }
+        return new TailwindBufferConfig(Math.max(frameSize, period / frameSize * frameSize), Math.max(2, depth));
+    }
+
+    /**
+     * @param format The format of the stream that is played
+     * @return TailwindBufferConfig The default configuration for the format
+     */
+    public static TailwindBufferConfig auto(AudioFormat format) {
+        int frameSize = Math.max(1, format.getFrameSize());
+        float rate = format.getFrameRate() > 0 ? format.getFrameRate() : 44100F;
+        return new TailwindBufferConfig(Math.max(1, (int) (rate * AUTO_PERIOD_MS / 1000F)) * frameSize, AUTO_DEPTH);
+    }
+}
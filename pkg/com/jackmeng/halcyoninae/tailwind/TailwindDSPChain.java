@@ -0,0 +1,237 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import org.tritonus.dsp.interfaces.FloatSampleProcessor;
+import org.tritonus.share.sampled.FloatSampleBuffer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An ordered chain of {@link FloatSampleProcessor}s that the
+ * {@link Tailwind.TritonusPipeline} runs every buffer through.
+ * <p>
+ * Every stage is timed, so the cost of each stage can be looked at
+ * with {@link #getStages()} or {@link #report()} while audio is playing.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class TailwindDSPChain implements FloatSampleProcessor {
+    private final List<Stage> stages = new CopyOnWriteArrayList<>();
+
+    /**
+     * A processor that carries history from one buffer over to the next.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public interface Stateful {
+        /**
+         * Forgets the history, so the next buffer does not continue the last
+         * one. This may be called from any thread.
+         */
+        void reset();
+    }
+
+    /**
+     * A single named step of the chain and how much time it has used so far.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public static final class Stage {
+        private final String name;
+        private final FloatSampleProcessor processor;
+        private final AtomicLong nanos = new AtomicLong(), calls = new AtomicLong();
+        private volatile boolean enabled = true;
+
+        /**
+         * @param name      The name of the stage
+         * @param processor The processor to run
+         */
+        public Stage(String name, FloatSampleProcessor processor) {
+            this.name = name;
+            this.processor = processor;
+        }
+
+        /**
+         * @return String
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return FloatSampleProcessor
+         */
+        public FloatSampleProcessor getProcessor() {
+            return processor;
+        }
+
+        /**
+         * @return boolean
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * @param enabled
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return long The total time spent in this stage in nanoseconds
+         */
+        public long getTotalNanos() {
+            return nanos.get();
+        }
+
+        /**
+         * @return long The amount of buffers this stage processed
+         */
+        public long getCalls() {
+            return calls.get();
+        }
+
+        /**
+         * @return double The average time per buffer in nanoseconds
+         */
+        public double getAverageNanos() {
+            long c = calls.get();
+            return c == 0 ? 0D : nanos.get() / (double) c;
+        }
+
+        public void resetStats() {
+            nanos.set(0L);
+            calls.set(0L);
+        }
+    }
+
+    /**
+     * Appends a stage to the end of the chain.
+     *
+     * @param name      The name of the stage
+     * @param processor The processor to run
+     * @return Stage The stage that was added
+     */
+    public Stage add(String name, FloatSampleProcessor processor) {
+        Stage s = new Stage(name, processor);
+        stages.add(s);
+        return s;
+    }
+
+    /**
+     * @param name The name of the stage
+     * @return boolean (true || false) if a stage was removed
+     */
+    public boolean remove(String name) {
+        return stages.removeIf(x -> x.name.equals(name));
+    }
+
+    /**
+     * @param name The name of the stage
+     * @return Stage The stage or null if there is none with the name
+     */
+    public Stage get(String name) {
+        for (Stage s : stages) {
+            if (s.name.equals(name)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return List The stages in the order they are run
+     */
+    public List<Stage> getStages() {
+        return stages;
+    }
+
+    /**
+     * @param buffer
+     */
+    @Override
+    public void process(FloatSampleBuffer buffer) {
+        for (Stage s : stages) {
+            if (s.enabled) {
+                long t = System.nanoTime();
+                s.processor.process(buffer);
+                s.nanos.addAndGet(System.nanoTime() - t);
+                s.calls.incrementAndGet();
+            }
+        }
+    }
+
+    public void resetStats() {
+        stages.forEach(Stage::resetStats);
+    }
+
+    /**
+     * Resets every {@link Stateful} stage, for example after a seek or when a
+     * new track is opened.
+     */
+    public void reset() {
+        for (Stage s : stages) {
+            if (s.processor instanceof Stateful x) {
+                x.reset();
+            }
+        }
+    }
+
+    /**
+     * @return String A line per stage with its average cost per buffer
+     */
+    public String report() {
+        StringBuilder sb = new StringBuilder("TailwindDSPChain:");
+        for (Stage s : stages) {
+            sb.append("\n\t").append(s.name).append(s.enabled ? "" : " (disabled)").append(": ")
+                    .append(String.format("%.2f", s.getAverageNanos() / 1000D)).append("us/buffer over ")
+                    .append(s.getCalls()).append(" buffers");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import com.jackmeng.halcyoninae.halcyon.utils.Cacher;
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.ProgramResourceManager;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finds the length of an audio file from its headers alone, so
+ * that a file without duration metadata does not have to be decoded
+ * entirely just to know how long it is.
+ * <p>
+ * <ul>
+ * <li>WAV, AIFF, AU: the header or the size of the sample data</li>
+ * <li>MP3: the Xing/VBRI header or an estimate from the bitrate
+ * (see {@link MpegInfo#estimatePCMLength()})</li>
+ * <li>Ogg: the granule position of the last page</li>
+ * <li>FLAC: the total samples of the STREAMINFO block</li>
+ * </ul>
+ * Results are remembered in memory and in a file in the user folder,
+ * keyed by the path, size and modification time of the file. The file is
+ * appended to and rewritten from memory once most of its lines are
+ * replaced by later ones.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class TailwindDurationProbe {
+    public static String DURATION_CACHE_LOCALE = ProgramResourceManager.PROGRAM_RESOURCE_FOLDER
+            + ProgramResourceManager.FILE_SLASH
+            + ProgramResourceManager.RESOURCE_SUBFOLDERS[2] + ProgramResourceManager.FILE_SLASH
+            + "durations.halcyon";
+
+    /**
+     * A probed length.
+     *
+     * @param size     The size of the file when it was probed
+     * @param modified The modification time of the file when it was probed
+     * @param frames   The length in PCM frames
+     * @param rate     The sample rate
+     */
+    private record Entry(long size, long modified, long frames, float rate) {
+    }
+
+    private static final Map<String, Entry> cache = new ConcurrentHashMap<>();
+    private static volatile boolean loaded;
+    // lines in the cache file, guarded by the cache
+    private static int lines;
+
+    private TailwindDurationProbe() {
+    }
+
+    /**
+     * @param f The audio file
+     * @return long The length of the file in PCM frames or -1 if it could not be
+     *         found from the headers
+     */
+    public static long probeFrames(File f) {
+        Entry e = probe(f);
+        return e != null ? e.frames : -1L;
+    }
+
+    /**
+     * @param f The audio file
+     * @return long The length of the file in microseconds or -1 if it could not be
+     *         found from the headers
+     */
+    public static long probeMicroseconds(File f) {
+        Entry e = probe(f);
+        return e != null && e.rate > 0F ? (long) (e.frames * 1000000D / e.rate) : -1L;
+    }
+
+    /**
+     * @param f
+     * @return Entry The cached or newly probed length or null
+     */
+    private static Entry probe(File f) {
+        if (f == null || !f.isFile()) {
+            return null;
+        }
+        load();
+        String path = f.getAbsolutePath();
+        long size = f.length(), modified = f.lastModified();
+        Entry e = cache.get(path);
+        if (e != null && e.size == size && e.modified == modified) {
+            return e;
+        }
+        try {
+            e = read(f, size, modified);
+        } catch (Exception ex) {
+            Debugger.warn("TailwindDurationProbe> Could not probe: " + path + "\n" + ex.getLocalizedMessage());
+            e = null;
+        }
+        if (e != null) {
+            cache.put(path, e);
+            store(path, e);
+        }
+        return e;
+    }
+
+    /**
+     * @param f
+     * @param size
+     * @param modified
+     * @return Entry
+     * @throws Exception
+     */
+    private static Entry read(File f, long size, long modified) throws Exception {
+        FileFormat fmt = FileFormat.getFormatByName(f.getName());
+        if (fmt == null) {
+            return null;
+        }
+        switch (fmt) {
+            case MP3: {
+                MpegInfo info = new MpegInfo(f);
+                long raw = info.estimatePCMLength();
+                return raw < 0 ? null
+                        : new Entry(size, modified,
+                                Math.max(0L, raw - info.getLeadingTrim() - info.getTrailingTrim()),
+                                info.getSampleRate());
+            }
+            case OGG:
+            case FLAC: {
+                byte[] magic = new byte[4];
+                try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+                    raf.readFully(magic);
+                }
+                return magic[0] == 'O' && magic[1] == 'g' && magic[2] == 'g' && magic[3] == 'S'
+                        ? readOgg(f, size, modified)
+                        : readFlac(f, size, modified);
+            }
+            default: {
+                AudioFileFormat aff = AudioSystem.getAudioFileFormat(f);
+                long frames = aff.getFrameLength();
+                int frameSize = aff.getFormat().getFrameSize();
+                if (frames == AudioSystem.NOT_SPECIFIED && frameSize > 0) {
+                    long offset = PCMSource.locateData(f, fmt);
+                    frames = offset >= 0 ? (size - offset) / frameSize : -1L;
+                }
+                return frames < 0 ? null : new Entry(size, modified, frames, aff.getFormat().getFrameRate());
+            }
+        }
+    }
+
+    /**
+     * @param f
+     * @param size
+     * @param modified
+     * @return Entry
+     * @throws IOException
+     */
+    private static Entry readOgg(File f, long size, long modified) throws IOException {
+        OggLogicalStream stream = new OggLogicalStream(f);
+        try {
+            long granule = stream.getMaximumGranulePosition();
+            byte[] id = stream.getNextOggPacket();
+            float rate = -1F;
+            if (stream.getFormat().equals(OggLogicalStream.FORMAT_VORBIS) && id != null && id.length >= 16) {
+                // packet type, "vorbis", version (4), channels (1), sample rate (4, little endian)
+                rate = (id[12] & 0xFF) | (id[13] & 0xFF) << 8 | (id[14] & 0xFF) << 16 | (id[15] & 0xFF) << 24;
+            } else if (stream.getFormat().equals(OggLogicalStream.FORMAT_FLAC)) {
+                // "fLaC" on its own, then the STREAMINFO block as the next packet
+                byte[] info = stream.getNextOggPacket();
+                if (info != null && info.length >= 4 + 18) {
+                    rate = streamInfoRate(info, 4);
+                }
+            }
+            return granule < 0 || rate <= 0F ? null : new Entry(size, modified, granule, rate);
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * @param f
+     * @param size
+     * @param modified
+     * @return Entry
+     * @throws IOException
+     */
+    private static Entry readFlac(File f, long size, long modified) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            byte[] b = new byte[10];
+            raf.readFully(b);
+            long start = 0L;
+            if (b[0] == 'I' && b[1] == 'D' && b[2] == '3') {
+                start = 10L + ((b[6] & 0x7F) << 21 | (b[7] & 0x7F) << 14 | (b[8] & 0x7F) << 7 | (b[9] & 0x7F));
+            }
+            // "fLaC", the metadata block header (4) and STREAMINFO (34), which is always first
+            byte[] head = new byte[4 + 4 + 34];
+            raf.seek(start);
+            raf.readFully(head);
+            if (head[0] != 'f' || head[1] != 'L' || head[2] != 'a' || head[3] != 'C' || (head[4] & 0x7F) != 0) {
+                return null;
+            }
+            float rate = streamInfoRate(head, 8);
+            long total = ((head[8 + 13] & 0x0FL) << 32) | (head[8 + 14] & 0xFFL) << 24 | (head[8 + 15] & 0xFFL) << 16
+                    | (head[8 + 16] & 0xFFL) << 8 | (head[8 + 17] & 0xFFL);
+            // a total of 0 means the encoder did not know it
+            return total <= 0 || rate <= 0F ? null : new Entry(size, modified, total, rate);
+        }
+    }
+
+    /**
+     * @param b   The data
+     * @param off The start of the STREAMINFO block
+     * @return float The 20 bit sample rate
+     */
+    private static float streamInfoRate(byte[] b, int off) {
+        return (b[off + 10] & 0xFF) << 12 | (b[off + 11] & 0xFF) << 4 | (b[off + 12] & 0xF0) >>> 4;
+    }
+
+    /**
+     * Reads the cache file once. Later lines replace earlier ones
+     * for the same path.
+     */
+    private static void load() {
+        if (loaded) {
+            return;
+        }
+        synchronized (cache) {
+            if (loaded) {
+                return;
+            }
+            loaded = true;
+            File file = new File(DURATION_CACHE_LOCALE);
+            if (!file.isFile()) {
+                return;
+            }
+            try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    lines++;
+                    String[] parts = line.split("\t", 5);
+                    if (parts.length == 5) {
+                        try {
+                            cache.put(parts[4], new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]),
+                                    Long.parseLong(parts[2]), Float.parseFloat(parts[3])));
+                        } catch (NumberFormatException e) {
+                            // skip broken lines
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                Debugger.warn("TailwindDurationProbe> Could not read: " + file.getAbsolutePath());
+                return;
+            }
+            if (lines > 2 * cache.size() + 64) {
+                compact(file);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the cache file from memory, dropping the lines that were
+     * replaced. This must be called while holding the cache.
+     *
+     * @param file The cache file
+     */
+    private static void compact(File file) {
+        File temp = new File(file.getPath() + ".tmp");
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(temp))) {
+            for (Map.Entry<String, Entry> e : cache.entrySet()) {
+                bw.write(line(e.getKey(), e.getValue()));
+            }
+        } catch (IOException ex) {
+            Debugger.warn("TailwindDurationProbe> Could not write: " + temp.getAbsolutePath());
+            return;
+        }
+        try {
+            Cacher.replace(temp, file);
+            Debugger.info("TailwindDurationProbe> Compacted " + lines + " lines to " + cache.size());
+            lines = cache.size();
+        } catch (IOException ex) {
+            Debugger.warn("TailwindDurationProbe> Could not replace: " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * @param path
+     * @param e
+     * @return String The line of the entry in the cache file
+     */
+    private static String line(String path, Entry e) {
+        return e.size + "\t" + e.modified + "\t" + e.frames + "\t" + e.rate + "\t" + path + System.lineSeparator();
+    }
+
+    /**
+     * Appends an entry to the cache file, or rewrites it if it holds too many
+     * replaced lines.
+     *
+     * @param path
+     * @param e
+     */
+    private static void store(String path, Entry e) {
+        File file = new File(DURATION_CACHE_LOCALE);
+        if (file.getParentFile() == null || !file.getParentFile().isDirectory()) {
+            return;
+        }
+        synchronized (cache) {
+            if (++lines > 2 * cache.size() + 64) {
+                compact(file);
+                return;
+            }
+            try (FileWriter fw = new FileWriter(file, true)) {
+                fw.write(line(path, e));
+            } catch (IOException ex) {
+                Debugger.warn("TailwindDurationProbe> Could not write: " + file.getAbsolutePath());
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import org.tritonus.dsp.interfaces.FloatSampleProcessor;
+import org.tritonus.share.sampled.FloatSampleBuffer;
+
+/**
+ * A graphic equalizer made out of peaking biquad filters
+ * (one per band, see the RBJ Audio EQ Cookbook) that runs in place on
+ * float samples.
+ * <p>
+ * Bands with a gain of 0 dB are skipped entirely, so a flat equalizer
+ * costs nothing.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class TailwindEqualizer implements FloatSampleProcessor, TailwindDSPChain.Stateful {
+    /**
+     * The default center frequencies of the bands in Hz
+     */
+    public static final float[] DEFAULT_BANDS = { 60F, 170F, 310F, 600F, 1000F, 3000F, 6000F, 12000F, 14000F,
+            16000F };
+    /**
+     * The bandwidth (Q) used for every band
+     */
+    public static final float Q = 1.41F;
+    private final float[] frequencies, gains;
+    // b0, b1, b2, a1, a2 per band or null for a flat band, replaced whole and never changed
+    private volatile double[][] coefficients;
+    // x1, x2, y1, y2 per channel per band
+    private double[][][] state = new double[0][][];
+    private volatile float sampleRate;
+    private volatile boolean dirty = true, reset;
+
+    public TailwindEqualizer() {
+        this(DEFAULT_BANDS);
+    }
+
+    /**
+     * @param frequencies The center frequency of every band in Hz
+     */
+    public TailwindEqualizer(float[] frequencies) {
+        this.frequencies = frequencies.clone();
+        this.gains = new float[frequencies.length];
+        this.coefficients = new double[frequencies.length][];
+    }
+
+    /**
+     * @return int The amount of bands
+     */
+    public int getBandCount() {
+        return frequencies.length;
+    }
+
+    /**
+     * @param band The index of the band
+     * @return float The center frequency of the band in Hz
+     */
+    public float getFrequency(int band) {
+        return frequencies[band];
+    }
+
+    /**
+     * @param band The index of the band
+     * @return float The gain of the band in dB
+     */
+    public synchronized float getGain(int band) {
+        return gains[band];
+    }
+
+    /**
+     * @param band The index of the band
+     * @param db   The gain of the band in dB (clamped to +-24 dB)
+     */
+    public synchronized void setGain(int band, float db) {
+        gains[band] = Math.max(-24F, Math.min(24F, db));
+        dirty = true;
+    }
+
+    public synchronized void flatten() {
+        java.util.Arrays.fill(gains, 0F);
+        dirty = true;
+    }
+
+    /**
+     * Forgets the history of the filters, for example after a seek. It is
+     * dropped by the thread that processes before the next buffer.
+     */
+    @Override
+    public void reset() {
+        reset = true;
+    }
+
+    /**
+     * Recomputes the coefficients of every band for the given sample rate and
+     * publishes them as a new array.
+     *
+     * @param rate
+     * @return double[][] The new coefficients
+     */
+    private synchronized double[][] design(float rate) {
+        dirty = false;
+        double[][] next = new double[frequencies.length][];
+        for (int i = 0; i < frequencies.length; i++) {
+            if (gains[i] == 0F || frequencies[i] >= rate / 2F) {
+                continue;
+            }
+            double[] c = next[i] = new double[5];
+            double a = Math.pow(10D, gains[i] / 40D);
+            double w0 = 2D * Math.PI * frequencies[i] / rate;
+            double alpha = Math.sin(w0) / (2D * Q);
+            double cos = Math.cos(w0);
+            double a0 = 1D + alpha / a;
+            c[0] = (1D + alpha * a) / a0;
+            c[1] = (-2D * cos) / a0;
+            c[2] = (1D - alpha * a) / a0;
+            c[3] = (-2D * cos) / a0;
+            c[4] = (1D - alpha / a) / a0;
+        }
+        coefficients = next;
+        sampleRate = rate;
+        return next;
+    }
+
+    /**
+     * @param buffer
+     */
+    @Override
+    public void process(FloatSampleBuffer buffer) {
+        double[][] coeffs = dirty || buffer.getSampleRate() != sampleRate ? design(buffer.getSampleRate())
+                : coefficients;
+        int channels = buffer.getChannelCount(), n = buffer.getSampleCount();
+        if (state.length != channels) {
+            state = new double[channels][frequencies.length][4];
+        } else if (reset) {
+            for (double[][] ch : state) {
+                for (double[] st : ch) {
+                    java.util.Arrays.fill(st, 0D);
+                }
+            }
+        }
+        reset = false;
+        for (int b = 0; b < frequencies.length; b++) {
+            double[] c = coeffs[b];
+            if (c == null) {
+                continue;
+            }
+            double b0 = c[0], b1 = c[1], b2 = c[2], a1 = c[3], a2 = c[4];
+            for (int ch = 0; ch < channels; ch++) {
+                float[] x = buffer.getChannel(ch);
+                double[] st = state[ch][b];
+                double x1 = st[0], x2 = st[1], y1 = st[2], y2 = st[3];
+                for (int i = 0; i < n; i++) {
+                    double in = x[i];
+                    double out = b0 * in + b1 * x1 + b2 * x2 - a1 * y1 - a2 * y2;
+                    x2 = x1;
+                    x1 = in;
+                    y2 = y1;
+                    y1 = out;
+                    x[i] = (float) out;
+                }
+                st[0] = x1;
+                st[1] = x2;
+                st[2] = y1;
+                st[3] = y2;
+            }
+        }
+    }
+}
@@ -39,30 +39,216 @@
 
 package com.jackmeng.halcyoninae.tailwind;
 
-import com.jackmeng.halcyoninae.halcyon.utils.Wrapper;
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
 import com.jackmeng.halcyoninae.tailwind.TailwindEvent.TailwindStatus;
 
+import java.awt.EventQueue;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A global scoped targeted towards managing multiple
  * Listeners for the BigContainer player all at the same time without
  * having to hold multiple Lists directly.
+ * <p>
+ * 3.4.1 : Dispatching only queues the event and returns, listeners are
+ * called later on the thread their {@link Delivery} picks. Status and
+ * generic events are all delivered in order, time and buffer events only keep
+ * the latest one so a slow listener skips updates instead of falling behind.
  *
  * @author Jack Meng
  * @since 3.1
  */
 public class TailwindEventManager {
-    private final List<TailwindListener.TimeUpdateListener> timeListeners;
-    private final List<TailwindListener.StatusUpdateListener> statusUpdateListeners;
-    private final List<TailwindListener.GenericUpdateListener> genericUpdateListeners;
-    private TailwindListener.FrameBufferListener bufferListener;
+    /**
+     * Where a listener is called.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public enum Delivery {
+        /**
+         * On the thread shared by every listener added this way, in the order
+         * they were added
+         */
+        SHARED,
+        /**
+         * On a thread of its own
+         */
+        THREAD,
+        /**
+         * On the Event Dispatch Thread
+         */
+        EDT
+    }
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final AtomicInteger threads = new AtomicInteger();
+
+    /**
+     * The listeners that are called from the same place and what is waiting
+     * for them.
+     */
+    private static final class Lane implements Runnable {
+        final List<TailwindListener.TimeUpdateListener> time = new CopyOnWriteArrayList<>();
+        final List<TailwindListener.StatusUpdateListener> status = new CopyOnWriteArrayList<>();
+        final List<TailwindListener.GenericUpdateListener> generic = new CopyOnWriteArrayList<>();
+        final List<TailwindListener.FrameBufferListener> buffer = new CopyOnWriteArrayList<>();
+        final ConcurrentLinkedQueue<Object> events = new ConcurrentLinkedQueue<>();
+        final AtomicLong pendingTime = new AtomicLong(NO_TIME);
+        final AtomicReference<byte[]> pendingBuffer = new AtomicReference<>();
+        final AtomicBoolean scheduled = new AtomicBoolean();
+        final Delivery delivery;
+        final Executor executor;
+
+        Lane(Delivery delivery) {
+            this.delivery = delivery;
+            if (delivery == Delivery.EDT) {
+                executor = EventQueue::invokeLater;
+            } else {
+                executor = Executors.newSingleThreadExecutor(r -> {
+                    Thread t = new Thread(r, "Tailwind Events " + threads.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+            }
+        }
+
+        /**
+         * @return boolean If no listener is left
+         */
+        boolean isEmpty() {
+            return time.isEmpty() && status.isEmpty() && generic.isEmpty() && buffer.isEmpty();
+        }
+
+        /**
+         * @param e A TailwindStatus or a TailwindEvent
+         */
+        void post(Object e) {
+            events.add(e);
+            wake();
+        }
+
+        void postTime(long t) {
+            if (!time.isEmpty()) {
+                pendingTime.set(t);
+                wake();
+            }
+        }
+
+        void postBuffer(byte[] b) {
+            if (!buffer.isEmpty()) {
+                pendingBuffer.set(b);
+                wake();
+            }
+        }
+
+        private void wake() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            // cleared first, so whatever is posted while draining schedules another run
+            scheduled.set(false);
+            Object e;
+            while ((e = events.poll()) != null) {
+                if (e instanceof TailwindStatus s) {
+                    for (TailwindListener.StatusUpdateListener l : status) {
+                        call(() -> l.statusUpdate(s));
+                    }
+                } else if (e instanceof TailwindEvent g) {
+                    for (TailwindListener.GenericUpdateListener l : generic) {
+                        call(() -> l.genericUpdate(g));
+                    }
+                }
+            }
+            long t = pendingTime.getAndSet(NO_TIME);
+            if (t != NO_TIME) {
+                for (TailwindListener.TimeUpdateListener l : time) {
+                    call(() -> l.trackCurrentTime(t));
+                }
+            }
+            byte[] b = pendingBuffer.getAndSet(null);
+            if (b != null) {
+                for (TailwindListener.FrameBufferListener l : buffer) {
+                    call(() -> l.frameUpdate(b));
+                }
+            }
+        }
+
+        /**
+         * @param r A listener call, whatever it throws stays with it
+         */
+        private static void call(Runnable r) {
+            try {
+                r.run();
+            } catch (RuntimeException ex) {
+                Debugger.log(ex);
+            }
+        }
+
+        void shutdown() {
+            if (executor instanceof ExecutorService es) {
+                es.shutdown();
+            }
+        }
+    }
+
+    private final List<Lane> lanes = new CopyOnWriteArrayList<>();
+    private final Lane shared, edt;
 
     public TailwindEventManager() {
-        timeListeners = new ArrayList<>();
-        statusUpdateListeners = new ArrayList<>();
-        genericUpdateListeners = new ArrayList<>();
+        shared = new Lane(Delivery.SHARED);
+        edt = new Lane(Delivery.EDT);
+        lanes.add(shared);
+        lanes.add(edt);
+    }
+
+    /**
+     * @param d
+     * @return Lane The lane a new listener with the delivery goes to
+     */
+    private Lane lane(Delivery d) {
+        return switch (d) {
+            case SHARED -> shared;
+            case EDT -> edt;
+            case THREAD -> {
+                Lane l = new Lane(Delivery.THREAD);
+                lanes.add(l);
+                yield l;
+            }
+        };
+    }
+
+    /**
+     * Removes a listener from every lane, shutting down the threads that
+     * have nobody left to call.
+     *
+     * @param e The listener
+     * @return boolean If the listener was found
+     */
+    public boolean removeListener(Object e) {
+        boolean found = false;
+        for (Lane l : lanes) {
+            found |= l.time.remove(e) | l.status.remove(e) | l.generic.remove(e) | l.buffer.remove(e);
+            if (l.delivery == Delivery.THREAD && l.isEmpty()) {
+                lanes.remove(l);
+                l.shutdown();
+            }
+        }
+        return found;
     }
 
     /**
@@ -70,7 +256,17 @@ public class TailwindEventManager {
      * @return boolean
      */
     public boolean addTimeListener(TailwindListener.TimeUpdateListener e) {
-        return timeListeners.add(e);
+        return addTimeListener(e, Delivery.SHARED);
+    }
+
+    /**
+     * @param e        The listener
+     * @param delivery Where it is called
+     * @return boolean
+     * @since 3.4.1
+     */
+    public boolean addTimeListener(TailwindListener.TimeUpdateListener e, Delivery delivery) {
+        return lane(delivery).time.add(e);
     }
 
     /**
@@ -78,7 +274,17 @@ public class TailwindEventManager {
      * @return boolean
      */
     public boolean addStatusUpdateListener(TailwindListener.StatusUpdateListener e) {
-        return statusUpdateListeners.add(e);
+        return addStatusUpdateListener(e, Delivery.SHARED);
+    }
+
+    /**
+     * @param e        The listener
+     * @param delivery Where it is called
+     * @return boolean
+     * @since 3.4.1
+     */
+    public boolean addStatusUpdateListener(TailwindListener.StatusUpdateListener e, Delivery delivery) {
+        return lane(delivery).status.add(e);
     }
 
     /**
@@ -86,79 +292,113 @@ public class TailwindEventManager {
      * @return boolean
      */
     public boolean addGenericUpdateListener(TailwindListener.GenericUpdateListener e) {
-        return genericUpdateListeners.add(e);
+        return addGenericUpdateListener(e, Delivery.SHARED);
+    }
+
+    /**
+     * @param e        The listener
+     * @param delivery Where it is called
+     * @return boolean
+     * @since 3.4.1
+     */
+    public boolean addGenericUpdateListener(TailwindListener.GenericUpdateListener e, Delivery delivery) {
+        return lane(delivery).generic.add(e);
     }
 
     /**
      * @param e
      */
     public void addFrameBufferListener(TailwindListener.FrameBufferListener e) {
-        this.bufferListener = e;
+        addFrameBufferListener(e, Delivery.THREAD);
+    }
+
+    /**
+     * @param e        The listener
+     * @param delivery Where it is called
+     * @since 3.4.1
+     */
+    public void addFrameBufferListener(TailwindListener.FrameBufferListener e, Delivery delivery) {
+        lane(delivery).buffer.add(e);
     }
 
     /**
-     * @return e
+     * @return e A copy of the time listeners
      */
     public List<TailwindListener.TimeUpdateListener> getTimeListeners() {
-        return timeListeners;
+        List<TailwindListener.TimeUpdateListener> all = new ArrayList<>();
+        lanes.forEach(l -> all.addAll(l.time));
+        return all;
     }
 
     /**
-     * @return e
+     * @return e A copy of the status listeners
      */
     public List<TailwindListener.StatusUpdateListener> getStatusUpdateListeners() {
-        return statusUpdateListeners;
+        List<TailwindListener.StatusUpdateListener> all = new ArrayList<>();
+        lanes.forEach(l -> all.addAll(l.status));
+        return all;
     }
 
     /**
-     * @return e
+     * @return e A copy of the generic listeners
      */
     public List<TailwindListener.GenericUpdateListener> getGenericUpdateListeners() {
-        return genericUpdateListeners;
+        List<TailwindListener.GenericUpdateListener> all = new ArrayList<>();
+        lanes.forEach(l -> all.addAll(l.generic));
+        return all;
     }
 
     /**
-     * @return e
+     * @return e A copy of the buffer listeners
      */
-    public TailwindListener.FrameBufferListener getFrameBufferListeners() {
-        return bufferListener;
+    public List<TailwindListener.FrameBufferListener> getFrameBufferListeners() {
+        List<TailwindListener.FrameBufferListener> all = new ArrayList<>();
+        lanes.forEach(l -> all.addAll(l.buffer));
+        return all;
     }
 
     /**
+     * Only the latest time is delivered to a listener that is still busy.
+     *
      * @param time
      */
-    public synchronized void dispatchTimeEvent(long time) {
-        for (TailwindListener.TimeUpdateListener e : timeListeners) {
-            e.trackCurrentTime(time);
+    public void dispatchTimeEvent(long time) {
+        for (Lane l : lanes) {
+            l.postTime(time);
         }
-
     }
 
     /**
      * @param status
      */
-    public synchronized void dispatchStatusEvent(TailwindStatus status) {
-        for (TailwindListener.StatusUpdateListener e : statusUpdateListeners) {
-            e.statusUpdate(status);
+    public void dispatchStatusEvent(TailwindStatus status) {
+        for (Lane l : lanes) {
+            if (!l.status.isEmpty()) {
+                l.post(status);
+            }
         }
-
     }
 
     /**
      * @param event
      */
-    public synchronized void dispatchGenericEvent(TailwindEvent event) {
-        for (TailwindListener.GenericUpdateListener e : genericUpdateListeners) {
-            e.genericUpdate(event);
+    public void dispatchGenericEvent(TailwindEvent event) {
+        for (Lane l : lanes) {
+            if (!l.generic.isEmpty()) {
+                l.post(event);
+            }
         }
     }
 
     /**
+     * Only the latest buffer is delivered to a listener that is still busy.
+     * The array is handed over as is, so it must not be written to afterwards.
+     *
      * @param samples
-     * @param s_
      */
-    public synchronized void dispatchNewBufferEvent(byte[] samples) {
-        Wrapper.threadedRun(() -> bufferListener.frameUpdate(samples));
+    public void dispatchNewBufferEvent(byte[] samples) {
+        for (Lane l : lanes) {
+            l.postBuffer(samples);
+        }
     }
-
 }
@@ -0,0 +1,131 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+/**
+ * A real FFT of a fixed size. The input is packed into a complex FFT of
+ * half the size and split afterwards, the bit reversal and all twiddle
+ * factors are computed once here so transforming allocates nothing.
+ * <p>
+ * An instance owns its work arrays and is not thread safe.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class TailwindFFT {
+    private final int n, m;
+    private final int[] reverse;
+    private final float[] cos, sin, splitCos, splitSin, re, im;
+
+    /**
+     * @param n The size of the transform, a power of two of at least 4
+     */
+    public TailwindFFT(int n) {
+        if (n < 4 || Integer.bitCount(n) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two >= 4: " + n);
+        }
+        this.n = n;
+        this.m = n / 2;
+        int bits = Integer.numberOfTrailingZeros(m);
+        reverse = new int[m];
+        for (int i = 0; i < m; i++) {
+            reverse[i] = bits == 0 ? 0 : Integer.reverse(i) >>> (32 - bits);
+        }
+        cos = new float[m / 2];
+        sin = new float[m / 2];
+        for (int i = 0; i < m / 2; i++) {
+            cos[i] = (float) Math.cos(2 * Math.PI * i / m);
+            sin[i] = (float) Math.sin(2 * Math.PI * i / m);
+        }
+        splitCos = new float[m + 1];
+        splitSin = new float[m + 1];
+        for (int k = 0; k <= m; k++) {
+            splitCos[k] = (float) Math.cos(2 * Math.PI * k / n);
+            splitSin[k] = (float) Math.sin(2 * Math.PI * k / n);
+        }
+        re = new float[m];
+        im = new float[m];
+    }
+
+    /**
+     * @return int The size of the transform
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Computes the magnitudes of the bins 0 (DC) through n / 2 (Nyquist).
+     *
+     * @param in  n real samples, left untouched
+     * @param out At least n / 2 + 1 magnitudes
+     */
+    public void magnitudes(float[] in, float[] out) {
+        for (int i = 0; i < m; i++) {
+            int r = reverse[i];
+            re[r] = in[2 * i];
+            im[r] = in[2 * i + 1];
+        }
+        for (int size = 2; size <= m; size <<= 1) {
+            int half = size >> 1, step = m / size;
+            for (int start = 0; start < m; start += size) {
+                for (int j = 0, t = 0; j < half; j++, t += step) {
+                    int a = start + j, b = a + half;
+                    float wr = cos[t], wi = -sin[t];
+                    float xr = re[b] * wr - im[b] * wi, xi = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - xr;
+                    im[b] = im[a] - xi;
+                    re[a] += xr;
+                    im[a] += xi;
+                }
+            }
+        }
+        // split the packed transform into the spectrum of the real input
+        for (int k = 0; k <= m; k++) {
+            int p = k == m ? 0 : k, q = k == 0 ? 0 : m - k;
+            float a = re[p], b = im[p], c = re[q], d = im[q];
+            float er = (a + c) * 0.5F, ei = (b - d) * 0.5F;
+            float or = (b + d) * 0.5F, oi = (c - a) * 0.5F;
+            float wr = splitCos[k], wi = -splitSin[k];
+            float xr = er + or * wr - oi * wi, xi = ei + or * wi + oi * wr;
+            out[k] = (float) Math.sqrt(xr * xr + xi * xi);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.IOException;
+
+/**
+ * Converts the PCM of another source into a fixed target format
+ * using the format conversion providers of {@link AudioSystem}.
+ * <p>
+ * This is used to feed a track into a line that was opened for a different
+ * format (sample rate, size, channels or endianness) without
+ * reopening the line.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class TailwindFormatAdapter implements TailwindSource {
+    private final TailwindSource base;
+    private final AudioFormat target;
+    private AudioInputStream ais;
+
+    /**
+     * @param base   The source to convert
+     * @param target The format to convert to
+     * @throws IOException If there is no conversion from the source format to the target
+     */
+    public TailwindFormatAdapter(TailwindSource base, AudioFormat target) throws IOException {
+        this.base = base;
+        this.target = target;
+        this.ais = convert(base.getStream());
+    }
+
+    /**
+     * @param from The source format
+     * @param to   The target format
+     * @return boolean If a conversion between the two exists
+     */
+    public static boolean canAdapt(AudioFormat from, AudioFormat to) {
+        return from.matches(to) || AudioSystem.isConversionSupported(to, from);
+    }
+
+    /**
+     * @param in
+     * @return AudioInputStream
+     * @throws IOException
+     */
+    private AudioInputStream convert(AudioInputStream in) throws IOException {
+        try {
+            return AudioSystem.getAudioInputStream(target, in);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * @return double The amount of target frames per source frame
+     */
+    private double ratio() {
+        return base.getFormat().getFrameRate() > 0 ? target.getFrameRate() / base.getFormat().getFrameRate() : 1D;
+    }
+
+    /**
+     * @return AudioInputStream
+     */
+    @Override
+    public AudioInputStream getStream() {
+        return ais;
+    }
+
+    /**
+     * @return AudioFormat
+     */
+    @Override
+    public AudioFormat getFormat() {
+        return target;
+    }
+
+    /**
+     * @return long
+     */
+    @Override
+    public long getFrameLength() {
+        return base.getFrameLength() < 0 ? -1L : (long) (base.getFrameLength() * ratio());
+    }
+
+    /**
+     * @return boolean
+     */
+    @Override
+    public boolean isSeekable() {
+        return base.isSeekable();
+    }
+
+    /**
+     * @param frame
+     * @return AudioInputStream
+     * @throws IOException
+     */
+    @Override
+    public AudioInputStream seek(long frame) throws IOException {
+        ais = convert(base.seek((long) (frame / ratio())));
+        return ais;
+    }
+
+    /**
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        base.close();
+    }
+}
@@ -47,7 +47,10 @@ import de.jarnbjo.vorbis.VorbisStream;
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+
 import java.io.File;
+import java.io.IOException;
 import java.net.URL;
 
 /**
@@ -106,6 +109,44 @@ public final class TailwindHelper {
         return null;
     }
 
+    /**
+     * Picks the seekable source that fits the container of the file.
+     * <p>
+     * If the container aware source fails to read the file, this falls back
+     * to a {@link LinearSource} which behaves like {@link #getAudioIS(URL)}.
+     *
+     * @param f The file to open
+     * @return TailwindSource A source for the file
+     * @throws IOException If not even the fallback could open the file
+     * @since 3.4.1
+     */
+    public static TailwindSource getSource(File f) throws IOException {
+        FileFormat target = FileFormat.getFormatByName(f.getName());
+        try {
+            if (target != null) {
+                switch (target) {
+                    case MP3:
+                        return new MpegSource(f);
+                    case WAV:
+                    case AIFF:
+                    case AIFC:
+                    case AU:
+                    case SND:
+                        return new PCMSource(f);
+                    case OGG:
+                    case FLAC:
+                        return new OggSource(f);
+                    default:
+                        break;
+                }
+            }
+        } catch (Exception e) {
+            Debugger.warn("TailwindHelper> No seekable source for: " + f.getAbsolutePath() + "\n"
+                    + e.getLocalizedMessage());
+        }
+        return new LinearSource(f);
+    }
+
     /**
      * This writes an AudioInfo's properties to a file.
      * <p>
@@ -107,4 +107,20 @@ public final class TailwindListener {
          */
         void frameUpdate(byte[] samples);
     }
+
+    /**
+     * A listener that gets the levels of the frequency bands of what is
+     * being played, see {@link TailwindSpectrum}.
+     *
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public interface SpectrumListener {
+        /**
+         * @param bands The level of each band from low to high frequencies in
+         *              the range [0, 1]; the array is reused for the next
+         *              update so it must be copied to be kept
+         */
+        void spectrumUpdate(float[] bands);
+    }
 }
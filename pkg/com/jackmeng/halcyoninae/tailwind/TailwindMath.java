@@ -40,6 +40,7 @@
 package com.jackmeng.halcyoninae.tailwind;
 
 import javax.sound.sampled.AudioFormat;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class handles all mathematics related functions
@@ -50,6 +51,10 @@ import javax.sound.sampled.AudioFormat;
  * @since 3.4.1
  */
 public final class TailwindMath {
+    private static final float S8 = 1F / 128F, S16 = 1F / 32768F, S24 = 1F / 8388608F, S32 = 1F / 2147483648F;
+    private static final ConcurrentHashMap<Integer, float[]> windows = new ConcurrentHashMap<>();
+    // the table of the last length used, so the audio thread does not box a key per call
+    private static volatile float[] lastWindow = new float[0];
 
     private TailwindMath() {}
 
@@ -143,65 +148,424 @@ public final class TailwindMath {
     }
 
     /**
-     * @param buffer
-     * @param transfer
-     * @param cum
-     * @param b_
-     * @param format
-     * @return float[]
+     * Unpacks PCM into floats in the range [-1, 1) using the kernel for the
+     * format. Nothing is allocated: {@code out} must hold at least
+     * {@code len / sampleBytes} samples.
+     *
+     * @param in     PCM data
+     * @param off    Offset into the PCM data
+     * @param len    The amount of bytes to unpack
+     * @param out    The samples, interleaved like the PCM data
+     * @param outOff Offset into the samples
+     * @param format The format of the PCM data
+     * @return int The amount of samples written or -1 if the format is not linear
+     *         PCM
      */
-    public static float[] f_unpack(byte[] buffer, long[] transfer, float[] cum, int b_, AudioFormat format) {
-        if (format.getEncoding() != AudioFormat.Encoding.PCM_SIGNED && format.getEncoding() != AudioFormat.Encoding.PCM_UNSIGNED) {
-            return cum;
-        }
-        int bps = format.getSampleSizeInBits();
-        int nb = normalize(bps);
-
-        if (format.isBigEndian()) {
-            for (int i = 0, k = 0, j; i < b_; i += nb, k++) {
-                transfer[k] = 0L;
-                int minima = i + nb - 1;
-                for (j = 0; j < nb; j++) {
-                    transfer[k] |= (buffer[minima - j] & 0xFFL) << (8 * j);
+    public static int unpack(byte[] in, int off, int len, float[] out, int outOff, AudioFormat format) {
+        int bits = format.getSampleSizeInBits(), n = len / normalize(bits);
+        boolean be = format.isBigEndian();
+        if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED) {
+            switch (bits) {
+                case 8 -> unpack_s8(in, off, out, outOff, n);
+                case 16 -> {
+                    if (be)
+                        unpack_s16be(in, off, out, outOff, n);
+                    else
+                        unpack_s16le(in, off, out, outOff, n);
                 }
-            }
-        } else {
-            for (int i = 0, k = 0, j; i < b_; i += nb, k++) {
-                transfer[k] = 0L;
-                for (j = 0; j < nb; j++) {
-                    transfer[k] |= (buffer[i + j] & 0xFFL) << (8 * j);
+                case 24 -> {
+                    if (be)
+                        unpack_s24be(in, off, out, outOff, n);
+                    else
+                        unpack_s24le(in, off, out, outOff, n);
+                }
+                case 32 -> {
+                    if (be)
+                        unpack_s32be(in, off, out, outOff, n);
+                    else
+                        unpack_s32le(in, off, out, outOff, n);
+                }
+                default -> {
+                    return unpack_generic(in, off, n, out, outOff, format);
                 }
             }
+            return n;
+        } else if (format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED) {
+            if (bits == 8) {
+                unpack_u8(in, off, out, outOff, n);
+                return n;
+            }
+            return unpack_generic(in, off, n, out, outOff, format);
         }
-        long scale = (long) Math.pow(2L, bps - 1d);
+        return -1;
+    }
+
+    /**
+     * Packs floats in the range [-1, 1] into PCM using the kernel for the
+     * format. Values out of range are clipped. Nothing is allocated:
+     * {@code out} must hold at least {@code n * sampleBytes} bytes.
+     *
+     * @param in     The samples
+     * @param inOff  Offset into the samples
+     * @param n      The amount of samples to pack
+     * @param out    PCM data
+     * @param off    Offset into the PCM data
+     * @param format The format of the PCM data
+     * @return int The amount of bytes written or -1 if there is no kernel for the
+     *         format
+     */
+    public static int pack(float[] in, int inOff, int n, byte[] out, int off, AudioFormat format) {
+        int bits = format.getSampleSizeInBits();
+        boolean be = format.isBigEndian();
         if (format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED) {
-            long shift = 64L - bps;
-            for (int i = 0; i < transfer.length; i++)
-                transfer[i] = ((transfer[i] << shift) >> shift);
-        } else {
-            for (int i = 0; i < transfer.length; i++) {
-                transfer[i] -= scale;
+            switch (bits) {
+                case 8 -> pack_s8(in, inOff, out, off, n);
+                case 16 -> {
+                    if (be)
+                        pack_s16be(in, inOff, out, off, n);
+                    else
+                        pack_s16le(in, inOff, out, off, n);
+                }
+                case 24 -> {
+                    if (be)
+                        pack_s24be(in, inOff, out, off, n);
+                    else
+                        pack_s24le(in, inOff, out, off, n);
+                }
+                case 32 -> {
+                    if (be)
+                        pack_s32be(in, inOff, out, off, n);
+                    else
+                        pack_s32le(in, inOff, out, off, n);
+                }
+                default -> {
+                    return -1;
+                }
             }
+            return n * (bits >> 3);
+        } else if (format.getEncoding() == AudioFormat.Encoding.PCM_UNSIGNED && bits == 8) {
+            pack_u8(in, inOff, out, off, n);
+            return n;
+        }
+        return -1;
+    }
+
+    /**
+     * @param x
+     * @return float x clipped to [-1, 1]
+     */
+    private static float clip(float x) {
+        return Math.max(-1F, Math.min(1F, x));
+    }
+
+    /**
+     * @param in
+     * @param off
+     * @param out
+     * @param o
+     * @param n
+     */
+    public static void unpack_u8(byte[] in, int off, float[] out, int o, int n) {
+        for (int i = 0; i < n; i++) {
+            out[o + i] = ((in[off + i] & 0xFF) - 128) * S8;
+        }
+    }
+
+    /**
+     * @param in
+     * @param off
+     * @param out
+     * @param o
+     * @param n
+     */
+    public static void unpack_s8(byte[] in, int off, float[] out, int o, int n) {
+        for (int i = 0; i < n; i++) {
+            out[o + i] = in[off + i] * S8;
+        }
+    }
+
+    /**
+     * @param in
+     * @param off
+     * @param out
+     * @param o
+     * @param n
+     */
+    public static void unpack_s16le(byte[] in, int off, float[] out, int o, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 2) {
+            out[o + i] = ((in[b] & 0xFF) | (in[b + 1] << 8)) * S16;
+        }
+    }
+
+    /**
+     * @param in
+     * @param off
+     * @param out
+     * @param o
+     * @param n
+     */
+    public static void unpack_s16be(byte[] in, int off, float[] out, int o, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 2) {
+            out[o + i] = ((in[b] << 8) | (in[b + 1] & 0xFF)) * S16;
+        }
+    }
+
+    /**
+     * @param in
+     * @param off
+     * @param out
+     * @param o
+     * @param n
+     */
+    public static void unpack_s24le(byte[] in, int off, float[] out, int o, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 3) {
+            out[o + i] = ((in[b] & 0xFF) | ((in[b + 1] & 0xFF) << 8) | (in[b + 2] << 16)) * S24;
+        }
+    }
+
+    /**
+     * @param in
+     * @param off
+     * @param out
+     * @param o
+     * @param n
+     */
+    public static void unpack_s24be(byte[] in, int off, float[] out, int o, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 3) {
+            out[o + i] = ((in[b] << 16) | ((in[b + 1] & 0xFF) << 8) | (in[b + 2] & 0xFF)) * S24;
+        }
+    }
+
+    /**
+     * @param in
+     * @param off
+     * @param out
+     * @param o
+     * @param n
+     */
+    public static void unpack_s32le(byte[] in, int off, float[] out, int o, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 4) {
+            out[o + i] = ((in[b] & 0xFF) | ((in[b + 1] & 0xFF) << 8) | ((in[b + 2] & 0xFF) << 16)
+                    | (in[b + 3] << 24)) * S32;
+        }
+    }
+
+    /**
+     * @param in
+     * @param off
+     * @param out
+     * @param o
+     * @param n
+     */
+    public static void unpack_s32be(byte[] in, int off, float[] out, int o, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 4) {
+            out[o + i] = ((in[b] << 24) | ((in[b + 1] & 0xFF) << 16) | ((in[b + 2] & 0xFF) << 8)
+                    | (in[b + 3] & 0xFF)) * S32;
         }
-        for (int i = 0; i < transfer.length; i++) {
-            cum[i] = ((float) transfer[i]) / scale;
+    }
+
+    /**
+     * @param in
+     * @param o
+     * @param out
+     * @param off
+     * @param n
+     */
+    public static void pack_u8(float[] in, int o, byte[] out, int off, int n) {
+        for (int i = 0; i < n; i++) {
+            out[off + i] = (byte) ((int) (clip(in[o + i]) * 127F) + 128);
+        }
+    }
+
+    /**
+     * @param in
+     * @param o
+     * @param out
+     * @param off
+     * @param n
+     */
+    public static void pack_s8(float[] in, int o, byte[] out, int off, int n) {
+        for (int i = 0; i < n; i++) {
+            out[off + i] = (byte) (clip(in[o + i]) * 127F);
         }
+    }
+
+    /**
+     * @param in
+     * @param o
+     * @param out
+     * @param off
+     * @param n
+     */
+    public static void pack_s16le(float[] in, int o, byte[] out, int off, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 2) {
+            int v = (int) (clip(in[o + i]) * 32767F);
+            out[b] = (byte) v;
+            out[b + 1] = (byte) (v >> 8);
+        }
+    }
+
+    /**
+     * @param in
+     * @param o
+     * @param out
+     * @param off
+     * @param n
+     */
+    public static void pack_s16be(float[] in, int o, byte[] out, int off, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 2) {
+            int v = (int) (clip(in[o + i]) * 32767F);
+            out[b] = (byte) (v >> 8);
+            out[b + 1] = (byte) v;
+        }
+    }
+
+    /**
+     * @param in
+     * @param o
+     * @param out
+     * @param off
+     * @param n
+     */
+    public static void pack_s24le(float[] in, int o, byte[] out, int off, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 3) {
+            int v = (int) (clip(in[o + i]) * 8388607F);
+            out[b] = (byte) v;
+            out[b + 1] = (byte) (v >> 8);
+            out[b + 2] = (byte) (v >> 16);
+        }
+    }
+
+    /**
+     * @param in
+     * @param o
+     * @param out
+     * @param off
+     * @param n
+     */
+    public static void pack_s24be(float[] in, int o, byte[] out, int off, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 3) {
+            int v = (int) (clip(in[o + i]) * 8388607F);
+            out[b] = (byte) (v >> 16);
+            out[b + 1] = (byte) (v >> 8);
+            out[b + 2] = (byte) v;
+        }
+    }
+
+    /**
+     * @param in
+     * @param o
+     * @param out
+     * @param off
+     * @param n
+     */
+    public static void pack_s32le(float[] in, int o, byte[] out, int off, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 4) {
+            // the float to int cast saturates, so +1.0 does not wrap around
+            int v = (int) (clip(in[o + i]) * 2147483648D);
+            out[b] = (byte) v;
+            out[b + 1] = (byte) (v >> 8);
+            out[b + 2] = (byte) (v >> 16);
+            out[b + 3] = (byte) (v >> 24);
+        }
+    }
+
+    /**
+     * @param in
+     * @param o
+     * @param out
+     * @param off
+     * @param n
+     */
+    public static void pack_s32be(float[] in, int o, byte[] out, int off, int n) {
+        for (int i = 0, b = off; i < n; i++, b += 4) {
+            int v = (int) (clip(in[o + i]) * 2147483648D);
+            out[b] = (byte) (v >> 24);
+            out[b + 1] = (byte) (v >> 16);
+            out[b + 2] = (byte) (v >> 8);
+            out[b + 3] = (byte) v;
+        }
+    }
+
+    /**
+     * The fallback for sample sizes without a kernel (for example 20 bit
+     * samples in 3 bytes). One pass, no allocation.
+     *
+     * @param in
+     * @param off
+     * @param n
+     * @param out
+     * @param o
+     * @param format
+     * @return int The amount of samples written
+     */
+    private static int unpack_generic(byte[] in, int off, int n, float[] out, int o, AudioFormat format) {
+        int bps = format.getSampleSizeInBits(), nb = normalize(bps);
+        boolean be = format.isBigEndian(), signed = format.getEncoding() == AudioFormat.Encoding.PCM_SIGNED;
+        float scale = 1F / (1L << (bps - 1));
+        int shift = 64 - bps;
+        for (int i = 0, b = off; i < n; i++, b += nb) {
+            long v = 0L;
+            for (int j = 0; j < nb; j++) {
+                v |= (in[be ? b + nb - 1 - j : b + j] & 0xFFL) << (8 * j);
+            }
+            out[o + i] = (signed ? (v << shift) >> shift : v - (1L << (bps - 1))) * scale;
+        }
+        return n;
+    }
+
+    /**
+     * @param buffer
+     * @param transfer Unused, kept for compatibility
+     * @param cum
+     * @param b_
+     * @param format
+     * @return float[]
+     * @deprecated Use {@link #unpack(byte[], int, int, float[], int, AudioFormat)}
+     *             which unpacks in a single pass without the transfer buffer
+     */
+    @Deprecated
+    public static float[] f_unpack(byte[] buffer, long[] transfer, float[] cum, int b_, AudioFormat format) {
+        unpack(buffer, 0, b_, cum, 0, format);
         return cum;
     }
 
+    /**
+     * A sine window of the given length. Tables are computed once
+     * per length and shared, so they must not be written to.
+     *
+     * @param len The length of the window
+     * @return float[] The window
+     */
+    public static float[] window(int len) {
+        float[] w = lastWindow;
+        if (w.length == len) {
+            return w;
+        }
+        w = windows.computeIfAbsent(len, l -> {
+            float[] t = new float[l];
+            for (int k = 0; k < l; k++) {
+                t[k] = l > 1 ? (float) Math.sin(Math.PI * k / (l - 1)) : 1F;
+            }
+            return t;
+        });
+        lastWindow = w;
+        return w;
+    }
+
     /**
      * @param cum
      * @param s_
      * @param format
-     * @return
+     * @return float[]
      */
     public static float[] window_func(float[] cum, int s_, AudioFormat format) {
         int chnls = format.getChannels();
-        int len = s_ / chnls;
+        float[] w = window(s_ / chnls);
 
         for (int i = 0, k, j; i < chnls; i++) {
-            for (j = i, k = 0; j < s_; j += chnls) {
-                cum[j] *= Math.sin(Math.PI * (k++) / (len - 1));
+            for (j = i, k = 0; j < s_ && k < w.length; j += chnls) {
+                cum[j] *= w[k++];
             }
         }
         return cum;
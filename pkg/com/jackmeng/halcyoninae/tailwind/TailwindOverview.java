@@ -0,0 +1,428 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.DiskCache;
+import com.jackmeng.halcyoninae.halcyon.utils.ProgramResourceManager;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The loudness of a whole track at a glance, for drawing a seek bar.
+ * <p>
+ * A track is decoded once in the background and every bucket of it keeps
+ * its peak and RMS as a byte each. Overviews are kept in memory and in a
+ * small file per track, keyed by a hash of the file, so a track that was
+ * seen before is only a read of a couple of kilobytes away. Once the files
+ * pass {@link #MAX_DISK_BYTES} the ones that were used least recently are
+ * deleted.
+ * <p>
+ * Making an overview runs on a single low priority thread that sleeps as
+ * long as it works, so decoding for playback always gets the processor
+ * first; asking for another track cancels the one that is being made.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class TailwindOverview {
+    /**
+     * The most buckets an overview has
+     */
+    public static final int BUCKETS = 1024;
+    /**
+     * The folder the overviews are kept in
+     */
+    public static final String OVERVIEW_FOLDER = ProgramResourceManager.PROGRAM_RESOURCE_FOLDER
+            + ProgramResourceManager.FILE_SLASH + ProgramResourceManager.RESOURCE_SUBFOLDERS[2]
+            + ProgramResourceManager.FILE_SLASH + "overview";
+    /**
+     * The amount of bytes of overviews to keep on disk
+     */
+    public static final long MAX_DISK_BYTES = 16L * 1024L * 1024L;
+    private static final int MAGIC = 0x48574156, HEADER = 2 * Integer.BYTES;
+    // frames read at once, samples looked at per second and per partial bucket
+    private static final int CHUNK_FRAMES = 4096, ANALYSIS_RATE = 11025, PARTIAL_SAMPLES = 256;
+    private static final long MAX_PAUSE_NANOS = 50_000_000L;
+
+    /**
+     * The levels of the buckets of a track, from 0 to 255.
+     *
+     * @param peaks The highest absolute sample of each bucket
+     * @param rms   The root mean square of each bucket
+     * @author Jack Meng
+     * @since 3.4.1
+     */
+    public record Overview(byte[] peaks, byte[] rms) {
+        /**
+         * @return int The amount of buckets
+         */
+        public int size() {
+            return peaks.length;
+        }
+
+        /**
+         * @param from Where the range starts as a fraction of the track
+         * @param to   Where the range ends as a fraction of the track
+         * @return float The highest peak in the range from 0 to 1
+         */
+        public float peak(float from, float to) {
+            return max(peaks, from, to);
+        }
+
+        /**
+         * @param from Where the range starts as a fraction of the track
+         * @param to   Where the range ends as a fraction of the track
+         * @return float The highest RMS in the range from 0 to 1
+         */
+        public float rms(float from, float to) {
+            return max(rms, from, to);
+        }
+
+        /**
+         * @return float The highest RMS of the track from 0 to 1
+         */
+        public float maxRms() {
+            return max(rms, 0F, 1F);
+        }
+
+        /**
+         * @param levels
+         * @param from
+         * @param to
+         * @return float
+         */
+        private static float max(byte[] levels, float from, float to) {
+            int n = levels.length;
+            if (n == 0) {
+                return 0F;
+            }
+            int a = Math.max(0, Math.min(n - 1, (int) (from * n))), b = Math.min(n, (int) Math.ceil(to * n));
+            int m = 0;
+            for (int i = a; i < Math.max(a + 1, b); i++) {
+                m = Math.max(m, levels[i] & 0xFF);
+            }
+            return m / 255F;
+        }
+    }
+
+    private static final Cache<String, Overview> memory = Caffeine.newBuilder().maximumSize(256).build();
+    private static final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Halcyon Overview");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private static final AtomicLong requests = new AtomicLong();
+    private static final DiskCache disk = new DiskCache(OVERVIEW_FOLDER, ".overview", MAX_DISK_BYTES);
+
+    private TailwindOverview() {
+    }
+
+    /**
+     * @param f The audio file
+     * @return Overview The overview from memory or disk or null if it was never
+     *         made
+     */
+    public static Overview cached(File f) {
+        String key = key(f);
+        Overview o = memory.getIfPresent(key);
+        if (o == null && (o = read(disk.file(key))) != null) {
+            memory.put(key, o);
+        }
+        return o;
+    }
+
+    /**
+     * Returns the cached overview or makes it in the background, cancelling
+     * whatever overview was asked for before.
+     *
+     * @param f The audio file
+     * @return CompletableFuture The overview, cancelled if another one was
+     *         asked for first or the file could not be decoded
+     */
+    public static CompletableFuture<Overview> get(File f) {
+        Overview o = cached(f);
+        if (o != null) {
+            requests.incrementAndGet();
+            return CompletableFuture.completedFuture(o);
+        }
+        long id = requests.incrementAndGet();
+        CompletableFuture<Overview> future = new CompletableFuture<>();
+        worker.execute(() -> {
+            BooleanSupplier cancelled = () -> future.isDone() || requests.get() != id;
+            if (cancelled.getAsBoolean()) {
+                future.cancel(false);
+                return;
+            }
+            try {
+                Overview made = make(f, cancelled);
+                if (made == null) {
+                    future.cancel(false);
+                    return;
+                }
+                String key = key(f);
+                memory.put(key, made);
+                write(key, made);
+                Debugger.info("TailwindOverview> Made the overview for: " + f.getAbsolutePath());
+                future.complete(made);
+            } catch (IOException | RuntimeException e) {
+                Debugger.warn("TailwindOverview> Could not read: " + f.getAbsolutePath());
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Stops making the overview that was asked for last.
+     */
+    public static void cancel() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * @param f
+     * @return String A hash of the path, size and modification time of the file
+     */
+    private static String key(File f) {
+        String id;
+        try {
+            BasicFileAttributes attrs = Files.readAttributes(f.toPath(), BasicFileAttributes.class);
+            id = f.getAbsolutePath() + ":" + attrs.size() + ":" + attrs.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            id = f.getAbsolutePath() + ":" + f.length() + ":" + f.lastModified();
+        }
+        String hash = DiskCache.sha1(id.getBytes(StandardCharsets.UTF_8));
+        return hash != null ? hash : Integer.toHexString(id.hashCode());
+    }
+
+    /**
+     * Decodes the whole file and measures it, looking at about
+     * {@link #ANALYSIS_RATE} samples per second.
+     *
+     * @param f         The audio file
+     * @param cancelled Checked after every read
+     * @return Overview The overview or null if it was cancelled or the file is not
+     *         PCM
+     * @throws IOException
+     */
+    static Overview make(File f, BooleanSupplier cancelled) throws IOException {
+        TailwindSource source = TailwindHelper.getSource(f);
+        try {
+            AudioInputStream ais = source.getStream();
+            AudioFormat fmt = ais.getFormat();
+            int fs = fmt.getFrameSize(), ch = fmt.getChannels();
+            if (fs <= 0 || ch <= 0) {
+                return null;
+            }
+            int stride = Math.max(1, Math.round(fmt.getFrameRate() / ANALYSIS_RATE));
+            byte[] buf = new byte[CHUNK_FRAMES * fs];
+            float[] samples = new float[CHUNK_FRAMES * ch];
+            float[] peaks = new float[BUCKETS];
+            double[] sums = new double[BUCKETS];
+            int partials = 0, n = 0, phase = 0;
+            float peak = 0F;
+            double sum = 0D;
+            while (true) {
+                long start = System.nanoTime();
+                int len = fill(ais, buf), frames = len / fs;
+                if (frames <= 0) {
+                    break;
+                }
+                if (cancelled.getAsBoolean()
+                        || TailwindMath.unpack(buf, 0, frames * fs, samples, 0, fmt) < 0) {
+                    return null;
+                }
+                int i = phase;
+                for (; i < frames; i += stride) {
+                    float s = 0F;
+                    for (int c = 0, k = i * ch; c < ch; c++) {
+                        s += samples[k + c];
+                    }
+                    s /= ch;
+                    peak = Math.max(peak, Math.abs(s));
+                    sum += s * s;
+                    if (++n == PARTIAL_SAMPLES) {
+                        if (partials == peaks.length) {
+                            peaks = Arrays.copyOf(peaks, partials * 2);
+                            sums = Arrays.copyOf(sums, partials * 2);
+                        }
+                        peaks[partials] = peak;
+                        sums[partials++] = sum;
+                        peak = 0F;
+                        sum = 0D;
+                        n = 0;
+                    }
+                }
+                phase = i - frames;
+                // give the processor back for as long as we took it
+                LockSupport.parkNanos(Math.min(MAX_PAUSE_NANOS, System.nanoTime() - start));
+            }
+            if (n > 0) {
+                if (partials == peaks.length) {
+                    peaks = Arrays.copyOf(peaks, partials + 1);
+                    sums = Arrays.copyOf(sums, partials + 1);
+                }
+                peaks[partials] = peak;
+                // scaled up so a short last bucket is not quieter than it sounds
+                sums[partials++] = sum * PARTIAL_SAMPLES / n;
+            }
+            return reduce(peaks, sums, partials);
+        } finally {
+            source.close();
+        }
+    }
+
+    /**
+     * @param ais
+     * @param buf
+     * @return int The amount of bytes read, less than the buffer only at the end
+     * @throws IOException
+     */
+    private static int fill(AudioInputStream ais, byte[] buf) throws IOException {
+        int off = 0, i;
+        while (off < buf.length && (i = ais.read(buf, off, buf.length - off)) > 0) {
+            off += i;
+        }
+        return off;
+    }
+
+    /**
+     * Merges the partial buckets into at most {@link #BUCKETS} buckets.
+     *
+     * @param peaks
+     * @param sums
+     * @param partials
+     * @return Overview
+     */
+    private static Overview reduce(float[] peaks, double[] sums, int partials) {
+        int buckets = Math.min(BUCKETS, partials);
+        byte[] p = new byte[buckets], r = new byte[buckets];
+        for (int b = 0; b < buckets; b++) {
+            int from = (int) ((long) b * partials / buckets), to = (int) ((long) (b + 1) * partials / buckets);
+            float peak = 0F;
+            double sum = 0D;
+            for (int i = from; i < to; i++) {
+                peak = Math.max(peak, peaks[i]);
+                sum += sums[i];
+            }
+            p[b] = quantize(peak);
+            r[b] = quantize((float) Math.sqrt(sum / ((to - from) * (double) PARTIAL_SAMPLES)));
+        }
+        return new Overview(p, r);
+    }
+
+    /**
+     * @param v
+     * @return byte
+     */
+    private static byte quantize(float v) {
+        return (byte) Math.round(Math.max(0F, Math.min(1F, v)) * 255F);
+    }
+
+    /**
+     * @param f The overview file
+     * @return Overview The overview or null if there is no (valid) file
+     */
+    private static Overview read(File f) {
+        // a couple of kilobytes, a single read is cheaper than looking at the
+        // file first or mapping it
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + 2 * BUCKETS + 1);
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && ch.read(buffer) > 0) {
+            }
+            buffer.flip();
+            if (buffer.remaining() < HEADER || buffer.getInt() != MAGIC) {
+                return null;
+            }
+            int buckets = buffer.getInt();
+            if (buckets < 0 || buckets > BUCKETS || buffer.remaining() != 2 * buckets) {
+                return null;
+            }
+            byte[] p = new byte[buckets], r = new byte[buckets];
+            buffer.get(p).get(r);
+            disk.touch(f);
+            return new Overview(p, r);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            Debugger.warn("TailwindOverview> Could not read: " + f.getAbsolutePath());
+            return null;
+        }
+    }
+
+    /**
+     * @param key The key of the overview
+     * @param o   The overview
+     */
+    private static void write(String key, Overview o) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER + 2 * o.size());
+        buffer.putInt(MAGIC).putInt(o.size()).put(o.peaks()).put(o.rms());
+        buffer.rewind();
+        disk.write(key, buffer);
+    }
+
+    /**
+     * Drops the overviews in memory, the files are kept.
+     */
+    public static void clear() {
+        memory.invalidateAll();
+    }
+}
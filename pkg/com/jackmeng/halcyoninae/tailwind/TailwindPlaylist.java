@@ -40,6 +40,7 @@
 package com.jackmeng.halcyoninae.tailwind;
 
 import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+import com.jackmeng.halcyoninae.halcyon.utils.Wrapper;
 import com.jackmeng.halcyoninae.tailwind.TailwindEvent.TailwindStatus;
 
 import java.io.File;
@@ -51,6 +52,12 @@ import java.util.List;
  * <p>
  * This media player is intended to be constantly fed a list
  * of media to play and can then keep track of what it had played.
+ * <p>
+ * What comes after a track is the same track when looping, otherwise the next
+ * one in the history when auto play is on, otherwise nothing and playback
+ * stops. In gapless mode (the default) that track is queued on the player as
+ * soon as a track starts playing, so the two are played back to back on the
+ * same line; without it the track is opened once the previous one ended.
  *
  * @author Jack Meng
  * @since 3.2
@@ -58,9 +65,10 @@ import java.util.List;
  */
 public class TailwindPlaylist extends Tailwind implements TailwindListener.StatusUpdateListener {
     private final List<File> history;
-    private boolean loop     = false, autoPlay = false;
+    private boolean loop     = false, autoPlay = false, gapless = true;
     private int pointer      = 0;
     private float gain;
+    private volatile boolean queueing;
     private File currentFile = new File(".");
 
     public TailwindPlaylist() {
@@ -81,6 +89,7 @@ public class TailwindPlaylist extends Tailwind implements TailwindListener.Statu
         }
         if (!this.currentFile.getAbsolutePath().equals(f.getAbsolutePath())) {
             history.add(f);
+            pointer = history.size() - 1;
             this.currentFile = f;
             open(f);
             if (!Float.isNaN(gain)) {
@@ -111,7 +120,8 @@ public class TailwindPlaylist extends Tailwind implements TailwindListener.Statu
             if (isOpen()) {
                 close();
             }
-            open(history.get(pointer));
+            currentFile = history.get(pointer);
+            open(currentFile);
             play();
             state = true;
         }
@@ -127,7 +137,8 @@ public class TailwindPlaylist extends Tailwind implements TailwindListener.Statu
             if (isOpen()) {
                 close();
             }
-            open(history.get(pointer));
+            currentFile = history.get(pointer);
+            open(currentFile);
             play();
             state = true;
         }
@@ -186,6 +197,74 @@ public class TailwindPlaylist extends Tailwind implements TailwindListener.Statu
      */
     public void setLoop(boolean loop) {
         this.loop = loop;
+        refreshNext();
+    }
+
+    /**
+     * @return boolean
+     */
+    public boolean isGapless() {
+        return gapless;
+    }
+
+    /**
+     * @param gapless
+     */
+    public void setGapless(boolean gapless) {
+        this.gapless = gapless;
+        refreshNext();
+    }
+
+    /**
+     * Without loop the next file of the history only follows when auto play
+     * is on, otherwise playback stops at the end of the track.
+     *
+     * @return File The file that should follow the current one or null
+     */
+    private File nextTrack() {
+        if (loop) {
+            return currentFile;
+        }
+        return autoPlay && pointer >= 0 && pointer < history.size() - 1 ? history.get(pointer + 1) : null;
+    }
+
+    /**
+     * Queues whatever should follow the current track
+     * (dropping anything that was queued before).
+     */
+    private void refreshNext() {
+        clearNext();
+        File next = nextTrack();
+        if (gapless && isOpen() && next != null) {
+            queueing = true;
+            Wrapper.async(() -> {
+                if (next.equals(nextTrack()) && queueNext(next)) {
+                    Debugger.good("Gapless queued: " + next.getAbsolutePath());
+                }
+                queueing = false;
+            });
+        }
+    }
+
+    /**
+     * @param f
+     */
+    @Override
+    protected void onAdvance(File f) {
+        follow(f);
+        refreshNext();
+    }
+
+    /**
+     * Moves the playlist onto the track that followed the current one.
+     *
+     * @param f The track from {@link #nextTrack()}
+     */
+    private void follow(File f) {
+        if (!loop) {
+            pointer += 1;
+        }
+        this.currentFile = f;
     }
 
     /**
@@ -200,6 +279,7 @@ public class TailwindPlaylist extends Tailwind implements TailwindListener.Statu
      */
     public void setAutoPlay(boolean autoPlay) {
         this.autoPlay = autoPlay;
+        refreshNext();
     }
 
     /**
@@ -207,11 +287,19 @@ public class TailwindPlaylist extends Tailwind implements TailwindListener.Statu
      */
     @Override
     public void statusUpdate(TailwindStatus status) {
-        if (loop && status.equals(TailwindStatus.END)) {
-            rawPlay(currentFile);
-        } else if (status.equals(TailwindStatus.END)) {
-            stop();
-            close();
+        if (status.equals(TailwindStatus.PLAYING) && !hasNext() && !queueing) {
+            refreshNext();
+        }
+        if (status.equals(TailwindStatus.END)) {
+            // nothing was queued (not gapless or the track could not be queued)
+            File next = nextTrack();
+            if (next != null) {
+                follow(next);
+                rawPlay(next);
+            } else {
+                stop();
+                close();
+            }
         }
     }
 }
@@ -0,0 +1,131 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import org.tritonus.dsp.interfaces.FloatSampleProcessor;
+import org.tritonus.share.sampled.FloatSampleBuffer;
+
+/**
+ * Changes the sample rate of a stream of float buffers with linear
+ * interpolation, keeping the phase and the last sample of every channel
+ * between buffers so that there are no clicks at the buffer borders.
+ * <p>
+ * A target rate of 0 (or the rate of the buffer itself) passes the
+ * buffer through untouched.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class TailwindResampler implements FloatSampleProcessor, TailwindDSPChain.Stateful {
+    private volatile float targetRate;
+    private volatile boolean reset;
+    private float[] last = new float[0];
+    private float[] scratch = new float[0];
+    private double phase;
+
+    /**
+     * @param rate The sample rate to convert to or 0 to pass through
+     */
+    public void setTargetRate(float rate) {
+        this.targetRate = rate;
+    }
+
+    /**
+     * @return float
+     */
+    public float getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * Forgets the history, for example after a seek. It is dropped by the
+     * thread that processes before the next buffer.
+     */
+    @Override
+    public void reset() {
+        reset = true;
+    }
+
+    /**
+     * @param buffer
+     */
+    @Override
+    public void process(FloatSampleBuffer buffer) {
+        float to = targetRate, from = buffer.getSampleRate();
+        int n = buffer.getSampleCount(), channels = buffer.getChannelCount();
+        if (reset) {
+            reset = false;
+            phase = 0D;
+            java.util.Arrays.fill(last, 0F);
+        }
+        if (to <= 0F || to == from || n == 0) {
+            return;
+        }
+        if (last.length != channels) {
+            last = new float[channels];
+        }
+        double step = from / to;
+        // input index -1 is the last sample of the previous buffer, every output
+        // needs the sample after it so the last usable position is right before n - 1
+        int out = (int) Math.max(0L, (long) Math.ceil((n - 1 - phase) / step));
+        if (scratch.length < n) {
+            scratch = new float[n];
+        }
+        double endPhase = phase + out * step - n;
+        buffer.changeSampleCount(Math.max(out, n), true);
+        for (int ch = 0; ch < channels; ch++) {
+            float[] x = buffer.getChannel(ch);
+            System.arraycopy(x, 0, scratch, 0, n);
+            float prev = last[ch];
+            double p = phase;
+            for (int i = 0; i < out; i++, p += step) {
+                // p is relative to the current buffer, -1 <= p < n - 1
+                int k = (int) Math.floor(p);
+                float frac = (float) (p - k);
+                float a = k < 0 ? prev : scratch[k], b = scratch[k + 1];
+                x[i] = a + (b - a) * frac;
+            }
+            last[ch] = scratch[n - 1];
+        }
+        phase = endPhase;
+        buffer.setSampleCount(out, true);
+        buffer.setSampleRate(to);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * A decoded audio source that knows how to reposition itself
+ * without decoding everything before the target.
+ * <p>
+ * Every implementation hands out an {@link AudioInputStream} that
+ * already produces PCM data. A call to {@link #seek(long)} invalidates
+ * the previously returned stream and returns a new one that starts
+ * at (or as close as the container allows to) the requested frame.
+ * <p>
+ * Implementations are picked by {@link TailwindHelper#getSource(java.io.File)}
+ * based on the container format.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public interface TailwindSource extends Closeable {
+    /**
+     * @return The current PCM stream of this source
+     */
+    AudioInputStream getStream();
+
+    /**
+     * @return The PCM format that {@link #getStream()} produces
+     */
+    AudioFormat getFormat();
+
+    /**
+     * @return The total amount of PCM frames or -1 if it is not known
+     */
+    long getFrameLength();
+
+    /**
+     * @return (true || false) if this source can seek without a linear scan
+     */
+    boolean isSeekable();
+
+    /**
+     * Repositions the source to the given PCM frame.
+     *
+     * @param frame The target frame (clamped to the known bounds)
+     * @return The new stream which starts at the target frame
+     * @throws IOException If the underlying file could not be repositioned
+     */
+    AudioInputStream seek(long frame) throws IOException;
+
+    /**
+     * Reads and throws away a certain amount of bytes from
+     * a decoded stream. This is used to land on the exact frame after
+     * a container level seek that can only land on a page or frame boundary.
+     *
+     * @param ais   The stream to drain
+     * @param bytes The amount of bytes to throw away
+     * @throws IOException If the stream failed to be read
+     */
+    static void discard(AudioInputStream ais, long bytes) throws IOException {
+        int frameSize = Math.max(1, ais.getFormat().getFrameSize());
+        byte[] scratch = new byte[(int) Math.min(bytes, 16384L / frameSize * frameSize)];
+        int i;
+        while (bytes > 0 && (i = ais.read(scratch, 0, (int) Math.min(bytes, scratch.length))) > 0) {
+            bytes -= i;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import com.jackmeng.halcyoninae.halcyon.utils.ExternalResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A small pool of idle {@link TailwindSource}s that lets a player
+ * pick up a file it played recently (looping, going back or forth
+ * in a playlist) without parsing the container all over again.
+ * <p>
+ * A source that is handed back is kept open and rewound on the next
+ * {@link #acquire(File)}. Once the pool is full the least recently used
+ * source is closed.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public class TailwindSourcePool {
+    /**
+     * The default amount of idle sources that are kept
+     */
+    public static final int DEFAULT_CAPACITY = 4;
+    private final int capacity;
+    private final LinkedHashMap<String, TailwindSource> idle;
+
+    public TailwindSourcePool() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity The amount of idle sources to keep
+     */
+    public TailwindSourcePool(int capacity) {
+        this.capacity = capacity;
+        this.idle = new LinkedHashMap<>(capacity + 1, 0.75F, true);
+    }
+
+    /**
+     * @param f
+     * @return String A key that changes if the file was modified
+     */
+    private static String key(File f) {
+        return f.getAbsolutePath() + ":" + f.lastModified() + ":" + f.length();
+    }
+
+    /**
+     * @param f The file to get a source for
+     * @return TailwindSource A pooled source rewound to the start or a new one
+     * @throws IOException If no source could be made for the file
+     */
+    public TailwindSource acquire(File f) throws IOException {
+        TailwindSource s;
+        synchronized (idle) {
+            s = idle.remove(key(f));
+        }
+        if (s != null) {
+            try {
+                s.seek(0L);
+                return s;
+            } catch (IOException e) {
+                quietClose(s);
+            }
+        }
+        return TailwindHelper.getSource(f);
+    }
+
+    /**
+     * Hands a source back to the pool. Sources that convert
+     * to a specific line format are closed instead, as they would
+     * not fit any other line.
+     *
+     * @param f The file the source reads
+     * @param s The source
+     */
+    public void release(File f, TailwindSource s) {
+        if (s == null) {
+            return;
+        }
+        if (f == null || capacity <= 0 || s instanceof TailwindFormatAdapter) {
+            quietClose(s);
+            return;
+        }
+        TailwindSource old;
+        synchronized (idle) {
+            old = idle.put(key(f), s);
+            Iterator<Map.Entry<String, TailwindSource>> it = idle.entrySet().iterator();
+            while (idle.size() > capacity && it.hasNext()) {
+                quietClose(it.next().getValue());
+                it.remove();
+            }
+        }
+        if (old != null && old != s) {
+            quietClose(old);
+        }
+    }
+
+    /**
+     * Closes every idle source.
+     */
+    public void clear() {
+        synchronized (idle) {
+            idle.values().forEach(TailwindSourcePool::quietClose);
+            idle.clear();
+        }
+    }
+
+    /**
+     * @param s
+     */
+    private static void quietClose(TailwindSource s) {
+        try {
+            s.close();
+        } catch (IOException e) {
+            ExternalResource.dispatchLog(e);
+        }
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import com.jackmeng.halcyoninae.halcyon.utils.Debugger;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns what a {@link TailwindTap} sees into the levels of log spaced
+ * frequency bands for the {@link TailwindListener.SpectrumListener}s.
+ * <p>
+ * The analysis runs on its own thread at a fixed frame rate and only while
+ * someone is listening: the latest frames are mixed to mono, windowed and
+ * transformed, each band takes its loudest bin (in dB, scaled to [0, 1])
+ * and falls off slowly instead of jumping down. Once the audio stops the
+ * bands decay to nothing.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class TailwindSpectrum {
+    /**
+     * The amount of frames per transform
+     */
+    public static final int FFT_SIZE = 2048;
+    /**
+     * The default amount of bands
+     */
+    public static final int DEFAULT_BANDS = 48;
+    /**
+     * The default amount of updates per second
+     */
+    public static final int DEFAULT_FRAME_RATE = 40;
+    public static final float MIN_FREQ = 30F, MAX_FREQ = 16000F, FLOOR_DB = -70F;
+    /**
+     * How much of the full scale a band may fall per second
+     */
+    public static final float DECAY = 1.2F;
+    private static final long STALE_NANOS = 250_000_000L;
+
+    private final TailwindTap tap;
+    private final List<TailwindListener.SpectrumListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledThreadPoolExecutor timer;
+    private ScheduledFuture<?> task;
+    private volatile int bands = DEFAULT_BANDS, frameRate = DEFAULT_FRAME_RATE;
+    // only touched by the timer
+    private final TailwindFFT fft = new TailwindFFT(FFT_SIZE);
+    private final float[] mono = new float[FFT_SIZE], mags = new float[FFT_SIZE / 2 + 1];
+    private final float norm;
+    private byte[] pcm = new byte[0];
+    private float[] samples = new float[0], levels = new float[0], out = new float[0];
+    private int[] from, to;
+    private float edgesRate;
+    private long lastWritten, lastWrite, lastTick;
+
+    /**
+     * @param tap Where the audio comes from
+     */
+    public TailwindSpectrum(TailwindTap tap) {
+        this.tap = tap;
+        float sum = 0F;
+        for (float w : TailwindMath.window(FFT_SIZE)) {
+            sum += w;
+        }
+        norm = 2F / sum;
+        timer = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "Tailwind Spectrum");
+            t.setDaemon(true);
+            return t;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * @param bands The amount of bands listeners get
+     */
+    public void setBands(int bands) {
+        this.bands = Math.max(1, bands);
+    }
+
+    /**
+     * @return int The amount of bands listeners get
+     */
+    public int getBands() {
+        return bands;
+    }
+
+    /**
+     * @param fps The amount of updates per second, takes effect when the
+     *            analysis is restarted
+     */
+    public void setFrameRate(int fps) {
+        this.frameRate = Math.max(1, Math.min(240, fps));
+    }
+
+    /**
+     * Starts the analysis if this is the first listener.
+     *
+     * @param l A listener that is called from the analysis thread
+     */
+    public synchronized void addListener(TailwindListener.SpectrumListener l) {
+        listeners.add(l);
+        if (task == null) {
+            task = timer.scheduleAtFixedRate(this::tick, 0L, 1000000L / frameRate, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /**
+     * Stops the analysis if this was the last listener.
+     *
+     * @param l A listener that was added before
+     */
+    public synchronized void removeListener(TailwindListener.SpectrumListener l) {
+        listeners.remove(l);
+        if (listeners.isEmpty() && task != null) {
+            task.cancel(false);
+            task = null;
+        }
+    }
+
+    private void tick() {
+        try {
+            long now = System.nanoTime();
+            float dt = lastTick == 0L ? 0F : Math.min(1F, (now - lastTick) / 1E9F);
+            lastTick = now;
+            int n = bands;
+            if (levels.length != n) {
+                levels = new float[n];
+                out = new float[n];
+                edgesRate = 0F;
+            }
+            long written = tap.getWritten();
+            if (written != lastWritten) {
+                lastWritten = written;
+                lastWrite = now;
+            }
+            // periods are written in bursts, only a tap that stayed still for a
+            // while means the audio stopped
+            if (now - lastWrite > STALE_NANOS || !analyze()) {
+                Arrays.fill(out, 0F);
+            }
+            for (int i = 0; i < n; i++) {
+                levels[i] = Math.max(out[i], levels[i] - DECAY * dt);
+                out[i] = levels[i];
+            }
+            for (TailwindListener.SpectrumListener l : listeners) {
+                l.spectrumUpdate(out);
+            }
+        } catch (RuntimeException e) {
+            // a broken listener should not stop the timer for everyone else
+            Debugger.log(e);
+        }
+    }
+
+    /**
+     * Fills {@code out} with the levels of the latest audio.
+     *
+     * @return boolean If there was audio to look at
+     */
+    private boolean analyze() {
+        AudioFormat f = tap.getFormat();
+        if (f == null) {
+            return false;
+        }
+        int ch = f.getChannels();
+        if (pcm.length < FFT_SIZE * f.getFrameSize()) {
+            pcm = new byte[FFT_SIZE * f.getFrameSize()];
+        }
+        if (samples.length < FFT_SIZE * ch) {
+            samples = new float[FFT_SIZE * ch];
+        }
+        f = tap.read(pcm, FFT_SIZE);
+        if (f == null || f.getChannels() != ch
+                || TailwindMath.unpack(pcm, 0, FFT_SIZE * f.getFrameSize(), samples, 0, f) < 0) {
+            return false;
+        }
+        float[] win = TailwindMath.window(FFT_SIZE);
+        for (int i = 0, k = 0; i < FFT_SIZE; i++) {
+            float s = 0F;
+            for (int c = 0; c < ch; c++) {
+                s += samples[k++];
+            }
+            mono[i] = s / ch * win[i];
+        }
+        fft.magnitudes(mono, mags);
+        if (edgesRate != f.getSampleRate()) {
+            edges(f.getSampleRate());
+        }
+        for (int b = 0; b < out.length; b++) {
+            float peak = 0F;
+            for (int k = from[b]; k < to[b]; k++) {
+                peak = Math.max(peak, mags[k]);
+            }
+            float db = TailwindMath.linear_to_db(peak * norm);
+            out[b] = Math.max(0F, Math.min(1F, (db - FLOOR_DB) / -FLOOR_DB));
+        }
+        return true;
+    }
+
+    /**
+     * Spreads the bands logarithmically between {@link #MIN_FREQ} and
+     * {@link #MAX_FREQ} (or Nyquist), bands narrower than a bin share it.
+     *
+     * @param rate The sample rate
+     */
+    private void edges(float rate) {
+        int n = out.length, last = FFT_SIZE / 2;
+        float binWidth = rate / FFT_SIZE, hi = Math.min(MAX_FREQ, rate / 2F);
+        double ratio = Math.pow(hi / MIN_FREQ, 1D / n);
+        from = new int[n];
+        to = new int[n];
+        for (int b = 0; b < n; b++) {
+            double lo = MIN_FREQ * Math.pow(ratio, b);
+            from[b] = (int) Math.min(last, Math.round(lo / binWidth));
+            to[b] = (int) Math.min(last + 1, Math.max(from[b] + 1, Math.round(lo * ratio / binWidth)));
+        }
+        edgesRate = rate;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Halcyon ~ exoad
+ *
+ * A simplistic & robust audio library that
+ * is created OPENLY and distributed in hopes
+ * that it will be benefitial.
+ * ============================================
+ * Copyright (C) 2021 Jack Meng
+ * ============================================
+ * The VENDOR_LICENSE is defined as:
+ * "Standard Halcyoninae Protective 1.0 (MODIFIED) License or
+ * later"
+ *
+ * Subsiding Wrappers are defined as:
+ * "GUI Wrappers, Audio API Wrappers provided within the base
+ * build of the original software"
+ * ============================================
+ * The Halcyon Audio API & subsiding wrappers
+ * are licensed under the provided VENDOR_LICENSE
+ * You are permitted to redistribute and/or modify this
+ * piece of software in the source or binary form under
+ * the VENDOR_LICENSE. You are permitted to link this
+ * software statically or dynamically under the descriptions
+ * of VENDOR_LICENSE without classpath exception.
+ *
+ * THE SOFTWARE AND ALL SUBSETS ARE PROVIDED "AS IS", WITHOUT WARRANTY OF ANY
+ * KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO
+ * EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES
+ * OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE,
+ * ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ * ============================================
+ * If you did not receive a copy of the VENDOR_LICENSE,
+ * consult the following link:
+ * https://raw.githubusercontent.com/Halcyoninae/Halcyon/live/LICENSE.txt
+ * ============================================
+ */
+
+package com.jackmeng.halcyoninae.tailwind;
+
+import javax.sound.sampled.AudioFormat;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A tap on the PCM that is played, for anything that wants to look at the
+ * audio (like {@link TailwindSpectrum}) without slowing the playback down.
+ * <p>
+ * The render stage copies every period it plays into a ring that was
+ * allocated when the stream was opened and publishes how much it wrote,
+ * nothing more: it never waits, never locks and never allocates. The
+ * ring keeps the most recent audio and overwrites the oldest, a reader
+ * copies out the latest frames and checks afterwards that they were not
+ * overwritten while it copied.
+ *
+ * @author Jack Meng
+ * @since 3.4.1
+ */
+public final class TailwindTap {
+    /**
+     * The amount of frames kept.
+     */
+    public static final int CAPACITY_FRAMES = 1 << 16;
+
+    /**
+     * The ring of one stream format.
+     *
+     * @param format  The format of the PCM
+     * @param data    The ring, a power of two in size
+     * @param written The amount of bytes ever written into the ring
+     */
+    private record State(AudioFormat format, byte[] data, AtomicLong written) {
+    }
+
+    private volatile State state;
+    private volatile int latency;
+
+    /**
+     * Prepares the ring for a stream, called when a stream is opened and not
+     * by the audio thread.
+     *
+     * @param format The format of the PCM that will be written
+     */
+    public void setFormat(AudioFormat format) {
+        State s = state;
+        if (s != null && s.format.matches(format)) {
+            return;
+        }
+        int size = Integer.highestOneBit(Math.max(1, CAPACITY_FRAMES * format.getFrameSize() - 1)) << 1;
+        state = new State(format, new byte[size], new AtomicLong());
+    }
+
+    /**
+     * @param frames How many frames the device still has buffered after the
+     *               tap, so readers get what is audible instead of what was
+     *               just written
+     */
+    public void setLatency(int frames) {
+        latency = Math.max(0, frames);
+    }
+
+    /**
+     * @return AudioFormat The format of the PCM in the ring or null
+     */
+    public AudioFormat getFormat() {
+        State s = state;
+        return s == null ? null : s.format;
+    }
+
+    /**
+     * Copies played PCM into the ring, only ever called by the audio thread.
+     *
+     * @param pcm The PCM in the format of the ring
+     * @param len The amount of bytes, whole frames only
+     */
+    public void write(byte[] pcm, int len) {
+        State s = state;
+        if (s == null) {
+            return;
+        }
+        byte[] data = s.data;
+        int off = Math.max(0, len - data.length);
+        len -= off;
+        long w = s.written.get();
+        int pos = (int) (w & (data.length - 1)), first = Math.min(len, data.length - pos);
+        System.arraycopy(pcm, off, data, pos, first);
+        System.arraycopy(pcm, off + first, data, 0, len - first);
+        s.written.lazySet(w + off + len);
+    }
+
+    /**
+     * @return long The amount of bytes ever written, changes whenever audio
+     *         was played
+     */
+    public long getWritten() {
+        State s = state;
+        return s == null ? 0L : s.written.get();
+    }
+
+    /**
+     * Copies the frames that are audible right now.
+     *
+     * @param dst    Where the PCM is copied to
+     * @param frames The amount of frames
+     * @return AudioFormat The format of the copied PCM or null if there was not
+     *         enough audio or it was overwritten while copying
+     */
+    public AudioFormat read(byte[] dst, int frames) {
+        State s = state;
+        if (s == null) {
+            return null;
+        }
+        byte[] data = s.data;
+        int frameSize = s.format.getFrameSize(), len = frames * frameSize;
+        long written = s.written.get();
+        if (len > dst.length || len > data.length / 4 || written < len) {
+            return null;
+        }
+        long delay = Math.min(latency, CAPACITY_FRAMES / 4) * (long) frameSize;
+        long start = Math.max(len, written - delay) - len;
+        int pos = (int) (start & (data.length - 1)), first = Math.min(len, data.length - pos);
+        System.arraycopy(data, pos, dst, 0, first);
+        System.arraycopy(data, 0, dst, first, len - first);
+        // the writer may have lapped us meanwhile, a quarter of the ring is left
+        // as room for a period that is being written but not yet published
+        return s.written.get() - start <= data.length / 4 * 3 ? s.format : null;
+    }
+}